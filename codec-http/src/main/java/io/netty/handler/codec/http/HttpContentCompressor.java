@@ -16,8 +16,12 @@
 package io.netty.handler.codec.http;
 
 import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.Brotli;
+import io.netty.handler.codec.compression.BrotliEncoder;
 import io.netty.handler.codec.compression.ZlibCodecFactory;
 import io.netty.handler.codec.compression.ZlibWrapper;
+import io.netty.handler.codec.compression.Zstd;
+import io.netty.handler.codec.compression.ZstdEncoder;
 import io.netty.util.internal.StringUtil;
 
 /**
@@ -26,6 +30,10 @@ import io.netty.util.internal.StringUtil;
  * If there is no matching encoding, no compression is done.  For more
  * information on how this handler modifies the message, please refer to
  * {@link HttpContentEncoder}.
+ * <p>
+ * If {@code zstd-jni} or {@code brotli4j} are available (see {@link Zstd#isAvailable()} and
+ * {@link Brotli#isAvailable()}), the {@code zstd} and {@code br} encodings are used as well when the client
+ * explicitly accepts them with a quality value not lower than that of {@code gzip} and {@code deflate}.
  */
 public class HttpContentCompressor extends HttpContentEncoder {
 
@@ -100,6 +108,16 @@ public class HttpContentCompressor extends HttpContentEncoder {
             return null;
         }
 
+        String encoding = determineEncoding(acceptEncoding);
+        if (encoding != null) {
+            if (HttpHeaderValues.ZSTD.equalsIgnoreCase(encoding)) {
+                return new Result(encoding, new EmbeddedChannel(new ZstdEncoder()));
+            }
+            if (HttpHeaderValues.BR.equalsIgnoreCase(encoding)) {
+                return new Result(encoding, new EmbeddedChannel(new BrotliEncoder()));
+            }
+        }
+
         ZlibWrapper wrapper = determineWrapper(acceptEncoding);
         if (wrapper == null) {
             return null;
@@ -123,6 +141,52 @@ public class HttpContentCompressor extends HttpContentEncoder {
                         wrapper, compressionLevel, windowBits, memLevel)));
     }
 
+    /**
+     * Returns {@code "zstd"} or {@code "br"} if the specified {@code "Accept-Encoding"} header value prefers
+     * one of them over {@code gzip} and {@code deflate} and the encoder is available, {@code null} to fall
+     * back to {@link #determineWrapper(CharSequence)}.  On equal quality values {@code zstd} is preferred over
+     * {@code br} for its lower CPU cost.
+     */
+    protected String determineEncoding(CharSequence acceptEncoding) {
+        boolean zstdAvailable = Zstd.isAvailable();
+        boolean brotliAvailable = Brotli.isAvailable();
+        if (!zstdAvailable && !brotliAvailable) {
+            return null;
+        }
+
+        float zstdQ = -1.0f;
+        float brQ = -1.0f;
+        float zlibQ = -1.0f;
+        for (String encoding: StringUtil.split(acceptEncoding.toString(), ',')) {
+            float q = 1.0f;
+            int equalsPos = encoding.indexOf('=');
+            if (equalsPos != -1) {
+                try {
+                    q = Float.valueOf(encoding.substring(equalsPos + 1));
+                } catch (NumberFormatException e) {
+                    // Ignore encoding
+                    q = 0.0f;
+                }
+            }
+            int semicolonPos = encoding.indexOf(';');
+            String name = (semicolonPos != -1 ? encoding.substring(0, semicolonPos) : encoding).trim();
+            if (HttpHeaderValues.ZSTD.equalsIgnoreCase(name)) {
+                zstdQ = Math.max(zstdQ, q);
+            } else if (HttpHeaderValues.BR.equalsIgnoreCase(name)) {
+                brQ = Math.max(brQ, q);
+            } else if (encoding.contains("gzip") || encoding.contains("deflate")) {
+                zlibQ = Math.max(zlibQ, q);
+            }
+        }
+        if (zstdAvailable && zstdQ > 0.0f && zstdQ >= zlibQ && (!brotliAvailable || zstdQ >= brQ)) {
+            return HttpHeaderValues.ZSTD.toString();
+        }
+        if (brotliAvailable && brQ > 0.0f && brQ >= zlibQ) {
+            return HttpHeaderValues.BR.toString();
+        }
+        return null;
+    }
+
     @SuppressWarnings("FloatingPointEquality")
     protected ZlibWrapper determineWrapper(CharSequence acceptEncoding) {
         float starQ = -1.0f;
@@ -15,17 +15,24 @@
  */
 package io.netty.handler.codec.http;
 
+import static io.netty.handler.codec.http.HttpHeaderValues.BR;
 import static io.netty.handler.codec.http.HttpHeaderValues.DEFLATE;
 import static io.netty.handler.codec.http.HttpHeaderValues.GZIP;
 import static io.netty.handler.codec.http.HttpHeaderValues.X_DEFLATE;
 import static io.netty.handler.codec.http.HttpHeaderValues.X_GZIP;
+import static io.netty.handler.codec.http.HttpHeaderValues.ZSTD;
 import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.Brotli;
+import io.netty.handler.codec.compression.BrotliDecoder;
 import io.netty.handler.codec.compression.ZlibCodecFactory;
 import io.netty.handler.codec.compression.ZlibWrapper;
+import io.netty.handler.codec.compression.Zstd;
+import io.netty.handler.codec.compression.ZstdDecoder;
 
 /**
  * Decompresses an {@link HttpMessage} and an {@link HttpContent} compressed in
- * {@code gzip} or {@code deflate} encoding.  For more information on how this
+ * {@code gzip} or {@code deflate} encoding, or in {@code zstd} or {@code br} encoding if
+ * {@code zstd-jni} or {@code brotli4j} are available.  For more information on how this
  * handler modifies the message, please refer to {@link HttpContentDecoder}.
  */
 public class HttpContentDecompressor extends HttpContentDecoder {
@@ -60,6 +67,12 @@ public class HttpContentDecompressor extends HttpContentDecoder {
             // To be strict, 'deflate' means ZLIB, but some servers were not implemented correctly.
             return new EmbeddedChannel(ZlibCodecFactory.newZlibDecoder(wrapper));
         }
+        if (ZSTD.equalsIgnoreCase(contentEncoding) && Zstd.isAvailable()) {
+            return new EmbeddedChannel(new ZstdDecoder());
+        }
+        if (BR.equalsIgnoreCase(contentEncoding) && Brotli.isAvailable()) {
+            return new EmbeddedChannel(new BrotliDecoder());
+        }
 
         // 'identity' or unsupported
         return null;
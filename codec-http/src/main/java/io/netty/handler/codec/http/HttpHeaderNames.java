@@ -28,324 +28,342 @@ public final class HttpHeaderNames {
     /**
      * {@code "accept"}
      */
-    public static final AsciiString ACCEPT = new AsciiString("accept");
+    public static final AsciiString ACCEPT = newHeaderName("accept");
     /**
      * {@code "accept-charset"}
      */
-    public static final AsciiString ACCEPT_CHARSET = new AsciiString("accept-charset");
+    public static final AsciiString ACCEPT_CHARSET = newHeaderName("accept-charset");
     /**
      * {@code "accept-encoding"}
      */
-    public static final AsciiString ACCEPT_ENCODING = new AsciiString("accept-encoding");
+    public static final AsciiString ACCEPT_ENCODING = newHeaderName("accept-encoding");
     /**
      * {@code "accept-language"}
      */
-    public static final AsciiString ACCEPT_LANGUAGE = new AsciiString("accept-language");
+    public static final AsciiString ACCEPT_LANGUAGE = newHeaderName("accept-language");
     /**
      * {@code "accept-ranges"}
      */
-    public static final AsciiString ACCEPT_RANGES = new AsciiString("accept-ranges");
+    public static final AsciiString ACCEPT_RANGES = newHeaderName("accept-ranges");
     /**
      * {@code "accept-patch"}
      */
-    public static final AsciiString ACCEPT_PATCH = new AsciiString("accept-patch");
+    public static final AsciiString ACCEPT_PATCH = newHeaderName("accept-patch");
     /**
      * {@code "access-control-allow-credentials"}
      */
     public static final AsciiString ACCESS_CONTROL_ALLOW_CREDENTIALS =
-            new AsciiString("access-control-allow-credentials");
+            newHeaderName("access-control-allow-credentials");
     /**
      * {@code "access-control-allow-headers"}
      */
     public static final AsciiString ACCESS_CONTROL_ALLOW_HEADERS =
-            new AsciiString("access-control-allow-headers");
+            newHeaderName("access-control-allow-headers");
     /**
      * {@code "access-control-allow-methods"}
      */
     public static final AsciiString ACCESS_CONTROL_ALLOW_METHODS =
-            new AsciiString("access-control-allow-methods");
+            newHeaderName("access-control-allow-methods");
     /**
      * {@code "access-control-allow-origin"}
      */
     public static final AsciiString ACCESS_CONTROL_ALLOW_ORIGIN =
-            new AsciiString("access-control-allow-origin");
+            newHeaderName("access-control-allow-origin");
     /**
      * {@code "access-control-expose-headers"}
      */
     public static final AsciiString ACCESS_CONTROL_EXPOSE_HEADERS =
-            new AsciiString("access-control-expose-headers");
+            newHeaderName("access-control-expose-headers");
     /**
      * {@code "access-control-max-age"}
      */
-    public static final AsciiString ACCESS_CONTROL_MAX_AGE = new AsciiString("access-control-max-age");
+    public static final AsciiString ACCESS_CONTROL_MAX_AGE = newHeaderName("access-control-max-age");
     /**
      * {@code "access-control-request-headers"}
      */
     public static final AsciiString ACCESS_CONTROL_REQUEST_HEADERS =
-            new AsciiString("access-control-request-headers");
+            newHeaderName("access-control-request-headers");
     /**
      * {@code "access-control-request-method"}
      */
     public static final AsciiString ACCESS_CONTROL_REQUEST_METHOD =
-            new AsciiString("access-control-request-method");
+            newHeaderName("access-control-request-method");
     /**
      * {@code "age"}
      */
-    public static final AsciiString AGE = new AsciiString("age");
+    public static final AsciiString AGE = newHeaderName("age");
     /**
      * {@code "allow"}
      */
-    public static final AsciiString ALLOW = new AsciiString("allow");
+    public static final AsciiString ALLOW = newHeaderName("allow");
     /**
      * {@code "authorization"}
      */
-    public static final AsciiString AUTHORIZATION = new AsciiString("authorization");
+    public static final AsciiString AUTHORIZATION = newHeaderName("authorization");
     /**
      * {@code "cache-control"}
      */
-    public static final AsciiString CACHE_CONTROL = new AsciiString("cache-control");
+    public static final AsciiString CACHE_CONTROL = newHeaderName("cache-control");
     /**
      * {@code "connection"}
      */
-    public static final AsciiString CONNECTION = new AsciiString("connection");
+    public static final AsciiString CONNECTION = newHeaderName("connection");
     /**
      * {@code "content-base"}
      */
-    public static final AsciiString CONTENT_BASE = new AsciiString("content-base");
+    public static final AsciiString CONTENT_BASE = newHeaderName("content-base");
     /**
      * {@code "content-encoding"}
      */
-    public static final AsciiString CONTENT_ENCODING = new AsciiString("content-encoding");
+    public static final AsciiString CONTENT_ENCODING = newHeaderName("content-encoding");
     /**
      * {@code "content-language"}
      */
-    public static final AsciiString CONTENT_LANGUAGE = new AsciiString("content-language");
+    public static final AsciiString CONTENT_LANGUAGE = newHeaderName("content-language");
     /**
      * {@code "content-length"}
      */
-    public static final AsciiString CONTENT_LENGTH = new AsciiString("content-length");
+    public static final AsciiString CONTENT_LENGTH = newHeaderName("content-length");
     /**
      * {@code "content-location"}
      */
-    public static final AsciiString CONTENT_LOCATION = new AsciiString("content-location");
+    public static final AsciiString CONTENT_LOCATION = newHeaderName("content-location");
     /**
      * {@code "content-transfer-encoding"}
      */
-    public static final AsciiString CONTENT_TRANSFER_ENCODING = new AsciiString("content-transfer-encoding");
+    public static final AsciiString CONTENT_TRANSFER_ENCODING = newHeaderName("content-transfer-encoding");
     /**
      * {@code "content-disposition"}
      */
-    public static final AsciiString CONTENT_DISPOSITION = new AsciiString("content-disposition");
+    public static final AsciiString CONTENT_DISPOSITION = newHeaderName("content-disposition");
     /**
      * {@code "content-md5"}
      */
-    public static final AsciiString CONTENT_MD5 = new AsciiString("content-md5");
+    public static final AsciiString CONTENT_MD5 = newHeaderName("content-md5");
     /**
      * {@code "content-range"}
      */
-    public static final AsciiString CONTENT_RANGE = new AsciiString("content-range");
+    public static final AsciiString CONTENT_RANGE = newHeaderName("content-range");
     /**
      * {@code "content-type"}
      */
-    public static final AsciiString CONTENT_TYPE = new AsciiString("content-type");
+    public static final AsciiString CONTENT_TYPE = newHeaderName("content-type");
     /**
      * {@code "cookie"}
      */
-    public static final AsciiString COOKIE = new AsciiString("cookie");
+    public static final AsciiString COOKIE = newHeaderName("cookie");
     /**
      * {@code "date"}
      */
-    public static final AsciiString DATE = new AsciiString("date");
+    public static final AsciiString DATE = newHeaderName("date");
     /**
      * {@code "etag"}
      */
-    public static final AsciiString ETAG = new AsciiString("etag");
+    public static final AsciiString ETAG = newHeaderName("etag");
     /**
      * {@code "expect"}
      */
-    public static final AsciiString EXPECT = new AsciiString("expect");
+    public static final AsciiString EXPECT = newHeaderName("expect");
     /**
      * {@code "expires"}
      */
-    public static final AsciiString EXPIRES = new AsciiString("expires");
+    public static final AsciiString EXPIRES = newHeaderName("expires");
     /**
      * {@code "from"}
      */
-    public static final AsciiString FROM = new AsciiString("from");
+    public static final AsciiString FROM = newHeaderName("from");
     /**
      * {@code "host"}
      */
-    public static final AsciiString HOST = new AsciiString("host");
+    public static final AsciiString HOST = newHeaderName("host");
     /**
      * {@code "if-match"}
      */
-    public static final AsciiString IF_MATCH = new AsciiString("if-match");
+    public static final AsciiString IF_MATCH = newHeaderName("if-match");
     /**
      * {@code "if-modified-since"}
      */
-    public static final AsciiString IF_MODIFIED_SINCE = new AsciiString("if-modified-since");
+    public static final AsciiString IF_MODIFIED_SINCE = newHeaderName("if-modified-since");
     /**
      * {@code "if-none-match"}
      */
-    public static final AsciiString IF_NONE_MATCH = new AsciiString("if-none-match");
+    public static final AsciiString IF_NONE_MATCH = newHeaderName("if-none-match");
     /**
      * {@code "if-range"}
      */
-    public static final AsciiString IF_RANGE = new AsciiString("if-range");
+    public static final AsciiString IF_RANGE = newHeaderName("if-range");
     /**
      * {@code "if-unmodified-since"}
      */
-    public static final AsciiString IF_UNMODIFIED_SINCE = new AsciiString("if-unmodified-since");
+    public static final AsciiString IF_UNMODIFIED_SINCE = newHeaderName("if-unmodified-since");
     /**
      * @deprecated use {@link #CONNECTION}
      *
      * {@code "keep-alive"}
      */
     @Deprecated
-    public static final AsciiString KEEP_ALIVE = new AsciiString("keep-alive");
+    public static final AsciiString KEEP_ALIVE = newHeaderName("keep-alive");
     /**
      * {@code "last-modified"}
      */
-    public static final AsciiString LAST_MODIFIED = new AsciiString("last-modified");
+    public static final AsciiString LAST_MODIFIED = newHeaderName("last-modified");
     /**
      * {@code "location"}
      */
-    public static final AsciiString LOCATION = new AsciiString("location");
+    public static final AsciiString LOCATION = newHeaderName("location");
     /**
      * {@code "max-forwards"}
      */
-    public static final AsciiString MAX_FORWARDS = new AsciiString("max-forwards");
+    public static final AsciiString MAX_FORWARDS = newHeaderName("max-forwards");
     /**
      * {@code "origin"}
      */
-    public static final AsciiString ORIGIN = new AsciiString("origin");
+    public static final AsciiString ORIGIN = newHeaderName("origin");
     /**
      * {@code "pragma"}
      */
-    public static final AsciiString PRAGMA = new AsciiString("pragma");
+    public static final AsciiString PRAGMA = newHeaderName("pragma");
     /**
      * {@code "proxy-authenticate"}
      */
-    public static final AsciiString PROXY_AUTHENTICATE = new AsciiString("proxy-authenticate");
+    public static final AsciiString PROXY_AUTHENTICATE = newHeaderName("proxy-authenticate");
     /**
      * {@code "proxy-authorization"}
      */
-    public static final AsciiString PROXY_AUTHORIZATION = new AsciiString("proxy-authorization");
+    public static final AsciiString PROXY_AUTHORIZATION = newHeaderName("proxy-authorization");
     /**
      * @deprecated use {@link #CONNECTION}
      *
      * {@code "proxy-connection"}
      */
     @Deprecated
-    public static final AsciiString PROXY_CONNECTION = new AsciiString("proxy-connection");
+    public static final AsciiString PROXY_CONNECTION = newHeaderName("proxy-connection");
     /**
      * {@code "range"}
      */
-    public static final AsciiString RANGE = new AsciiString("range");
+    public static final AsciiString RANGE = newHeaderName("range");
     /**
      * {@code "referer"}
      */
-    public static final AsciiString REFERER = new AsciiString("referer");
+    public static final AsciiString REFERER = newHeaderName("referer");
     /**
      * {@code "retry-after"}
      */
-    public static final AsciiString RETRY_AFTER = new AsciiString("retry-after");
+    public static final AsciiString RETRY_AFTER = newHeaderName("retry-after");
     /**
      * {@code "sec-websocket-key1"}
      */
-    public static final AsciiString SEC_WEBSOCKET_KEY1 = new AsciiString("sec-websocket-key1");
+    public static final AsciiString SEC_WEBSOCKET_KEY1 = newHeaderName("sec-websocket-key1");
     /**
      * {@code "sec-websocket-key2"}
      */
-    public static final AsciiString SEC_WEBSOCKET_KEY2 = new AsciiString("sec-websocket-key2");
+    public static final AsciiString SEC_WEBSOCKET_KEY2 = newHeaderName("sec-websocket-key2");
     /**
      * {@code "sec-websocket-location"}
      */
-    public static final AsciiString SEC_WEBSOCKET_LOCATION = new AsciiString("sec-websocket-location");
+    public static final AsciiString SEC_WEBSOCKET_LOCATION = newHeaderName("sec-websocket-location");
     /**
      * {@code "sec-websocket-origin"}
      */
-    public static final AsciiString SEC_WEBSOCKET_ORIGIN = new AsciiString("sec-websocket-origin");
+    public static final AsciiString SEC_WEBSOCKET_ORIGIN = newHeaderName("sec-websocket-origin");
     /**
      * {@code "sec-websocket-protocol"}
      */
-    public static final AsciiString SEC_WEBSOCKET_PROTOCOL = new AsciiString("sec-websocket-protocol");
+    public static final AsciiString SEC_WEBSOCKET_PROTOCOL = newHeaderName("sec-websocket-protocol");
     /**
      * {@code "sec-websocket-version"}
      */
-    public static final AsciiString SEC_WEBSOCKET_VERSION = new AsciiString("sec-websocket-version");
+    public static final AsciiString SEC_WEBSOCKET_VERSION = newHeaderName("sec-websocket-version");
     /**
      * {@code "sec-websocket-key"}
      */
-    public static final AsciiString SEC_WEBSOCKET_KEY = new AsciiString("sec-websocket-key");
+    public static final AsciiString SEC_WEBSOCKET_KEY = newHeaderName("sec-websocket-key");
     /**
      * {@code "sec-websocket-accept"}
      */
-    public static final AsciiString SEC_WEBSOCKET_ACCEPT = new AsciiString("sec-websocket-accept");
+    public static final AsciiString SEC_WEBSOCKET_ACCEPT = newHeaderName("sec-websocket-accept");
     /**
      * {@code "sec-websocket-protocol"}
      */
-    public static final AsciiString SEC_WEBSOCKET_EXTENSIONS = new AsciiString("sec-websocket-extensions");
+    public static final AsciiString SEC_WEBSOCKET_EXTENSIONS = newHeaderName("sec-websocket-extensions");
     /**
      * {@code "server"}
      */
-    public static final AsciiString SERVER = new AsciiString("server");
+    public static final AsciiString SERVER = newHeaderName("server");
     /**
      * {@code "set-cookie"}
      */
-    public static final AsciiString SET_COOKIE = new AsciiString("set-cookie");
+    public static final AsciiString SET_COOKIE = newHeaderName("set-cookie");
     /**
      * {@code "set-cookie2"}
      */
-    public static final AsciiString SET_COOKIE2 = new AsciiString("set-cookie2");
+    public static final AsciiString SET_COOKIE2 = newHeaderName("set-cookie2");
     /**
      * {@code "te"}
      */
-    public static final AsciiString TE = new AsciiString("te");
+    public static final AsciiString TE = newHeaderName("te");
     /**
      * {@code "trailer"}
      */
-    public static final AsciiString TRAILER = new AsciiString("trailer");
+    public static final AsciiString TRAILER = newHeaderName("trailer");
     /**
      * {@code "transfer-encoding"}
      */
-    public static final AsciiString TRANSFER_ENCODING = new AsciiString("transfer-encoding");
+    public static final AsciiString TRANSFER_ENCODING = newHeaderName("transfer-encoding");
     /**
      * {@code "upgrade"}
      */
-    public static final AsciiString UPGRADE = new AsciiString("upgrade");
+    public static final AsciiString UPGRADE = newHeaderName("upgrade");
     /**
      * {@code "user-agent"}
      */
-    public static final AsciiString USER_AGENT = new AsciiString("user-agent");
+    public static final AsciiString USER_AGENT = newHeaderName("user-agent");
     /**
      * {@code "vary"}
      */
-    public static final AsciiString VARY = new AsciiString("vary");
+    public static final AsciiString VARY = newHeaderName("vary");
     /**
      * {@code "via"}
      */
-    public static final AsciiString VIA = new AsciiString("via");
+    public static final AsciiString VIA = newHeaderName("via");
     /**
      * {@code "warning"}
      */
-    public static final AsciiString WARNING = new AsciiString("warning");
+    public static final AsciiString WARNING = newHeaderName("warning");
     /**
      * {@code "websocket-location"}
      */
-    public static final AsciiString WEBSOCKET_LOCATION = new AsciiString("websocket-location");
+    public static final AsciiString WEBSOCKET_LOCATION = newHeaderName("websocket-location");
     /**
      * {@code "websocket-origin"}
      */
-    public static final AsciiString WEBSOCKET_ORIGIN = new AsciiString("websocket-origin");
+    public static final AsciiString WEBSOCKET_ORIGIN = newHeaderName("websocket-origin");
     /**
      * {@code "websocket-protocol"}
      */
-    public static final AsciiString WEBSOCKET_PROTOCOL = new AsciiString("websocket-protocol");
+    public static final AsciiString WEBSOCKET_PROTOCOL = newHeaderName("websocket-protocol");
     /**
      * {@code "www-authenticate"}
      */
-    public static final AsciiString WWW_AUTHENTICATE = new AsciiString("www-authenticate");
+    public static final AsciiString WWW_AUTHENTICATE = newHeaderName("www-authenticate");
+
+    /**
+     * Creates a header name and registers it with {@link AsciiString#intern(AsciiString)}, together with its
+     * conventional HTTP/1.x spelling, such as {@code "Content-Length"}, so that decoders can find either one.
+     */
+    private static AsciiString newHeaderName(String name) {
+        char[] chars = name.toCharArray();
+        boolean upper = true;
+        for (int i = 0; i < chars.length; i++) {
+            char c = chars[i];
+            if (upper && c >= 'a' && c <= 'z') {
+                chars[i] = (char) (c - 'a' + 'A');
+            }
+            upper = c == '-';
+        }
+        AsciiString.intern(new AsciiString(chars));
+        return AsciiString.intern(new AsciiString(name));
+    }
 
     private HttpHeaderNames() { }
 }
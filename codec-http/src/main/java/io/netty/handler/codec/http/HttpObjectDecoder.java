@@ -20,6 +20,7 @@ import io.netty.buffer.ByteBufProcessor;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.AsciiString;
 import io.netty.handler.codec.ByteToMessageDecoder;
 import io.netty.handler.codec.DecoderResult;
 import io.netty.handler.codec.TooLongFrameException;
@@ -101,6 +102,11 @@ import java.util.List;
 public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
     private static final String EMPTY_VALUE = "";
 
+    static {
+        // Registers the well-known header names that splitHeader() looks up.
+        AsciiString.intern(HttpHeaderNames.HOST);
+    }
+
     private final int maxChunkSize;
     private final boolean chunkedSupported;
     protected final boolean validateHeaders;
@@ -694,7 +700,9 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
             }
         }
 
-        name = sb.substring(nameStart, nameEnd);
+        // Use the registered instance of a well-known header name, which has its hash code cached already.
+        AsciiString wellKnownName = AsciiString.interned(sb, nameStart, nameEnd - nameStart);
+        name = wellKnownName != null ? wellKnownName : sb.substring(nameStart, nameEnd);
         valueStart = findNonWhitespace(sb, colonEnd);
         if (valueStart == length) {
             value = EMPTY_VALUE;
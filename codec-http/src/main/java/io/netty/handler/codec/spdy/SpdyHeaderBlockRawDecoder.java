@@ -17,6 +17,8 @@ package io.netty.handler.codec.spdy;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.codec.AsciiString;
+import io.netty.handler.codec.http.HttpHeaderNames;
 
 import static io.netty.handler.codec.spdy.SpdyCodecUtil.*;
 
@@ -24,6 +26,12 @@ public class SpdyHeaderBlockRawDecoder extends SpdyHeaderBlockDecoder {
 
     private static final int LENGTH_FIELD_SIZE = 4;
 
+    static {
+        // Registers the well-known header names that decodeHeaderBlock() looks up.
+        AsciiString.intern(SpdyHeaders.HttpNames.HOST);
+        AsciiString.intern(HttpHeaderNames.HOST);
+    }
+
     private final int maxHeaderSize;
 
     private State state;
@@ -33,7 +41,7 @@ public class SpdyHeaderBlockRawDecoder extends SpdyHeaderBlockDecoder {
     private int headerSize;
     private int numHeaders;
     private int length;
-    private String name;
+    private CharSequence name;
 
     private enum State {
         READ_NUM_HEADERS,
@@ -136,7 +144,10 @@ public class SpdyHeaderBlockRawDecoder extends SpdyHeaderBlockDecoder {
 
                     byte[] nameBytes = new byte[length];
                     headerBlock.readBytes(nameBytes);
-                    name = new String(nameBytes, "UTF-8");
+                    name = AsciiString.interned(nameBytes, 0, length);
+                    if (name == null) {
+                        name = new String(nameBytes, "UTF-8");
+                    }
 
                     // Check for identically named headers
                     if (frame.headers().contains(name)) {
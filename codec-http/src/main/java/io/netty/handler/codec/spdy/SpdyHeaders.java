@@ -31,27 +31,27 @@ public interface SpdyHeaders extends TextHeaders {
         /**
          * {@code ":host"}
          */
-        public static final AsciiString HOST = new AsciiString(":host");
+        public static final AsciiString HOST = AsciiString.intern(new AsciiString(":host"));
         /**
          * {@code ":method"}
          */
-        public static final AsciiString METHOD = new AsciiString(":method");
+        public static final AsciiString METHOD = AsciiString.intern(new AsciiString(":method"));
         /**
          * {@code ":path"}
          */
-        public static final AsciiString PATH = new AsciiString(":path");
+        public static final AsciiString PATH = AsciiString.intern(new AsciiString(":path"));
         /**
          * {@code ":scheme"}
          */
-        public static final AsciiString SCHEME = new AsciiString(":scheme");
+        public static final AsciiString SCHEME = AsciiString.intern(new AsciiString(":scheme"));
         /**
          * {@code ":status"}
          */
-        public static final AsciiString STATUS = new AsciiString(":status");
+        public static final AsciiString STATUS = AsciiString.intern(new AsciiString(":status"));
         /**
          * {@code ":version"}
          */
-        public static final AsciiString VERSION = new AsciiString(":version");
+        public static final AsciiString VERSION = AsciiString.intern(new AsciiString(":version"));
 
         private HttpNames() { }
     }
@@ -18,12 +18,15 @@ package io.netty.handler.codec.http;
 import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.Brotli;
 import io.netty.handler.codec.compression.ZlibWrapper;
+import io.netty.handler.codec.compression.Zstd;
 import io.netty.util.CharsetUtil;
 import org.junit.Test;
 
 import static org.hamcrest.CoreMatchers.*;
 import static org.junit.Assert.*;
+import static org.junit.Assume.*;
 
 public class HttpContentCompressorTest {
 
@@ -64,6 +67,28 @@ public class HttpContentCompressorTest {
         }
     }
 
+    @Test
+    public void testDetermineEncoding() throws Exception {
+        assumeTrue(Zstd.isAvailable() && Brotli.isAvailable());
+        HttpContentCompressor compressor = new HttpContentCompressor();
+
+        String[] tests = {
+            // Accept-Encoding -> Content-Encoding, null falls back to gzip or deflate
+            "*", null,
+            "gzip, deflate", null,
+            "gzip, deflate, br", "br",
+            "gzip, deflate, br, zstd", "zstd",
+            "zstd;q=0.9, br", "br",
+            "br;q=0.5, gzip", null,
+            "gzip;q=0.5, br", "br",
+            "br;q=0, gzip;q=0", null,
+            "brotli", null,
+        };
+        for (int i = 0; i < tests.length; i += 2) {
+            assertEquals("Accept-Encoding: " + tests[i], tests[i + 1], compressor.determineEncoding(tests[i]));
+        }
+    }
+
     @Test
     public void testSplitContent() throws Exception {
         EmbeddedChannel ch = new EmbeddedChannel(new HttpContentCompressor());
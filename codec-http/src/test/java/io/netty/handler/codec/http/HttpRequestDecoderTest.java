@@ -18,6 +18,7 @@ package io.netty.handler.codec.http;
 
 import io.netty.buffer.Unpooled;
 import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.AsciiString;
 import io.netty.util.CharsetUtil;
 import org.junit.Test;
 
@@ -177,6 +178,25 @@ public class HttpRequestDecoderTest {
         assertEquals("", req.headers().get("EmptyHeader"));
     }
 
+    @Test
+    public void testWellKnownHeaderNamesAreInterned() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpRequestDecoder());
+        String crlf = "\r\n";
+        String request =  "GET /some/path HTTP/1.1" + crlf +
+                "host: localhost" + crlf +
+                "Content-Length: 0" + crlf +
+                "X-Custom: value" + crlf + crlf;
+        channel.writeInbound(Unpooled.wrappedBuffer(request.getBytes(CharsetUtil.US_ASCII)));
+        HttpRequest req = channel.readInbound();
+        List<CharSequence> names = req.headers().namesList();
+        assertSame(HttpHeaderNames.HOST, names.get(0));
+        // The case of the received name is kept.
+        assertEquals("Content-Length", names.get(1).toString());
+        assertSame(names.get(1), AsciiString.interned("Content-Length", 0, 14));
+        assertEquals("X-Custom", names.get(2).toString());
+        assertEquals("0", req.headers().get(HttpHeaderNames.CONTENT_LENGTH));
+    }
+
     @Test
     public void test100Continue() {
         HttpRequestDecoder decoder = new HttpRequestDecoder();
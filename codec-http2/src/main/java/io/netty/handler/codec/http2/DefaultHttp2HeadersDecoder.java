@@ -24,6 +24,8 @@ import static io.netty.handler.codec.http2.Http2Exception.connectionError;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufInputStream;
 import io.netty.handler.codec.AsciiString;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http2.Http2Headers.PseudoHeaderName;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -32,6 +34,12 @@ import com.twitter.hpack.Decoder;
 import com.twitter.hpack.HeaderListener;
 
 public class DefaultHttp2HeadersDecoder implements Http2HeadersDecoder, Http2HeadersDecoder.Configuration {
+    static {
+        // Registers the well-known header names that decodeHeaders() looks up.
+        AsciiString.intern(PseudoHeaderName.METHOD.value());
+        AsciiString.intern(HttpHeaderNames.HOST);
+    }
+
     private final Decoder decoder;
     private final Http2HeaderTable headerTable;
 
@@ -62,7 +70,8 @@ public class DefaultHttp2HeadersDecoder implements Http2HeadersDecoder, Http2Hea
             HeaderListener listener = new HeaderListener() {
                 @Override
                 public void addHeader(byte[] key, byte[] value, boolean sensitive) {
-                    headers.add(new AsciiString(key, false), new AsciiString(value, false));
+                    AsciiString name = AsciiString.interned(key, 0, key.length);
+                    headers.add(name != null ? name : new AsciiString(key, false), new AsciiString(value, false));
                 }
             };
 
@@ -64,7 +64,7 @@ public interface Http2Headers extends BinaryHeaders {
         }
 
         PseudoHeaderName(String value) {
-            this.value = new AsciiString(value);
+            this.value = AsciiString.intern(new AsciiString(value));
         }
 
         public AsciiString value() {
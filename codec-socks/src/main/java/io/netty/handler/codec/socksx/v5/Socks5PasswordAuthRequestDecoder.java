@@ -20,7 +20,7 @@ import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.DecoderException;
 import io.netty.handler.codec.DecoderResult;
-import io.netty.handler.codec.ReplayingDecoder;
+import io.netty.handler.codec.ResumableDecoder;
 import io.netty.handler.codec.socksx.v5.Socks5PasswordAuthRequestDecoder.State;
 import io.netty.util.CharsetUtil;
 
@@ -32,7 +32,7 @@ import java.util.List;
  * other handler can remove or replace this decoder later.  On failed decode, this decoder will
  * discard the received data, so that other handler closes the connection later.
  */
-public class Socks5PasswordAuthRequestDecoder extends ReplayingDecoder<State> {
+public class Socks5PasswordAuthRequestDecoder extends ResumableDecoder<State> {
 
     enum State {
         INIT,
@@ -40,6 +40,10 @@ public class Socks5PasswordAuthRequestDecoder extends ReplayingDecoder<State> {
         FAILURE
     }
 
+    private final FixedIntField version = field(new FixedIntField(1));
+    private final BytesField username = field(new BytesField(new FixedIntField(1), 255));
+    private final BytesField password = field(new BytesField(new FixedIntField(1), 255));
+
     public Socks5PasswordAuthRequestDecoder() {
         super(State.INIT);
     }
@@ -49,32 +53,32 @@ public class Socks5PasswordAuthRequestDecoder extends ReplayingDecoder<State> {
         try {
             switch (state()) {
             case INIT: {
-                final int startOffset = in.readerIndex();
-                final byte version = in.getByte(startOffset);
-                if (version != 1) {
-                    throw new DecoderException("unsupported subnegotiation version: " + version + " (expected: 1)");
+                if (!version.read(in)) {
+                    break;
+                }
+                if (version.value() != 1) {
+                    throw new DecoderException(
+                            "unsupported subnegotiation version: " + version.value() + " (expected: 1)");
+                }
+                if (!username.read(in) || !password.read(in)) {
+                    break;
                 }
 
-                final int usernameLength = in.getUnsignedByte(startOffset + 1);
-                final int passwordLength = in.getUnsignedByte(startOffset + 2 + usernameLength);
-                final int totalLength = usernameLength + passwordLength + 3;
-
-                in.skipBytes(totalLength);
                 out.add(new DefaultSocks5PasswordAuthRequest(
-                        in.toString(startOffset + 2, usernameLength, CharsetUtil.US_ASCII),
-                        in.toString(startOffset + 3 + usernameLength, passwordLength, CharsetUtil.US_ASCII)));
+                        username.toString(CharsetUtil.US_ASCII), password.toString(CharsetUtil.US_ASCII)));
+                resetFields();
 
-                checkpoint(State.SUCCESS);
+                state(State.SUCCESS);
             }
             case SUCCESS: {
-                int readableBytes = actualReadableBytes();
+                int readableBytes = in.readableBytes();
                 if (readableBytes > 0) {
                     out.add(in.readSlice(readableBytes).retain());
                 }
                 break;
             }
             case FAILURE: {
-                in.skipBytes(actualReadableBytes());
+                in.skipBytes(in.readableBytes());
                 break;
             }
             }
@@ -88,7 +92,8 @@ public class Socks5PasswordAuthRequestDecoder extends ReplayingDecoder<State> {
             cause = new DecoderException(cause);
         }
 
-        checkpoint(State.FAILURE);
+        resetFields();
+        state(State.FAILURE);
 
         Socks5Message m = new DefaultSocks5PasswordAuthRequest("", "");
         m.setDecoderResult(DecoderResult.failure(cause));
@@ -15,6 +15,8 @@
  */
 package io.netty.handler.codec.socksx.v5;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.embedded.EmbeddedChannel;
 import org.junit.Test;
 
@@ -34,4 +36,29 @@ public class Socks5PasswordAuthRequestDecoderTest {
         assertEquals(msg.username(), password);
         assertNull(embedder.readInbound());
     }
+
+    @Test
+    public void testAuthRequestDecoderOneByteAtATime() {
+        Socks5PasswordAuthRequest msg = new DefaultSocks5PasswordAuthRequest("user", "secret");
+        EmbeddedChannel embedder = new EmbeddedChannel(new Socks5PasswordAuthRequestDecoder());
+        ByteBuf encoded = Socks5CommonTestUtils.encodeClient(msg);
+        while (encoded.isReadable()) {
+            embedder.writeInbound(encoded.readSlice(1).retain());
+        }
+        encoded.release();
+        msg = embedder.readInbound();
+        assertTrue(msg.decoderResult().isSuccess());
+        assertEquals("user", msg.username());
+        assertEquals("secret", msg.password());
+        assertNull(embedder.readInbound());
+    }
+
+    @Test
+    public void testAuthRequestDecoderRejectsUnknownVersion() {
+        EmbeddedChannel embedder = new EmbeddedChannel(new Socks5PasswordAuthRequestDecoder());
+        embedder.writeInbound(Unpooled.wrappedBuffer(new byte[] { 2, 0, 0 }));
+        Socks5PasswordAuthRequest msg = embedder.readInbound();
+        assertTrue(msg.decoderResult().isFailure());
+        assertNull(embedder.readInbound());
+    }
 }
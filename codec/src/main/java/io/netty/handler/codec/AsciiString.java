@@ -36,6 +36,11 @@ import java.util.regex.PatternSyntaxException;
  */
 public final class AsciiString implements CharSequence, Comparable<CharSequence> {
 
+    private static final Object INTERN_LOCK = new Object();
+    // Open-addressed and at most half full; replaced as a whole by intern(), which holds INTERN_LOCK.
+    private static volatile AsciiString[] internTable = new AsciiString[256];
+    private static int internSize;
+
     public static final AsciiString EMPTY_STRING = new AsciiString("");
     public static final Comparator<AsciiString> CASE_INSENSITIVE_ORDER = new Comparator<AsciiString>() {
         @Override
@@ -275,6 +280,168 @@ public final class AsciiString implements CharSequence, Comparable<CharSequence>
         return string instanceof AsciiString ? (AsciiString) string : new AsciiString(string);
     }
 
+    /**
+     * Registers the given string in the global intern table, so that {@link #interned(byte[], int, int)} and
+     * {@link #interned(CharSequence, int, int)} return it for the same characters.  This is meant for well-known
+     * constants such as header names: the table is never shrunk, so it must not be fed with received data.
+     *
+     * @return the string that was already registered with the same characters, or {@code string} otherwise
+     */
+    public static AsciiString intern(AsciiString string) {
+        checkNull(string);
+        byte[] value = string.value;
+        if (value.length == 0) {
+            // Can never be looked up.
+            return string;
+        }
+        synchronized (INTERN_LOCK) {
+            AsciiString interned = interned(value, 0, value.length);
+            if (interned != null) {
+                return interned;
+            }
+
+            // Compute the hash code now, so that it is cached before the string is handed out by interned().
+            string.hashCode();
+
+            // Copy on write, so that lookups never need to lock.
+            AsciiString[] table = internTable;
+            int capacity = table.length;
+            if (internSize >= capacity >>> 1) {
+                capacity <<= 1;
+            }
+            AsciiString[] newTable = new AsciiString[capacity];
+            for (AsciiString s: table) {
+                if (s != null) {
+                    insert(newTable, s);
+                }
+            }
+            insert(newTable, string);
+            internSize++;
+            internTable = newTable;
+            return string;
+        }
+    }
+
+    /**
+     * Returns the current intern table, which is never modified in place, so that tests can put it back with
+     * {@link #restoreInternTable(AsciiString[])} after registering strings of their own.
+     */
+    static AsciiString[] internTable() {
+        return internTable;
+    }
+
+    static void restoreInternTable(AsciiString[] table) {
+        synchronized (INTERN_LOCK) {
+            int size = 0;
+            for (AsciiString s: table) {
+                if (s != null) {
+                    size++;
+                }
+            }
+            internSize = size;
+            internTable = table;
+        }
+    }
+
+    /**
+     * Returns the string registered with {@link #intern(AsciiString)} whose characters are exactly (case-sensitively)
+     * the given bytes, or {@code null} if there is none.
+     */
+    public static AsciiString interned(byte[] value, int start, int length) {
+        checkNull(value);
+        if (start < 0 || length < 0 || start > value.length - length) {
+            throw new IndexOutOfBoundsException("expected: " + "0 <= start(" + start + ") <= start + length(" + length
+                    + ") <= " + "value.length(" + value.length + ')');
+        }
+        if (length == 0) {
+            return null;
+        }
+
+        AsciiString[] table = internTable;
+        int mask = table.length - 1;
+        int hash = internHash(length, value[start] & 0xFF, value[start + (length >>> 1)] & 0xFF,
+                              value[start + length - 1] & 0xFF);
+        for (int i = hash & mask;; i = (i + 1) & mask) {
+            AsciiString s = table[i];
+            if (s == null || s.contentEquals(value, start, length)) {
+                return s;
+            }
+        }
+    }
+
+    /**
+     * Returns the string registered with {@link #intern(AsciiString)} whose characters are exactly (case-sensitively)
+     * the given characters, or {@code null} if there is none.
+     */
+    public static AsciiString interned(CharSequence value, int start, int length) {
+        checkNull(value);
+        if (start < 0 || length < 0 || start > value.length() - length) {
+            throw new IndexOutOfBoundsException("expected: " + "0 <= start(" + start + ") <= start + length(" + length
+                    + ") <= " + "value.length(" + value.length() + ')');
+        }
+        if (length == 0) {
+            return null;
+        }
+
+        AsciiString[] table = internTable;
+        int mask = table.length - 1;
+        int hash = internHash(length, value.charAt(start), value.charAt(start + (length >>> 1)),
+                              value.charAt(start + length - 1));
+        for (int i = hash & mask;; i = (i + 1) & mask) {
+            AsciiString s = table[i];
+            if (s == null || s.contentEquals(value, start, length)) {
+                return s;
+            }
+        }
+    }
+
+    /**
+     * Hashes only the length and three of the characters, because a lookup then only has to read all characters
+     * once, when it compares them with the candidate.
+     */
+    private static int internHash(int length, int first, int middle, int last) {
+        int hash = ((length * 31 + first) * 31 + middle) * 31 + last;
+        hash *= 0x9E3779B9;
+        return hash ^ hash >>> 16;
+    }
+
+    private static void insert(AsciiString[] table, AsciiString string) {
+        byte[] value = string.value;
+        int length = value.length;
+        int mask = table.length - 1;
+        int i = internHash(length, value[0] & 0xFF, value[length >>> 1] & 0xFF, value[length - 1] & 0xFF) & mask;
+        while (table[i] != null) {
+            i = (i + 1) & mask;
+        }
+        table[i] = string;
+    }
+
+    private boolean contentEquals(byte[] value, int start, int length) {
+        byte[] bytes = this.value;
+        if (bytes.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] != value[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean contentEquals(CharSequence value, int start, int length) {
+        byte[] bytes = this.value;
+        if (bytes.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if ((char) (bytes[i] & 0xFF) != value.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private final byte[] value;
     private String string;
     private int hash;
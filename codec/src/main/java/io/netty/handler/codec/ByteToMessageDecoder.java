@@ -131,6 +131,73 @@ public abstract class ByteToMessageDecoder extends ChannelHandlerAdapter {
         }
     };
 
+    /**
+     * Cumulate {@link ByteBuf}s by choosing per read between a memory copy and adding a component to a
+     * {@link CompositeByteBuf}, so that large messages are never copied more than once:
+     * <ul>
+     * <li>reads are copied into the cumulation if it has room for them, if necessary after discarding the read
+     *     bytes when that moves fewer bytes than it frees;</li>
+     * <li>if the cumulation would have to be reallocated, reads smaller than 4 KiB are still copied as the
+     *     growth is amortized, while larger reads are added to a {@link CompositeByteBuf} without copying, as is
+     *     all data received once the cumulation is composite;</li>
+     * <li>a cumulation shared with the decoder through {@code slice().retain()} or {@code duplicate().retain()}
+     *     is never written to, but combined into a new {@link CompositeByteBuf} unless it is small.</li>
+     * </ul>
+     * Decoders which access the cumulation randomly byte by byte may still be faster with
+     * {@link #MERGE_CUMULATOR}.
+     */
+    public static final Cumulator ADAPTIVE_CUMULATOR = new Cumulator() {
+        @Override
+        public ByteBuf cumulate(ByteBufAllocator alloc, ByteBuf cumulation, ByteBuf in) {
+            final int required = in.readableBytes();
+            final int readable = cumulation.readableBytes();
+            if (cumulation.refCnt() > 1) {
+                if (readable + required <= ADAPTIVE_COPY_THRESHOLD) {
+                    ByteBuf buffer = expandCumulation(alloc, cumulation, required);
+                    buffer.writeBytes(in);
+                    in.release();
+                    return buffer;
+                }
+                return compose(alloc, cumulation, in);
+            }
+
+            if (cumulation instanceof CompositeByteBuf) {
+                CompositeByteBuf composite = (CompositeByteBuf) cumulation;
+                composite.addComponent(in).writerIndex(composite.writerIndex() + required);
+                return composite;
+            }
+
+            if (required > cumulation.writableBytes() && required <= cumulation.capacity() - readable &&
+                    readable <= cumulation.readerIndex()) {
+                // Compacting moves fewer bytes than it frees and avoids reallocating the cumulation.
+                cumulation.discardReadBytes();
+            }
+            if (required <= cumulation.writableBytes() ||
+                    (required < ADAPTIVE_COPY_THRESHOLD || readable <= ADAPTIVE_COPY_THRESHOLD - required) &&
+                    cumulation.writerIndex() <= cumulation.maxCapacity() - required) {
+                cumulation.writeBytes(in);
+                in.release();
+                return cumulation;
+            }
+            return compose(alloc, cumulation, in);
+        }
+
+        private ByteBuf compose(ByteBufAllocator alloc, ByteBuf cumulation, ByteBuf in) {
+            // No limit on the number of components, as consolidating them would copy everything again.
+            CompositeByteBuf composite = alloc.compositeBuffer(Integer.MAX_VALUE);
+            composite.addComponent(cumulation).addComponent(in)
+                     .writerIndex(cumulation.readableBytes() + in.readableBytes());
+            return composite;
+        }
+    };
+
+    /**
+     * Reads smaller than this are copied by {@link #ADAPTIVE_CUMULATOR}, as many tiny components make a
+     * {@link CompositeByteBuf} slow to access.  Larger reads are only copied into a cumulation that has room for
+     * them or that stays below this size.
+     */
+    private static final int ADAPTIVE_COPY_THRESHOLD = 4096;
+
     ByteBuf cumulation;
     private Cumulator cumulator = MERGE_CUMULATOR;
     private boolean singleDecode;
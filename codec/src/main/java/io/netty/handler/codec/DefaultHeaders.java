@@ -14,8 +14,6 @@
  */
 package io.netty.handler.codec;
 
-import io.netty.util.collection.IntObjectHashMap;
-import io.netty.util.collection.IntObjectMap;
 import io.netty.util.concurrent.FastThreadLocal;
 import io.netty.util.internal.PlatformDependent;
 
@@ -24,6 +22,7 @@ import java.text.ParseException;
 import java.text.ParsePosition;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
@@ -39,6 +38,13 @@ import java.util.TreeSet;
 
 import static io.netty.util.internal.ObjectUtil.*;
 
+/**
+ * Default {@link Headers} implementation.
+ * <p>
+ * Entries are stored in insertion order in parallel name, value and hash arrays, and looked up through an
+ * open-addressed table of indexes into those arrays.  Adding a header therefore allocates nothing once the arrays are
+ * large enough, and {@link #clear()} keeps the arrays so an instance can be reused for the next message.
+ */
 public class DefaultHeaders<T> implements Headers<T> {
     /**
      * Allows users of this interface to specify a hash code other than the default {@link Object#hashCode()}
@@ -78,18 +84,29 @@ public class DefaultHeaders<T> implements Headers<T> {
 
     private static final int HASH_CODE_PRIME = 31;
     private static final int DEFAULT_BUCKET_SIZE = 17;
-    private static final int DEFAULT_MAP_SIZE = 4;
+    private static final int DEFAULT_MAP_SIZE = 16;
+    private static final int MIN_CAPACITY = 8;
+    private static final int TOMBSTONE = -1;
     private static final NameConverter<Object> DEFAULT_NAME_CONVERTER = new IdentityNameConverter<Object>();
 
-    private final IntObjectMap<HeaderEntry> entries;
-    private final IntObjectMap<HeaderEntry> tailEntries;
-    private final HeaderEntry head;
     private final Comparator<? super T> keyComparator;
     private final Comparator<? super T> valueComparator;
     private final HashCodeGenerator<T> hashCodeGenerator;
     private final ValueConverter<T> valueConverter;
     private final NameConverter<T> nameConverter;
-    private final int bucketSize;
+    private final int initialCapacity;
+
+    // Allocated on the first add.  The entry at index i is names[i], values[i] and hashes[i]; a removed entry has a
+    // null name.  table is twice the capacity, so it is never more than half full, and each slot holds 0 (free),
+    // TOMBSTONE (removed) or the entry index + 1.
+    private T[] names;
+    private T[] values;
+    private int[] hashes;
+    private int[] table;
+    // Number of used entry indexes, including removed ones.
+    private int end;
+    // Incremented whenever entries move to different indexes, so that a HeaderEntry can tell it is stale.
+    private int generation;
     int size;
 
     @SuppressWarnings("unchecked")
@@ -105,6 +122,13 @@ public class DefaultHeaders<T> implements Headers<T> {
                 DEFAULT_MAP_SIZE);
     }
 
+    /**
+     * Creates a new instance.
+     *
+     * @param bucketSize no longer used, because headers are stored in an open-addressed table; it must still be
+     *                   positive
+     * @param initialMapSize the number of headers to make room for when the first header is added
+     */
     public DefaultHeaders(Comparator<? super T> keyComparator, Comparator<? super T> valueComparator,
             HashCodeGenerator<T> hashCodeGenerator, ValueConverter<T> valueConverter, NameConverter<T> nameConverter,
             int bucketSize, int initialMapSize) {
@@ -126,32 +150,24 @@ public class DefaultHeaders<T> implements Headers<T> {
         if (bucketSize < 1) {
             throw new IllegalArgumentException("bucketSize must be a positive integer");
         }
-        head = new HeaderEntry();
-        head.before = head.after = head;
         this.keyComparator = keyComparator;
         this.valueComparator = valueComparator;
         this.hashCodeGenerator = hashCodeGenerator;
         this.valueConverter = valueConverter;
         this.nameConverter = nameConverter;
-        this.bucketSize = bucketSize;
-        entries = new IntObjectHashMap<HeaderEntry>(initialMapSize);
-        tailEntries = new IntObjectHashMap<HeaderEntry>(initialMapSize);
+        initialCapacity = capacityFor(initialMapSize);
     }
 
     @Override
     public T get(T name) {
         checkNotNull(name, "name");
 
-        int h = hashCodeGenerator.generateHashCode(name);
-        int i = index(h);
-        HeaderEntry e = entries.get(i);
-        while (e != null) {
-            if (e.hash == h && keyComparator.compare(e.name, name) == 0) {
-                return e.value;
-            }
-            e = e.next;
+        if (size == 0) {
+            return null;
         }
-        return null;
+        int h = hashCodeGenerator.generateHashCode(name);
+        int i = find(h, name, keyComparator, slot(h));
+        return i < 0 ? null : values[table[i] - 1];
     }
 
     @Override
@@ -166,53 +182,17 @@ public class DefaultHeaders<T> implements Headers<T> {
     @Override
     public T getAndRemove(T name) {
         checkNotNull(name, "name");
-        int h = hashCodeGenerator.generateHashCode(name);
-        int i = index(h);
-        HeaderEntry e = entries.get(i);
-        if (e == null) {
+        if (size == 0) {
             return null;
         }
-
+        int h = hashCodeGenerator.generateHashCode(name);
         T value = null;
-        for (;;) {
-            if (e.hash == h && keyComparator.compare(e.name, name) == 0) {
-                if (value == null) {
-                    value = e.value;
-                }
-                e.remove();
-                HeaderEntry next = e.next;
-                if (next != null) {
-                    entries.put(i, next);
-                    e = next;
-                } else {
-                    entries.remove(i);
-                    tailEntries.remove(i);
-                    return value;
-                }
-            } else {
-                break;
+        for (int i = find(h, name, keyComparator, slot(h)); i >= 0; i = find(h, name, keyComparator, nextSlot(i))) {
+            T v = remove(i);
+            if (value == null) {
+                value = v;
             }
         }
-
-        for (;;) {
-            HeaderEntry next = e.next;
-            if (next == null) {
-                break;
-            }
-            if (next.hash == h && keyComparator.compare(e.name, name) == 0) {
-                if (value == null) {
-                    value = next.value;
-                }
-                e.next = next.next;
-                if (e.next == null) {
-                    tailEntries.put(i, e);
-                }
-                next.remove();
-            } else {
-                e = next;
-            }
-        }
-
         return value;
     }
 
@@ -229,65 +209,27 @@ public class DefaultHeaders<T> implements Headers<T> {
     public List<T> getAll(T name) {
         checkNotNull(name, "name");
         List<T> values = new ArrayList<T>(4);
+        if (size == 0) {
+            return values;
+        }
         int h = hashCodeGenerator.generateHashCode(name);
-        int i = index(h);
-        HeaderEntry e = entries.get(i);
-        while (e != null) {
-            if (e.hash == h && keyComparator.compare(e.name, name) == 0) {
-                values.add(e.value);
-            }
-            e = e.next;
+        for (int i = find(h, name, keyComparator, slot(h)); i >= 0; i = find(h, name, keyComparator, nextSlot(i))) {
+            values.add(this.values[table[i] - 1]);
         }
-
         return values;
     }
 
     @Override
     public List<T> getAllAndRemove(T name) {
         checkNotNull(name, "name");
-        int h = hashCodeGenerator.generateHashCode(name);
-        int i = index(h);
-        HeaderEntry e = entries.get(i);
-        if (e == null) {
-            return null;
-        }
-
         List<T> values = new ArrayList<T>(4);
-        for (;;) {
-            if (e.hash == h && keyComparator.compare(e.name, name) == 0) {
-                values.add(e.value);
-                e.remove();
-                HeaderEntry next = e.next;
-                if (next != null) {
-                    entries.put(i, next);
-                    e = next;
-                } else {
-                    entries.remove(i);
-                    tailEntries.remove(i);
-                    return values;
-                }
-            } else {
-                break;
-            }
+        if (size == 0) {
+            return values;
         }
-
-        for (;;) {
-            HeaderEntry next = e.next;
-            if (next == null) {
-                break;
-            }
-            if (next.hash == h && keyComparator.compare(next.name, name) == 0) {
-                values.add(next.value);
-                e.next = next.next;
-                if (e.next == null) {
-                    tailEntries.put(i, e);
-                }
-                next.remove();
-            } else {
-                e = next;
-            }
+        int h = hashCodeGenerator.generateHashCode(name);
+        for (int i = find(h, name, keyComparator, slot(h)); i >= 0; i = find(h, name, keyComparator, nextSlot(i))) {
+            values.add(remove(i));
         }
-
         return values;
     }
 
@@ -296,10 +238,10 @@ public class DefaultHeaders<T> implements Headers<T> {
         final int size = size();
         List<Map.Entry<T, T>> localEntries = new ArrayList<Map.Entry<T, T>>(size);
 
-        HeaderEntry e = head.after;
-        while (e != head) {
-            localEntries.add(e);
-            e = e.after;
+        for (int i = 0; i < end; i++) {
+            if (names[i] != null) {
+                localEntries.add(new HeaderEntry(i));
+            }
         }
 
         assert size == localEntries.size();
@@ -378,16 +320,14 @@ public class DefaultHeaders<T> implements Headers<T> {
         checkNotNull(value, "value");
         checkNotNull(keyComparator, "keyComparator");
         checkNotNull(valueComparator, "valueComparator");
+        if (size == 0) {
+            return false;
+        }
         int h = hashCodeGenerator.generateHashCode(name);
-        int i = index(h);
-        HeaderEntry e = entries.get(i);
-        while (e != null) {
-            if (e.hash == h &&
-                    keyComparator.compare(e.name, name) == 0 &&
-                    valueComparator.compare(e.value, value) == 0) {
+        for (int i = find(h, name, keyComparator, slot(h)); i >= 0; i = find(h, name, keyComparator, nextSlot(i))) {
+            if (valueComparator.compare(values[table[i] - 1], value) == 0) {
                 return true;
             }
-            e = e.next;
         }
         return false;
     }
@@ -411,17 +351,18 @@ public class DefaultHeaders<T> implements Headers<T> {
 
     @Override
     public boolean isEmpty() {
-        return head == head.after;
+        return size == 0;
     }
 
     @Override
     public Set<T> names() {
         final Set<T> names = new TreeSet<T>(keyComparator);
 
-        HeaderEntry e = head.after;
-        while (e != head) {
-            names.add(e.name);
-            e = e.after;
+        for (int i = 0; i < end; i++) {
+            T name = this.names[i];
+            if (name != null) {
+                names.add(name);
+            }
         }
 
         return names;
@@ -431,10 +372,11 @@ public class DefaultHeaders<T> implements Headers<T> {
     public List<T> namesList() {
         final List<T> names = new ArrayList<T>(size());
 
-        HeaderEntry e = head.after;
-        while (e != head) {
-            names.add(e.name);
-            e = e.after;
+        for (int i = 0; i < end; i++) {
+            T name = this.names[i];
+            if (name != null) {
+                names.add(name);
+            }
         }
 
         return names;
@@ -445,8 +387,7 @@ public class DefaultHeaders<T> implements Headers<T> {
         name = convertName(name);
         checkNotNull(value, "value");
         int h = hashCodeGenerator.generateHashCode(name);
-        int i = index(h);
-        add0(h, i, name, value);
+        add0(h, name, value);
         return this;
     }
 
@@ -456,12 +397,11 @@ public class DefaultHeaders<T> implements Headers<T> {
         checkNotNull(values, "values");
 
         int h = hashCodeGenerator.generateHashCode(name);
-        int i = index(h);
         for (T v : values) {
             if (v == null) {
                 break;
             }
-            add0(h, i, name, v);
+            add0(h, name, v);
         }
         return this;
     }
@@ -472,12 +412,11 @@ public class DefaultHeaders<T> implements Headers<T> {
         checkNotNull(values, "values");
 
         int h = hashCodeGenerator.generateHashCode(name);
-        int i = index(h);
         for (T v : values) {
             if (v == null) {
                 break;
             }
-            add0(h, i, name, v);
+            add0(h, name, v);
         }
         return this;
     }
@@ -493,14 +432,13 @@ public class DefaultHeaders<T> implements Headers<T> {
         checkNotNull(values, "values");
 
         int h = hashCodeGenerator.generateHashCode(name);
-        int i = index(h);
         for (Object o : values) {
             if (o == null) {
                 break;
             }
             T converted = valueConverter.convertObject(o);
             checkNotNull(converted, "converted");
-            add0(h, i, name, converted);
+            add0(h, name, converted);
         }
         return this;
     }
@@ -511,14 +449,13 @@ public class DefaultHeaders<T> implements Headers<T> {
         checkNotNull(values, "values");
 
         int h = hashCodeGenerator.generateHashCode(name);
-        int i = index(h);
         for (Object o : values) {
             if (o == null) {
                 break;
             }
             T converted = valueConverter.convertObject(o);
             checkNotNull(converted, "converted");
-            add0(h, i, name, converted);
+            add0(h, name, converted);
         }
         return this;
     }
@@ -581,9 +518,8 @@ public class DefaultHeaders<T> implements Headers<T> {
         name = convertName(name);
         checkNotNull(value, "value");
         int h = hashCodeGenerator.generateHashCode(name);
-        int i = index(h);
-        remove0(h, i, name);
-        add0(h, i, name, value);
+        remove0(h, name);
+        add0(h, name, value);
         return this;
     }
 
@@ -593,13 +529,12 @@ public class DefaultHeaders<T> implements Headers<T> {
         checkNotNull(values, "values");
 
         int h = hashCodeGenerator.generateHashCode(name);
-        int i = index(h);
-        remove0(h, i, name);
+        remove0(h, name);
         for (T v : values) {
             if (v == null) {
                 break;
             }
-            add0(h, i, name, v);
+            add0(h, name, v);
         }
 
         return this;
@@ -611,13 +546,12 @@ public class DefaultHeaders<T> implements Headers<T> {
         checkNotNull(values, "values");
 
         int h = hashCodeGenerator.generateHashCode(name);
-        int i = index(h);
-        remove0(h, i, name);
+        remove0(h, name);
         for (T v : values) {
             if (v == null) {
                 break;
             }
-            add0(h, i, name, v);
+            add0(h, name, v);
         }
 
         return this;
@@ -634,15 +568,14 @@ public class DefaultHeaders<T> implements Headers<T> {
         checkNotNull(values, "values");
 
         int h = hashCodeGenerator.generateHashCode(name);
-        int i = index(h);
-        remove0(h, i, name);
+        remove0(h, name);
         for (Object o : values) {
             if (o == null) {
                 break;
             }
             T converted = valueConverter.convertObject(o);
             checkNotNull(converted, "converted");
-            add0(h, i, name, converted);
+            add0(h, name, converted);
         }
 
         return this;
@@ -654,15 +587,14 @@ public class DefaultHeaders<T> implements Headers<T> {
         checkNotNull(values, "values");
 
         int h = hashCodeGenerator.generateHashCode(name);
-        int i = index(h);
-        remove0(h, i, name);
+        remove0(h, name);
         for (Object o : values) {
             if (o == null) {
                 break;
             }
             T converted = valueConverter.convertObject(o);
             checkNotNull(converted, "converted");
-            add0(h, i, name, converted);
+            add0(h, name, converted);
         }
 
         return this;
@@ -726,12 +658,18 @@ public class DefaultHeaders<T> implements Headers<T> {
     public Headers<T> setAll(Headers<T> headers) {
         checkNotNull(headers, "headers");
 
+        if (headers == this) {
+            return this;
+        }
         if (headers instanceof DefaultHeaders) {
             DefaultHeaders<T> m = (DefaultHeaders<T>) headers;
-            HeaderEntry e = m.head.after;
-            while (e != m.head) {
-                set(e.name, e.value);
-                e = e.after;
+            T[] names = m.names;
+            T[] values = m.values;
+            for (int i = 0; i < m.end; i++) {
+                T name = names[i];
+                if (name != null) {
+                    set(name, values[i]);
+                }
             }
         } else {
             try {
@@ -748,15 +686,18 @@ public class DefaultHeaders<T> implements Headers<T> {
     public boolean remove(T name) {
         checkNotNull(name, "name");
         int h = hashCodeGenerator.generateHashCode(name);
-        int i = index(h);
-        return remove0(h, i, name);
+        return remove0(h, name);
     }
 
     @Override
     public Headers<T> clear() {
-        entries.clear();
-        tailEntries.clear();
-        head.before = head.after = head;
+        if (end != 0) {
+            Arrays.fill(names, 0, end, null);
+            Arrays.fill(values, 0, end, null);
+            Arrays.fill(table, 0);
+            end = 0;
+            generation++;
+        }
         size = 0;
         return this;
     }
@@ -766,26 +707,33 @@ public class DefaultHeaders<T> implements Headers<T> {
         return new KeyValueHeaderIterator();
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The same {@link Map.Entry} instance is passed to each {@link EntryVisitor#visit(Map.Entry)} call, so the visitor
+     * must not keep a reference to it.  The returned entry is not shared.
+     */
     @Override
     public Map.Entry<T, T> forEachEntry(EntryVisitor<T> visitor) throws Exception {
-        HeaderEntry e = head.after;
-        while (e != head) {
-            if (!visitor.visit(e)) {
-                return e;
+        if (size == 0) {
+            return null;
+        }
+        HeaderEntry cursor = new HeaderEntry();
+        for (int i = 0; i < end; i++) {
+            if (cursor.reset(i) && !visitor.visit(cursor)) {
+                return new HeaderEntry(i);
             }
-            e = e.after;
         }
         return null;
     }
 
     @Override
     public T forEachName(NameVisitor<T> visitor) throws Exception {
-        HeaderEntry e = head.after;
-        while (e != head) {
-            if (!visitor.visit(e.name)) {
-                return e.name;
+        for (int i = 0; i < end; i++) {
+            T name = names[i];
+            if (name != null && !visitor.visit(name)) {
+                return name;
             }
-            e = e.after;
         }
         return null;
     }
@@ -1224,8 +1172,133 @@ public class DefaultHeaders<T> implements Headers<T> {
         return nameConverter.convertName(checkNotNull(name, "name"));
     }
 
-    private int index(int hash) {
-        return Math.abs(hash % bucketSize);
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private int slot(int hash) {
+        return (hash ^ hash >>> 16) & (table.length - 1);
+    }
+
+    private int nextSlot(int slot) {
+        return (slot + 1) & (table.length - 1);
+    }
+
+    /**
+     * Returns the first slot of {@link #table}, probing from {@code slot}, that refers to an entry with the given
+     * name, or {@code -1} if there is none.  Entries with the same name are found in insertion order, because
+     * {@link #insert(int, int)} never reuses a {@link #TOMBSTONE} slot.
+     */
+    private int find(int h, T name, Comparator<? super T> keyComparator, int slot) {
+        int[] table = this.table;
+        int mask = table.length - 1;
+        for (int i = slot;; i = (i + 1) & mask) {
+            int entry = table[i];
+            if (entry == 0) {
+                return -1;
+            }
+            if (entry != TOMBSTONE) {
+                int index = entry - 1;
+                T n = names[index];
+                // Interned names, such as well-known header names from a decoder, are usually the same instance.
+                if (n == name || hashes[index] == h && keyComparator.compare(n, name) == 0) {
+                    return i;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the first index from {@code index} on that holds an entry, or {@link #end} if there is none.
+     */
+    private int liveIndex(int index) {
+        while (index < end && names[index] == null) {
+            index++;
+        }
+        return index;
+    }
+
+    private void insert(int h, int index) {
+        int[] table = this.table;
+        int mask = table.length - 1;
+        int i = slot(h);
+        while (table[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        table[i] = index + 1;
+    }
+
+    /**
+     * Removes the entry that the given slot of {@link #table} refers to and returns its value.
+     */
+    private T remove(int slot) {
+        int index = table[slot] - 1;
+        T value = values[index];
+        table[slot] = TOMBSTONE;
+        names[index] = null;
+        values[index] = null;
+        size--;
+        return value;
+    }
+
+    /**
+     * Makes room for {@code extra} more entries after {@link #end}.
+     */
+    private void ensureCapacity(int extra) {
+        if (names == null) {
+            allocate(Math.max(initialCapacity, capacityFor(extra)));
+        } else if (end + extra > names.length) {
+            rehash(size + extra);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void allocate(int capacity) {
+        names = (T[]) new Object[capacity];
+        values = (T[]) new Object[capacity];
+        hashes = new int[capacity];
+        table = new int[capacity << 1];
+    }
+
+    /**
+     * Drops removed entries and rebuilds {@link #table}.  The arrays are only grown if most of the entries are still
+     * live, otherwise compacting them frees enough room.
+     */
+    private void rehash(int minCapacity) {
+        T[] oldNames = names;
+        T[] oldValues = values;
+        int[] oldHashes = hashes;
+        int capacity = oldNames.length;
+        if (minCapacity > capacity || size > capacity >>> 1) {
+            allocate(capacityFor(Math.max(minCapacity, capacity << 1)));
+        } else {
+            Arrays.fill(table, 0);
+        }
+
+        int oldEnd = end;
+        int newEnd = 0;
+        for (int i = 0; i < oldEnd; i++) {
+            T name = oldNames[i];
+            if (name != null) {
+                names[newEnd] = name;
+                values[newEnd] = oldValues[i];
+                hashes[newEnd] = oldHashes[i];
+                insert(oldHashes[i], newEnd);
+                newEnd++;
+            }
+        }
+        if (names == oldNames) {
+            Arrays.fill(names, newEnd, oldEnd, null);
+            Arrays.fill(values, newEnd, oldEnd, null);
+        }
+        if (newEnd != oldEnd) {
+            end = newEnd;
+            generation++;
+        }
     }
 
     private void add0(Headers<T> headers) {
@@ -1233,12 +1306,17 @@ public class DefaultHeaders<T> implements Headers<T> {
             return;
         }
 
+        ensureCapacity(headers.size());
         if (headers instanceof DefaultHeaders) {
             DefaultHeaders<T> m = (DefaultHeaders<T>) headers;
-            HeaderEntry e = m.head.after;
-            while (e != m.head) {
-                add(e.name, e.value);
-                e = e.after;
+            T[] names = m.names;
+            T[] values = m.values;
+            // Read the end first, so that adding a copy of this instance to itself terminates.
+            for (int i = 0, end = m.end; i < end; i++) {
+                T name = names[i];
+                if (name != null) {
+                    add(name, values[i]);
+                }
             }
         } else {
             try {
@@ -1249,63 +1327,29 @@ public class DefaultHeaders<T> implements Headers<T> {
         }
     }
 
-    private void add0(int h, int i, T name, T value) {
-        // Update the per-bucket hash table linked list
-        HeaderEntry newEntry = new HeaderEntry(h, name, value);
-        HeaderEntry oldTail = tailEntries.get(i);
-        if (oldTail == null) {
-            entries.put(i, newEntry);
-        } else {
-            oldTail.next = newEntry;
+    private void add0(int h, T name, T value) {
+        if (names == null) {
+            allocate(initialCapacity);
+        } else if (end == names.length) {
+            rehash(size + 1);
         }
-        tailEntries.put(i, newEntry);
-
-        // Update the overall insertion order linked list
-        newEntry.addBefore(head);
+        int index = end++;
+        names[index] = name;
+        values[index] = value;
+        hashes[index] = h;
+        insert(h, index);
+        size++;
     }
 
-    private boolean remove0(int h, int i, T name) {
-        HeaderEntry e = entries.get(i);
-        if (e == null) {
+    private boolean remove0(int h, T name) {
+        if (size == 0) {
             return false;
         }
-
         boolean removed = false;
-        for (;;) {
-            if (e.hash == h && keyComparator.compare(e.name, name) == 0) {
-                e.remove();
-                HeaderEntry next = e.next;
-                if (next != null) {
-                    entries.put(i, next);
-                    e = next;
-                } else {
-                    entries.remove(i);
-                    tailEntries.remove(i);
-                    return true;
-                }
-                removed = true;
-            } else {
-                break;
-            }
-        }
-
-        for (;;) {
-            HeaderEntry next = e.next;
-            if (next == null) {
-                break;
-            }
-            if (next.hash == h && keyComparator.compare(next.name, name) == 0) {
-                e.next = next.next;
-                if (e.next == null) {
-                    tailEntries.put(i, e);
-                }
-                next.remove();
-                removed = true;
-            } else {
-                e = next;
-            }
+        for (int i = find(h, name, keyComparator, slot(h)); i >= 0; i = find(h, name, keyComparator, nextSlot(i))) {
+            remove(i);
+            removed = true;
         }
-
         return removed;
     }
 
@@ -1329,43 +1373,36 @@ public class DefaultHeaders<T> implements Headers<T> {
         };
     }
 
+    /**
+     * A view of the entry at an index.  It remembers the name and value it was created with, so it stays usable after
+     * the entry is removed or moved; {@link #setValue(Object)} only writes through while the entry is still there.
+     */
     private final class HeaderEntry implements Map.Entry<T, T> {
-        final int hash;
-        final T name;
-        T value;
-        /**
-         * In bucket linked list
-         */
-        HeaderEntry next;
-        /**
-         * Overall insertion order linked list
-         */
-        HeaderEntry before, after;
+        private int index;
+        private int generation;
+        private T name;
+        private T value;
 
-        HeaderEntry(int hash, T name, T value) {
-            this.hash = hash;
-            this.name = name;
-            this.value = value;
+        HeaderEntry() {
         }
 
-        HeaderEntry() {
-            hash = -1;
-            name = null;
-            value = null;
+        HeaderEntry(int index) {
+            reset(index);
         }
 
-        void remove() {
-            before.after = after;
-            after.before = before;
-            --size;
+        /**
+         * Moves this view to the entry at the given index and returns {@code false} if that entry was removed.
+         */
+        boolean reset(int index) {
+            this.index = index;
+            generation = DefaultHeaders.this.generation;
+            name = names[index];
+            value = values[index];
+            return name != null;
         }
 
-        void addBefore(HeaderEntry e) {
-            after = e;
-            before = e.before;
-            before.after = this;
-            after.before = this;
-            ++size;
+        private boolean isLive() {
+            return generation == DefaultHeaders.this.generation && names[index] == name;
         }
 
         @Override
@@ -1382,6 +1419,9 @@ public class DefaultHeaders<T> implements Headers<T> {
         public T setValue(T value) {
             checkNotNull(value, "value");
             T oldValue = this.value;
+            if (isLive()) {
+                values[index] = value;
+            }
             this.value = value;
             return oldValue;
         }
@@ -1398,22 +1438,21 @@ public class DefaultHeaders<T> implements Headers<T> {
 
     protected final class KeyValueHeaderIterator implements Iterator<Entry<T, T>> {
 
-        private HeaderEntry current = head;
+        private int next = liveIndex(0);
 
         @Override
         public boolean hasNext() {
-            return current.after != head;
+            return next < end;
         }
 
         @Override
         public Entry<T, T> next() {
-            current = current.after;
-
-            if (current == head) {
+            if (next >= end) {
                 throw new NoSuchElementException();
             }
-
-            return current;
+            HeaderEntry entry = new HeaderEntry(next);
+            next = liveIndex(next + 1);
+            return entry;
         }
 
         @Override
@@ -0,0 +1,471 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.internal.StringUtil;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link ByteToMessageDecoder} for decoders written as a state machine over {@link Field}s which keep their
+ * progress across calls, so a message split over many reads is parsed exactly once.
+ * <p>
+ * {@link ReplayingDecoder} rewinds to the last checkpoint and decodes again whenever it runs out of data, which
+ * is quadratic for large messages arriving in small pieces.  A {@link Field} instead consumes what it can and
+ * returns {@code false} when it needs more data, and once complete it keeps returning {@code true} without
+ * reading anything until it is {@linkplain #resetFields() reset}.  The {@code decode()} method can therefore
+ * simply be called again from the top:
+ * <pre>
+ * public class StringMessageDecoder extends {@link ResumableDecoder}&lt;{@link Void}&gt; {
+ *
+ *   private final BytesField content = field(new BytesField(new VarIntField(5), 65536));
+ *
+ *   {@code @Override}
+ *   protected void decode({@link ChannelHandlerContext} ctx, {@link ByteBuf} in, List&lt;Object&gt; out) {
+ *     if (!content.read(in)) {
+ *       return;
+ *     }
+ *     out.add(content.toString(CharsetUtil.UTF_8));
+ *     resetFields();
+ *   }
+ * }
+ * </pre>
+ * Fields registered with {@link #field(Field)} are reset, and the buffers they hold released, when the decoder
+ * is removed from the pipeline.
+ *
+ * @param <S> the state type which is usually an {@link Enum}; use {@link Void} if state management is unused
+ */
+public abstract class ResumableDecoder<S> extends ByteToMessageDecoder {
+
+    private final List<Field> fields = new ArrayList<Field>();
+    private S state;
+
+    /**
+     * Creates a new instance with no initial state (i.e: {@code null}).
+     */
+    protected ResumableDecoder() {
+        this(null);
+    }
+
+    /**
+     * Creates a new instance with the specified initial state.
+     */
+    protected ResumableDecoder(S initialState) {
+        state = initialState;
+    }
+
+    /**
+     * Returns the current state of this decoder.
+     */
+    protected S state() {
+        return state;
+    }
+
+    /**
+     * Sets the current state of this decoder.
+     * @return the old state of this decoder
+     */
+    protected S state(S newState) {
+        S oldState = state;
+        state = newState;
+        return oldState;
+    }
+
+    /**
+     * Registers a {@link Field} so that it is reset by {@link #resetFields()} and when this decoder is removed.
+     *
+     * @return the specified {@code field}
+     */
+    protected final <F extends Field> F field(F field) {
+        if (field == null) {
+            throw new NullPointerException("field");
+        }
+        fields.add(field);
+        return field;
+    }
+
+    /**
+     * Resets all registered {@link Field}s so that they read the next message, releasing any buffer they still
+     * hold.
+     */
+    protected final void resetFields() {
+        List<Field> fields = this.fields;
+        for (int i = 0; i < fields.size(); i ++) {
+            fields.get(i).reset();
+        }
+    }
+
+    /**
+     * Releases the buffers held by the registered {@link Field}s.  Sub-classes which override this method must
+     * call {@code super.handlerRemoved0(ctx)}.
+     */
+    @Override
+    protected void handlerRemoved0(ChannelHandlerContext ctx) throws Exception {
+        resetFields();
+    }
+
+    /**
+     * A part of a message which is read incrementally.  {@link #read(ByteBuf)} never consumes more bytes than
+     * the field consists of.
+     */
+    public abstract static class Field {
+
+        private boolean done;
+
+        Field() { }
+
+        /**
+         * Reads as much of this field from {@code in} as is available.
+         *
+         * @return {@code true} if the field is complete, {@code false} if more data is needed
+         */
+        public final boolean read(ByteBuf in) {
+            if (done) {
+                return true;
+            }
+            return done = read0(in);
+        }
+
+        /**
+         * Returns {@code true} if this field was read completely since it was last reset.
+         */
+        public final boolean isDone() {
+            return done;
+        }
+
+        /**
+         * Discards the value and the progress of this field so that it can be read again.
+         */
+        public final void reset() {
+            done = false;
+            reset0();
+        }
+
+        abstract boolean read0(ByteBuf in);
+
+        abstract void reset0();
+
+        final void checkDone() {
+            if (!done) {
+                throw new IllegalStateException(StringUtil.simpleClassName(this) + " not read yet");
+            }
+        }
+    }
+
+    /**
+     * A {@link Field} holding a non-negative {@code int}, which can be used as the length prefix of a
+     * {@link BytesField}.
+     */
+    public abstract static class IntField extends Field {
+
+        IntField() { }
+
+        /**
+         * Returns the value read.
+         *
+         * @throws IllegalStateException if the field was not read yet
+         */
+        public abstract int value();
+    }
+
+    /**
+     * An unsigned big-endian integer of 1 to 4 bytes; a 4-byte value greater than {@link Integer#MAX_VALUE}
+     * is returned as a negative {@code int}.
+     */
+    public static final class FixedIntField extends IntField {
+
+        private final int length;
+        private int value;
+
+        public FixedIntField(int length) {
+            if (length < 1 || length > 4) {
+                throw new IllegalArgumentException("length: " + length + " (expected: 1-4)");
+            }
+            this.length = length;
+        }
+
+        @Override
+        boolean read0(ByteBuf in) {
+            if (in.readableBytes() < length) {
+                return false;
+            }
+            switch (length) {
+            case 1:
+                value = in.readUnsignedByte();
+                break;
+            case 2:
+                value = in.readUnsignedShort();
+                break;
+            case 3:
+                value = in.readUnsignedMedium();
+                break;
+            default:
+                value = in.readInt();
+                break;
+            }
+            return true;
+        }
+
+        @Override
+        void reset0() {
+            value = 0;
+        }
+
+        @Override
+        public int value() {
+            checkDone();
+            return value;
+        }
+    }
+
+    /**
+     * A base 128 variable-length integer, least significant group first, as used by Protocol Buffers and MQTT.
+     * Bytes are consumed as they arrive, so the encoding is never scanned twice.
+     */
+    public static final class VarIntField extends IntField {
+
+        private final int maxLength;
+        private int value;
+        private int bytesRead;
+
+        /**
+         * @param maxLength the maximum number of bytes of the encoding, between 1 and 5
+         */
+        public VarIntField(int maxLength) {
+            if (maxLength < 1 || maxLength > 5) {
+                throw new IllegalArgumentException("maxLength: " + maxLength + " (expected: 1-5)");
+            }
+            this.maxLength = maxLength;
+        }
+
+        @Override
+        boolean read0(ByteBuf in) {
+            while (in.isReadable()) {
+                int b = in.readByte();
+                value |= (b & 0x7f) << 7 * bytesRead;
+                if (++ bytesRead == 5 && (b & 0xf8) != 0) {
+                    throw new CorruptedFrameException("varint does not fit in a non-negative int");
+                }
+                if ((b & 0x80) == 0) {
+                    return true;
+                }
+                if (bytesRead == maxLength) {
+                    throw new CorruptedFrameException("varint longer than " + maxLength + " bytes");
+                }
+            }
+            return false;
+        }
+
+        @Override
+        void reset0() {
+            value = 0;
+            bytesRead = 0;
+        }
+
+        @Override
+        public int value() {
+            checkDone();
+            return value;
+        }
+    }
+
+    /**
+     * A run of bytes whose length is given either by a prefix {@link IntField} or by the decoder through
+     * {@link #length(int)}.  The content is a retained slice of the input, so no bytes are copied.
+     */
+    public static final class BytesField extends Field {
+
+        private final IntField lengthField;
+        private final int maxLength;
+        private int length = -1;
+        private ByteBuf content;
+
+        /**
+         * Creates a field whose length is set with {@link #length(int)} before it is read.
+         */
+        public BytesField(int maxLength) {
+            this(null, maxLength);
+        }
+
+        /**
+         * Creates a field whose length is read from {@code lengthField} first.  {@code lengthField} should
+         * not be registered on its own, as it is reset together with this field.
+         */
+        public BytesField(IntField lengthField, int maxLength) {
+            if (maxLength < 0) {
+                throw new IllegalArgumentException("maxLength: " + maxLength + " (expected: >= 0)");
+            }
+            this.lengthField = lengthField;
+            this.maxLength = maxLength;
+        }
+
+        /**
+         * Sets the number of bytes to read for a field without a length prefix.
+         */
+        public BytesField length(int length) {
+            if (lengthField != null) {
+                throw new IllegalStateException("length is read from the prefix");
+            }
+            this.length = checkLength(length);
+            return this;
+        }
+
+        private int checkLength(int length) {
+            if (length < 0) {
+                throw new CorruptedFrameException("negative length: " + length);
+            }
+            if (length > maxLength) {
+                throw new TooLongFrameException("length " + length + " exceeds " + maxLength);
+            }
+            return length;
+        }
+
+        @Override
+        boolean read0(ByteBuf in) {
+            if (length < 0) {
+                if (lengthField == null) {
+                    throw new IllegalStateException("length not set");
+                }
+                if (!lengthField.read(in)) {
+                    return false;
+                }
+                length = checkLength(lengthField.value());
+            }
+            if (in.readableBytes() < length) {
+                return false;
+            }
+            content = in.readSlice(length).retain();
+            return true;
+        }
+
+        @Override
+        void reset0() {
+            if (lengthField != null) {
+                lengthField.reset();
+            }
+            length = -1;
+            if (content != null) {
+                content.release();
+                content = null;
+            }
+        }
+
+        /**
+         * Returns the bytes read, which remain valid until this field is reset.
+         */
+        public ByteBuf content() {
+            checkDone();
+            if (content == null) {
+                throw new IllegalStateException("content taken already");
+            }
+            return content;
+        }
+
+        /**
+         * Returns the bytes read and transfers their ownership to the caller, who must release them.
+         */
+        public ByteBuf take() {
+            ByteBuf content = content();
+            this.content = null;
+            return content;
+        }
+
+        /**
+         * Decodes the bytes read with the specified {@link Charset}.
+         */
+        public String toString(Charset charset) {
+            return content().toString(charset);
+        }
+    }
+
+    /**
+     * A run of bytes terminated by a delimiter byte, such as a line or a NUL-terminated string.  Bytes already
+     * searched are not searched again when more data arrives.  The delimiter is consumed but not part of the
+     * content.
+     */
+    public static final class DelimitedField extends Field {
+
+        private final byte delimiter;
+        private final int maxLength;
+        private int scanned;
+        private ByteBuf content;
+
+        public DelimitedField(byte delimiter, int maxLength) {
+            if (maxLength < 0) {
+                throw new IllegalArgumentException("maxLength: " + maxLength + " (expected: >= 0)");
+            }
+            this.delimiter = delimiter;
+            this.maxLength = maxLength;
+        }
+
+        @Override
+        boolean read0(ByteBuf in) {
+            final int readerIndex = in.readerIndex();
+            final int end = Math.min(in.writerIndex(), readerIndex + maxLength + 1);
+            final int index = in.indexOf(readerIndex + scanned, end, delimiter);
+            if (index < 0) {
+                scanned = end - readerIndex;
+                if (scanned > maxLength) {
+                    throw new TooLongFrameException("no delimiter within " + maxLength + " bytes");
+                }
+                return false;
+            }
+            content = in.readSlice(index - readerIndex).retain();
+            in.skipBytes(1);
+            return true;
+        }
+
+        @Override
+        void reset0() {
+            scanned = 0;
+            if (content != null) {
+                content.release();
+                content = null;
+            }
+        }
+
+        /**
+         * Returns the bytes read without the delimiter, which remain valid until this field is reset.
+         */
+        public ByteBuf content() {
+            checkDone();
+            if (content == null) {
+                throw new IllegalStateException("content taken already");
+            }
+            return content;
+        }
+
+        /**
+         * Returns the bytes read and transfers their ownership to the caller, who must release them.
+         */
+        public ByteBuf take() {
+            ByteBuf content = content();
+            this.content = null;
+            return content;
+        }
+
+        /**
+         * Decodes the bytes read with the specified {@link Charset}.
+         */
+        public String toString(Charset charset) {
+            return content().toString(charset);
+        }
+    }
+}
@@ -20,8 +20,11 @@
 package io.netty.handler.codec.base64;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.Unpooled;
 
+import java.nio.ByteOrder;
+
 /**
  * Utility class for {@link ByteBuf} that encodes and decodes to and from
  * <a href="http://en.wikipedia.org/wiki/Base64">Base64</a> notation.
@@ -112,39 +115,141 @@ public final class Base64 {
             throw new NullPointerException("dialect");
         }
 
-        int len43 = len * 4 / 3;
-        ByteBuf dest = Unpooled.buffer(
-                len43 +
-                        (len % 3 > 0 ? 4 : 0) + // Account for padding
-                        (breakLines ? len43 / MAX_LINE_LENGTH : 0)).order(src.order()); // New lines
-        int d = 0;
-        int e = 0;
-        int len2 = len - 2;
+        ByteBuf dest = Unpooled.buffer(encodedBufferSize(len, breakLines)).order(src.order());
+        int e = encode0(src, off, len, breakLines, alphabet(dialect), dest, 0);
+        return dest.slice(0, e);
+    }
+
+    /**
+     * Encodes {@code len} bytes of {@code src} from {@code off} into a new buffer obtained from the specified
+     * {@code allocator}.  Unlike the other {@code encode} methods, the returned buffer may be pooled and must be
+     * released by the caller.
+     */
+    public static ByteBuf encode(
+            ByteBuf src, int off, int len, boolean breakLines, Base64Dialect dialect, ByteBufAllocator allocator) {
+
+        if (src == null) {
+            throw new NullPointerException("src");
+        }
+        if (dialect == null) {
+            throw new NullPointerException("dialect");
+        }
+        if (allocator == null) {
+            throw new NullPointerException("allocator");
+        }
+
+        ByteBuf dest = allocator.buffer(encodedBufferSize(len, breakLines));
+        dest.writerIndex(encode0(src, off, len, breakLines, alphabet(dialect), dest, 0));
+        return dest;
+    }
+
+    /**
+     * Encodes the readable bytes of {@code src} and appends the result to {@code dst}, which is expanded as needed.
+     * <p>
+     * This method may be called once per chunk of a larger input.  Unless {@code endOfInput} is {@code true}, only
+     * whole groups of 3 bytes (or whole lines of 57 bytes if {@code breakLines} is {@code true}) are consumed and the
+     * remainder is left readable in {@code src}, to be encoded with the next chunk.  The concatenated output is then
+     * the same as the output of encoding the whole input at once.
+     */
+    public static void encode(
+            ByteBuf src, ByteBuf dst, boolean breakLines, Base64Dialect dialect, boolean endOfInput) {
+
+        if (src == null) {
+            throw new NullPointerException("src");
+        }
+        if (dst == null) {
+            throw new NullPointerException("dst");
+        }
+        if (dialect == null) {
+            throw new NullPointerException("dialect");
+        }
+
+        int len = src.readableBytes();
+        if (!endOfInput) {
+            len -= len % (breakLines ? MAX_LINE_LENGTH / 4 * 3 : 3);
+        }
+        int off = src.readerIndex();
+        dst.ensureWritable(encodedBufferSize(len, breakLines));
+        dst.writerIndex(encode0(src, off, len, breakLines, alphabet(dialect), dst, dst.writerIndex()));
+        src.readerIndex(off + len);
+    }
+
+    /**
+     * Returns the maximum number of bytes that encoding {@code len} bytes may produce.
+     */
+    public static int encodedBufferSize(int len, boolean breakLines) {
+        if (len < 0) {
+            throw new IllegalArgumentException("len: " + len + " (expected: >= 0)");
+        }
+
+        long len43 = ((long) len << 2) / 3;
+        long size = len43 +
+                (len % 3 > 0 ? 4 : 0) + // Account for padding
+                (breakLines ? len43 / MAX_LINE_LENGTH : 0); // New lines
+        return size < Integer.MAX_VALUE ? (int) size : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Encodes {@code len} bytes of {@code src} from {@code off} into {@code dest} from {@code destIndex} and returns
+     * the index after the last byte written.  {@code dest} must have room for
+     * {@link #encodedBufferSize(int, boolean)} bytes.
+     */
+    private static int encode0(
+            ByteBuf src, int off, int len, boolean breakLines, byte[] alphabet, ByteBuf dest, int destIndex) {
+
+        // Word-sized accesses below assume big endian, where the first byte is the most significant one.
+        src = src.order(ByteOrder.BIG_ENDIAN);
+        dest = dest.order(ByteOrder.BIG_ENDIAN);
+
+        int end = off + len;
+        int d = off;
+        int e = destIndex;
         int lineLength = 0;
-        for (; d < len2; d += 3, e += 4) {
-            encode3to4(src, d + off, 3, dest, e, dialect);
+        while (end - d >= 3) {
+            if (end - d >= 8 && (!breakLines || lineLength <= MAX_LINE_LENGTH - 8)) {
+                // Encode two groups at once: the six most significant bytes of the word become eight characters.
+                long inBuff = src.getLong(d);
+                dest.setLong(e,
+                        (long) alphabet[(int) (inBuff >>> 58)       ] << 56 |
+                        (long) alphabet[(int) (inBuff >>> 52) & 0x3f] << 48 |
+                        (long) alphabet[(int) (inBuff >>> 46) & 0x3f] << 40 |
+                        (long) alphabet[(int) (inBuff >>> 40) & 0x3f] << 32 |
+                        (long) alphabet[(int) (inBuff >>> 34) & 0x3f] << 24 |
+                        (long) alphabet[(int) (inBuff >>> 28) & 0x3f] << 16 |
+                        (long) alphabet[(int) (inBuff >>> 22) & 0x3f] <<  8 |
+                        (long) alphabet[(int) (inBuff >>> 16) & 0x3f]);
+                d += 6;
+                e += 8;
+                lineLength += 8;
+            } else {
+                int inBuff = src.getUnsignedMedium(d);
+                dest.setInt(e,
+                        alphabet[inBuff >>> 18       ] << 24 |
+                        alphabet[inBuff >>> 12 & 0x3f] << 16 |
+                        alphabet[inBuff >>>  6 & 0x3f] <<  8 |
+                        alphabet[inBuff        & 0x3f]);
+                d += 3;
+                e += 4;
+                lineLength += 4;
+            }
 
-            lineLength += 4;
             if (breakLines && lineLength == MAX_LINE_LENGTH) {
-                dest.setByte(e + 4, NEW_LINE);
-                e ++;
+                dest.setByte(e ++, NEW_LINE);
                 lineLength = 0;
             } // end if: end of line
-        } // end for: each piece of array
+        } // end while: each piece of array
 
-        if (d < len) {
-            encode3to4(src, d + off, len - d, dest, e, dialect);
+        if (d < end) {
+            encode3to4(src, d, end - d, dest, e, alphabet);
             e += 4;
         } // end if: some padding needed
 
-        return dest.slice(0, e);
+        return e;
     }
 
     private static void encode3to4(
             ByteBuf src, int srcOffset, int numSigBytes,
-            ByteBuf dest, int destOffset, Base64Dialect dialect) {
-
-        byte[] ALPHABET = alphabet(dialect);
+            ByteBuf dest, int destOffset, byte[] alphabet) {
 
         //           1         2         3
         // 01234567890123456789012345678901 Bit position
@@ -164,20 +269,20 @@ public final class Base64 {
 
         switch (numSigBytes) {
         case 3:
-            dest.setByte(destOffset    , ALPHABET[inBuff >>> 18       ]);
-            dest.setByte(destOffset + 1, ALPHABET[inBuff >>> 12 & 0x3f]);
-            dest.setByte(destOffset + 2, ALPHABET[inBuff >>>  6 & 0x3f]);
-            dest.setByte(destOffset + 3, ALPHABET[inBuff        & 0x3f]);
+            dest.setByte(destOffset    , alphabet[inBuff >>> 18       ]);
+            dest.setByte(destOffset + 1, alphabet[inBuff >>> 12 & 0x3f]);
+            dest.setByte(destOffset + 2, alphabet[inBuff >>>  6 & 0x3f]);
+            dest.setByte(destOffset + 3, alphabet[inBuff        & 0x3f]);
             break;
         case 2:
-            dest.setByte(destOffset    , ALPHABET[inBuff >>> 18       ]);
-            dest.setByte(destOffset + 1, ALPHABET[inBuff >>> 12 & 0x3f]);
-            dest.setByte(destOffset + 2, ALPHABET[inBuff >>> 6  & 0x3f]);
+            dest.setByte(destOffset    , alphabet[inBuff >>> 18       ]);
+            dest.setByte(destOffset + 1, alphabet[inBuff >>> 12 & 0x3f]);
+            dest.setByte(destOffset + 2, alphabet[inBuff >>> 6  & 0x3f]);
             dest.setByte(destOffset + 3, EQUALS_SIGN);
             break;
         case 1:
-            dest.setByte(destOffset    , ALPHABET[inBuff >>> 18       ]);
-            dest.setByte(destOffset + 1, ALPHABET[inBuff >>> 12 & 0x3f]);
+            dest.setByte(destOffset    , alphabet[inBuff >>> 18       ]);
+            dest.setByte(destOffset + 1, alphabet[inBuff >>> 12 & 0x3f]);
             dest.setByte(destOffset + 2, EQUALS_SIGN);
             dest.setByte(destOffset + 3, EQUALS_SIGN);
             break;
@@ -210,35 +315,137 @@ public final class Base64 {
         if (src == null) {
             throw new NullPointerException("src");
         }
+
+        ByteBuf dest = decode(src, off, len, dialect, src.alloc()).order(src.order());
+        return dest.slice(0, dest.writerIndex());
+    }
+
+    /**
+     * Decodes {@code len} bytes of {@code src} from {@code off} into a new buffer obtained from the specified
+     * {@code allocator}.
+     */
+    public static ByteBuf decode(
+            ByteBuf src, int off, int len, Base64Dialect dialect, ByteBufAllocator allocator) {
+
+        if (src == null) {
+            throw new NullPointerException("src");
+        }
+        if (dialect == null) {
+            throw new NullPointerException("dialect");
+        }
+        if (allocator == null) {
+            throw new NullPointerException("allocator");
+        }
+
+        ByteBuf dest = allocator.buffer(decodedBufferSize(len)); // Upper limit on size of output
+        try {
+            dest.writerIndex((int) decode0(src, off, len, decodabet(dialect), dest, 0));
+            return dest;
+        } catch (RuntimeException e) {
+            dest.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Decodes the readable bytes of {@code src} and appends the result to {@code dst}, which is expanded as needed.
+     * <p>
+     * This method may be called once per chunk of a larger input.  Unless {@code endOfInput} is {@code true}, an
+     * incomplete group of 4 characters at the end of {@code src} is left readable, to be decoded with the next chunk.
+     * Decoding stops at the first padded group, and everything after it is consumed.
+     */
+    public static void decode(ByteBuf src, ByteBuf dst, Base64Dialect dialect, boolean endOfInput) {
+
+        if (src == null) {
+            throw new NullPointerException("src");
+        }
+        if (dst == null) {
+            throw new NullPointerException("dst");
+        }
         if (dialect == null) {
             throw new NullPointerException("dialect");
         }
 
-        byte[] DECODABET = decodabet(dialect);
+        int off = src.readerIndex();
+        int len = src.readableBytes();
+        dst.ensureWritable(decodedBufferSize(len));
+        long result = decode0(src, off, len, decodabet(dialect), dst, dst.writerIndex());
+        dst.writerIndex((int) result);
+        src.readerIndex(endOfInput ? off + len : (int) (result >>> 32));
+    }
 
-        int len34 = len * 3 / 4;
-        ByteBuf dest = src.alloc().buffer(len34).order(src.order()); // Upper limit on size of output
-        int outBuffPosn = 0;
+    /**
+     * Returns the maximum number of bytes that decoding {@code len} bytes may produce.
+     */
+    public static int decodedBufferSize(int len) {
+        if (len < 0) {
+            throw new IllegalArgumentException("len: " + len + " (expected: >= 0)");
+        }
+        return (int) ((long) len * 3 >>> 2);
+    }
+
+    /**
+     * Decodes {@code len} bytes of {@code src} from {@code off} into {@code dest} from {@code destIndex}, which must
+     * have room for {@link #decodedBufferSize(int)} bytes.  Returns the index after the last byte written in the low
+     * 32 bits, and the index after the last character consumed as part of a complete group in the high 32 bits.
+     */
+    private static long decode0(
+            ByteBuf src, int off, int len, byte[] decodabet, ByteBuf dest, int destIndex) {
+
+        // Word-sized accesses below assume big endian, where the first byte is the most significant one.
+        src = src.order(ByteOrder.BIG_ENDIAN);
+        dest = dest.order(ByteOrder.BIG_ENDIAN);
+
+        int end = off + len;
+        int consumed = off;
+        int outBuffPosn = destIndex;
 
         byte[] b4 = new byte[4];
         int b4Posn = 0;
-        int i;
+        int i = off;
         byte sbiCrop;
         byte sbiDecode;
-        for (i = off; i < off + len; i ++) {
+        while (i < end) {
+            if (b4Posn == 0 && end - i >= 8) {
+                // Try to decode two groups at once.  This only works if none of the eight characters is white
+                // space, an equals sign or invalid, all of which decode to negative values.
+                long inBuff = src.getLong(i);
+                int c0 = decodabet[(int) (inBuff >>> 56) & 0x7f];
+                int c1 = decodabet[(int) (inBuff >>> 48) & 0x7f];
+                int c2 = decodabet[(int) (inBuff >>> 40) & 0x7f];
+                int c3 = decodabet[(int) (inBuff >>> 32) & 0x7f];
+                int c4 = decodabet[(int) (inBuff >>> 24) & 0x7f];
+                int c5 = decodabet[(int) (inBuff >>> 16) & 0x7f];
+                int c6 = decodabet[(int) (inBuff >>>  8) & 0x7f];
+                int c7 = decodabet[(int)  inBuff         & 0x7f];
+                if ((c0 | c1 | c2 | c3 | c4 | c5 | c6 | c7) >= 0) {
+                    long outBuff =
+                            (long) c0 << 42 | (long) c1 << 36 | (long) c2 << 30 | (long) c3 << 24 |
+                            c4 << 18 | c5 << 12 | c6 << 6 | c7;
+                    dest.setInt(outBuffPosn, (int) (outBuff >>> 16));
+                    dest.setShort(outBuffPosn + 4, (int) outBuff);
+                    outBuffPosn += 6;
+                    i += 8;
+                    consumed = i;
+                    continue;
+                }
+            }
+
             sbiCrop = (byte) (src.getByte(i) & 0x7f); // Only the low seven bits
-            sbiDecode = DECODABET[sbiCrop];
+            sbiDecode = decodabet[sbiCrop];
 
             if (sbiDecode >= WHITE_SPACE_ENC) { // White space, Equals sign or better
                 if (sbiDecode >= EQUALS_SIGN_ENC) { // Equals sign or better
                     b4[b4Posn ++] = sbiCrop;
                     if (b4Posn > 3) { // Quartet built
                         outBuffPosn += decode4to3(
-                                b4, 0, dest, outBuffPosn, dialect);
+                                b4, 0, dest, outBuffPosn, decodabet);
                         b4Posn = 0;
+                        consumed = i + 1;
 
-                        // If that was the equals sign, break out of 'for' loop
+                        // If that was the equals sign, break out of 'while' loop
                         if (sbiCrop == EQUALS_SIGN) {
+                            consumed = end;
                             break;
                         }
                     }
@@ -248,31 +455,30 @@ public final class Base64 {
                         "bad Base64 input character at " + i + ": " +
                         src.getUnsignedByte(i) + " (decimal)");
             }
+            i ++;
         }
 
-        return dest.slice(0, outBuffPosn);
+        return (long) consumed << 32 | outBuffPosn & 0xFFFFFFFFL;
     }
 
     private static int decode4to3(
             byte[] src, int srcOffset,
-            ByteBuf dest, int destOffset, Base64Dialect dialect) {
-
-        byte[] DECODABET = decodabet(dialect);
+            ByteBuf dest, int destOffset, byte[] decodabet) {
 
         if (src[srcOffset + 2] == EQUALS_SIGN) {
             // Example: Dk==
             int outBuff =
-                    (DECODABET[src[srcOffset    ]] & 0xFF) << 18 |
-                    (DECODABET[src[srcOffset + 1]] & 0xFF) << 12;
+                    (decodabet[src[srcOffset    ]] & 0xFF) << 18 |
+                    (decodabet[src[srcOffset + 1]] & 0xFF) << 12;
 
             dest.setByte(destOffset, (byte) (outBuff >>> 16));
             return 1;
         } else if (src[srcOffset + 3] == EQUALS_SIGN) {
             // Example: DkL=
             int outBuff =
-                    (DECODABET[src[srcOffset    ]] & 0xFF) << 18 |
-                    (DECODABET[src[srcOffset + 1]] & 0xFF) << 12 |
-                    (DECODABET[src[srcOffset + 2]] & 0xFF) <<  6;
+                    (decodabet[src[srcOffset    ]] & 0xFF) << 18 |
+                    (decodabet[src[srcOffset + 1]] & 0xFF) << 12 |
+                    (decodabet[src[srcOffset + 2]] & 0xFF) <<  6;
 
             dest.setByte(destOffset    , (byte) (outBuff >>> 16));
             dest.setByte(destOffset + 1, (byte) (outBuff >>>  8));
@@ -282,10 +488,10 @@ public final class Base64 {
             int outBuff;
             try {
                 outBuff =
-                        (DECODABET[src[srcOffset    ]] & 0xFF) << 18 |
-                        (DECODABET[src[srcOffset + 1]] & 0xFF) << 12 |
-                        (DECODABET[src[srcOffset + 2]] & 0xFF) <<  6 |
-                         DECODABET[src[srcOffset + 3]] & 0xFF;
+                        (decodabet[src[srcOffset    ]] & 0xFF) << 18 |
+                        (decodabet[src[srcOffset + 1]] & 0xFF) << 12 |
+                        (decodabet[src[srcOffset + 2]] & 0xFF) <<  6 |
+                         decodabet[src[srcOffset + 3]] & 0xFF;
             } catch (IndexOutOfBoundsException ignored) {
                 throw new IllegalArgumentException("not encoded in Base64");
             }
@@ -64,6 +64,6 @@ public class Base64Encoder extends MessageToMessageEncoder<ByteBuf> {
 
     @Override
     protected void encode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) throws Exception {
-        out.add(Base64.encode(msg, msg.readerIndex(), msg.readableBytes(), breakLines, dialect));
+        out.add(Base64.encode(msg, msg.readerIndex(), msg.readableBytes(), breakLines, dialect, ctx.alloc()));
     }
 }
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+
+/**
+ * Tells if <a href="https://github.com/hyperxpro/Brotli4j">{@code brotli4j}</a> and its native library are
+ * available, which is required by {@link BrotliEncoder} and {@link BrotliDecoder}.
+ *
+ * {@code brotli4j} is compiled for Java 8, so it is reported as unavailable on older JVMs.
+ */
+public final class Brotli {
+
+    private static final Throwable UNAVAILABILITY_CAUSE;
+
+    static {
+        Throwable cause = null;
+        try {
+            Brotli4jLoader.ensureAvailability();
+        } catch (UnsupportedClassVersionError e) {
+            // Thrown by JVMs older than Java 8 while loading the classes of brotli4j.
+            cause = e;
+        } catch (Throwable t) {
+            cause = t;
+        }
+        UNAVAILABILITY_CAUSE = cause;
+    }
+
+    /**
+     * Returns {@code true} if and only if {@code brotli4j} is available.
+     */
+    public static boolean isAvailable() {
+        return UNAVAILABILITY_CAUSE == null;
+    }
+
+    /**
+     * Ensure that {@code brotli4j} is available.
+     *
+     * @throws UnsatisfiedLinkError if unavailable
+     */
+    public static void ensureAvailability() {
+        if (UNAVAILABILITY_CAUSE instanceof UnsupportedClassVersionError) {
+            throw (Error) new UnsatisfiedLinkError(
+                    "brotli4j requires Java 8 or newer").initCause(UNAVAILABILITY_CAUSE);
+        }
+        if (UNAVAILABILITY_CAUSE != null) {
+            throw (Error) new UnsatisfiedLinkError(
+                    "failed to load brotli4j").initCause(UNAVAILABILITY_CAUSE);
+        }
+    }
+
+    /**
+     * Returns the cause of unavailability of {@code brotli4j}.
+     *
+     * @return the cause if unavailable. {@code null} if available.
+     */
+    public static Throwable unavailabilityCause() {
+        return UNAVAILABILITY_CAUSE;
+    }
+
+    private Brotli() { }
+}
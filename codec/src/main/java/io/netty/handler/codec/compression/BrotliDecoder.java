@@ -0,0 +1,166 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import com.aayushatharva.brotli4j.decoder.DecoderJNI;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Uncompresses a {@link ByteBuf} encoded with the <a href="https://tools.ietf.org/html/rfc7932">Brotli</a>
+ * format, for example by {@link BrotliEncoder}.
+ *
+ * The input is handed to the native decoder in chunks of at most {@code inputBufferSize} bytes, and
+ * everything that can be decompressed from the received bytes is emitted right away.  This decoder requires
+ * {@code brotli4j} and thus Java 8 or newer at runtime (see {@link Brotli#isAvailable()}).
+ */
+public class BrotliDecoder extends ByteToMessageDecoder {
+
+    private static final int DEFAULT_INPUT_BUFFER_SIZE = 8 * 1024;
+
+    private enum State {
+        DONE,
+        NEEDS_MORE_INPUT,
+        ERROR
+    }
+
+    /**
+     * Size of the native input buffer.
+     */
+    private final int inputBufferSize;
+
+    /**
+     * Underlying native decoder in use, created once the handler is added.
+     */
+    private DecoderJNI.Wrapper decoder;
+
+    /**
+     * Indicates if the stream was completely decoded or turned out to be corrupted.
+     */
+    private boolean destroyed;
+
+    /**
+     * Creates a new Brotli decoder with an input buffer of 8 KB.
+     */
+    public BrotliDecoder() {
+        this(DEFAULT_INPUT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a new Brotli decoder.
+     *
+     * @param inputBufferSize  the size of the native input buffer
+     */
+    public BrotliDecoder(int inputBufferSize) {
+        if (inputBufferSize <= 0) {
+            throw new IllegalArgumentException("inputBufferSize: " + inputBufferSize + " (expected: > 0)");
+        }
+        Brotli.ensureAvailability();
+        this.inputBufferSize = inputBufferSize;
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        if (destroyed) {
+            // Skip data received after finished.
+            in.skipBytes(in.readableBytes());
+            return;
+        }
+        if (!in.isReadable()) {
+            return;
+        }
+
+        try {
+            switch (decompress(in, out, ctx.alloc())) {
+                case DONE:
+                    destroy();
+                    break;
+                case ERROR:
+                    throw new DecompressionException("Brotli stream corrupted");
+                default:
+                    break;
+            }
+        } catch (RuntimeException e) {
+            destroy();
+            throw e;
+        }
+    }
+
+    private State decompress(ByteBuf in, List<Object> out, ByteBufAllocator alloc) {
+        final DecoderJNI.Wrapper decoder = this.decoder;
+        for (;;) {
+            switch (decoder.getStatus()) {
+                case DONE:
+                    return State.DONE;
+                case OK:
+                    decoder.push(0);
+                    break;
+                case NEEDS_MORE_INPUT:
+                    if (decoder.hasOutput()) {
+                        out.add(pull(alloc));
+                    }
+                    if (!in.isReadable()) {
+                        return State.NEEDS_MORE_INPUT;
+                    }
+                    ByteBuffer inputBuffer = decoder.getInputBuffer();
+                    inputBuffer.clear();
+                    int length = Math.min(in.readableBytes(), inputBuffer.remaining());
+                    inputBuffer.limit(length);
+                    in.readBytes(inputBuffer);
+                    decoder.push(length);
+                    break;
+                case NEEDS_MORE_OUTPUT:
+                    out.add(pull(alloc));
+                    break;
+                default:
+                    return State.ERROR;
+            }
+        }
+    }
+
+    private ByteBuf pull(ByteBufAllocator alloc) {
+        ByteBuffer output = decoder.pull();
+        ByteBuf buf = alloc.buffer(output.remaining());
+        buf.writeBytes(output);
+        return buf;
+    }
+
+    private void destroy() {
+        if (!destroyed) {
+            destroyed = true;
+            decoder.destroy();
+        }
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        super.handlerAdded(ctx);
+        decoder = new DecoderJNI.Wrapper(inputBufferSize);
+    }
+
+    @Override
+    protected void handlerRemoved0(ChannelHandlerContext ctx) throws Exception {
+        super.handlerRemoved0(ctx);
+        if (decoder != null) {
+            destroy();
+        }
+    }
+}
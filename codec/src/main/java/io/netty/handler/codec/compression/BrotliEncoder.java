@@ -0,0 +1,310 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import com.aayushatharva.brotli4j.encoder.BrotliEncoderChannel;
+import com.aayushatharva.brotli4j.encoder.Encoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.ChannelPromiseNotifier;
+import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.util.concurrent.EventExecutor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compresses a {@link ByteBuf} using the <a href="https://tools.ietf.org/html/rfc7932">Brotli</a> format.
+ *
+ * All messages written to a channel form one Brotli stream.  The stream is flushed after every message, so that
+ * the peer can decompress everything written so far without losing the compression context, and finished when
+ * the encoder is {@linkplain #close() closed}.  This encoder requires {@code brotli4j} and thus Java 8 or
+ * newer at runtime (see {@link Brotli#isAvailable()}).
+ */
+public class BrotliEncoder extends MessageToByteEncoder<ByteBuf> {
+
+    private static final int DEFAULT_QUALITY = 4;
+
+    /**
+     * How long {@link #close(ChannelHandlerContext, ChannelPromise)} waits for the end of the stream to be written
+     * before it closes the channel anyway.
+     */
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+    /**
+     * Quality and window size passed to the native encoder.
+     */
+    private final int quality;
+    private final int window;
+
+    /**
+     * Receives the output of {@link #encoder} and appends it to the current output buffer.
+     */
+    private ByteBufChannel sink;
+
+    /**
+     * Underlying native encoder in use, created when the first byte is compressed.
+     */
+    private BrotliEncoderChannel encoder;
+
+    /**
+     * Indicates if the compressed stream has been finished.
+     */
+    private volatile boolean finished;
+
+    /**
+     * Used to interact with its {@link ChannelPipeline} and other handlers.
+     */
+    private volatile ChannelHandlerContext ctx;
+
+    /**
+     * Creates a new Brotli encoder with the default quality ({@code 4}) and window size.
+     */
+    public BrotliEncoder() {
+        this(DEFAULT_QUALITY);
+    }
+
+    /**
+     * Creates a new Brotli encoder with the specified quality and the default window size.
+     *
+     * @param quality  {@code 0} yields the fastest compression and {@code 11} the best compression.
+     *                 The default quality is {@code 4}.
+     */
+    public BrotliEncoder(int quality) {
+        this(quality, -1);
+    }
+
+    /**
+     * Creates a new Brotli encoder with the specified quality and window size.
+     *
+     * @param quality  {@code 0} yields the fastest compression and {@code 11} the best compression.
+     *                 The default quality is {@code 4}.
+     * @param window   the base two logarithm of the size of the sliding window, {@code 10} to {@code 24},
+     *                 or {@code -1} to let the encoder choose.  Larger values result in better compression
+     *                 at the expense of memory usage on both ends.
+     */
+    public BrotliEncoder(int quality, int window) {
+        if (quality < 0 || quality > 11) {
+            throw new IllegalArgumentException("quality: " + quality + " (expected: 0-11)");
+        }
+        if (window != -1 && (window < 10 || window > 24)) {
+            throw new IllegalArgumentException("window: " + window + " (expected: -1 or 10-24)");
+        }
+        Brotli.ensureAvailability();
+        this.quality = quality;
+        this.window = window;
+    }
+
+    @Override
+    protected final ByteBuf allocateBuffer(ChannelHandlerContext ctx, ByteBuf msg,
+                                           boolean preferDirect) throws Exception {
+        // The compressed size is unknown until the message was compressed, so start small and let it grow.
+        int initialCapacity = (msg.readableBytes() >>> 1) + 64;
+        if (preferDirect) {
+            return ctx.alloc().ioBuffer(initialCapacity);
+        } else {
+            return ctx.alloc().heapBuffer(initialCapacity);
+        }
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, ByteBuf in, ByteBuf out) throws Exception {
+        if (finished) {
+            out.writeBytes(in);
+            return;
+        }
+        if (!in.isReadable()) {
+            return;
+        }
+
+        BrotliEncoderChannel encoder = encoder();
+        sink.out = out;
+        try {
+            ByteBuffer src = in.nioBuffer();
+            while (src.hasRemaining()) {
+                encoder.write(src);
+            }
+            in.skipBytes(in.readableBytes());
+            encoder.flush();
+        } catch (IOException e) {
+            throw new CompressionException(e);
+        } finally {
+            sink.out = null;
+        }
+    }
+
+    private BrotliEncoderChannel encoder() throws IOException {
+        BrotliEncoderChannel encoder = this.encoder;
+        if (encoder == null) {
+            Encoder.Parameters parameters = new Encoder.Parameters().setQuality(quality);
+            if (window != -1) {
+                parameters.setWindow(window);
+            }
+            sink = new ByteBufChannel();
+            this.encoder = encoder = new BrotliEncoderChannel(sink, parameters);
+        }
+        return encoder;
+    }
+
+    private ChannelFuture finishEncode(final ChannelHandlerContext ctx, ChannelPromise promise) {
+        if (finished) {
+            promise.setSuccess();
+            return promise;
+        }
+        finished = true;
+
+        final ByteBuf footer = ctx.alloc().buffer();
+        try {
+            encoder();
+            sink.out = footer;
+            destroy();
+        } catch (IOException e) {
+            footer.release();
+            promise.setFailure(new CompressionException(e));
+            return promise;
+        }
+        return ctx.writeAndFlush(footer, promise);
+    }
+
+    /**
+     * Finishes the stream, writing its last bytes to {@link #sink}, and releases the native encoder.
+     */
+    private void destroy() throws IOException {
+        BrotliEncoderChannel encoder = this.encoder;
+        if (encoder != null) {
+            this.encoder = null;
+            try {
+                encoder.close();
+            } finally {
+                sink.out = null;
+            }
+        }
+    }
+
+    /**
+     * Returns {@code true} if and only if the compressed stream has been finished.
+     */
+    public boolean isClosed() {
+        return finished;
+    }
+
+    /**
+     * Close this {@link BrotliEncoder} and so finish the encoding.
+     *
+     * The returned {@link ChannelFuture} will be notified once the operation completes.
+     */
+    public ChannelFuture close() {
+        return close(ctx().newPromise());
+    }
+
+    /**
+     * Close this {@link BrotliEncoder} and so finish the encoding.
+     * The given {@link ChannelFuture} will be notified once the operation
+     * completes and will also be returned.
+     */
+    public ChannelFuture close(final ChannelPromise promise) {
+        ChannelHandlerContext ctx = ctx();
+        EventExecutor executor = ctx.executor();
+        if (executor.inEventLoop()) {
+            return finishEncode(ctx, promise);
+        } else {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    ChannelFuture f = finishEncode(ctx(), promise);
+                    f.addListener(new ChannelPromiseNotifier(promise));
+                }
+            });
+            return promise;
+        }
+    }
+
+    @Override
+    public void close(final ChannelHandlerContext ctx, final ChannelPromise promise) throws Exception {
+        ChannelFuture f = finishEncode(ctx, ctx.newPromise());
+        f.addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture f) throws Exception {
+                ctx.close(promise);
+            }
+        });
+
+        if (!f.isDone()) {
+            // Ensure the channel is closed even if the write operation completes in time.
+            ctx.executor().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    ctx.close(promise);
+                }
+            }, CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    private ChannelHandlerContext ctx() {
+        ChannelHandlerContext ctx = this.ctx;
+        if (ctx == null) {
+            throw new IllegalStateException("not added to a pipeline");
+        }
+        return ctx;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        // Release the native encoder of an unfinished stream; its remaining output is discarded.
+        destroy();
+    }
+
+    /**
+     * A {@link WritableByteChannel} which appends everything written to it to {@link #out}, or discards it if
+     * there is no output buffer.
+     */
+    private static final class ByteBufChannel implements WritableByteChannel {
+        ByteBuf out;
+        private boolean open = true;
+
+        @Override
+        public int write(ByteBuffer src) {
+            int length = src.remaining();
+            if (out != null) {
+                out.writeBytes(src);
+            } else {
+                src.position(src.limit());
+            }
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+    }
+}
@@ -15,6 +15,9 @@
  */
 package io.netty.handler.codec.compression;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.util.internal.PlatformDependent;
+
 import java.util.zip.Checksum;
 
 /**
@@ -24,6 +27,8 @@ import java.util.zip.Checksum;
  *
  * The implementation of this class has been sourced from the Appendix of RFC 3309,
  * but with masking due to Java not being able to support unsigned types.
+ *
+ * Bulk updates use the "slicing-by-8" variant, which folds 8 input bytes per step using 8 derived tables.
  */
 class Crc32c implements Checksum {
     private static final int[] CRC_TABLE = {
@@ -93,6 +98,34 @@ class Crc32c implements Checksum {
             0xBE2DA0A5, 0x4C4623A6, 0x5F16D052, 0xAD7D5351,
     };
 
+    /**
+     * {@code SLICING_TABLES[k][b]} is the CRC of byte {@code b} followed by {@code k} zero bytes.
+     */
+    private static final int[][] SLICING_TABLES = new int[8][];
+
+    static {
+        SLICING_TABLES[0] = CRC_TABLE;
+        for (int k = 1; k < SLICING_TABLES.length; k ++) {
+            int[] previous = SLICING_TABLES[k - 1];
+            int[] table = new int[256];
+            for (int i = 0; i < table.length; i ++) {
+                table[i] = previous[i] >>> 8 ^ CRC_TABLE[previous[i] & 0xFF];
+            }
+            SLICING_TABLES[k] = table;
+        }
+    }
+
+    private static final int[] T1 = SLICING_TABLES[1];
+    private static final int[] T2 = SLICING_TABLES[2];
+    private static final int[] T3 = SLICING_TABLES[3];
+    private static final int[] T4 = SLICING_TABLES[4];
+    private static final int[] T5 = SLICING_TABLES[5];
+    private static final int[] T6 = SLICING_TABLES[6];
+    private static final int[] T7 = SLICING_TABLES[7];
+
+    private static final boolean UNSAFE_LE =
+            PlatformDependent.hasUnsafe() && !PlatformDependent.BIG_ENDIAN_NATIVE_ORDER;
+
     private static final long LONG_MASK = 0xFFFFFFFFL;
     private static final int BYTE_MASK = 0xFF;
 
@@ -105,9 +138,58 @@ class Crc32c implements Checksum {
 
     @Override
     public void update(byte[] buffer, int offset, int length) {
-        for (int i = offset; i < offset + length; i++) {
+        int crc = this.crc;
+        final int end = offset + length;
+        int i = offset;
+        for (; i <= end - 8; i += 8) {
+            final long value;
+            if (UNSAFE_LE) {
+                value = PlatformDependent.getLong(buffer, i);
+            } else {
+                value = (buffer[i] & 0xFFL) |
+                        (buffer[i + 1] & 0xFFL) << 8 |
+                        (buffer[i + 2] & 0xFFL) << 16 |
+                        (buffer[i + 3] & 0xFFL) << 24 |
+                        (buffer[i + 4] & 0xFFL) << 32 |
+                        (buffer[i + 5] & 0xFFL) << 40 |
+                        (buffer[i + 6] & 0xFFL) << 48 |
+                        (long) buffer[i + 7] << 56;
+            }
+            crc = crc32c8(crc, value);
+        }
+        for (; i < end; i++) {
             crc = crc32c(crc, buffer[i]);
         }
+        this.crc = crc;
+    }
+
+    /**
+     * Updates the checksum with {@code length} bytes of {@code buffer} starting at {@code index} without
+     * copying them to a temporary array or modifying the buffer's indexes.
+     */
+    void update(ByteBuf buffer, int index, int length) {
+        if (buffer.hasArray()) {
+            update(buffer.array(), buffer.arrayOffset() + index, length);
+            return;
+        }
+
+        int crc = this.crc;
+        final int end = index + length;
+        int i = index;
+        if (UNSAFE_LE && buffer.hasMemoryAddress()) {
+            final long address = buffer.memoryAddress();
+            for (; i <= end - 8; i += 8) {
+                crc = crc32c8(crc, PlatformDependent.getLong(address + i));
+            }
+        } else {
+            for (; i <= end - 8; i += 8) {
+                crc = crc32c8(crc, Long.reverseBytes(buffer.getLong(i)));
+            }
+        }
+        for (; i < end; i++) {
+            crc = crc32c(crc, buffer.getByte(i));
+        }
+        this.crc = crc;
     }
 
     @Override
@@ -123,4 +205,20 @@ class Crc32c implements Checksum {
     private static int crc32c(int crc, int b) {
         return crc >>> 8 ^ CRC_TABLE[(crc ^ b & BYTE_MASK) & BYTE_MASK];
     }
+
+    /**
+     * Folds 8 bytes into the CRC; the first byte is in the lowest bits of {@code value}.
+     */
+    private static int crc32c8(int crc, long value) {
+        final int low = crc ^ (int) value;
+        final int high = (int) (value >>> 32);
+        return T7[low & BYTE_MASK] ^
+               T6[low >>> 8 & BYTE_MASK] ^
+               T5[low >>> 16 & BYTE_MASK] ^
+               T4[low >>> 24] ^
+               T3[high & BYTE_MASK] ^
+               T2[high >>> 8 & BYTE_MASK] ^
+               T1[high >>> 16 & BYTE_MASK] ^
+               CRC_TABLE[high >>> 24];
+    }
 }
@@ -34,7 +34,12 @@ public class JdkZlibDecoder extends ZlibDecoder {
     private static final int FCOMMENT = 0x10;
     private static final int FRESERVED = 0xE0;
 
+    /**
+     * Acquired from the {@link JdkZlibPool} when the first byte is decompressed and released once the stream is
+     * finished, so that an idle decoder does not hold any native zlib state.
+     */
     private Inflater inflater;
+    private boolean nowrap;
     private final byte[] dictionary;
 
     // GZIP related
@@ -90,15 +95,14 @@ public class JdkZlibDecoder extends ZlibDecoder {
         }
         switch (wrapper) {
             case GZIP:
-                inflater = new Inflater(true);
+                nowrap = true;
                 crc = new CRC32();
                 break;
             case NONE:
-                inflater = new Inflater(true);
+                nowrap = true;
                 crc = null;
                 break;
             case ZLIB:
-                inflater = new Inflater();
                 crc = null;
                 break;
             case ZLIB_OR_NONE:
@@ -136,8 +140,7 @@ public class JdkZlibDecoder extends ZlibDecoder {
                 return;
             }
 
-            boolean nowrap = !looksLikeZlib(in.getShort(in.readerIndex()));
-            inflater = new Inflater(nowrap);
+            nowrap = !looksLikeZlib(in.getShort(in.readerIndex()));
             decideZlibOrNone = false;
         }
 
@@ -146,6 +149,7 @@ public class JdkZlibDecoder extends ZlibDecoder {
                 case FOOTER_START:
                     if (readGZIPFooter(in)) {
                         finished = true;
+                        releaseInflater();
                     }
                     return;
                 default:
@@ -159,59 +163,72 @@ public class JdkZlibDecoder extends ZlibDecoder {
             readableBytes = in.readableBytes();
         }
 
-        if (in.hasArray()) {
-            inflater.setInput(in.array(), in.arrayOffset() + in.readerIndex(), readableBytes);
-        } else {
-            byte[] array = new byte[readableBytes];
-            in.getBytes(in.readerIndex(), array);
-            inflater.setInput(array);
-        }
-
-        int maxOutputLength = inflater.getRemaining() << 1;
+        Inflater inflater = inflater();
+        int maxOutputLength = readableBytes << 1;
         ByteBuf decompressed = ctx.alloc().heapBuffer(maxOutputLength);
         try {
             boolean readFooter = false;
+            boolean streamEnd = false;
+            int readerIndex = in.readerIndex();
+            int endIndex = readerIndex + readableBytes;
             byte[] outArray = decompressed.array();
-            while (!inflater.needsInput()) {
-                int writerIndex = decompressed.writerIndex();
-                int outIndex = decompressed.arrayOffset() + writerIndex;
-                int length = decompressed.writableBytes();
-
-                if (length == 0) {
-                    // completely filled the buffer allocate a new one and start to fill it
-                    out.add(decompressed);
-                    decompressed = ctx.alloc().heapBuffer(maxOutputLength);
-                    outArray = decompressed.array();
-                    continue;
+            do {
+                int chunk;
+                if (in.hasArray()) {
+                    chunk = readableBytes;
+                    inflater.setInput(in.array(), in.arrayOffset() + readerIndex, chunk);
+                } else {
+                    // Inflater only accepts arrays, so feed the content through a reused scratch array.
+                    byte[] scratch = JdkZlibPool.scratch();
+                    chunk = Math.min(endIndex - readerIndex, scratch.length);
+                    in.getBytes(readerIndex, scratch, 0, chunk);
+                    inflater.setInput(scratch, 0, chunk);
                 }
 
-                int outputLength = inflater.inflate(outArray, outIndex, length);
-                if (outputLength > 0) {
-                    decompressed.writerIndex(writerIndex + outputLength);
-                    if (crc != null) {
-                        crc.update(outArray, outIndex, outputLength);
+                while (!inflater.needsInput()) {
+                    int writerIndex = decompressed.writerIndex();
+                    int outIndex = decompressed.arrayOffset() + writerIndex;
+                    int length = decompressed.writableBytes();
+
+                    if (length == 0) {
+                        // completely filled the buffer allocate a new one and start to fill it
+                        out.add(decompressed);
+                        decompressed = ctx.alloc().heapBuffer(maxOutputLength);
+                        outArray = decompressed.array();
+                        continue;
                     }
-                } else {
-                    if (inflater.needsDictionary()) {
-                        if (dictionary == null) {
-                            throw new DecompressionException(
-                                    "decompression failure, unable to set dictionary as non was specified");
+
+                    int outputLength = inflater.inflate(outArray, outIndex, length);
+                    if (outputLength > 0) {
+                        decompressed.writerIndex(writerIndex + outputLength);
+                        if (crc != null) {
+                            crc.update(outArray, outIndex, outputLength);
+                        }
+                    } else {
+                        if (inflater.needsDictionary()) {
+                            if (dictionary == null) {
+                                throw new DecompressionException(
+                                        "decompression failure, unable to set dictionary as non was specified");
+                            }
+                            inflater.setDictionary(dictionary);
                         }
-                        inflater.setDictionary(dictionary);
                     }
-                }
 
-                if (inflater.finished()) {
-                    if (crc == null) {
-                        finished = true; // Do not decode anymore.
-                    } else {
-                        readFooter = true;
+                    if (inflater.finished()) {
+                        if (crc == null) {
+                            finished = true; // Do not decode anymore.
+                        } else {
+                            readFooter = true;
+                        }
+                        streamEnd = true;
+                        break;
                     }
-                    break;
                 }
-            }
 
-            in.skipBytes(readableBytes - inflater.getRemaining());
+                readerIndex += chunk - inflater.getRemaining();
+            } while (!streamEnd && readerIndex < endIndex);
+
+            in.readerIndex(readerIndex);
 
             if (readFooter) {
                 gzipState = GzipState.FOOTER_START;
@@ -219,6 +236,9 @@ public class JdkZlibDecoder extends ZlibDecoder {
                     finished = true;
                 }
             }
+            if (finished) {
+                releaseInflater();
+            }
         } catch (DataFormatException e) {
             throw new DecompressionException("decompression failure", e);
         } finally {
@@ -231,12 +251,26 @@ public class JdkZlibDecoder extends ZlibDecoder {
         }
     }
 
+    private Inflater inflater() {
+        Inflater inflater = this.inflater;
+        if (inflater == null) {
+            this.inflater = inflater = JdkZlibPool.acquireInflater(nowrap);
+        }
+        return inflater;
+    }
+
+    private void releaseInflater() {
+        Inflater inflater = this.inflater;
+        if (inflater != null) {
+            this.inflater = null;
+            JdkZlibPool.releaseInflater(inflater, nowrap);
+        }
+    }
+
     @Override
     protected void handlerRemoved0(ChannelHandlerContext ctx) throws Exception {
         super.handlerRemoved0(ctx);
-        if (inflater != null) {
-            inflater.end();
-        }
+        releaseInflater();
     }
 
     private boolean readGZIPHeader(ByteBuf in) {
@@ -33,7 +33,13 @@ import java.util.zip.Deflater;
 public class JdkZlibEncoder extends ZlibEncoder {
 
     private final ZlibWrapper wrapper;
-    private final Deflater deflater;
+    private final int compressionLevel;
+    private final byte[] dictionary;
+    /**
+     * Acquired from the {@link JdkZlibPool} when the first byte is compressed and released once the stream is
+     * finished, so that an idle encoder does not hold any native zlib state.
+     */
+    private Deflater deflater;
     private volatile boolean finished;
     private volatile ChannelHandlerContext ctx;
 
@@ -105,7 +111,8 @@ public class JdkZlibEncoder extends ZlibEncoder {
         }
 
         this.wrapper = wrapper;
-        deflater = new Deflater(compressionLevel, wrapper != ZlibWrapper.ZLIB);
+        this.compressionLevel = compressionLevel;
+        dictionary = null;
     }
 
     /**
@@ -146,8 +153,8 @@ public class JdkZlibEncoder extends ZlibEncoder {
         }
 
         wrapper = ZlibWrapper.ZLIB;
-        deflater = new Deflater(compressionLevel);
-        deflater.setDictionary(dictionary);
+        this.compressionLevel = compressionLevel;
+        this.dictionary = dictionary;
     }
 
     @Override
@@ -199,34 +206,66 @@ public class JdkZlibEncoder extends ZlibEncoder {
             return;
         }
 
-        int offset;
-        byte[] inAry;
+        if (writeHeader) {
+            writeHeader = false;
+            if (wrapper == ZlibWrapper.GZIP) {
+                out.writeBytes(gzipHeader);
+            }
+        }
+
+        Deflater deflater = deflater();
         if (uncompressed.hasArray()) {
             // if it is backed by an array we not need to to do a copy at all
-            inAry = uncompressed.array();
-            offset = uncompressed.arrayOffset() + uncompressed.readerIndex();
+            byte[] inAry = uncompressed.array();
+            int offset = uncompressed.arrayOffset() + uncompressed.readerIndex();
             // skip all bytes as we will consume all of them
             uncompressed.skipBytes(len);
+            deflate(inAry, offset, len, out, Deflater.SYNC_FLUSH);
         } else {
-            inAry = new byte[len];
-            uncompressed.readBytes(inAry);
-            offset = 0;
+            // Deflater only accepts arrays, so feed the content through a reused scratch array
+            // and flush only once the last chunk was consumed.
+            byte[] scratch = JdkZlibPool.scratch();
+            do {
+                int chunk = Math.min(len, scratch.length);
+                uncompressed.readBytes(scratch, 0, chunk);
+                len -= chunk;
+                deflate(scratch, 0, chunk, out, len == 0 ? Deflater.SYNC_FLUSH : Deflater.NO_FLUSH);
+            } while (len > 0);
         }
+    }
 
-        if (writeHeader) {
-            writeHeader = false;
-            if (wrapper == ZlibWrapper.GZIP) {
-                out.writeBytes(gzipHeader);
+    private void deflate(byte[] in, int offset, int len, ByteBuf out, int flush) {
+        if (wrapper == ZlibWrapper.GZIP) {
+            crc.update(in, offset, len);
+        }
+
+        deflater.setInput(in, offset, len);
+        while (!deflater.needsInput()) {
+            if (!out.isWritable()) {
+                // The estimate of allocateBuffer(...) was too small; grow rather than spin.
+                out.ensureWritable(out.capacity() >>> 1);
             }
+            deflate(out, flush);
         }
+    }
 
-        if (wrapper == ZlibWrapper.GZIP) {
-            crc.update(inAry, offset, len);
+    private Deflater deflater() {
+        Deflater deflater = this.deflater;
+        if (deflater == null) {
+            deflater = JdkZlibPool.acquireDeflater(compressionLevel, wrapper != ZlibWrapper.ZLIB);
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary);
+            }
+            this.deflater = deflater;
         }
+        return deflater;
+    }
 
-        deflater.setInput(inAry, offset, len);
-        while (!deflater.needsInput()) {
-            deflate(out);
+    private void releaseDeflater() {
+        Deflater deflater = this.deflater;
+        if (deflater != null) {
+            this.deflater = null;
+            JdkZlibPool.releaseDeflater(deflater, compressionLevel, wrapper != ZlibWrapper.ZLIB);
         }
     }
 
@@ -282,10 +321,11 @@ public class JdkZlibEncoder extends ZlibEncoder {
             footer.writeBytes(gzipHeader);
         }
 
+        Deflater deflater = deflater();
         deflater.finish();
 
         while (!deflater.finished()) {
-            deflate(footer);
+            deflate(footer, Deflater.SYNC_FLUSH);
             if (!footer.isWritable()) {
                 // no more space so write it to the channel and continue
                 ctx.write(footer);
@@ -304,16 +344,16 @@ public class JdkZlibEncoder extends ZlibEncoder {
             footer.writeByte(uncBytes >>> 16);
             footer.writeByte(uncBytes >>> 24);
         }
-        deflater.end();
+        releaseDeflater();
         return ctx.writeAndFlush(footer, promise);
     }
 
-    private void deflate(ByteBuf out) {
+    private void deflate(ByteBuf out, int flush) {
         int numBytes;
         do {
             int writerIndex = out.writerIndex();
             numBytes = deflater.deflate(
-                    out.array(), out.arrayOffset() + writerIndex, out.writableBytes(), Deflater.SYNC_FLUSH);
+                    out.array(), out.arrayOffset() + writerIndex, out.writableBytes(), flush);
             out.writerIndex(writerIndex + numBytes);
         } while (numBytes > 0);
     }
@@ -322,4 +362,9 @@ public class JdkZlibEncoder extends ZlibEncoder {
     public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
         this.ctx = ctx;
     }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        releaseDeflater();
+    }
 }
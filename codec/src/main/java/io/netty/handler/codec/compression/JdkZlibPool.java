@@ -0,0 +1,167 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.util.concurrent.FastThreadLocal;
+import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A bounded pool of {@link Deflater}s and {@link Inflater}s shared by {@link JdkZlibEncoder} and
+ * {@link JdkZlibDecoder}.  Every instance holds a few hundred kilobytes of native zlib state, so reusing
+ * them avoids both the allocation cost per stream and the native memory held by streams which are no longer
+ * active.  {@link Deflater}s are keyed by compression level and wrapper, {@link Inflater}s by wrapper.
+ * Instances which do not fit into the pool are {@linkplain Deflater#end() ended} right away.
+ */
+final class JdkZlibPool {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(JdkZlibPool.class);
+
+    /**
+     * The maximum number of idle instances retained per key.  {@code 0} disables pooling.
+     */
+    static final int MAX_POOLED = Math.max(0, SystemPropertyUtil.getInt("io.netty.jdkzlib.maxPooled", 32));
+
+    /**
+     * The size of the per-thread array through which the content of buffers without a backing array is fed
+     * to zlib.  The JDK only accepts {@code byte[]} input before Java 11.
+     */
+    static final int SCRATCH_SIZE = 16 * 1024;
+
+    private static final ArrayDeque<Deflater>[] DEFLATERS = newPools(20);
+    private static final ArrayDeque<Inflater>[] INFLATERS = newPools(2);
+
+    private static final FastThreadLocal<byte[]> SCRATCH = new FastThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[SCRATCH_SIZE];
+        }
+    };
+
+    static {
+        if (logger.isDebugEnabled()) {
+            logger.debug("-Dio.netty.jdkzlib.maxPooled: {}", MAX_POOLED);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ArrayDeque<T>[] newPools(int size) {
+        ArrayDeque<T>[] pools = new ArrayDeque[size];
+        for (int i = 0; i < pools.length; i ++) {
+            pools[i] = new ArrayDeque<T>();
+        }
+        return pools;
+    }
+
+    private static ArrayDeque<Deflater> deflaters(int level, boolean nowrap) {
+        return DEFLATERS[level << 1 | (nowrap ? 1 : 0)];
+    }
+
+    private static ArrayDeque<Inflater> inflaters(boolean nowrap) {
+        return INFLATERS[nowrap ? 1 : 0];
+    }
+
+    /**
+     * Returns a {@link Deflater} in its initial state for the given compression level and wrapper.
+     */
+    static Deflater acquireDeflater(int level, boolean nowrap) {
+        ArrayDeque<Deflater> pool = deflaters(level, nowrap);
+        Deflater deflater;
+        synchronized (pool) {
+            deflater = pool.poll();
+        }
+        return deflater != null ? deflater : new Deflater(level, nowrap);
+    }
+
+    /**
+     * Returns a {@link Deflater} obtained from {@link #acquireDeflater(int, boolean)} with the same arguments.
+     * The caller must not use it anymore.
+     */
+    static void releaseDeflater(Deflater deflater, int level, boolean nowrap) {
+        ArrayDeque<Deflater> pool = deflaters(level, nowrap);
+        deflater.reset();
+        synchronized (pool) {
+            if (pool.size() < MAX_POOLED) {
+                pool.offer(deflater);
+                return;
+            }
+        }
+        deflater.end();
+    }
+
+    /**
+     * Returns an {@link Inflater} in its initial state for the given wrapper.
+     */
+    static Inflater acquireInflater(boolean nowrap) {
+        ArrayDeque<Inflater> pool = inflaters(nowrap);
+        Inflater inflater;
+        synchronized (pool) {
+            inflater = pool.poll();
+        }
+        return inflater != null ? inflater : new Inflater(nowrap);
+    }
+
+    /**
+     * Returns an {@link Inflater} obtained from {@link #acquireInflater(boolean)} with the same argument.
+     * The caller must not use it anymore.
+     */
+    static void releaseInflater(Inflater inflater, boolean nowrap) {
+        ArrayDeque<Inflater> pool = inflaters(nowrap);
+        inflater.reset();
+        synchronized (pool) {
+            if (pool.size() < MAX_POOLED) {
+                pool.offer(inflater);
+                return;
+            }
+        }
+        inflater.end();
+    }
+
+    /**
+     * Returns the number of idle {@link Deflater}s for the given key.
+     */
+    static int pooledDeflaters(int level, boolean nowrap) {
+        ArrayDeque<Deflater> pool = deflaters(level, nowrap);
+        synchronized (pool) {
+            return pool.size();
+        }
+    }
+
+    /**
+     * Returns the number of idle {@link Inflater}s for the given wrapper.
+     */
+    static int pooledInflaters(boolean nowrap) {
+        ArrayDeque<Inflater> pool = inflaters(nowrap);
+        synchronized (pool) {
+            return pool.size();
+        }
+    }
+
+    /**
+     * Returns the calling thread's scratch array of {@link #SCRATCH_SIZE} bytes.  zlib keeps a reference to
+     * its input, so it must be fully consumed before the array is filled again.
+     */
+    static byte[] scratch() {
+        return SCRATCH.get();
+    }
+
+    private JdkZlibPool() { }
+}
@@ -17,6 +17,9 @@ package io.netty.handler.codec.compression;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufUtil;
+import io.netty.util.internal.PlatformDependent;
+
+import java.util.Arrays;
 
 /**
  * Uncompresses an input {@link ByteBuf} encoded with Snappy compression into an
@@ -28,6 +31,13 @@ class Snappy {
 
     private static final int MAX_HT_SIZE = 1 << 14;
     private static final int MIN_COMPRESSIBLE_BYTES = 15;
+    /**
+     * The longest input {@link #encode(ByteBuf, ByteBuf, int)} accepts; the hashtable stores positions as
+     * {@code short}s and the decoder rejects larger offsets.
+     */
+    static final int MAX_INPUT_LENGTH = Short.MAX_VALUE;
+
+    private static final boolean UNSAFE = PlatformDependent.hasUnsafe();
 
     // used as a return value to indicate that we haven't yet read our full preamble
     private static final int PREAMBLE_NOT_FULL = -1;
@@ -43,6 +53,11 @@ class Snappy {
     private byte tag;
     private int written;
 
+    // Encoder state reused across calls so that compressing a chunk does not allocate.
+    private short[] table;
+    private byte[] inputScratch;
+    private byte[] outputScratch;
+
     private enum State {
         READY,
         READING_PREAMBLE,
@@ -57,7 +72,15 @@ class Snappy {
         written = 0;
     }
 
+    /**
+     * Encodes {@code length} bytes of {@code in}, starting at its {@code readerIndex}, into {@code out}.
+     * The input must be at most {@link #MAX_INPUT_LENGTH} bytes long.
+     */
     public void encode(final ByteBuf in, final ByteBuf out, final int length) {
+        if (length > MAX_INPUT_LENGTH) {
+            throw new IllegalArgumentException("length: " + length + " (expected: <= " + MAX_INPUT_LENGTH + ')');
+        }
+
         // Write the preamble length to the output buffer
         for (int i = 0;; i ++) {
             int b = length >>> i * 7;
@@ -69,16 +92,48 @@ class Snappy {
             }
         }
 
-        int inIndex = in.readerIndex();
-        final int baseIndex = inIndex;
+        // Work on arrays so that the hot loop does not pay for ByteBuf bounds and reference count checks.
+        final byte[] src;
+        final int srcBase;
+        if (in.hasArray()) {
+            src = in.array();
+            srcBase = in.arrayOffset() + in.readerIndex();
+        } else {
+            src = inputScratch(length);
+            srcBase = 0;
+            in.getBytes(in.readerIndex(), src, 0, length);
+        }
+        in.skipBytes(length);
+
+        final int maxLength = maxCompressedLength(length);
+        out.ensureWritable(maxLength);
+        if (out.hasArray()) {
+            final int dstBase = out.arrayOffset() + out.writerIndex();
+            final int end = compress(src, srcBase, length, out.array(), dstBase);
+            out.writerIndex(out.writerIndex() + end - dstBase);
+        } else {
+            final byte[] dst = outputScratch(maxLength);
+            final int end = compress(src, srcBase, length, dst, 0);
+            out.writeBytes(dst, 0, end);
+        }
+    }
 
-        final short[] table = getHashTable(length);
-        final int shift = 32 - (int) Math.floor(Math.log(table.length) / Math.log(2));
+    /**
+     * Compresses {@code length} bytes of {@code src} starting at {@code base} into {@code dst} starting at
+     * {@code outIndex}, which must have room for {@link #maxCompressedLength(int)} bytes.
+     *
+     * @return the index in {@code dst} after the last byte written
+     */
+    private int compress(final byte[] src, final int base, final int length, final byte[] dst, int outIndex) {
+        final int htSize = hashTableSize(length);
+        final short[] table = hashTable(htSize);
+        final int shift = Integer.numberOfLeadingZeros(htSize) + 1;
 
-        int nextEmit = inIndex;
+        int inIndex = 0;
+        int nextEmit = 0;
 
-        if (length - inIndex >= MIN_COMPRESSIBLE_BYTES) {
-            int nextHash = hash(in, ++inIndex, shift);
+        if (length >= MIN_COMPRESSIBLE_BYTES) {
+            int nextHash = hash(src, base + ++inIndex, shift);
             outer: while (true) {
                 int skip = 32;
 
@@ -95,106 +150,175 @@ class Snappy {
                         break outer;
                     }
 
-                    nextHash = hash(in, nextIndex, shift);
+                    nextHash = hash(src, base + nextIndex, shift);
 
-                    candidate = baseIndex + table[hash];
+                    candidate = table[hash];
 
-                    table[hash] = (short) (inIndex - baseIndex);
+                    table[hash] = (short) inIndex;
                 }
-                while (in.getInt(inIndex) != in.getInt(candidate));
+                while (getInt(src, base + inIndex) != getInt(src, base + candidate));
 
-                encodeLiteral(in, out, inIndex - nextEmit);
+                outIndex = encodeLiteral(src, base + nextEmit, dst, outIndex, inIndex - nextEmit);
 
                 int insertTail;
                 do {
-                    int base = inIndex;
-                    int matched = 4 + findMatchingLength(in, candidate + 4, inIndex + 4, length);
+                    int copyBase = inIndex;
+                    int matched = 4 + findMatchingLength(src, base + candidate + 4, base + inIndex + 4, base + length);
                     inIndex += matched;
-                    int offset = base - candidate;
-                    encodeCopy(out, offset, matched);
-                    in.readerIndex(in.readerIndex() + matched);
+                    int offset = copyBase - candidate;
+                    outIndex = encodeCopy(dst, outIndex, offset, matched);
                     insertTail = inIndex - 1;
                     nextEmit = inIndex;
                     if (inIndex >= length - 4) {
                         break outer;
                     }
 
-                    int prevHash = hash(in, insertTail, shift);
-                    table[prevHash] = (short) (inIndex - baseIndex - 1);
-                    int currentHash = hash(in, insertTail + 1, shift);
-                    candidate = baseIndex + table[currentHash];
-                    table[currentHash] = (short) (inIndex - baseIndex);
+                    int prevHash = hash(src, base + insertTail, shift);
+                    table[prevHash] = (short) (inIndex - 1);
+                    int currentHash = hash(src, base + insertTail + 1, shift);
+                    candidate = table[currentHash];
+                    table[currentHash] = (short) inIndex;
                 }
-                while (in.getInt(insertTail + 1) == in.getInt(candidate));
+                while (getInt(src, base + insertTail + 1) == getInt(src, base + candidate));
 
-                nextHash = hash(in, insertTail + 2, shift);
+                nextHash = hash(src, base + insertTail + 2, shift);
                 ++inIndex;
             }
         }
 
         // If there are any remaining characters, write them out as a literal
         if (nextEmit < length) {
-            encodeLiteral(in, out, length - nextEmit);
+            outIndex = encodeLiteral(src, base + nextEmit, dst, outIndex, length - nextEmit);
         }
+        return outIndex;
+    }
+
+    /**
+     * Returns the maximum number of bytes {@link #encode(ByteBuf, ByteBuf, int)} writes after the preamble
+     * for an input of the given length.
+     */
+    static int maxCompressedLength(int length) {
+        return 32 + length + length / 6;
+    }
+
+    private byte[] inputScratch(int length) {
+        byte[] scratch = inputScratch;
+        if (scratch == null || scratch.length < length) {
+            inputScratch = scratch = new byte[length];
+        }
+        return scratch;
+    }
+
+    private byte[] outputScratch(int length) {
+        byte[] scratch = outputScratch;
+        if (scratch == null || scratch.length < length) {
+            outputScratch = scratch = new byte[length];
+        }
+        return scratch;
+    }
+
+    /**
+     * Reads 4 bytes in native byte order; only suitable for equality checks.
+     */
+    private static int getInt(byte[] src, int index) {
+        if (UNSAFE) {
+            return PlatformDependent.getInt(src, index);
+        }
+        return getIntBE(src, index);
+    }
+
+    private static int getIntBE(byte[] src, int index) {
+        return src[index] << 24 |
+              (src[index + 1] & 0xff) << 16 |
+              (src[index + 2] & 0xff) << 8 |
+               src[index + 3] & 0xff;
+    }
+
+    /**
+     * Reads 8 bytes so that the byte at {@code index} ends up in the lowest bits.
+     */
+    private static long getLongLE(byte[] src, int index) {
+        if (UNSAFE) {
+            long value = PlatformDependent.getLong(src, index);
+            return PlatformDependent.BIG_ENDIAN_NATIVE_ORDER ? Long.reverseBytes(value) : value;
+        }
+        return (long) Integer.reverseBytes(getIntBE(src, index + 4)) << 32 |
+               Integer.reverseBytes(getIntBE(src, index)) & 0xFFFFFFFFL;
     }
 
     /**
      * Hashes the 4 bytes located at index, shifting the resulting hash into
      * the appropriate range for our hash table.
      *
-     * @param in The input buffer to read 4 bytes from
+     * @param src The input array to read 4 bytes from
      * @param index The index to read at
      * @param shift The shift value, for ensuring that the resulting value is
      *     withing the range of our hash table size
      * @return A 32-bit hash of 4 bytes located at index
      */
-    private static int hash(ByteBuf in, int index, int shift) {
-        return in.getInt(index) + 0x1e35a7bd >>> shift;
+    private static int hash(byte[] src, int index, int shift) {
+        final int value;
+        if (UNSAFE) {
+            int nativeValue = PlatformDependent.getInt(src, index);
+            value = PlatformDependent.BIG_ENDIAN_NATIVE_ORDER ? nativeValue : Integer.reverseBytes(nativeValue);
+        } else {
+            value = getIntBE(src, index);
+        }
+        return value + 0x1e35a7bd >>> shift;
     }
 
     /**
-     * Creates an appropriately sized hashtable for the given input size
+     * Calculates an appropriate hashtable size for the given input size
      *
      * @param inputSize The size of our input, ie. the number of bytes we need to encode
-     * @return An appropriately sized empty hashtable
+     * @return The number of hashtable entries to use
      */
-    private static short[] getHashTable(int inputSize) {
+    private static int hashTableSize(int inputSize) {
         int htSize = 256;
         while (htSize < MAX_HT_SIZE && htSize < inputSize) {
             htSize <<= 1;
         }
+        return htSize <= 256 ? 256 : MAX_HT_SIZE;
+    }
 
-        short[] table;
-        if (htSize <= 256) {
-            table = new short[256];
+    /**
+     * Returns this instance's hashtable with its first {@code htSize} entries cleared.
+     */
+    private short[] hashTable(int htSize) {
+        short[] table = this.table;
+        if (table == null) {
+            // Allocate the full size once so the table never needs to grow again.
+            this.table = table = new short[MAX_HT_SIZE];
         } else {
-            table = new short[MAX_HT_SIZE];
+            Arrays.fill(table, 0, htSize, (short) 0);
         }
-
         return table;
     }
 
     /**
-     * Iterates over the supplied input buffer between the supplied minIndex and
-     * maxIndex to find how long our matched copy overlaps with an already-written
+     * Compares the bytes starting at {@code minIndex} and {@code inIndex}, 8 at a time where possible,
+     * to find how long our matched copy overlaps with an already-written
      * literal value.
      *
-     * @param in The input buffer to scan over
-     * @param minIndex The index in the input buffer to start scanning from
+     * @param src The input array to scan over
+     * @param minIndex The index in the input array to start scanning from
      * @param inIndex The index of the start of our copy
-     * @param maxIndex The length of our input buffer
+     * @param maxIndex The end of our input
      * @return The number of bytes for which our candidate copy is a repeat of
      */
-    private static int findMatchingLength(ByteBuf in, int minIndex, int inIndex, int maxIndex) {
+    private static int findMatchingLength(byte[] src, int minIndex, int inIndex, int maxIndex) {
         int matched = 0;
 
-        while (inIndex <= maxIndex - 4 &&
-                in.getInt(inIndex) == in.getInt(minIndex + matched)) {
-            inIndex += 4;
-            matched += 4;
+        while (inIndex <= maxIndex - 8) {
+            long diff = getLongLE(src, inIndex) ^ getLongLE(src, minIndex + matched);
+            if (diff != 0) {
+                return matched + (Long.numberOfTrailingZeros(diff) >> 3);
+            }
+            inIndex += 8;
+            matched += 8;
         }
 
-        while (inIndex < maxIndex && in.getByte(minIndex + matched) == in.getByte(inIndex)) {
+        while (inIndex < maxIndex && src[minIndex + matched] == src[inIndex]) {
             ++inIndex;
             ++matched;
         }
@@ -221,59 +345,65 @@ class Snappy {
     }
 
     /**
-     * Writes a literal to the supplied output buffer by directly copying from
-     * the input buffer.  The literal is taken from the current readerIndex
-     * up to the supplied length.
+     * Writes a literal to the supplied output array by directly copying from
+     * the input array.
      *
-     * @param in The input buffer to copy from
-     * @param out The output buffer to copy to
+     * @param src The input array to copy from
+     * @param srcIndex The index of the first byte of the literal
+     * @param dst The output array to copy to
+     * @param outIndex The index to write the literal at
      * @param length The length of the literal to copy
+     * @return the index after the literal
      */
-    private static void encodeLiteral(ByteBuf in, ByteBuf out, int length) {
+    private static int encodeLiteral(byte[] src, int srcIndex, byte[] dst, int outIndex, int length) {
         if (length < 61) {
-            out.writeByte(length - 1 << 2);
+            dst[outIndex ++] = (byte) (length - 1 << 2);
         } else {
             int bitLength = bitsToEncode(length - 1);
             int bytesToEncode = 1 + bitLength / 8;
-            out.writeByte(59 + bytesToEncode << 2);
+            dst[outIndex ++] = (byte) (59 + bytesToEncode << 2);
             for (int i = 0; i < bytesToEncode; i++) {
-                out.writeByte(length - 1 >> i * 8 & 0x0ff);
+                dst[outIndex ++] = (byte) (length - 1 >> i * 8 & 0x0ff);
             }
         }
 
-        out.writeBytes(in, length);
+        System.arraycopy(src, srcIndex, dst, outIndex, length);
+        return outIndex + length;
     }
 
-    private static void encodeCopyWithOffset(ByteBuf out, int offset, int length) {
+    private static int encodeCopyWithOffset(byte[] dst, int outIndex, int offset, int length) {
         if (length < 12 && offset < 2048) {
-            out.writeByte(COPY_1_BYTE_OFFSET | length - 4 << 2 | offset >> 8 << 5);
-            out.writeByte(offset & 0x0ff);
+            dst[outIndex ++] = (byte) (COPY_1_BYTE_OFFSET | length - 4 << 2 | offset >> 8 << 5);
+            dst[outIndex ++] = (byte) (offset & 0x0ff);
         } else {
-            out.writeByte(COPY_2_BYTE_OFFSET | length - 1 << 2);
-            out.writeByte(offset & 0x0ff);
-            out.writeByte(offset >> 8 & 0x0ff);
+            dst[outIndex ++] = (byte) (COPY_2_BYTE_OFFSET | length - 1 << 2);
+            dst[outIndex ++] = (byte) (offset & 0x0ff);
+            dst[outIndex ++] = (byte) (offset >> 8 & 0x0ff);
         }
+        return outIndex;
     }
 
     /**
      * Encodes a series of copies, each at most 64 bytes in length.
      *
-     * @param out The output buffer to write the copy pointer to
+     * @param dst The output array to write the copy pointer to
+     * @param outIndex The index to write at
      * @param offset The offset at which the original instance lies
      * @param length The length of the original instance
+     * @return the index after the copy
      */
-    private static void encodeCopy(ByteBuf out, int offset, int length) {
+    private static int encodeCopy(byte[] dst, int outIndex, int offset, int length) {
         while (length >= 68) {
-            encodeCopyWithOffset(out, offset, 64);
+            outIndex = encodeCopyWithOffset(dst, outIndex, offset, 64);
             length -= 64;
         }
 
         if (length > 64) {
-            encodeCopyWithOffset(out, offset, 60);
+            outIndex = encodeCopyWithOffset(dst, outIndex, offset, 60);
             length -= 60;
         }
 
-        encodeCopyWithOffset(out, offset, length);
+        return encodeCopyWithOffset(dst, outIndex, offset, length);
     }
 
     public void decode(ByteBuf in, ByteBuf out) {
@@ -611,19 +741,8 @@ class Snappy {
      */
     public static int calculateChecksum(ByteBuf data, int offset, int length) {
         Crc32c crc32 = new Crc32c();
-        try {
-            if (data.hasArray()) {
-                crc32.update(data.array(), data.arrayOffset() + offset, length);
-            } else {
-                byte[] array = new byte[length];
-                data.getBytes(offset, array);
-                crc32.update(array, 0, length);
-            }
-
-            return maskChecksum((int) crc32.getValue());
-        } finally {
-            crc32.reset();
-        }
+        crc32.update(data, offset, length);
+        return maskChecksum((int) crc32.getValue());
     }
 
     /**
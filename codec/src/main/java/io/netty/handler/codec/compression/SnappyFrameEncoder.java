@@ -16,9 +16,19 @@
 package io.netty.handler.codec.compression;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.EventLoop;
 import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.util.concurrent.FastThreadLocal;
+import io.netty.util.internal.PlatformDependent;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static io.netty.handler.codec.compression.Snappy.*;
 
@@ -26,6 +36,10 @@ import static io.netty.handler.codec.compression.Snappy.*;
  * Compresses a {@link ByteBuf} using the Snappy framing format.
  *
  * See http://code.google.com/p/snappy/source/browse/trunk/framing_format.txt
+ *
+ * Every chunk is compressed independently, so an encoder created with
+ * {@link #SnappyFrameEncoder(Executor, int)} can compress the chunks of large messages concurrently.
+ * The output is the same in both modes.
  */
 public class SnappyFrameEncoder extends MessageToByteEncoder<ByteBuf> {
     /**
@@ -43,9 +57,55 @@ public class SnappyFrameEncoder extends MessageToByteEncoder<ByteBuf> {
         (byte) 0xff, 0x06, 0x00, 0x00, 0x73, 0x4e, 0x61, 0x50, 0x70, 0x59
     };
 
+    /**
+     * The largest amount of input compressed into a single chunk.
+     */
+    private static final int MAX_CHUNK_LENGTH = Snappy.MAX_INPUT_LENGTH;
+
+    private static final FastThreadLocal<Snappy> PARALLEL_SNAPPY = new FastThreadLocal<Snappy>() {
+        @Override
+        protected Snappy initialValue() {
+            return new Snappy();
+        }
+    };
+
     private final Snappy snappy = new Snappy();
+    private final Executor executor;
+    private final int parallelThreshold;
     private boolean started;
 
+    /**
+     * Creates a new encoder which compresses every message in the calling thread.
+     */
+    public SnappyFrameEncoder() {
+        executor = null;
+        parallelThreshold = Integer.MAX_VALUE;
+    }
+
+    /**
+     * Creates a new encoder which compresses the chunks of messages of at least {@code parallelThreshold} bytes
+     * concurrently, using {@code executor} (for example a {@code ForkJoinPool}) and the calling thread.
+     * <p>
+     * <strong>The calling thread, usually the {@link EventLoop} of the {@link Channel}, blocks until the whole
+     * message is compressed</strong>, so that the encoded stream is unchanged and later writes cannot overtake it.
+     * While it waits, no other {@link Channel} of the same {@link EventLoop} is served.  The calling thread
+     * compresses every chunk the {@code executor} has not started yet, so it is blocked for at most as long as
+     * compressing the message alone would take.  This reduces the latency of large messages on one
+     * {@link Channel}; it does not take compression work off the {@link EventLoop}.  To do that, compress the
+     * messages before writing them instead.
+     */
+    public SnappyFrameEncoder(Executor executor, int parallelThreshold) {
+        if (executor == null) {
+            throw new NullPointerException("executor");
+        }
+        if (parallelThreshold <= 0) {
+            throw new IllegalArgumentException(
+                    "parallelThreshold: " + parallelThreshold + " (expected: > 0)");
+        }
+        this.executor = executor;
+        this.parallelThreshold = parallelThreshold;
+    }
+
     @Override
     protected void encode(ChannelHandlerContext ctx, ByteBuf in, ByteBuf out) throws Exception {
         if (!in.isReadable()) {
@@ -58,7 +118,9 @@ public class SnappyFrameEncoder extends MessageToByteEncoder<ByteBuf> {
         }
 
         int dataLength = in.readableBytes();
-        if (dataLength > MIN_COMPRESSIBLE_LENGTH) {
+        if (dataLength > MAX_CHUNK_LENGTH && dataLength >= parallelThreshold) {
+            encodeParallel(ctx.alloc(), in, out, dataLength);
+        } else if (dataLength > MIN_COMPRESSIBLE_LENGTH) {
             for (;;) {
                 final int lengthIdx = out.writerIndex() + 1;
                 if (dataLength < MIN_COMPRESSIBLE_LENGTH) {
@@ -68,12 +130,12 @@ public class SnappyFrameEncoder extends MessageToByteEncoder<ByteBuf> {
                 }
 
                 out.writeInt(0);
-                if (dataLength > Short.MAX_VALUE) {
-                    ByteBuf slice = in.readSlice(Short.MAX_VALUE);
+                if (dataLength > MAX_CHUNK_LENGTH) {
+                    ByteBuf slice = in.readSlice(MAX_CHUNK_LENGTH);
                     calculateAndWriteChecksum(slice, out);
-                    snappy.encode(slice, out, Short.MAX_VALUE);
+                    snappy.encode(slice, out, MAX_CHUNK_LENGTH);
                     setChunkLength(out, lengthIdx);
-                    dataLength -= Short.MAX_VALUE;
+                    dataLength -= MAX_CHUNK_LENGTH;
                 } else {
                     ByteBuf slice = in.readSlice(dataLength);
                     calculateAndWriteChecksum(slice, out);
@@ -87,6 +149,120 @@ public class SnappyFrameEncoder extends MessageToByteEncoder<ByteBuf> {
         }
     }
 
+    /**
+     * Splits the input the same way {@link #encode(ChannelHandlerContext, ByteBuf, ByteBuf)} does, compresses
+     * all but the first chunk on the {@link #executor} and writes the chunks in order.  The calling thread
+     * compresses the first chunk and then any chunk the {@link #executor} has not started yet, so this
+     * never waits on a chunk that is merely queued.
+     */
+    private void encodeParallel(ByteBufAllocator alloc, ByteBuf in, ByteBuf out, int dataLength) {
+        final int chunks = (dataLength + MAX_CHUNK_LENGTH - 1) / MAX_CHUNK_LENGTH;
+        final ChunkTask[] tasks = new ChunkTask[chunks];
+        for (int i = 0; i < chunks; i ++) {
+            tasks[i] = new ChunkTask(alloc, in.readSlice(Math.min(MAX_CHUNK_LENGTH, in.readableBytes())));
+        }
+        for (int i = 1; i < chunks; i ++) {
+            try {
+                executor.execute(tasks[i]);
+            } catch (RejectedExecutionException ignored) {
+                // Compressed by the calling thread below.
+                break;
+            }
+        }
+
+        Throwable cause = null;
+        for (ChunkTask task: tasks) {
+            task.run();
+            task.await();
+            if (cause == null) {
+                cause = task.cause;
+            }
+        }
+
+        try {
+            if (cause != null) {
+                PlatformDependent.throwException(cause);
+            }
+            for (ChunkTask task: tasks) {
+                out.writeBytes(task.chunk);
+            }
+        } finally {
+            for (ChunkTask task: tasks) {
+                if (task.chunk != null) {
+                    task.chunk.release();
+                }
+            }
+        }
+    }
+
+    /**
+     * Encodes a chunk the same way {@link #encode(ChannelHandlerContext, ByteBuf, ByteBuf)} does, into a
+     * buffer of its own.
+     */
+    private static void encodeChunk(Snappy snappy, ByteBuf slice, ByteBuf out) {
+        final int dataLength = slice.readableBytes();
+        if (dataLength < MIN_COMPRESSIBLE_LENGTH) {
+            writeUnencodedChunk(slice, out, dataLength);
+            return;
+        }
+        final int lengthIdx = out.writerIndex() + 1;
+        out.writeInt(0);
+        calculateAndWriteChecksum(slice, out);
+        snappy.encode(slice, out, dataLength);
+        setChunkLength(out, lengthIdx);
+    }
+
+    private static final class ChunkTask implements Runnable {
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private final ByteBufAllocator alloc;
+        private final ByteBuf slice;
+        ByteBuf chunk;
+        Throwable cause;
+
+        ChunkTask(ByteBufAllocator alloc, ByteBuf slice) {
+            this.alloc = alloc;
+            this.slice = slice;
+        }
+
+        @Override
+        public void run() {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                ByteBuf chunk = alloc.heapBuffer(8 + Snappy.maxCompressedLength(slice.readableBytes()) + 5);
+                try {
+                    encodeChunk(PARALLEL_SNAPPY.get(), slice, chunk);
+                    this.chunk = chunk;
+                } finally {
+                    if (this.chunk == null) {
+                        chunk.release();
+                    }
+                }
+            } catch (Throwable t) {
+                cause = t;
+            } finally {
+                done.countDown();
+            }
+        }
+
+        void await() {
+            boolean interrupted = false;
+            for (;;) {
+                try {
+                    done.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
     private static void writeUnencodedChunk(ByteBuf in, ByteBuf out, int dataLength) {
         out.writeByte(1);
         writeChunkLength(out, dataLength + 4);
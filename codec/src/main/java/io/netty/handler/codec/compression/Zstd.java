@@ -0,0 +1,74 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+/**
+ * Tells if <a href="https://github.com/luben/zstd-jni">{@code zstd-jni}</a> and its native library are available,
+ * which is required by {@link ZstdEncoder} and {@link ZstdDecoder}.
+ *
+ * {@code zstd-jni} is compiled for Java 8, so it is reported as unavailable on older JVMs.
+ */
+public final class Zstd {
+
+    private static final Throwable UNAVAILABILITY_CAUSE;
+
+    static {
+        Throwable cause = null;
+        try {
+            com.github.luben.zstd.util.Native.load();
+        } catch (UnsupportedClassVersionError e) {
+            // Thrown by JVMs older than Java 8 while loading the classes of zstd-jni.
+            cause = e;
+        } catch (Throwable t) {
+            cause = t;
+        }
+        UNAVAILABILITY_CAUSE = cause;
+    }
+
+    /**
+     * Returns {@code true} if and only if {@code zstd-jni} is available.
+     */
+    public static boolean isAvailable() {
+        return UNAVAILABILITY_CAUSE == null;
+    }
+
+    /**
+     * Ensure that {@code zstd-jni} is available.
+     *
+     * @throws UnsatisfiedLinkError if unavailable
+     */
+    public static void ensureAvailability() {
+        if (UNAVAILABILITY_CAUSE instanceof UnsupportedClassVersionError) {
+            throw (Error) new UnsatisfiedLinkError(
+                    "zstd-jni requires Java 8 or newer").initCause(UNAVAILABILITY_CAUSE);
+        }
+        if (UNAVAILABILITY_CAUSE != null) {
+            throw (Error) new UnsatisfiedLinkError(
+                    "failed to load zstd-jni").initCause(UNAVAILABILITY_CAUSE);
+        }
+    }
+
+    /**
+     * Returns the cause of unavailability of {@code zstd-jni}.
+     *
+     * @return the cause if unavailable. {@code null} if available.
+     */
+    public static Throwable unavailabilityCause() {
+        return UNAVAILABILITY_CAUSE;
+    }
+
+    private Zstd() { }
+}
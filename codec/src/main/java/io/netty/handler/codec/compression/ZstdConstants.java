@@ -0,0 +1,35 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+final class ZstdConstants {
+
+    /**
+     * Zstandard compression levels.  Levels above {@code 19} need considerably more memory.
+     */
+    static final int MIN_COMPRESSION_LEVEL = 1;
+    static final int MAX_COMPRESSION_LEVEL = 22;
+    static final int DEFAULT_COMPRESSION_LEVEL = 3;
+
+    /**
+     * Sizes of the blocks which are compressed into one Zstandard frame each.
+     */
+    static final int MIN_BLOCK_SIZE = 64;
+    static final int MAX_BLOCK_SIZE = 1 << 25;  // 32 M
+    static final int DEFAULT_BLOCK_SIZE = 1 << 16;  // 64 KB
+
+    private ZstdConstants() { }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import com.github.luben.zstd.ZstdInputStream;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Uncompresses a {@link ByteBuf} encoded with the <a href="http://facebook.github.io/zstd/">Zstandard</a> format,
+ * for example by {@link ZstdEncoder}.
+ *
+ * The input does not need to be aligned to frames: whatever can be decompressed from the received bytes is
+ * emitted right away, in buffers of at most {@code maxChunkSize} bytes.  This decoder requires
+ * {@code zstd-jni} and thus Java 8 or newer at runtime (see {@link Zstd#isAvailable()}).
+ */
+public class ZstdDecoder extends ByteToMessageDecoder {
+
+    private static final int DEFAULT_MAX_CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * Maximum size of each emitted {@link ByteBuf}.
+     */
+    private final int maxChunkSize;
+
+    /**
+     * Feeds the currently decoded {@link ByteBuf} to {@link #zstd}.
+     */
+    private final ByteBufInputStream input = new ByteBufInputStream();
+
+    /**
+     * Underlying decompressing stream in use, created once the handler is added.
+     */
+    private ZstdInputStream zstd;
+
+    /**
+     * Indicates if the compressed stream turned out to be corrupted.
+     */
+    private boolean corrupted;
+
+    /**
+     * Creates a new Zstandard decoder which emits buffers of at most 64 KB.
+     */
+    public ZstdDecoder() {
+        this(DEFAULT_MAX_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a new Zstandard decoder.
+     *
+     * @param maxChunkSize  the maximum size of each emitted {@link ByteBuf}
+     */
+    public ZstdDecoder(int maxChunkSize) {
+        if (maxChunkSize <= 0) {
+            throw new IllegalArgumentException("maxChunkSize: " + maxChunkSize + " (expected: > 0)");
+        }
+        Zstd.ensureAvailability();
+        this.maxChunkSize = maxChunkSize;
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        if (corrupted) {
+            in.skipBytes(in.readableBytes());
+            return;
+        }
+        if (!in.isReadable()) {
+            return;
+        }
+
+        input.current = in;
+        ByteBuf decompressed = null;
+        try {
+            for (;;) {
+                if (decompressed == null) {
+                    decompressed = ctx.alloc().heapBuffer(maxChunkSize, maxChunkSize);
+                }
+                // Returns -1 once all received bytes were consumed, even in the middle of a frame.
+                if (decompressed.writeBytes(zstd, decompressed.writableBytes()) <= 0) {
+                    break;
+                }
+                if (!decompressed.isWritable()) {
+                    out.add(decompressed);
+                    decompressed = null;
+                }
+            }
+        } catch (IOException e) {
+            corrupted = true;
+            throw new DecompressionException(e);
+        } finally {
+            input.current = null;
+            if (decompressed != null) {
+                if (decompressed.isReadable()) {
+                    out.add(decompressed);
+                } else {
+                    decompressed.release();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        super.handlerAdded(ctx);
+        zstd = new ZstdInputStream(input);
+        zstd.setContinuous(true);
+    }
+
+    @Override
+    protected void handlerRemoved0(ChannelHandlerContext ctx) throws Exception {
+        super.handlerRemoved0(ctx);
+        if (zstd != null) {
+            zstd.close();
+            zstd = null;
+        }
+    }
+
+    /**
+     * An {@link InputStream} over the readable bytes of a {@link ByteBuf} which may be replaced between reads.
+     */
+    private static final class ByteBufInputStream extends InputStream {
+        ByteBuf current;
+
+        @Override
+        public int read() {
+            ByteBuf current = this.current;
+            if (current == null || !current.isReadable()) {
+                return -1;
+            }
+            return current.readUnsignedByte();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            ByteBuf current = this.current;
+            if (current == null || !current.isReadable()) {
+                return -1;
+            }
+            len = Math.min(len, current.readableBytes());
+            current.readBytes(b, off, len);
+            return len;
+        }
+
+        @Override
+        public int available() {
+            ByteBuf current = this.current;
+            return current == null ? 0 : current.readableBytes();
+        }
+    }
+}
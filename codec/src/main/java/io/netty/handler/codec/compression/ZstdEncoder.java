@@ -0,0 +1,285 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.ChannelPromiseNotifier;
+import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.util.concurrent.EventExecutor;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import static io.netty.handler.codec.compression.ZstdConstants.*;
+
+/**
+ * Compresses a {@link ByteBuf} using the <a href="http://facebook.github.io/zstd/">Zstandard</a> format.
+ *
+ * Outgoing data is collected into blocks of at most {@code blockSize} bytes, each of which is compressed into
+ * one Zstandard frame.  A block is also compressed when the channel is flushed, so that the peer can decompress
+ * everything written so far.  Since a sequence of frames is a valid Zstandard stream, the output can be read
+ * by any Zstandard decoder, including {@link ZstdDecoder} and the {@code zstd} content encoding of HTTP.
+ *
+ * Both the collected block and the compressed output are kept in direct buffers which are handed to zstd
+ * without copying.  This encoder requires {@code zstd-jni} and thus Java 8 or newer at runtime
+ * (see {@link Zstd#isAvailable()}).
+ */
+public class ZstdEncoder extends MessageToByteEncoder<ByteBuf> {
+
+    /**
+     * How long {@link #close(ChannelHandlerContext, ChannelPromise)} waits for the end of the stream to be written
+     * before it closes the channel anyway.
+     */
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+    /**
+     * Compression level passed to zstd.
+     */
+    private final int compressionLevel;
+
+    /**
+     * Maximum number of bytes compressed into one frame.
+     */
+    private final int blockSize;
+
+    /**
+     * Inner direct buffer for outgoing data, allocated once the handler is added.
+     */
+    private ByteBuf buffer;
+
+    /**
+     * Indicates if the compressed stream has been finished.
+     */
+    private volatile boolean finished;
+
+    /**
+     * Used to interact with its {@link ChannelPipeline} and other handlers.
+     */
+    private volatile ChannelHandlerContext ctx;
+
+    /**
+     * Creates a new Zstandard encoder with the default compression level ({@code 3})
+     * and the default block size (64 KB).
+     */
+    public ZstdEncoder() {
+        this(DEFAULT_COMPRESSION_LEVEL);
+    }
+
+    /**
+     * Creates a new Zstandard encoder with the specified compression level and the default block size (64 KB).
+     *
+     * @param compressionLevel  {@code 1} yields the fastest compression and {@code 22} the best compression.
+     *                          The default compression level is {@code 3}.
+     */
+    public ZstdEncoder(int compressionLevel) {
+        this(compressionLevel, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Creates a new Zstandard encoder with the specified compression level and block size.
+     *
+     * @param compressionLevel  {@code 1} yields the fastest compression and {@code 22} the best compression.
+     *                          The default compression level is {@code 3}.
+     * @param blockSize         the maximum number of bytes to compress into one frame,
+     *                          must be >= 64 and <= 32 M
+     */
+    public ZstdEncoder(int compressionLevel, int blockSize) {
+        super(true);
+        if (compressionLevel < MIN_COMPRESSION_LEVEL || compressionLevel > MAX_COMPRESSION_LEVEL) {
+            throw new IllegalArgumentException(String.format(
+                    "compressionLevel: %d (expected: %d-%d)",
+                    compressionLevel, MIN_COMPRESSION_LEVEL, MAX_COMPRESSION_LEVEL));
+        }
+        if (blockSize < MIN_BLOCK_SIZE || blockSize > MAX_BLOCK_SIZE) {
+            throw new IllegalArgumentException(String.format(
+                    "blockSize: %d (expected: %d-%d)", blockSize, MIN_BLOCK_SIZE, MAX_BLOCK_SIZE));
+        }
+        Zstd.ensureAvailability();
+        this.compressionLevel = compressionLevel;
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    protected final ByteBuf allocateBuffer(ChannelHandlerContext ctx, ByteBuf msg,
+                                           boolean preferDirect) throws Exception {
+        if (finished) {
+            return ctx.alloc().ioBuffer(msg.readableBytes());
+        }
+        // Only blocks which are completed by this message are compressed right away.
+        int blocks = (buffer.readableBytes() + msg.readableBytes()) / blockSize;
+        if (blocks == 0) {
+            return Unpooled.EMPTY_BUFFER;
+        }
+        long maxLength = (long) blocks * maxCompressedLength(blockSize);
+        return ctx.alloc().directBuffer((int) Math.min(Integer.MAX_VALUE, maxLength));
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, ByteBuf in, ByteBuf out) throws Exception {
+        if (finished) {
+            out.writeBytes(in);
+            return;
+        }
+
+        final ByteBuf buffer = this.buffer;
+        int length;
+        while ((length = in.readableBytes()) > 0) {
+            int chunk = Math.min(length, buffer.writableBytes());
+            in.readBytes(buffer, chunk);
+            if (!buffer.isWritable()) {
+                flushBufferedData(out);
+            }
+        }
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        if (!finished && buffer != null && buffer.isReadable()) {
+            ByteBuf out = ctx.alloc().directBuffer(maxCompressedLength(buffer.readableBytes()));
+            flushBufferedData(out);
+            ctx.write(out);
+        }
+        ctx.flush();
+    }
+
+    private void flushBufferedData(ByteBuf out) {
+        final ByteBuf buffer = this.buffer;
+        final int flushableBytes = buffer.readableBytes();
+        if (flushableBytes == 0) {
+            return;
+        }
+
+        out.ensureWritable(maxCompressedLength(flushableBytes));
+        final int idx = out.writerIndex();
+        final int compressedLength;
+        try {
+            ByteBuffer src = buffer.internalNioBuffer(buffer.readerIndex(), flushableBytes);
+            ByteBuffer dst = out.internalNioBuffer(idx, out.writableBytes());
+            compressedLength = com.github.luben.zstd.Zstd.compress(dst, src, compressionLevel);
+        } catch (Exception e) {
+            throw new CompressionException(e);
+        }
+        out.writerIndex(idx + compressedLength);
+        buffer.clear();
+    }
+
+    private static int maxCompressedLength(int length) {
+        return (int) com.github.luben.zstd.Zstd.compressBound(length);
+    }
+
+    private ChannelFuture finishEncode(final ChannelHandlerContext ctx, ChannelPromise promise) {
+        if (finished) {
+            promise.setSuccess();
+            return promise;
+        }
+        finished = true;
+
+        // Zstandard frames need no trailer, so only the data collected so far is left to write.
+        final ByteBuf footer = ctx.alloc().directBuffer(maxCompressedLength(buffer.readableBytes()));
+        flushBufferedData(footer);
+        buffer.release();
+        buffer = null;
+
+        return ctx.writeAndFlush(footer, promise);
+    }
+
+    /**
+     * Returns {@code true} if and only if the compressed stream has been finished.
+     */
+    public boolean isClosed() {
+        return finished;
+    }
+
+    /**
+     * Close this {@link ZstdEncoder} and so finish the encoding.
+     *
+     * The returned {@link ChannelFuture} will be notified once the operation completes.
+     */
+    public ChannelFuture close() {
+        return close(ctx().newPromise());
+    }
+
+    /**
+     * Close this {@link ZstdEncoder} and so finish the encoding.
+     * The given {@link ChannelFuture} will be notified once the operation
+     * completes and will also be returned.
+     */
+    public ChannelFuture close(final ChannelPromise promise) {
+        ChannelHandlerContext ctx = ctx();
+        EventExecutor executor = ctx.executor();
+        if (executor.inEventLoop()) {
+            return finishEncode(ctx, promise);
+        } else {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    ChannelFuture f = finishEncode(ctx(), promise);
+                    f.addListener(new ChannelPromiseNotifier(promise));
+                }
+            });
+            return promise;
+        }
+    }
+
+    @Override
+    public void close(final ChannelHandlerContext ctx, final ChannelPromise promise) throws Exception {
+        ChannelFuture f = finishEncode(ctx, ctx.newPromise());
+        f.addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture f) throws Exception {
+                ctx.close(promise);
+            }
+        });
+
+        if (!f.isDone()) {
+            // Ensure the channel is closed even if the write operation completes in time.
+            ctx.executor().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    ctx.close(promise);
+                }
+            }, CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    private ChannelHandlerContext ctx() {
+        ChannelHandlerContext ctx = this.ctx;
+        if (ctx == null) {
+            throw new IllegalStateException("not added to a pipeline");
+        }
+        return ctx;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        this.ctx = ctx;
+        buffer = ctx.alloc().directBuffer(blockSize, blockSize);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        if (buffer != null) {
+            buffer.release();
+            buffer = null;
+        }
+    }
+}
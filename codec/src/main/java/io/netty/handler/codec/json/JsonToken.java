@@ -0,0 +1,161 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.json;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.DefaultByteBufHolder;
+import io.netty.util.CharsetUtil;
+import io.netty.util.internal.StringUtil;
+
+/**
+ * A token of a JSON text, as produced by {@link JsonTokenDecoder}.
+ * <p>
+ * The {@link #content()} of a {@linkplain JsonTokenType#isScalar() scalar} token is its text exactly as it appeared
+ * in the input, without the quotes of a string or field name and with escape sequences left as they are.  Use
+ * {@link #text()} to get the unescaped value.  The content of the other tokens is empty.
+ */
+public class JsonToken extends DefaultByteBufHolder {
+
+    private final JsonTokenType type;
+    private final int depth;
+
+    public JsonToken(JsonTokenType type, int depth, ByteBuf content) {
+        super(content);
+        if (type == null) {
+            throw new NullPointerException("type");
+        }
+        if (depth < 0) {
+            throw new IllegalArgumentException("depth: " + depth + " (expected: >= 0)");
+        }
+        this.type = type;
+        this.depth = depth;
+    }
+
+    /**
+     * Returns the type of this token.
+     */
+    public JsonTokenType type() {
+        return type;
+    }
+
+    /**
+     * Returns the number of objects and arrays that enclose this token.  The start and the end of an object or an
+     * array have the same depth as the members of its parent.
+     */
+    public int depth() {
+        return depth;
+    }
+
+    /**
+     * Returns the content of this token as a {@link String}, with JSON escape sequences resolved.
+     */
+    public String text() {
+        ByteBuf content = content();
+        int start = content.readerIndex();
+        int end = content.writerIndex();
+        int escape = content.indexOf(start, end, (byte) '\\');
+        if (escape < 0) {
+            return content.toString(CharsetUtil.UTF_8);
+        }
+
+        StringBuilder buf = new StringBuilder(end - start);
+        while (escape >= 0) {
+            buf.append(content.toString(start, escape - start, CharsetUtil.UTF_8));
+            if (escape + 1 >= end) {
+                throw new IllegalStateException("incomplete escape sequence: " + this);
+            }
+            byte c = content.getByte(escape + 1);
+            start = escape + 2;
+            switch (c) {
+            case 'b':
+                buf.append('\b');
+                break;
+            case 'f':
+                buf.append('\f');
+                break;
+            case 'n':
+                buf.append('\n');
+                break;
+            case 'r':
+                buf.append('\r');
+                break;
+            case 't':
+                buf.append('\t');
+                break;
+            case 'u':
+                if (start + 4 > end) {
+                    throw new IllegalStateException("incomplete escape sequence: " + this);
+                }
+                try {
+                    buf.append((char) Integer.parseInt(content.toString(start, 4, CharsetUtil.US_ASCII), 16));
+                } catch (NumberFormatException e) {
+                    throw new IllegalStateException("invalid escape sequence: " + this, e);
+                }
+                start += 4;
+                break;
+            default:
+                // \" \\ \/ and anything else that is escaped unnecessarily.
+                buf.append((char) c);
+            }
+            escape = content.indexOf(start, end, (byte) '\\');
+        }
+        return buf.append(content.toString(start, end - start, CharsetUtil.UTF_8)).toString();
+    }
+
+    @Override
+    public JsonToken copy() {
+        return new JsonToken(type, depth, content().copy());
+    }
+
+    @Override
+    public JsonToken duplicate() {
+        return new JsonToken(type, depth, content().duplicate());
+    }
+
+    @Override
+    public JsonToken retain() {
+        super.retain();
+        return this;
+    }
+
+    @Override
+    public JsonToken retain(int increment) {
+        super.retain(increment);
+        return this;
+    }
+
+    @Override
+    public JsonToken touch() {
+        super.touch();
+        return this;
+    }
+
+    @Override
+    public JsonToken touch(Object hint) {
+        super.touch(hint);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder(StringUtil.simpleClassName(this))
+                .append('(').append(type).append(", depth: ").append(depth);
+        if (type.isScalar()) {
+            buf.append(", content: ").append(content().toString(CharsetUtil.UTF_8));
+        }
+        return buf.append(')').toString();
+    }
+}
@@ -0,0 +1,394 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.json;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufProcessor;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.TooLongFrameException;
+import io.netty.util.CharsetUtil;
+
+import java.util.List;
+
+/**
+ * Decodes a byte stream of JSON texts into {@link JsonToken}s and passes them up the {@link ChannelPipeline} as soon
+ * as they are received, so that a subsequent handler can pick fields or route a document without having the whole
+ * document in memory and without parsing it again.
+ * <p>
+ * For example, <code>{"id": 42, "tags": ["a"]}</code> is decoded into the following tokens:
+ * <pre>
+ * START_OBJECT, FIELD_NAME(id), NUMBER(42), FIELD_NAME(tags), START_ARRAY, STRING(a), END_ARRAY, END_OBJECT
+ * </pre>
+ * Any number of JSON texts, separated by optional white space, may follow each other in the stream.
+ * <p>
+ * The content of a scalar token is a slice of the received bytes, which must be released by the handler that
+ * consumes the token.  The structure of the input is validated, but numbers are only checked for the characters
+ * they may contain and string escape sequences are not checked until {@link JsonToken#text()} is called.  After
+ * a {@link CorruptedFrameException} or a {@link TooLongFrameException} the rest of the stream is discarded.
+ */
+public class JsonTokenDecoder extends ByteToMessageDecoder {
+
+    private static final int DEFAULT_MAX_DEPTH = 64;
+    private static final int DEFAULT_MAX_TOKEN_LENGTH = 1024 * 1024;
+
+    private static final int ST_CORRUPTED = -1;
+    private static final int ST_VALUE = 0;
+    private static final int ST_VALUE_OR_END_ARRAY = 1;
+    private static final int ST_NAME_OR_END_OBJECT = 2;
+    private static final int ST_NAME = 3;
+    private static final int ST_COLON = 4;
+    private static final int ST_COMMA_OR_END = 5;
+    private static final int ST_STRING = 6;
+    private static final int ST_FIELD_NAME = 7;
+    private static final int ST_NUMBER = 8;
+    private static final int ST_LITERAL = 9;
+
+    private static final byte[] TRUE = "true".getBytes(CharsetUtil.US_ASCII);
+    private static final byte[] FALSE = "false".getBytes(CharsetUtil.US_ASCII);
+    private static final byte[] NULL = "null".getBytes(CharsetUtil.US_ASCII);
+
+    /**
+     * Stops at the end of a string, at an escape sequence, or at a control character which must not appear in a
+     * string.  Bytes of multi-byte UTF-8 sequences are negative and never stop it.
+     */
+    private static final ByteBufProcessor FIND_STRING_END = new ByteBufProcessor() {
+        @Override
+        public boolean process(byte value) throws Exception {
+            return value >= ' ' ? value != '"' && value != '\\' : value < 0;
+        }
+    };
+
+    private static final ByteBufProcessor FIND_NUMBER_END = new ByteBufProcessor() {
+        @Override
+        public boolean process(byte value) throws Exception {
+            return value >= '0' && value <= '9' || value == '-' || value == '+' || value == '.' ||
+                   value == 'e' || value == 'E';
+        }
+    };
+
+    private final int maxDepth;
+    private final int maxTokenLength;
+
+    /** The type of each enclosing container, <code>{</code> or <code>[</code>. */
+    private byte[] containers = new byte[8];
+    private int depth;
+    private int state;
+    /** Number of bytes of the current token, relative to the reader index, that have already been scanned. */
+    private int scanned;
+    private byte[] literal;
+    /** Number of bytes consumed before the reader index of the current {@link #decode} call, for error messages. */
+    private long offset;
+    private int startIndex;
+
+    public JsonTokenDecoder() {
+        this(DEFAULT_MAX_DEPTH, DEFAULT_MAX_TOKEN_LENGTH);
+    }
+
+    /**
+     * @param maxDepth          maximum number of objects and arrays that may enclose a token.  Deeper texts
+     *                          are rejected with a {@link TooLongFrameException}.
+     * @param maxTokenLength    maximum number of bytes of a single string, field name or number.  Longer tokens
+     *                          are rejected with a {@link TooLongFrameException}.
+     */
+    public JsonTokenDecoder(int maxDepth, int maxTokenLength) {
+        if (maxDepth < 1) {
+            throw new IllegalArgumentException("maxDepth must be a positive int");
+        }
+        if (maxTokenLength < 1) {
+            throw new IllegalArgumentException("maxTokenLength must be a positive int");
+        }
+        this.maxDepth = maxDepth;
+        this.maxTokenLength = maxTokenLength;
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        if (state == ST_CORRUPTED) {
+            in.skipBytes(in.readableBytes());
+            return;
+        }
+
+        startIndex = in.readerIndex();
+        try {
+            decodeTokens(in, out);
+        } catch (Exception e) {
+            state = ST_CORRUPTED;
+            in.skipBytes(in.readableBytes());
+            throw e;
+        } finally {
+            offset += in.readerIndex() - startIndex;
+        }
+    }
+
+    @Override
+    protected void decodeLast(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        decode(ctx, in, out);
+
+        // A number at the top level ends with the stream.
+        if (state == ST_NUMBER && depth == 0) {
+            emitScalar(in, JsonTokenType.NUMBER, in.readerIndex(), in.readableBytes(), out);
+            in.skipBytes(in.readableBytes());
+            state = ST_VALUE;
+        }
+    }
+
+    private void decodeTokens(ByteBuf in, List<Object> out) {
+        for (;;) {
+            int state = this.state;
+            switch (state) {
+            case ST_STRING:
+            case ST_FIELD_NAME: {
+                int start = in.readerIndex();
+                int end = in.writerIndex();
+                int i = start + scanned;
+                for (;;) {
+                    i = i < end ? in.forEachByte(i, end - i, FIND_STRING_END) : -1;
+                    if (i < 0) {
+                        suspend(in, end);
+                        return;
+                    }
+                    byte c = in.getByte(i);
+                    if (c == '"') {
+                        break;
+                    }
+                    if (c != '\\') {
+                        throw corrupted(in, i, "a control character in a string");
+                    }
+                    if (i + 1 == end) {
+                        // Scan the escape sequence again once its second byte was received.
+                        suspend(in, i);
+                        return;
+                    }
+                    i += 2;
+                }
+                if (state == ST_STRING) {
+                    emitScalar(in, JsonTokenType.STRING, start, i - start, out);
+                    endValue();
+                } else {
+                    emitScalar(in, JsonTokenType.FIELD_NAME, start, i - start, out);
+                    this.state = ST_COLON;
+                }
+                in.readerIndex(i + 1);
+                break;
+            }
+            case ST_NUMBER: {
+                int start = in.readerIndex();
+                int end = in.writerIndex();
+                int i = start + scanned;
+                i = i < end ? in.forEachByte(i, end - i, FIND_NUMBER_END) : -1;
+                if (i < 0) {
+                    suspend(in, end);
+                    return;
+                }
+                emitScalar(in, JsonTokenType.NUMBER, start, i - start, out);
+                in.readerIndex(i);
+                endValue();
+                break;
+            }
+            case ST_LITERAL: {
+                byte[] literal = this.literal;
+                if (in.readableBytes() < literal.length) {
+                    return;
+                }
+                int start = in.readerIndex();
+                for (int i = 1; i < literal.length; i ++) {
+                    if (in.getByte(start + i) != literal[i]) {
+                        throw corrupted(in, start + i, "'" + new String(literal, CharsetUtil.US_ASCII) + '\'');
+                    }
+                }
+                JsonTokenType type = literal == TRUE ? JsonTokenType.TRUE
+                                   : literal == FALSE ? JsonTokenType.FALSE : JsonTokenType.NULL;
+                emitScalar(in, type, start, literal.length, out);
+                in.readerIndex(start + literal.length);
+                endValue();
+                break;
+            }
+            default: {
+                int i = in.readerIndex();
+                int end = in.writerIndex();
+                byte c = 0;
+                for (; i < end; i ++) {
+                    c = in.getByte(i);
+                    if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                        break;
+                    }
+                }
+                in.readerIndex(i);
+                if (i == end) {
+                    return;
+                }
+                decodeStructure(in, c, i, out);
+            }
+            }
+        }
+    }
+
+    /**
+     * Handles the non-white space character {@code c} at the reader index while no token is in progress.
+     */
+    private void decodeStructure(ByteBuf in, byte c, int i, List<Object> out) {
+        switch (state) {
+        case ST_VALUE:
+        case ST_VALUE_OR_END_ARRAY:
+            switch (c) {
+            case '{':
+                push(in, i, c);
+                out.add(new JsonToken(JsonTokenType.START_OBJECT, depth - 1, Unpooled.EMPTY_BUFFER));
+                state = ST_NAME_OR_END_OBJECT;
+                in.readerIndex(i + 1);
+                return;
+            case '[':
+                push(in, i, c);
+                out.add(new JsonToken(JsonTokenType.START_ARRAY, depth - 1, Unpooled.EMPTY_BUFFER));
+                state = ST_VALUE_OR_END_ARRAY;
+                in.readerIndex(i + 1);
+                return;
+            case '"':
+                beginToken(ST_STRING);
+                in.readerIndex(i + 1);
+                return;
+            case 't':
+                beginLiteral(TRUE);
+                return;
+            case 'f':
+                beginLiteral(FALSE);
+                return;
+            case 'n':
+                beginLiteral(NULL);
+                return;
+            case ']':
+                if (state == ST_VALUE_OR_END_ARRAY) {
+                    endContainer(in, i, JsonTokenType.END_ARRAY, out);
+                    return;
+                }
+                break;
+            default:
+                if (c == '-' || c >= '0' && c <= '9') {
+                    beginToken(ST_NUMBER);
+                    return;
+                }
+            }
+            throw corrupted(in, i, "a value");
+        case ST_NAME_OR_END_OBJECT:
+            if (c == '}') {
+                endContainer(in, i, JsonTokenType.END_OBJECT, out);
+                return;
+            }
+            // fall through
+        case ST_NAME:
+            if (c == '"') {
+                beginToken(ST_FIELD_NAME);
+                in.readerIndex(i + 1);
+                return;
+            }
+            throw corrupted(in, i, "a field name");
+        case ST_COLON:
+            if (c == ':') {
+                state = ST_VALUE;
+                in.readerIndex(i + 1);
+                return;
+            }
+            throw corrupted(in, i, "':'");
+        case ST_COMMA_OR_END:
+            byte container = containers[depth - 1];
+            if (c == ',') {
+                state = container == '{' ? ST_NAME : ST_VALUE;
+                in.readerIndex(i + 1);
+                return;
+            }
+            if (container == '{' && c == '}') {
+                endContainer(in, i, JsonTokenType.END_OBJECT, out);
+                return;
+            }
+            if (container == '[' && c == ']') {
+                endContainer(in, i, JsonTokenType.END_ARRAY, out);
+                return;
+            }
+            throw corrupted(in, i, container == '{' ? "',' or '}'" : "',' or ']'");
+        default:
+            throw new IllegalStateException("unexpected state: " + state);
+        }
+    }
+
+    private void push(ByteBuf in, int index, byte container) {
+        if (depth == maxDepth) {
+            throw new TooLongFrameException("nesting depth exceeds " + maxDepth + " at byte position " +
+                                            position(in, index));
+        }
+        if (depth == containers.length) {
+            byte[] newContainers = new byte[Math.min(depth << 1, maxDepth)];
+            System.arraycopy(containers, 0, newContainers, 0, depth);
+            containers = newContainers;
+        }
+        containers[depth ++] = container;
+    }
+
+    private void endContainer(ByteBuf in, int index, JsonTokenType type, List<Object> out) {
+        out.add(new JsonToken(type, -- depth, Unpooled.EMPTY_BUFFER));
+        in.readerIndex(index + 1);
+        endValue();
+    }
+
+    private void endValue() {
+        state = depth == 0 ? ST_VALUE : ST_COMMA_OR_END;
+    }
+
+    private void beginToken(int state) {
+        this.state = state;
+        scanned = 0;
+    }
+
+    private void beginLiteral(byte[] literal) {
+        this.literal = literal;
+        state = ST_LITERAL;
+    }
+
+    /**
+     * Remembers that the bytes of the current token up to {@code index} have been scanned and waits for more input.
+     */
+    private void suspend(ByteBuf in, int index) {
+        scanned = index - in.readerIndex();
+        if (scanned > maxTokenLength) {
+            throw tooLong(in);
+        }
+    }
+
+    private void emitScalar(ByteBuf in, JsonTokenType type, int index, int length, List<Object> out) {
+        if (length > maxTokenLength) {
+            throw tooLong(in);
+        }
+        out.add(new JsonToken(type, depth, in.slice(index, length).retain()));
+    }
+
+    private TooLongFrameException tooLong(ByteBuf in) {
+        return new TooLongFrameException("token length exceeds " + maxTokenLength + " at byte position " +
+                                         position(in, in.readerIndex()));
+    }
+
+    private CorruptedFrameException corrupted(ByteBuf in, int index, String expected) {
+        return new CorruptedFrameException("invalid JSON received at byte position " + position(in, index) +
+                                           ": expected " + expected + " but got 0x" +
+                                           Integer.toHexString(in.getUnsignedByte(index)));
+    }
+
+    private long position(ByteBuf in, int index) {
+        return offset + index - startIndex;
+    }
+}
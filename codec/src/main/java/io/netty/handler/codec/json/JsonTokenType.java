@@ -0,0 +1,49 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.json;
+
+/**
+ * The type of a {@link JsonToken}.
+ */
+public enum JsonTokenType {
+    /** <code>{</code> */
+    START_OBJECT,
+    /** <code>}</code> */
+    END_OBJECT,
+    /** <code>[</code> */
+    START_ARRAY,
+    /** <code>]</code> */
+    END_ARRAY,
+    /** The name of an object member, without the quotes. */
+    FIELD_NAME,
+    /** A string value, without the quotes. */
+    STRING,
+    /** A number value. */
+    NUMBER,
+    /** <code>true</code> */
+    TRUE,
+    /** <code>false</code> */
+    FALSE,
+    /** <code>null</code> */
+    NULL;
+
+    /**
+     * Returns {@code true} if and only if the tokens of this type are values that carry their text as content.
+     */
+    public boolean isScalar() {
+        return this != START_OBJECT && this != END_OBJECT && this != START_ARRAY && this != END_ARRAY;
+    }
+}
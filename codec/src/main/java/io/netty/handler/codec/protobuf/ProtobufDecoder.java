@@ -15,11 +15,13 @@
  */
 package io.netty.handler.codec.protobuf;
 
+import com.google.protobuf.CodedInputStream;
 import com.google.protobuf.ExtensionRegistry;
 import com.google.protobuf.ExtensionRegistryLite;
 import com.google.protobuf.Message;
 import com.google.protobuf.MessageLite;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
 import io.netty.channel.ChannelHandler.Sharable;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPipeline;
@@ -27,6 +29,7 @@ import io.netty.handler.codec.ByteToMessageDecoder;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 import io.netty.handler.codec.LengthFieldPrepender;
 import io.netty.handler.codec.MessageToMessageDecoder;
+import io.netty.util.concurrent.FastThreadLocal;
 
 import java.util.List;
 
@@ -59,6 +62,9 @@ import java.util.List;
  *     ch.write(res);
  * }
  * </pre>
+ * Messages in a {@link ByteBuf} without a backing array, such as a pooled direct buffer, are parsed without
+ * allocating a new array per message: small ones are copied into a reused per-thread array, larger ones are streamed
+ * through a {@link CodedInputStream}.
  */
 @Sharable
 public class ProtobufDecoder extends MessageToMessageDecoder<ByteBuf> {
@@ -78,6 +84,19 @@ public class ProtobufDecoder extends MessageToMessageDecoder<ByteBuf> {
         HAS_PARSER = hasParser;
     }
 
+    /**
+     * Messages up to this size are copied into a per-thread array, larger ones are streamed.
+     */
+    private static final int MAX_SCRATCH_SIZE = 64 * 1024;
+
+    // Protobuf copies everything it keeps out of the input array, so it can be reused for the next message.
+    private static final FastThreadLocal<byte[]> SCRATCH = new FastThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[1024];
+        }
+    };
+
     private final MessageLite prototype;
     private final ExtensionRegistryLite extensionRegistry;
 
@@ -108,10 +127,20 @@ public class ProtobufDecoder extends MessageToMessageDecoder<ByteBuf> {
         if (msg.hasArray()) {
             array = msg.array();
             offset = msg.arrayOffset() + msg.readerIndex();
-        } else {
-            array = new byte[length];
+        } else if (length <= MAX_SCRATCH_SIZE) {
+            byte[] scratch = SCRATCH.get();
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, Math.min(scratch.length << 1, MAX_SCRATCH_SIZE))];
+                SCRATCH.set(scratch);
+            }
+            array = scratch;
             msg.getBytes(msg.readerIndex(), array, 0, length);
             offset = 0;
+        } else {
+            CodedInputStream input = CodedInputStream.newInstance(new ByteBufInputStream(msg));
+            input.setSizeLimit(length);
+            out.add(parse(input));
+            return;
         }
 
         if (extensionRegistry == null) {
@@ -128,4 +157,20 @@ public class ProtobufDecoder extends MessageToMessageDecoder<ByteBuf> {
             }
         }
     }
+
+    private MessageLite parse(CodedInputStream input) throws Exception {
+        if (extensionRegistry == null) {
+            if (HAS_PARSER) {
+                return prototype.getParserForType().parseFrom(input);
+            } else {
+                return prototype.newBuilderForType().mergeFrom(input).build();
+            }
+        } else {
+            if (HAS_PARSER) {
+                return prototype.getParserForType().parseFrom(input, extensionRegistry);
+            } else {
+                return prototype.newBuilderForType().mergeFrom(input, extensionRegistry).build();
+            }
+        }
+    }
 }
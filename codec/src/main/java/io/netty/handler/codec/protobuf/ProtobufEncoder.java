@@ -15,10 +15,12 @@
  */
 package io.netty.handler.codec.protobuf;
 
+import com.google.protobuf.CodedOutputStream;
 import com.google.protobuf.Message;
 import com.google.protobuf.MessageLite;
 import com.google.protobuf.MessageLiteOrBuilder;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
 import io.netty.channel.ChannelHandler.Sharable;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPipeline;
@@ -28,8 +30,6 @@ import io.netty.handler.codec.MessageToMessageEncoder;
 
 import java.util.List;
 
-import static io.netty.buffer.Unpooled.*;
-
 /**
  * Encodes the requested <a href="http://code.google.com/p/protobuf/">Google
  * Protocol Buffers</a> {@link Message} and {@link MessageLite} into a
@@ -56,18 +56,44 @@ import static io.netty.buffer.Unpooled.*;
  *     ch.write(res);
  * }
  * </pre>
+ * The message is serialized straight into a {@link ByteBuf} of exactly its
+ * {@linkplain MessageLite#getSerializedSize() serialized size}, obtained from the
+ * {@linkplain ChannelHandlerContext#alloc() allocator} of the channel.
  */
 @Sharable
 public class ProtobufEncoder extends MessageToMessageEncoder<MessageLiteOrBuilder> {
     @Override
     protected void encode(
             ChannelHandlerContext ctx, MessageLiteOrBuilder msg, List<Object> out) throws Exception {
+        final MessageLite message;
         if (msg instanceof MessageLite) {
-            out.add(wrappedBuffer(((MessageLite) msg).toByteArray()));
+            message = (MessageLite) msg;
+        } else if (msg instanceof MessageLite.Builder) {
+            message = ((MessageLite.Builder) msg).build();
+        } else {
             return;
         }
-        if (msg instanceof MessageLite.Builder) {
-            out.add(wrappedBuffer(((MessageLite.Builder) msg).build().toByteArray()));
+
+        final int size = message.getSerializedSize();
+        ByteBuf buf = ctx.alloc().heapBuffer(size, size);
+        boolean release = true;
+        try {
+            if (buf.hasArray()) {
+                int writerIndex = buf.writerIndex();
+                CodedOutputStream output = CodedOutputStream.newInstance(
+                        buf.array(), buf.arrayOffset() + writerIndex, size);
+                message.writeTo(output);
+                output.checkNoSpaceLeft();
+                buf.writerIndex(writerIndex + size);
+            } else {
+                message.writeTo(new ByteBufOutputStream(buf));
+            }
+            out.add(buf);
+            release = false;
+        } finally {
+            if (release) {
+                buf.release();
+            }
         }
     }
 }
@@ -46,28 +46,30 @@ public class ProtobufVarint32FrameDecoder extends ByteToMessageDecoder {
 
     @Override
     protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
-        in.markReaderIndex();
-        final byte[] buf = new byte[5];
-        for (int i = 0; i < buf.length; i ++) {
-            if (!in.isReadable()) {
-                in.resetReaderIndex();
+        final int readerIndex = in.readerIndex();
+        final int writerIndex = in.writerIndex();
+        int length = 0;
+        for (int i = 0; i < 5; i ++) {
+            if (readerIndex + i == writerIndex) {
                 return;
             }
 
-            buf[i] = in.readByte();
-            if (buf[i] >= 0) {
-                int length = CodedInputStream.newInstance(buf, 0, i + 1).readRawVarint32();
+            byte b = in.getByte(readerIndex + i);
+            length |= (b & 0x7F) << 7 * i;
+            if (b >= 0) {
                 if (length < 0) {
                     throw new CorruptedFrameException("negative length: " + length);
                 }
 
-                if (in.readableBytes() < length) {
-                    in.resetReaderIndex();
-                    return;
-                } else {
-                    out.add(in.readBytes(length));
+                int frameIndex = readerIndex + i + 1;
+                if (writerIndex - frameIndex < length) {
                     return;
                 }
+
+                // The frame shares the memory of the cumulation instead of being copied.
+                out.add(in.slice(frameIndex, length).retain());
+                in.readerIndex(frameIndex + length);
+                return;
             }
         }
 
@@ -87,6 +87,55 @@ public class AsciiStringTest {
         Assert.assertEquals(string, ascii.toString());
     }
 
+    @Test
+    public void testIntern() {
+        AsciiString[] internTable = AsciiString.internTable();
+        try {
+            testIntern0();
+        } finally {
+            AsciiString.restoreInternTable(internTable);
+        }
+    }
+
+    private static void testIntern0() {
+        AsciiString name = new AsciiString("x-intern-test");
+        Assert.assertSame(name, AsciiString.intern(name));
+        Assert.assertSame(name, AsciiString.intern(new AsciiString("x-intern-test")));
+
+        byte[] bytes = "::x-intern-test::".getBytes(CharsetUtil.US_ASCII);
+        Assert.assertSame(name, AsciiString.interned(bytes, 2, name.length()));
+        Assert.assertSame(name, AsciiString.interned("::x-intern-test::", 2, name.length()));
+        Assert.assertSame(name, AsciiString.interned(new StringBuilder("x-intern-test"), 0, name.length()));
+
+        // Lookups are case-sensitive and only return registered strings.
+        Assert.assertNull(AsciiString.interned("X-Intern-Test", 0, name.length()));
+        Assert.assertNull(AsciiString.interned(bytes, 2, name.length() - 1));
+        Assert.assertNull(AsciiString.interned("x-intern-test-unknown", 0, 21));
+    }
+
+    @Test
+    public void testInternMany() {
+        AsciiString[] internTable = AsciiString.internTable();
+        try {
+            AsciiString[] names = new AsciiString[1000];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = AsciiString.intern(new AsciiString("x-intern-many-" + i));
+            }
+            for (int i = 0; i < names.length; i++) {
+                String name = "x-intern-many-" + i;
+                Assert.assertSame(names[i], AsciiString.interned(name, 0, name.length()));
+            }
+        } finally {
+            AsciiString.restoreInternTable(internTable);
+        }
+        Assert.assertNull(AsciiString.interned("x-intern-many-0", 0, 15));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testInternedOutOfBounds() {
+        AsciiString.interned(new byte[4], 2, 3);
+    }
+
     private static byte[] getBytesWithEncoder(CharSequence value, Charset charset) {
         final CharsetEncoder encoder = CharsetUtil.getEncoder(charset);
         final ByteBuffer nativeBuffer = ByteBuffer.allocate((int) (encoder.maxBytesPerChar() * value.length()));
@@ -16,7 +16,9 @@
 package io.netty.handler.codec;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.embedded.EmbeddedChannel;
@@ -219,4 +221,81 @@ public class ByteToMessageDecoderTest {
             buf.release();
         }
     }
+
+    private static final class FixedFrameDecoder extends ByteToMessageDecoder {
+        private final int frameLength;
+        boolean composite;
+
+        FixedFrameDecoder(int frameLength) {
+            this.frameLength = frameLength;
+            setCumulator(ADAPTIVE_CUMULATOR);
+        }
+
+        @Override
+        protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+            composite |= in instanceof CompositeByteBuf;
+            if (in.readableBytes() >= frameLength) {
+                out.add(in.readSlice(frameLength).retain());
+            }
+        }
+    }
+
+    private static ByteBuf testData(int length) {
+        ByteBuf data = Unpooled.buffer(length);
+        for (int i = 0; i < length; i ++) {
+            data.writeByte(i * 31);
+        }
+        return data;
+    }
+
+    private static void testAdaptiveCumulator(int frameLength, int readLength, boolean expectComposite) {
+        FixedFrameDecoder decoder = new FixedFrameDecoder(frameLength);
+        EmbeddedChannel channel = new EmbeddedChannel(decoder);
+        ByteBuf data = testData(frameLength * 3);
+        ByteBuf in = data.duplicate();
+        while (in.isReadable()) {
+            ByteBuf read = Unpooled.buffer(readLength);
+            in.readBytes(read, Math.min(readLength, in.readableBytes()));
+            channel.writeInbound(read);
+        }
+        Assert.assertEquals(expectComposite, decoder.composite);
+        for (int i = 0; i < 3; i ++) {
+            ByteBuf frame = channel.readInbound();
+            Assert.assertEquals(data.slice(i * frameLength, frameLength), frame);
+            frame.release();
+        }
+        Assert.assertNull(channel.readInbound());
+        Assert.assertFalse(channel.finish());
+        data.release();
+    }
+
+    @Test
+    public void testAdaptiveCumulatorCopiesSmallReads() {
+        testAdaptiveCumulator(100, 7, false);
+    }
+
+    @Test
+    public void testAdaptiveCumulatorComposesLargeReads() {
+        testAdaptiveCumulator(65536, 8192, true);
+    }
+
+    @Test
+    public void testAdaptiveCumulatorDoesNotModifySharedCumulation() {
+        // Frames end in the middle of reads, so the cumulation is shared with the frame already decoded.
+        testAdaptiveCumulator(10000, 3000, true);
+        testAdaptiveCumulator(1000, 300, false);
+    }
+
+    @Test
+    public void testAdaptiveCumulatorCompactsInPlace() {
+        ByteBuf cumulation = Unpooled.buffer(16, 16);
+        cumulation.writeBytes(new byte[12]).skipBytes(10);
+        ByteBuf in = Unpooled.wrappedBuffer(new byte[] { 1, 2, 3, 4, 5, 6 });
+        ByteBuf result = ByteToMessageDecoder.ADAPTIVE_CUMULATOR.cumulate(
+                UnpooledByteBufAllocator.DEFAULT, cumulation, in);
+        Assert.assertSame(cumulation, result);
+        Assert.assertEquals(0, result.readerIndex());
+        Assert.assertEquals(Unpooled.wrappedBuffer(new byte[] { 0, 0, 1, 2, 3, 4, 5, 6 }), result);
+        result.release();
+    }
 }
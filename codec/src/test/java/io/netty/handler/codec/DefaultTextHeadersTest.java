@@ -20,11 +20,13 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static io.netty.util.internal.StringUtil.COMMA;
 import static io.netty.util.internal.StringUtil.DOUBLE_QUOTE;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import org.junit.Test;
 
 public class DefaultTextHeadersTest {
@@ -309,6 +311,96 @@ public class DefaultTextHeadersTest {
         assertCsvValues(headers, HeaderValue.THREE);
     }
 
+    @Test
+    public void testInsertionOrderAfterRemovesAndGrowth() {
+        TextHeaders headers = newDefaultTextHeaders();
+        List<String> expectedNames = new ArrayList<String>();
+        List<String> expectedValues = new ArrayList<String>();
+        for (int i = 0; i < 200; i++) {
+            String name = "name" + i % 7;
+            String value = "value" + i;
+            if (i % 5 == 0) {
+                headers.set(name, value);
+                for (int j = expectedNames.size() - 1; j >= 0; j--) {
+                    if (expectedNames.get(j).equals(name)) {
+                        expectedNames.remove(j);
+                        expectedValues.remove(j);
+                    }
+                }
+            } else {
+                headers.add(name, value);
+            }
+            expectedNames.add(name);
+            expectedValues.add(value);
+        }
+
+        assertEquals(expectedNames.size(), headers.size());
+        int i = 0;
+        for (Entry<CharSequence, CharSequence> entry : headers) {
+            assertEquals(expectedNames.get(i), entry.getKey().toString());
+            assertEquals(expectedValues.get(i), entry.getValue().toString());
+            i++;
+        }
+        assertEquals(expectedNames.size(), i);
+
+        List<String> expectedAll = new ArrayList<String>();
+        for (int j = 0; j < expectedNames.size(); j++) {
+            if (expectedNames.get(j).equals("name3")) {
+                expectedAll.add(expectedValues.get(j));
+            }
+        }
+        assertEquals(expectedAll.get(0), headers.get("NAME3").toString());
+        assertEquals(expectedAll.toString(), headers.getAll("name3").toString());
+        assertEquals(expectedAll.toString(), headers.getAllAndRemove("name3").toString());
+        assertFalse(headers.contains("name3"));
+        assertTrue(headers.getAllAndRemove("name3").isEmpty());
+    }
+
+    @Test
+    public void testClearAndReuse() {
+        TextHeaders headers = newDefaultTextHeaders();
+        for (int i = 0; i < 30; i++) {
+            headers.add("name" + i, "value" + i);
+        }
+        headers.clear();
+        assertTrue(headers.isEmpty());
+        assertEquals(0, headers.size());
+        assertFalse(headers.contains("name0"));
+        assertFalse(headers.iterator().hasNext());
+
+        headers.add("name1", "value");
+        assertEquals(1, headers.size());
+        assertEquals("value", headers.get("name1").toString());
+        assertEquals(Collections.<CharSequence>singletonList("name1"), headers.namesList());
+    }
+
+    @Test
+    public void testEntrySetValue() {
+        TextHeaders headers = newDefaultTextHeaders();
+        headers.add("name1", "value1");
+        headers.add("name2", "value2");
+        Entry<CharSequence, CharSequence> entry = headers.iterator().next();
+        assertEquals("value1", entry.setValue("newValue1"));
+        assertEquals("newValue1", headers.get("name1").toString());
+
+        headers.remove("name1");
+        entry.setValue("ignored");
+        assertEquals("ignored", entry.getValue());
+        assertEquals(1, headers.size());
+        assertEquals("value2", headers.get("name2").toString());
+    }
+
+    @Test
+    public void testAddSelf() {
+        TextHeaders headers = newDefaultTextHeaders();
+        headers.add("name1", "value1");
+        headers.add("name2", "value2");
+        headers.add(headers);
+        assertEquals(4, headers.size());
+        assertEquals("[value1, value1]", headers.getAll("name1").toString());
+        assertEquals("[value2, value2]", headers.getAll("name2").toString());
+    }
+
     private static void assertDefaultValues(final TextHeaders headers, final HeaderValue headerValue) {
         assertEquals(headerValue.asArray()[0], headers.get(HEADER_NAME));
         assertEquals(headerValue.asList(), headers.getAll(HEADER_NAME));
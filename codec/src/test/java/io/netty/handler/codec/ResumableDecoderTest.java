@@ -0,0 +1,157 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ResumableDecoderTest {
+
+    /**
+     * Decodes a 2-byte id, a varint-prefixed name, a line and a body whose length is in the line.
+     */
+    private static final class RecordDecoder extends ResumableDecoder<Void> {
+        private final FixedIntField id = field(new FixedIntField(2));
+        private final BytesField name = field(new BytesField(new VarIntField(5), 1024));
+        private final DelimitedField line = field(new DelimitedField((byte) '\n', 16));
+        private final BytesField body = field(new BytesField(1024));
+        int calls;
+
+        @Override
+        protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+            calls ++;
+            if (!id.read(in) || !name.read(in) || !line.read(in)) {
+                return;
+            }
+            if (!body.isDone()) {
+                body.length(Integer.parseInt(line.toString(CharsetUtil.US_ASCII)));
+            }
+            if (!body.read(in)) {
+                return;
+            }
+            out.add(id.value() + ":" + name.toString(CharsetUtil.UTF_8) + ':' + body.toString(CharsetUtil.US_ASCII));
+            resetFields();
+        }
+    }
+
+    private static ByteBuf record(int id, String name, String body) {
+        ByteBuf buf = Unpooled.buffer();
+        buf.writeShort(id);
+        byte[] nameBytes = name.getBytes(CharsetUtil.UTF_8);
+        int length = nameBytes.length;
+        while ((length & ~0x7f) != 0) {
+            buf.writeByte(length & 0x7f | 0x80);
+            length >>>= 7;
+        }
+        buf.writeByte(length);
+        buf.writeBytes(nameBytes);
+        buf.writeBytes((body.length() + "\n" + body).getBytes(CharsetUtil.US_ASCII));
+        return buf;
+    }
+
+    private static String repeat(char c, int count) {
+        StringBuilder buf = new StringBuilder(count);
+        for (int i = 0; i < count; i ++) {
+            buf.append(c);
+        }
+        return buf.toString();
+    }
+
+    @Test
+    public void testDecodeWholeRecords() {
+        EmbeddedChannel ch = new EmbeddedChannel(new RecordDecoder());
+        ByteBuf in = Unpooled.buffer();
+        in.writeBytes(record(1, "a", "hello"));
+        in.writeBytes(record(65535, repeat('b', 200), ""));
+        assertTrue(ch.writeInbound(in));
+        assertEquals("1:a:hello", ch.readInbound());
+        assertEquals("65535:" + repeat('b', 200) + ':', ch.readInbound());
+        assertNull(ch.readInbound());
+        assertFalse(ch.finish());
+    }
+
+    @Test
+    public void testDecodeOneByteAtATime() {
+        RecordDecoder decoder = new RecordDecoder();
+        EmbeddedChannel ch = new EmbeddedChannel(decoder);
+        String name = repeat('n', 300);
+        String body = repeat('x', 700);
+        ByteBuf in = record(42, name, body);
+        int length = in.readableBytes();
+        while (in.isReadable()) {
+            ch.writeInbound(in.readSlice(1).retain());
+        }
+        in.release();
+        assertEquals("42:" + name + ':' + body, ch.readInbound());
+        assertNull(ch.readInbound());
+        // Every byte is handed to decode() about once, instead of the whole record being parsed again.
+        assertTrue("calls: " + decoder.calls, decoder.calls <= 2 * length);
+        assertFalse(ch.finish());
+    }
+
+    @Test
+    public void testTooLongDelimitedField() {
+        EmbeddedChannel ch = new EmbeddedChannel(new RecordDecoder());
+        ByteBuf in = Unpooled.buffer();
+        in.writeShort(1);
+        in.writeByte(1);
+        in.writeByte('a');
+        in.writeBytes(repeat('9', 17).getBytes(CharsetUtil.US_ASCII));
+        try {
+            ch.writeInbound(in);
+            fail();
+        } catch (TooLongFrameException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testOverlongVarInt() {
+        EmbeddedChannel ch = new EmbeddedChannel(new RecordDecoder());
+        try {
+            ch.writeInbound(Unpooled.wrappedBuffer(new byte[] { 0, 1, -1, -1, -1, -1, 0x7f }));
+            fail();
+        } catch (CorruptedFrameException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testFieldsReleasedOnRemoval() {
+        RecordDecoder decoder = new RecordDecoder();
+        EmbeddedChannel ch = new EmbeddedChannel(decoder);
+        ByteBuf in = record(7, "name", "body");
+        // Everything but the body, so that the name is held by its field.
+        ByteBuf partial = in.readSlice(in.readableBytes() - 4);
+        assertFalse(ch.writeInbound(partial.retain()));
+        // Held by the test, the cumulation and the name field.
+        assertEquals(3, in.refCnt());
+
+        ch.pipeline().remove(decoder);
+        assertEquals(1, in.refCnt());
+        in.release();
+        assertFalse(decoder.name.isDone());
+        assertFalse(ch.finish());
+    }
+}
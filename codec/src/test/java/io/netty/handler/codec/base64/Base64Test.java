@@ -0,0 +1,206 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.base64;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class Base64Test {
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void testEncodeMatchesDialectTables() {
+        for (Base64Dialect dialect : Base64Dialect.values()) {
+            for (int len = 0; len < 300; len ++) {
+                byte[] data = randomBytes(len);
+                for (boolean breakLines : new boolean[] { true, false }) {
+                    String expected = encodeBytewise(data, breakLines, dialect);
+                    assertEquals(expected, encode(Unpooled.wrappedBuffer(data), breakLines, dialect));
+                    assertEquals(expected, encode(direct(data), breakLines, dialect));
+                    assertEquals(expected, encode(
+                            Unpooled.wrappedBuffer(data).order(ByteOrder.LITTLE_ENDIAN), breakLines, dialect));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDecodeRoundTrip() {
+        for (Base64Dialect dialect : Base64Dialect.values()) {
+            for (int len = 0; len < 300; len ++) {
+                byte[] data = randomBytes(len);
+                for (boolean breakLines : new boolean[] { true, false }) {
+                    byte[] encoded = encodeBytewise(data, breakLines, dialect).getBytes(CharsetUtil.US_ASCII);
+                    assertDecoded(data, Unpooled.wrappedBuffer(encoded), dialect);
+                    assertDecoded(data, direct(encoded), dialect);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDecodeSkipsWhiteSpace() {
+        ByteBuf src = Unpooled.copiedBuffer("bmV0\r\ndHkg  aXMg\tYXdlc29tZQ==\r\n", CharsetUtil.US_ASCII);
+        ByteBuf decoded = Base64.decode(src);
+        assertEquals("netty is awesome", decoded.toString(CharsetUtil.US_ASCII));
+        assertFalse(src.isReadable());
+        decoded.release();
+        src.release();
+    }
+
+    @Test
+    public void testDecodeStopsAtPadding() {
+        ByteBuf src = Unpooled.copiedBuffer("bmV0dHk=bmV0dHk=", CharsetUtil.US_ASCII);
+        ByteBuf decoded = Base64.decode(src);
+        assertEquals("netty", decoded.toString(CharsetUtil.US_ASCII));
+        decoded.release();
+        src.release();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodeInvalidCharacterInWord() {
+        ByteBuf src = Unpooled.copiedBuffer("bmV0dH*gaXMgYXdl", CharsetUtil.US_ASCII);
+        try {
+            Base64.decode(src);
+        } finally {
+            src.release();
+        }
+    }
+
+    @Test
+    public void testEncodeWithAllocator() {
+        byte[] data = randomBytes(1000);
+        ByteBuf src = Unpooled.wrappedBuffer(data);
+        ByteBuf encoded = Base64.encode(
+                src, 0, data.length, true, Base64Dialect.STANDARD, PooledByteBufAllocator.DEFAULT);
+        assertEquals(encodeBytewise(data, true, Base64Dialect.STANDARD), encoded.toString(CharsetUtil.US_ASCII));
+        assertEquals(0, src.readerIndex());
+
+        ByteBuf decoded = Base64.decode(
+                encoded, 0, encoded.readableBytes(), Base64Dialect.STANDARD, PooledByteBufAllocator.DEFAULT);
+        assertEquals(Unpooled.wrappedBuffer(data), decoded);
+        encoded.release();
+        decoded.release();
+        src.release();
+    }
+
+    @Test
+    public void testEncodeInChunks() {
+        for (Base64Dialect dialect : Base64Dialect.values()) {
+            for (boolean breakLines : new boolean[] { true, false }) {
+                byte[] data = randomBytes(5000);
+                ByteBuf src = Unpooled.buffer();
+                ByteBuf dst = Unpooled.buffer(1);
+                int i = 0;
+                while (i < data.length) {
+                    int chunk = Math.min(random.nextInt(200), data.length - i);
+                    src.writeBytes(data, i, chunk);
+                    i += chunk;
+                    Base64.encode(src, dst, breakLines, dialect, false);
+                    src.discardReadBytes();
+                }
+                Base64.encode(src, dst, breakLines, dialect, true);
+                assertFalse(src.isReadable());
+                assertEquals(encodeBytewise(data, breakLines, dialect), dst.toString(CharsetUtil.US_ASCII));
+                src.release();
+                dst.release();
+            }
+        }
+    }
+
+    @Test
+    public void testDecodeInChunks() {
+        for (Base64Dialect dialect : Base64Dialect.values()) {
+            for (boolean breakLines : new boolean[] { true, false }) {
+                byte[] data = randomBytes(5000);
+                byte[] encoded = encodeBytewise(data, breakLines, dialect).getBytes(CharsetUtil.US_ASCII);
+                ByteBuf src = Unpooled.buffer();
+                ByteBuf dst = Unpooled.buffer(1);
+                int i = 0;
+                while (i < encoded.length) {
+                    int chunk = Math.min(random.nextInt(200), encoded.length - i);
+                    src.writeBytes(encoded, i, chunk);
+                    i += chunk;
+                    Base64.decode(src, dst, dialect, false);
+                    assertTrue(src.readableBytes() < 4 + 2);
+                    src.discardReadBytes();
+                }
+                Base64.decode(src, dst, dialect, true);
+                assertFalse(src.isReadable());
+                assertEquals(Unpooled.wrappedBuffer(data), dst);
+                src.release();
+                dst.release();
+            }
+        }
+    }
+
+    private static String encode(ByteBuf src, boolean breakLines, Base64Dialect dialect) {
+        ByteBuf encoded = Base64.encode(src, breakLines, dialect);
+        String s = encoded.toString(CharsetUtil.US_ASCII);
+        encoded.release();
+        src.release();
+        return s;
+    }
+
+    private static void assertDecoded(byte[] expected, ByteBuf src, Base64Dialect dialect) {
+        ByteBuf decoded = Base64.decode(src, dialect);
+        assertEquals(Unpooled.wrappedBuffer(expected), decoded);
+        decoded.release();
+        src.release();
+    }
+
+    /**
+     * Encodes one character at a time straight from the {@link Base64Dialect} tables.
+     */
+    private static String encodeBytewise(byte[] data, boolean breakLines, Base64Dialect dialect) {
+        StringBuilder buf = new StringBuilder();
+        int lineLength = 0;
+        for (int i = 0; i < data.length; i += 3) {
+            int n = Math.min(3, data.length - i);
+            int bits = (data[i] & 0xff) << 16 |
+                       (n > 1 ? (data[i + 1] & 0xff) << 8 : 0) |
+                       (n > 2 ? data[i + 2] & 0xff : 0);
+            for (int j = 0; j < 4; j ++) {
+                buf.append(j <= n ? (char) dialect.alphabet[bits >>> 18 - j * 6 & 0x3f] : '=');
+            }
+            lineLength += 4;
+            if (breakLines && n == 3 && lineLength == 76) {
+                buf.append('\n');
+                lineLength = 0;
+            }
+        }
+        return buf.toString();
+    }
+
+    private byte[] randomBytes(int len) {
+        byte[] data = new byte[len];
+        random.nextBytes(data);
+        return data;
+    }
+
+    private static ByteBuf direct(byte[] data) {
+        return Unpooled.directBuffer(data.length).writeBytes(data);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import com.aayushatharva.brotli4j.decoder.Decoder;
+import com.aayushatharva.brotli4j.decoder.DecoderJNI;
+import com.aayushatharva.brotli4j.decoder.DirectDecompress;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+public class BrotliIntegrationTest extends AbstractIntegrationTest {
+
+    @BeforeClass
+    public static void ensureAvailability() {
+        assumeTrue(Brotli.isAvailable());
+    }
+
+    @Override
+    protected EmbeddedChannel createEncoder() {
+        return new EmbeddedChannel(new BrotliEncoder());
+    }
+
+    @Override
+    protected EmbeddedChannel createDecoder() {
+        return new EmbeddedChannel(new BrotliDecoder());
+    }
+
+    /**
+     * Makes sure that everything written so far can be decoded after each message, and that the finished stream
+     * is decoded by brotli4j itself.
+     */
+    @Test
+    public void testFlushedOutputAndLibraryDecoding() throws Exception {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        ByteArrayOutputStream original = new ByteArrayOutputStream();
+        for (int i = 0; i < 3; i++) {
+            byte[] data = new byte[1000 + i * 30000];
+            rand.nextBytes(data);
+            Arrays.fill(data, 0, data.length / 2, (byte) 'a');
+            original.write(data);
+
+            assertTrue(encoder.writeOutbound(Unpooled.wrappedBuffer(data)));
+            ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+            for (;;) {
+                ByteBuf buf = encoder.readOutbound();
+                if (buf == null) {
+                    break;
+                }
+                compressed.write(toBytes(buf));
+                decoder.writeInbound(buf);
+            }
+            for (;;) {
+                ByteBuf buf = decoder.readInbound();
+                if (buf == null) {
+                    break;
+                }
+                decoded.write(toBytes(buf));
+                buf.release();
+            }
+            assertArrayEquals(data, decoded.toByteArray());
+        }
+
+        encoder.finish();
+        for (;;) {
+            ByteBuf buf = encoder.readOutbound();
+            if (buf == null) {
+                break;
+            }
+            compressed.write(toBytes(buf));
+            buf.release();
+        }
+        assertArrayEquals(original.toByteArray(), decodeWithLibrary(compressed.toByteArray()));
+    }
+
+    private static byte[] toBytes(ByteBuf buf) {
+        byte[] bytes = new byte[buf.readableBytes()];
+        buf.getBytes(buf.readerIndex(), bytes);
+        return bytes;
+    }
+
+    private static byte[] decodeWithLibrary(byte[] compressed) throws IOException {
+        DirectDecompress result = Decoder.decompress(compressed);
+        assertEquals(DecoderJNI.Status.DONE, result.getResultStatus());
+        return result.getDecompressedData();
+    }
+}
@@ -15,8 +15,17 @@
  */
 package io.netty.handler.codec.compression;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
 
 public class JdkZlibTest extends ZlibTest {
 
@@ -35,4 +44,91 @@ public class JdkZlibTest extends ZlibTest {
     public void testZLIB_OR_NONE3() throws Exception {
         super.testZLIB_OR_NONE3();
     }
+
+    @Test
+    public void testDeflaterIsReturnedToPool() throws Exception {
+        assumeTrue(JdkZlibPool.MAX_POOLED > 0);
+        int pooled = JdkZlibPool.pooledDeflaters(6, true);
+
+        EmbeddedChannel channel = new EmbeddedChannel(new JdkZlibEncoder(ZlibWrapper.GZIP));
+        // Nothing is acquired until the first byte is compressed.
+        assertEquals(pooled, JdkZlibPool.pooledDeflaters(6, true));
+
+        assertTrue(channel.writeOutbound(Unpooled.wrappedBuffer(new byte[] { 1, 2, 3 })));
+        assertEquals(Math.max(pooled - 1, 0), JdkZlibPool.pooledDeflaters(6, true));
+
+        assertTrue(channel.finish());
+        assertEquals(Math.max(pooled, 1), JdkZlibPool.pooledDeflaters(6, true));
+        releaseAll(channel);
+    }
+
+    @Test
+    public void testInflaterIsReturnedToPool() throws Exception {
+        assumeTrue(JdkZlibPool.MAX_POOLED > 0);
+        byte[] data = new byte[1024];
+        new Random(42).nextBytes(data);
+        byte[] compressed = gzip(data);
+        int pooled = JdkZlibPool.pooledInflaters(true);
+
+        EmbeddedChannel channel = new EmbeddedChannel(new JdkZlibDecoder(ZlibWrapper.GZIP));
+        assertEquals(pooled, JdkZlibPool.pooledInflaters(true));
+
+        // Everything but the trailer, so the stream is still in progress.
+        assertTrue(channel.writeInbound(Unpooled.wrappedBuffer(compressed, 0, compressed.length - 8)));
+        assertEquals(Math.max(pooled - 1, 0), JdkZlibPool.pooledInflaters(true));
+
+        channel.writeInbound(Unpooled.wrappedBuffer(compressed, compressed.length - 8, 8));
+        assertEquals(Math.max(pooled, 1), JdkZlibPool.pooledInflaters(true));
+        assertTrue(channel.finish());
+        releaseAll(channel);
+    }
+
+    @Test
+    public void testDecompressDirectBufferLargerThanScratch() throws Exception {
+        byte[] data = new byte[JdkZlibPool.SCRATCH_SIZE * 4 + 17];
+        new Random(42).nextBytes(data);
+        byte[] compressed = gzip(data);
+        assertTrue(compressed.length > JdkZlibPool.SCRATCH_SIZE);
+
+        EmbeddedChannel channel = new EmbeddedChannel(new JdkZlibDecoder(ZlibWrapper.GZIP));
+        channel.writeInbound(Unpooled.directBuffer(compressed.length).writeBytes(compressed));
+        assertTrue(channel.finish());
+
+        ByteBuf decoded = Unpooled.buffer(data.length);
+        for (;;) {
+            ByteBuf buf = channel.readInbound();
+            if (buf == null) {
+                break;
+            }
+            decoded.writeBytes(buf);
+            buf.release();
+        }
+        assertEquals(Unpooled.wrappedBuffer(data), decoded);
+        decoded.release();
+    }
+
+    private static void releaseAll(EmbeddedChannel channel) {
+        for (;;) {
+            ByteBuf buf = channel.readOutbound();
+            if (buf == null) {
+                break;
+            }
+            buf.release();
+        }
+        for (;;) {
+            ByteBuf buf = channel.readInbound();
+            if (buf == null) {
+                break;
+            }
+            buf.release();
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GZIPOutputStream stream = new GZIPOutputStream(out);
+        stream.write(bytes);
+        stream.close();
+        return out.toByteArray();
+    }
 }
@@ -22,6 +22,9 @@ import io.netty.channel.embedded.EmbeddedChannel;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import static io.netty.util.ReferenceCountUtil.*;
 import static org.junit.Assert.*;
 
@@ -147,4 +150,47 @@ public class SnappyFrameEncoderTest {
         ByteBuf out = channel.readOutbound();
         out.release();
     }
+
+    @Test
+    public void testParallelEncodingMatchesSequentialEncoding() throws Exception {
+        // Several full chunks plus a remainder too short to be compressed.
+        byte[] data = new byte[Short.MAX_VALUE * 5 + 7];
+        for (int i = 0; i < data.length; i ++) {
+            data[i] = (byte) (i % 1021 < 700 ? i % 17 : i * 7);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            EmbeddedChannel parallel = new EmbeddedChannel(new SnappyFrameEncoder(executor, Short.MAX_VALUE + 1));
+            channel.writeOutbound(Unpooled.wrappedBuffer(data));
+            parallel.writeOutbound(Unpooled.directBuffer(data.length).writeBytes(data));
+            assertTrue(channel.finish());
+            assertTrue(parallel.finish());
+
+            ByteBuf expected = channel.readOutbound();
+            ByteBuf actual = parallel.readOutbound();
+            assertEquals(expected, actual);
+            expected.release();
+            actual.release();
+
+            EmbeddedChannel decoder = new EmbeddedChannel(new SnappyFrameDecoder(true));
+            parallel = new EmbeddedChannel(new SnappyFrameEncoder(executor, 1));
+            parallel.writeOutbound(Unpooled.wrappedBuffer(data));
+            assertTrue(parallel.finish());
+            ByteBuf compressed;
+            while ((compressed = parallel.readOutbound()) != null) {
+                decoder.writeInbound(compressed);
+            }
+            assertTrue(decoder.finish());
+            CompositeByteBuf decompressed = Unpooled.compositeBuffer(Integer.MAX_VALUE);
+            ByteBuf msg;
+            while ((msg = decoder.readInbound()) != null) {
+                decompressed.addComponent(msg);
+                decompressed.writerIndex(decompressed.writerIndex() + msg.readableBytes());
+            }
+            assertEquals(Unpooled.wrappedBuffer(data), decompressed);
+            decompressed.release();
+        } finally {
+            executor.shutdown();
+        }
+    }
 }
@@ -17,6 +17,7 @@ package io.netty.handler.codec.compression;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.util.CharsetUtil;
 import org.junit.After;
 import org.junit.Test;
 
@@ -178,6 +179,61 @@ public class SnappyTest {
         assertEquals(maskChecksum(0xd6cb8b55), calculateChecksum(input));
     }
 
+    @Test
+    public void testCalculateChecksumOfLongInput() {
+        // Long enough to be processed 8 bytes at a time, and not a multiple of 8.
+        byte[] data = "123456789123456789123456789".getBytes(CharsetUtil.US_ASCII);
+        Crc32c crc32 = new Crc32c();
+        for (byte b: data) {
+            crc32.update(b);
+        }
+        int expected = maskChecksum((int) crc32.getValue());
+
+        assertEquals(expected, calculateChecksum(Unpooled.wrappedBuffer(data)));
+        ByteBuf direct = Unpooled.directBuffer(data.length).writeBytes(data);
+        try {
+            assertEquals(expected, calculateChecksum(direct));
+        } finally {
+            direct.release();
+        }
+
+        crc32.reset();
+        crc32.update(data, 0, 9);
+        assertEquals(0xe3069283L, crc32.getValue());
+    }
+
+    @Test
+    public void testEncodeDirectBufferMatchesHeapBuffer() {
+        byte[] data = new byte[Short.MAX_VALUE];
+        for (int i = 0; i < data.length; i ++) {
+            data[i] = (byte) (i % 251 < 200 ? i % 13 : i * 31);
+        }
+        ByteBuf heapOut = Unpooled.buffer();
+        ByteBuf directIn = Unpooled.directBuffer(data.length).writeBytes(data);
+        ByteBuf directOut = Unpooled.directBuffer();
+        ByteBuf decoded = Unpooled.buffer();
+        try {
+            snappy.encode(Unpooled.wrappedBuffer(data), heapOut, data.length);
+            snappy.encode(directIn, directOut, data.length);
+            assertFalse(directIn.isReadable());
+            assertEquals(heapOut, directOut);
+
+            snappy.decode(heapOut, decoded);
+            assertEquals(Unpooled.wrappedBuffer(data), decoded);
+        } finally {
+            heapOut.release();
+            directIn.release();
+            directOut.release();
+            decoded.release();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEncodeRejectsOverlongInput() {
+        snappy.encode(Unpooled.buffer(Short.MAX_VALUE + 1).writerIndex(Short.MAX_VALUE + 1),
+                Unpooled.buffer(), Short.MAX_VALUE + 1);
+    }
+
     @Test
     public void testValidateChecksumMatches() {
         ByteBuf input = Unpooled.wrappedBuffer(new byte[] {
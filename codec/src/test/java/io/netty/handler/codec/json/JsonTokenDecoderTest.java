@@ -0,0 +1,156 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.json;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.TooLongFrameException;
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class JsonTokenDecoderTest {
+
+    private static final String DOCUMENT =
+            "{ \"id\": -12.5e3, \"name\" : \"Net\\\"ty \\u00e9\", \"tags\": [true, false, null, [], {}],\n" +
+            "  \"nested\": {\"a\": [1, \"x\"]}, \"\u00e9\": \"caf\u00e9\" }";
+
+    private static final List<String> TOKENS = Arrays.asList(
+            "START_OBJECT@0",
+            "FIELD_NAME@1:id", "NUMBER@1:-12.5e3",
+            "FIELD_NAME@1:name", "STRING@1:Net\"ty \u00e9",
+            "FIELD_NAME@1:tags", "START_ARRAY@1", "TRUE@2:true", "FALSE@2:false", "NULL@2:null",
+            "START_ARRAY@2", "END_ARRAY@2", "START_OBJECT@2", "END_OBJECT@2", "END_ARRAY@1",
+            "FIELD_NAME@1:nested", "START_OBJECT@1", "FIELD_NAME@2:a",
+            "START_ARRAY@2", "NUMBER@3:1", "STRING@3:x", "END_ARRAY@2", "END_OBJECT@1",
+            "FIELD_NAME@1:\u00e9", "STRING@1:caf\u00e9",
+            "END_OBJECT@0");
+
+    @Test
+    public void testDocument() {
+        EmbeddedChannel ch = new EmbeddedChannel(new JsonTokenDecoder());
+        ch.writeInbound(Unpooled.copiedBuffer(DOCUMENT, CharsetUtil.UTF_8));
+        assertEquals(TOKENS, readTokens(ch));
+        assertFalse(ch.finish());
+    }
+
+    @Test
+    public void testSingleByteStream() {
+        EmbeddedChannel ch = new EmbeddedChannel(new JsonTokenDecoder());
+        List<String> tokens = new ArrayList<String>();
+        for (byte b : DOCUMENT.getBytes(CharsetUtil.UTF_8)) {
+            ch.writeInbound(Unpooled.wrappedBuffer(new byte[] { b }));
+            tokens.addAll(readTokens(ch));
+        }
+        assertEquals(TOKENS, tokens);
+        assertFalse(ch.finish());
+    }
+
+    @Test
+    public void testMultipleTexts() {
+        EmbeddedChannel ch = new EmbeddedChannel(new JsonTokenDecoder());
+        ch.writeInbound(Unpooled.copiedBuffer("[1]\n\"a\" {} 4", CharsetUtil.UTF_8));
+        assertEquals(Arrays.asList(
+                "START_ARRAY@0", "NUMBER@1:1", "END_ARRAY@0", "STRING@0:a", "START_OBJECT@0", "END_OBJECT@0"),
+                readTokens(ch));
+
+        // The last number is only complete at the end of the stream.
+        assertTrue(ch.finish());
+        assertEquals(Arrays.asList("NUMBER@0:4"), readTokens(ch));
+    }
+
+    @Test
+    public void testMaxDepth() {
+        EmbeddedChannel ch = new EmbeddedChannel(new JsonTokenDecoder(2, 1024));
+        ch.writeInbound(Unpooled.copiedBuffer("[[1]]", CharsetUtil.UTF_8));
+        assertEquals(5, readTokens(ch).size());
+        try {
+            ch.writeInbound(Unpooled.copiedBuffer("[[[1]]]", CharsetUtil.UTF_8));
+            fail();
+        } catch (TooLongFrameException expected) {
+            // expected
+        }
+        assertEquals(Arrays.asList("START_ARRAY@0", "START_ARRAY@1"), readTokens(ch));
+        assertFalse(ch.finish());
+    }
+
+    @Test
+    public void testMaxTokenLength() {
+        EmbeddedChannel ch = new EmbeddedChannel(new JsonTokenDecoder(64, 4));
+        ch.writeInbound(Unpooled.copiedBuffer("[\"abcd\", 1234", CharsetUtil.UTF_8));
+        assertEquals(Arrays.asList("START_ARRAY@0", "STRING@1:abcd"), readTokens(ch));
+        try {
+            ch.writeInbound(Unpooled.copiedBuffer("5]", CharsetUtil.UTF_8));
+            fail();
+        } catch (TooLongFrameException expected) {
+            // expected
+        }
+
+        // Everything after the error is discarded.
+        ch.writeInbound(Unpooled.copiedBuffer("[2]", CharsetUtil.UTF_8));
+        assertTrue(readTokens(ch).isEmpty());
+        assertFalse(ch.finish());
+    }
+
+    @Test
+    public void testMaxTokenLengthOfIncompleteToken() {
+        EmbeddedChannel ch = new EmbeddedChannel(new JsonTokenDecoder(64, 4));
+        try {
+            ch.writeInbound(Unpooled.copiedBuffer("\"abcdef", CharsetUtil.UTF_8));
+            fail();
+        } catch (TooLongFrameException expected) {
+            // expected
+        }
+        assertFalse(ch.finish());
+    }
+
+    @Test
+    public void testInvalidStructure() {
+        for (String json : new String[] { "{1: 2}", "[1 2]", "{\"a\" 1}", "[1}", "]", "[tru ]", "\"a\u0001\"" }) {
+            EmbeddedChannel ch = new EmbeddedChannel(new JsonTokenDecoder());
+            try {
+                ch.writeInbound(Unpooled.copiedBuffer(json, CharsetUtil.UTF_8));
+                fail(json);
+            } catch (CorruptedFrameException expected) {
+                // expected
+            }
+            readTokens(ch);
+            assertFalse(ch.finish());
+        }
+    }
+
+    private static List<String> readTokens(EmbeddedChannel ch) {
+        List<String> tokens = new ArrayList<String>();
+        for (;;) {
+            JsonToken token = ch.readInbound();
+            if (token == null) {
+                return tokens;
+            }
+            String s = token.type() + "@" + token.depth();
+            if (token.type().isScalar()) {
+                s += ':' + token.text();
+            }
+            tokens.add(s);
+            token.release();
+        }
+    }
+}
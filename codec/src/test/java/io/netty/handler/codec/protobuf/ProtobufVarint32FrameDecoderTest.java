@@ -17,6 +17,7 @@ package io.netty.handler.codec.protobuf;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.CorruptedFrameException;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -63,4 +64,20 @@ public class ProtobufVarint32FrameDecoderTest {
         ch.writeInbound(wrappedBuffer(b, 727, b.length - 727));
         assertThat(releaseLater((ByteBuf) ch.readInbound()), is(releaseLater(wrappedBuffer(b, 2, b.length - 2))));
     }
+
+    @Test
+    public void testMultipleFramesInOneBuffer() {
+        byte[] b = { 2, 1, 2, 0, 3, 3, 4, 5, (byte) 0x80 };
+        ch.writeInbound(wrappedBuffer(b));
+        assertThat(releaseLater((ByteBuf) ch.readInbound()), is(releaseLater(wrappedBuffer(new byte[] { 1, 2 }))));
+        assertThat(releaseLater((ByteBuf) ch.readInbound()), is(releaseLater(EMPTY_BUFFER)));
+        assertThat(releaseLater((ByteBuf) ch.readInbound()), is(releaseLater(wrappedBuffer(new byte[] { 3, 4, 5 }))));
+        assertThat(ch.readInbound(), is(nullValue()));
+        assertFalse(ch.finish());
+    }
+
+    @Test(expected = CorruptedFrameException.class)
+    public void testLengthWiderThan32Bit() {
+        ch.writeInbound(wrappedBuffer(new byte[] { -1, -1, -1, -1, -1, 1 }));
+    }
 }
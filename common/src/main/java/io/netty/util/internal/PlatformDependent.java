@@ -29,6 +29,7 @@ import java.lang.reflect.Method;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -74,6 +75,11 @@ public final class PlatformDependent {
 
     private static final long ARRAY_BASE_OFFSET = arrayBaseOffset0();
 
+    /**
+     * {@code true} if and only if the native byte order is big endian.
+     */
+    public static final boolean BIG_ENDIAN_NATIVE_ORDER = ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN;
+
     private static final boolean HAS_JAVASSIST = hasJavassist0();
 
     private static final File TMPDIR = tmpdir0();
@@ -318,10 +324,45 @@ public final class PlatformDependent {
         return PlatformDependent0.getLong(address);
     }
 
+    /**
+     * Reads the {@code int} at the given index of the array in native byte order.  Must only be used if
+     * {@link #hasUnsafe()} returns {@code true}; the bounds are not checked.
+     */
+    public static int getInt(byte[] data, int index) {
+        return PlatformDependent0.getInt(data, ARRAY_BASE_OFFSET + index);
+    }
+
+    /**
+     * Reads the {@code long} at the given index of the array in native byte order.  Must only be used if
+     * {@link #hasUnsafe()} returns {@code true}; the bounds are not checked.
+     */
+    public static long getLong(byte[] data, int index) {
+        return PlatformDependent0.getLong(data, ARRAY_BASE_OFFSET + index);
+    }
+
+    /**
+     * Reads the {@code int} at the given memory address with volatile semantics. The address must be aligned.
+     */
+    public static int getIntVolatile(long address) {
+        return PlatformDependent0.getIntVolatile(address);
+    }
+
+    public static void putObject(Object object, long fieldOffset, Object value) {
+        PlatformDependent0.putObject(object, fieldOffset, value);
+    }
+
     public static void putOrderedObject(Object object, long address, Object value) {
         PlatformDependent0.putOrderedObject(object, address, value);
     }
 
+    /**
+     * Writes the {@code int} at the given memory address with lazy-set (ordered) semantics. The address must be
+     * aligned.
+     */
+    public static void putOrderedInt(long address, int value) {
+        PlatformDependent0.putOrderedInt(address, value);
+    }
+
     public static void putByte(long address, byte value) {
         PlatformDependent0.putByte(address, value);
     }
@@ -229,10 +229,49 @@ final class PlatformDependent0 {
         }
     }
 
+    static int getInt(byte[] data, long offset) {
+        if (UNALIGNED) {
+            return UNSAFE.getInt(data, offset);
+        }
+        int index = (int) (offset - arrayBaseOffset());
+        if (BIG_ENDIAN) {
+            return data[index] << 24 |
+                  (data[index + 1] & 0xff) << 16 |
+                  (data[index + 2] & 0xff) <<  8 |
+                   data[index + 3] & 0xff;
+        } else {
+            return data[index + 3] << 24 |
+                  (data[index + 2] & 0xff) << 16 |
+                  (data[index + 1] & 0xff) <<  8 |
+                   data[index] & 0xff;
+        }
+    }
+
+    static long getLong(byte[] data, long offset) {
+        if (UNALIGNED) {
+            return UNSAFE.getLong(data, offset);
+        }
+        long hi = getInt(data, offset + (BIG_ENDIAN ? 0 : 4)) & 0xFFFFFFFFL;
+        long lo = getInt(data, offset + (BIG_ENDIAN ? 4 : 0)) & 0xFFFFFFFFL;
+        return hi << 32 | lo;
+    }
+
+    static int getIntVolatile(long address) {
+        return UNSAFE.getIntVolatile(null, address);
+    }
+
+    static void putObject(Object object, long fieldOffset, Object value) {
+        UNSAFE.putObject(object, fieldOffset, value);
+    }
+
     static void putOrderedObject(Object object, long address, Object value) {
         UNSAFE.putOrderedObject(object, address, value);
     }
 
+    static void putOrderedInt(long address, int value) {
+        UNSAFE.putOrderedInt(null, address, value);
+    }
+
     static void putByte(long address, byte value) {
         UNSAFE.putByte(address, value);
     }
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerAdapter;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Drains a {@link ChannelOutboundBuffer} which holds many small flushed messages the way
+ * {@link io.netty.channel.socket.nio.NioSocketChannel} does: each simulated gathering write takes at most
+ * {@link #bytesPerWrite} bytes out of {@link ChannelOutboundBuffer#nioBuffers()}, so most messages stay pending across
+ * many writes.
+ */
+@State(Scope.Benchmark)
+public class ChannelOutboundBufferBenchmark extends AbstractMicrobenchmark {
+
+    @Param({ "1", "10", "100", "1000", "10000" })
+    public int pendingMessages;
+
+    @Param({ "64" })
+    public int messageSize;
+
+    @Param({ "4096" })
+    public int bytesPerWrite;
+
+    private EmbeddedChannel channel;
+    private ChannelOutboundBuffer buffer;
+    private ChannelPromise promise;
+    private ByteBuf message;
+
+    @Setup
+    public void setup() {
+        channel = new EmbeddedChannel(new ChannelHandlerAdapter());
+        channel.config().setWriteBufferHighWaterMark(Integer.MAX_VALUE);
+        buffer = channel.unsafe().outboundBuffer();
+        promise = channel.voidPromise();
+        message = Unpooled.directBuffer(messageSize).writeZero(messageSize);
+    }
+
+    @TearDown
+    public void tearDown() {
+        channel.finish();
+        message.release();
+    }
+
+    @Benchmark
+    public long writeAndDrain() {
+        ChannelOutboundBuffer buffer = this.buffer;
+        ByteBuf message = this.message;
+        for (int i = 0; i < pendingMessages; i ++) {
+            buffer.addMessage(message.duplicate().retain(), messageSize, promise);
+        }
+        buffer.addFlush();
+
+        long written = 0;
+        while (!buffer.isEmpty()) {
+            ByteBuffer[] nioBuffers = buffer.nioBuffers();
+            int count = buffer.nioBufferCount();
+            int budget = bytesPerWrite;
+            long localWritten = 0;
+            for (int i = 0; i < count && budget > 0; i ++) {
+                ByteBuffer nioBuffer = nioBuffers[i];
+                int n = Math.min(nioBuffer.remaining(), budget);
+                nioBuffer.position(nioBuffer.position() + n);
+                budget -= n;
+                localWritten += n;
+            }
+            buffer.removeBytes(localWritten);
+            written += localWritten;
+        }
+        return written;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerAdapter;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Measures writes which are issued from outside of the {@link io.netty.channel.EventLoop}, once with the per
+ * {@link ChannelHandlerContext} write batching and once with the previous one task per write / flush path.
+ * All benchmark threads share the same {@link Channel}.
+ */
+@State(Scope.Benchmark)
+@Threads(4)
+public class CrossThreadWriteBenchmark extends AbstractMicrobenchmark {
+
+    private static final ByteBuf MESSAGE = Unpooled.unreleasableBuffer(Unpooled.directBuffer(16).writeZero(16));
+
+    /**
+     * The number of {@link Channel#writeAndFlush(Object)} calls per benchmark operation.
+     */
+    @Param({ "1", "16", "256" })
+    public int writes;
+
+    private EventLoopGroup group;
+    private Channel channel;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        group = new NioEventLoopGroup(1);
+        channel = new LocalChannel();
+        channel.pipeline().addLast(new ChannelHandlerAdapter() {
+            @Override
+            public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                // Discard the message, flush() is a no-op as well.
+                promise.trySuccess();
+            }
+
+            @Override
+            public void flush(ChannelHandlerContext ctx) {
+                // NOOP
+            }
+        });
+        group.register(channel).sync();
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws Exception {
+        channel.close().sync();
+        group.shutdownGracefully().sync();
+    }
+
+    @Benchmark
+    @Fork(value = DEFAULT_FORKS, jvmArgsAppend = "-Dio.netty.batchCrossExecutorInvocations=true")
+    public void writeBatch() throws Exception {
+        writeAndFlush();
+    }
+
+    @Benchmark
+    @Fork(value = DEFAULT_FORKS, jvmArgsAppend = "-Dio.netty.batchCrossExecutorInvocations=false")
+    public void writeTask() throws Exception {
+        writeAndFlush();
+    }
+
+    private void writeAndFlush() throws Exception {
+        Channel channel = this.channel;
+        ChannelPromise voidPromise = channel.voidPromise();
+        for (int i = 1; i < writes; i++) {
+            channel.writeAndFlush(MESSAGE, voidPromise);
+        }
+        // Writes are processed in order, so once the last one completed all of them did.
+        channel.writeAndFlush(MESSAGE).sync();
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerAdapter;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalChannelOption;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Measures how fast a client can stream messages to a server in the same JVM, once over the local transport
+ * (with both peers on different {@link io.netty.channel.EventLoop}s and pinned to the same one) and once over
+ * NIO loopback TCP. The messages are written from within the client's {@link io.netty.channel.EventLoop}, which
+ * stops whenever the channel becomes unwritable, and each operation completes once the server read all of them.
+ */
+@State(Scope.Benchmark)
+public class LocalChannelThroughputBenchmark extends AbstractMicrobenchmark {
+
+    private static final int MESSAGES_PER_OPERATION = 8192;
+
+    public enum Transport {
+        LOCAL, LOCAL_PINNED, NIO
+    }
+
+    @Param
+    public Transport transport;
+
+    @Param({ "64", "1024" })
+    public int messageSize;
+
+    @Param({ "1", "64" })
+    public int messagesPerFlush;
+
+    private EventLoopGroup serverGroup;
+    private EventLoopGroup clientGroup;
+    private Channel serverChannel;
+    private Channel channel;
+    private Producer producer;
+    private volatile long received;
+    private volatile long target;
+    private volatile CountDownLatch done;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        serverGroup = new NioEventLoopGroup(1);
+        clientGroup = new NioEventLoopGroup(1);
+        producer = new Producer(
+                Unpooled.unreleasableBuffer(Unpooled.directBuffer(messageSize).writeZero(messageSize)),
+                messagesPerFlush);
+
+        ServerBootstrap sb = new ServerBootstrap().group(serverGroup).childHandler(new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel ch) {
+                ch.pipeline().addLast(new ChannelHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        ByteBuf buf = (ByteBuf) msg;
+                        // Single writer, so no need for an atomic update.
+                        long received = LocalChannelThroughputBenchmark.this.received += buf.readableBytes();
+                        buf.release();
+                        if (received >= target) {
+                            done.countDown();
+                        }
+                    }
+                });
+            }
+        });
+        Bootstrap cb = new Bootstrap().group(clientGroup).handler(producer);
+
+        SocketAddress address;
+        if (transport == Transport.NIO) {
+            sb.channel(NioServerSocketChannel.class).childOption(ChannelOption.TCP_NODELAY, true);
+            cb.channel(NioSocketChannel.class).option(ChannelOption.TCP_NODELAY, true);
+            address = new InetSocketAddress("127.0.0.1", 0);
+        } else {
+            sb.channel(LocalServerChannel.class)
+              .childOption(LocalChannelOption.PIN_TO_PEER_EVENT_LOOP, transport == Transport.LOCAL_PINNED);
+            cb.channel(LocalChannel.class);
+            address = new LocalAddress(LocalChannelThroughputBenchmark.class.getSimpleName());
+        }
+
+        serverChannel = sb.bind(address).sync().channel();
+        channel = cb.connect(serverChannel.localAddress()).sync().channel();
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws Exception {
+        channel.close().sync();
+        serverChannel.close().sync();
+        clientGroup.shutdownGracefully().sync();
+        serverGroup.shutdownGracefully().sync();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES_PER_OPERATION)
+    public void stream() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        this.done = done;
+        target = received + (long) MESSAGES_PER_OPERATION * messageSize;
+        producer.start(MESSAGES_PER_OPERATION);
+        done.await();
+    }
+
+    private static final class Producer extends ChannelHandlerAdapter implements Runnable {
+        private final ByteBuf message;
+        private final int messagesPerFlush;
+        private Channel channel;
+        private int remaining;
+
+        Producer(ByteBuf message, int messagesPerFlush) {
+            this.message = message;
+            this.messagesPerFlush = messagesPerFlush;
+        }
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) {
+            channel = ctx.channel();
+        }
+
+        void start(final int messages) {
+            channel.eventLoop().execute(new Runnable() {
+                @Override
+                public void run() {
+                    remaining = messages;
+                    Producer.this.run();
+                }
+            });
+        }
+
+        @Override
+        public void run() {
+            Channel channel = this.channel;
+            ChannelPromise voidPromise = channel.voidPromise();
+            while (remaining > 0 && channel.isWritable()) {
+                for (int i = 0; i < messagesPerFlush && remaining > 0; i++, remaining--) {
+                    channel.write(message.duplicate(), voidPromise);
+                }
+                channel.flush();
+            }
+        }
+
+        @Override
+        public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+            if (ctx.channel().isWritable()) {
+                run();
+            }
+        }
+    }
+}
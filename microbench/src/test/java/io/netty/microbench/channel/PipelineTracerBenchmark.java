@@ -0,0 +1,85 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel;
+
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerAdapter;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPipelineTracer;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Passes a message through a chain of {@link ChannelHandler}s which only forward it, with tracing disabled
+ * ({@code sampleRate} of {@code 0}) and with a {@link ChannelPipelineTracer} set. The disabled case shows the cost
+ * the tracing support adds to every hop from one handler to the next.
+ */
+@State(Scope.Benchmark)
+public class PipelineTracerBenchmark extends AbstractMicrobenchmark {
+
+    private static final Object MESSAGE = new Object();
+
+    @Param({ "16" })
+    public int handlers;
+
+    @Param({ "0", "1000" })
+    public int sampleRate;
+
+    private EmbeddedChannel channel;
+    private ChannelPipeline pipeline;
+
+    @Setup
+    public void setup() {
+        ChannelHandler[] chain = new ChannelHandler[handlers + 1];
+        for (int i = 0; i < handlers; i ++) {
+            chain[i] = new ChannelHandlerAdapter() {
+                @Override
+                public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                    ctx.fireChannelRead(msg);
+                }
+            };
+        }
+        // Consumes the message so that it does not pile up in the channel.
+        chain[handlers] = new ChannelHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                // NOOP
+            }
+        };
+        channel = new EmbeddedChannel(chain);
+        pipeline = channel.pipeline();
+        if (sampleRate > 0) {
+            pipeline.tracer(new ChannelPipelineTracer(sampleRate));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        channel.finish();
+    }
+
+    @Benchmark
+    public void channelRead() {
+        pipeline.fireChannelRead(MESSAGE);
+    }
+}
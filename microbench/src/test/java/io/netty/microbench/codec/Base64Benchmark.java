@@ -0,0 +1,103 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.handler.codec.base64.Base64;
+import io.netty.handler.codec.base64.Base64Dialect;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+
+/**
+ * Encodes and decodes a token-sized and a document-sized payload with {@link Base64}, with and without line breaks.
+ */
+@State(Scope.Benchmark)
+public class Base64Benchmark extends AbstractMicrobenchmark {
+
+    @Param({ "48", "65536" })
+    public int size;
+
+    @Param({ "true", "false" })
+    public boolean direct;
+
+    @Param({ "true", "false" })
+    public boolean breakLines;
+
+    private ByteBuf data;
+    private ByteBuf encoded;
+    private ByteBuf out;
+
+    @Setup
+    public void setup() {
+        byte[] bytes = new byte[size];
+        new Random(42).nextBytes(bytes);
+        data = allocate(size).writeBytes(bytes);
+        ByteBuf tmp = Base64.encode(data.duplicate(), breakLines, Base64Dialect.STANDARD);
+        encoded = allocate(tmp.readableBytes()).writeBytes(tmp);
+        tmp.release();
+        out = allocate(Base64.encodedBufferSize(size, breakLines));
+    }
+
+    private ByteBuf allocate(int capacity) {
+        return direct ? PooledByteBufAllocator.DEFAULT.directBuffer(capacity)
+                      : PooledByteBufAllocator.DEFAULT.heapBuffer(capacity);
+    }
+
+    @TearDown
+    public void tearDown() {
+        data.release();
+        encoded.release();
+        out.release();
+    }
+
+    @Benchmark
+    public int encode() {
+        ByteBuf buf = Base64.encode(data, data.readerIndex(), data.readableBytes(), breakLines);
+        int n = buf.readableBytes();
+        buf.release();
+        return n;
+    }
+
+    @Benchmark
+    public int encodeIntoBuffer() {
+        out.clear();
+        Base64.encode(data.duplicate(), out, breakLines, Base64Dialect.STANDARD, true);
+        return out.readableBytes();
+    }
+
+    @Benchmark
+    public int decode() {
+        ByteBuf buf = Base64.decode(encoded, encoded.readerIndex(), encoded.readableBytes());
+        int n = buf.readableBytes();
+        buf.release();
+        return n;
+    }
+
+    @Benchmark
+    public int decodeIntoBuffer() {
+        out.clear();
+        Base64.decode(encoded.duplicate(), out, Base64Dialect.STANDARD, true);
+        return out.readableBytes();
+    }
+}
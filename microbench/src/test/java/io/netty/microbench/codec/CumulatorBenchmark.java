@@ -0,0 +1,105 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.ByteToMessageDecoder.Cumulator;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * Decodes one length-prefixed frame of {@link #frameSize} bytes received in reads of {@link #readSize} bytes,
+ * with each of the {@link Cumulator}s of {@link ByteToMessageDecoder}.
+ */
+@State(Scope.Benchmark)
+public class CumulatorBenchmark extends AbstractMicrobenchmark {
+
+    @Param({ "MERGE", "COMPOSITE", "ADAPTIVE" })
+    public String cumulator;
+
+    @Param({ "1024", "1048576" })
+    public int frameSize;
+
+    @Param({ "1460", "16384" })
+    public int readSize;
+
+    private Cumulator cumulatorInstance;
+
+    @Setup
+    public void setup() {
+        if ("MERGE".equals(cumulator)) {
+            cumulatorInstance = ByteToMessageDecoder.MERGE_CUMULATOR;
+        } else if ("COMPOSITE".equals(cumulator)) {
+            cumulatorInstance = ByteToMessageDecoder.COMPOSITE_CUMULATOR;
+        } else {
+            cumulatorInstance = ByteToMessageDecoder.ADAPTIVE_CUMULATOR;
+        }
+    }
+
+    @Benchmark
+    public int decodeFrame() {
+        EmbeddedChannel channel = new EmbeddedChannel(new FrameDecoder(cumulatorInstance));
+        int remaining = frameSize + 4;
+        boolean first = true;
+        while (remaining > 0) {
+            int length = Math.min(readSize, remaining);
+            ByteBuf read = PooledByteBufAllocator.DEFAULT.heapBuffer(length);
+            if (first) {
+                read.writeInt(frameSize);
+                read.writerIndex(length);
+                first = false;
+            } else {
+                read.writerIndex(length);
+            }
+            channel.writeInbound(read);
+            remaining -= length;
+        }
+        ByteBuf frame = channel.readInbound();
+        int size = frame.readableBytes();
+        frame.release();
+        channel.finish();
+        return size;
+    }
+
+    private static final class FrameDecoder extends ByteToMessageDecoder {
+        FrameDecoder(Cumulator cumulator) {
+            setCumulator(cumulator);
+        }
+
+        @Override
+        protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+            if (in.readableBytes() < 4) {
+                return;
+            }
+            int length = in.getInt(in.readerIndex());
+            if (in.readableBytes() - 4 < length) {
+                return;
+            }
+            in.skipBytes(4);
+            out.add(in.readSlice(length).retain());
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.codec;
+
+import io.netty.handler.codec.AsciiString;
+import io.netty.handler.codec.BinaryHeaders;
+import io.netty.handler.codec.DefaultBinaryHeaders;
+import io.netty.handler.codec.Headers.EntryVisitor;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Map.Entry;
+
+/**
+ * Builds, reads and iterates a request-sized set of {@link DefaultBinaryHeaders}, which is what an HTTP/2 codec does
+ * for every stream.
+ */
+@State(Scope.Benchmark)
+public class HeadersBenchmark extends AbstractMicrobenchmark {
+
+    private static final String[] NAMES = {
+            ":method", ":scheme", ":authority", ":path", "user-agent", "accept", "accept-language",
+            "accept-encoding", "cookie", "referer", "cache-control", "connection", "content-type", "content-length",
+            "origin", "pragma", "upgrade-insecure-requests", "dnt", "x-requested-with", "x-forwarded-for",
+            "x-forwarded-proto", "x-request-id", "if-none-match", "if-modified-since", "authorization", "te",
+            "via", "forwarded", "range", "expect"
+    };
+
+    @Param({ "10", "20", "30" })
+    public int headerCount;
+
+    private AsciiString[] names;
+    private AsciiString[] values;
+    private BinaryHeaders headers;
+    private BinaryHeaders reused;
+
+    private final EntryVisitor<AsciiString> visitor = new EntryVisitor<AsciiString>() {
+        @Override
+        public boolean visit(Entry<AsciiString, AsciiString> entry) {
+            length += entry.getValue().length();
+            return true;
+        }
+    };
+    private int length;
+
+    @Setup
+    public void setup() {
+        names = new AsciiString[headerCount];
+        values = new AsciiString[headerCount];
+        headers = new DefaultBinaryHeaders();
+        for (int i = 0; i < headerCount; i++) {
+            names[i] = new AsciiString(NAMES[i]);
+            values[i] = new AsciiString("value-of-" + NAMES[i]);
+            headers.add(names[i], values[i]);
+        }
+        reused = new DefaultBinaryHeaders();
+    }
+
+    @Benchmark
+    public BinaryHeaders addNew() {
+        BinaryHeaders headers = new DefaultBinaryHeaders();
+        for (int i = 0; i < names.length; i++) {
+            headers.add(names[i], values[i]);
+        }
+        return headers;
+    }
+
+    @Benchmark
+    public BinaryHeaders addReused() {
+        BinaryHeaders headers = reused;
+        headers.clear();
+        for (int i = 0; i < names.length; i++) {
+            headers.add(names[i], values[i]);
+        }
+        return headers;
+    }
+
+    @Benchmark
+    public int get() {
+        int length = 0;
+        for (AsciiString name : names) {
+            length += headers.get(name).length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public int iterate() {
+        int length = 0;
+        for (Entry<AsciiString, AsciiString> entry : headers) {
+            length += entry.getValue().length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public int forEachEntry() throws Exception {
+        length = 0;
+        headers.forEachEntry(visitor);
+        return length;
+    }
+}
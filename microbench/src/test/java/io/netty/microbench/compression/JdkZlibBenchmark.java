@@ -0,0 +1,154 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.JdkZlibDecoder;
+import io.netty.handler.codec.compression.JdkZlibEncoder;
+import io.netty.handler.codec.compression.ZlibWrapper;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses and decompresses one complete GZIP stream per invocation, which is what an HTTP server does for
+ * every compressed response.  {@link #compressWithNewDeflater()} is the cost of the {@link Deflater} per stream
+ * and of the copy of direct input that {@link JdkZlibEncoder} used to pay.
+ */
+@State(Scope.Benchmark)
+public class JdkZlibBenchmark extends AbstractMicrobenchmark {
+
+    @Param({ "1024", "65536" })
+    public int contentSize;
+
+    @Param({ "true", "false" })
+    public boolean direct;
+
+    private ByteBuf content;
+    private ByteBuf compressed;
+
+    @Setup
+    public void setup() {
+        StringBuilder buf = new StringBuilder(contentSize);
+        Random random = new Random(42);
+        while (buf.length() < contentSize) {
+            buf.append("{\"id\":").append(random.nextInt(1000)).append(",\"name\":\"netty\"},");
+        }
+        byte[] bytes = buf.substring(0, contentSize).getBytes();
+        content = allocate(bytes.length).writeBytes(bytes);
+
+        EmbeddedChannel channel = new EmbeddedChannel(new JdkZlibEncoder(ZlibWrapper.GZIP));
+        channel.writeOutbound(content.duplicate().retain());
+        channel.finish();
+        compressed = allocate(contentSize);
+        for (;;) {
+            ByteBuf out = channel.readOutbound();
+            if (out == null) {
+                break;
+            }
+            compressed.writeBytes(out);
+            out.release();
+        }
+    }
+
+    private ByteBuf allocate(int capacity) {
+        return direct ? PooledByteBufAllocator.DEFAULT.directBuffer(capacity)
+                      : PooledByteBufAllocator.DEFAULT.heapBuffer(capacity);
+    }
+
+    @TearDown
+    public void tearDown() {
+        content.release();
+        compressed.release();
+    }
+
+    @Benchmark
+    public int compress() {
+        EmbeddedChannel channel = new EmbeddedChannel(new JdkZlibEncoder(ZlibWrapper.GZIP));
+        channel.writeOutbound(content.duplicate().retain());
+        channel.finish();
+        return drainOutbound(channel);
+    }
+
+    @Benchmark
+    public int compressWithNewDeflater() {
+        ByteBuf content = this.content;
+        int len = content.readableBytes();
+        byte[] in;
+        int offset;
+        if (content.hasArray()) {
+            in = content.array();
+            offset = content.arrayOffset() + content.readerIndex();
+        } else {
+            in = new byte[len];
+            content.getBytes(content.readerIndex(), in);
+            offset = 0;
+        }
+        ByteBuf out = PooledByteBufAllocator.DEFAULT.heapBuffer(len + 64);
+        Deflater deflater = new Deflater(6, true);
+        try {
+            deflater.setInput(in, offset, len);
+            deflater.finish();
+            while (!deflater.finished()) {
+                int writerIndex = out.writerIndex();
+                int n = deflater.deflate(out.array(), out.arrayOffset() + writerIndex, out.writableBytes());
+                out.writerIndex(writerIndex + n);
+                out.ensureWritable(64);
+            }
+            return out.readableBytes();
+        } finally {
+            deflater.end();
+            out.release();
+        }
+    }
+
+    @Benchmark
+    public int decompress() {
+        EmbeddedChannel channel = new EmbeddedChannel(new JdkZlibDecoder(ZlibWrapper.GZIP));
+        channel.writeInbound(compressed.duplicate().retain());
+        channel.finish();
+        int size = 0;
+        for (;;) {
+            ByteBuf buf = channel.readInbound();
+            if (buf == null) {
+                return size;
+            }
+            size += buf.readableBytes();
+            buf.release();
+        }
+    }
+
+    private static int drainOutbound(EmbeddedChannel channel) {
+        int size = 0;
+        for (;;) {
+            ByteBuf buf = channel.readOutbound();
+            if (buf == null) {
+                return size;
+            }
+            size += buf.readableBytes();
+            buf.release();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.SnappyFrameDecoder;
+import io.netty.handler.codec.compression.SnappyFrameEncoder;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Compresses and decompresses one message per invocation with the Snappy framing format.
+ * {@link #compressParallel()} compresses the chunks of the message on a thread pool.
+ */
+@State(Scope.Benchmark)
+public class SnappyBenchmark extends AbstractMicrobenchmark {
+
+    @Param({ "4096", "1048576" })
+    public int contentSize;
+
+    @Param({ "true", "false" })
+    public boolean direct;
+
+    private ByteBuf content;
+    private ByteBuf compressed;
+    private ExecutorService executor;
+
+    @Setup
+    public void setup() {
+        StringBuilder buf = new StringBuilder(contentSize);
+        Random random = new Random(42);
+        while (buf.length() < contentSize) {
+            buf.append("{\"id\":").append(random.nextInt(1000)).append(",\"name\":\"netty\"},");
+        }
+        byte[] bytes = buf.substring(0, contentSize).getBytes();
+        content = allocate(bytes.length).writeBytes(bytes);
+
+        EmbeddedChannel channel = new EmbeddedChannel(new SnappyFrameEncoder());
+        channel.writeOutbound(content.duplicate().retain());
+        channel.finish();
+        compressed = allocate(contentSize);
+        for (;;) {
+            ByteBuf out = channel.readOutbound();
+            if (out == null) {
+                break;
+            }
+            compressed.writeBytes(out);
+            out.release();
+        }
+
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    private ByteBuf allocate(int capacity) {
+        return direct ? PooledByteBufAllocator.DEFAULT.directBuffer(capacity)
+                      : PooledByteBufAllocator.DEFAULT.heapBuffer(capacity);
+    }
+
+    @TearDown
+    public void tearDown() {
+        content.release();
+        compressed.release();
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public int compress() {
+        return compress(new EmbeddedChannel(new SnappyFrameEncoder()));
+    }
+
+    @Benchmark
+    public int compressParallel() {
+        return compress(new EmbeddedChannel(new SnappyFrameEncoder(executor, 1)));
+    }
+
+    private int compress(EmbeddedChannel channel) {
+        channel.writeOutbound(content.duplicate().retain());
+        channel.finish();
+        int size = 0;
+        for (;;) {
+            ByteBuf buf = channel.readOutbound();
+            if (buf == null) {
+                return size;
+            }
+            size += buf.readableBytes();
+            buf.release();
+        }
+    }
+
+    @Benchmark
+    public int decompress() {
+        EmbeddedChannel channel = new EmbeddedChannel(new SnappyFrameDecoder(true));
+        channel.writeInbound(compressed.duplicate().retain());
+        channel.finish();
+        int size = 0;
+        for (;;) {
+            ByteBuf buf = channel.readInbound();
+            if (buf == null) {
+                return size;
+            }
+            size += buf.readableBytes();
+            buf.release();
+        }
+    }
+}
@@ -17,7 +17,11 @@ package io.netty.microbench.http;
 
 import io.netty.buffer.Unpooled;
 import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpRequestDecoder;
+import io.netty.util.ReferenceCountUtil;
 import io.netty.microbench.util.AbstractMicrobenchmark;
 import io.netty.util.CharsetUtil;
 import org.openjdk.jmh.annotations.Benchmark;
@@ -86,7 +90,31 @@ public class HttpRequestDecoderBenchmark extends AbstractMicrobenchmark {
         testDecodeWholeRequestInMultipleSteps(CONTENT_MIXED_DELIMITERS, step);
     }
 
-    private static void testDecodeWholeRequestInMultipleSteps(byte[] content, int fragmentSize) {
+    /**
+     * Also looks up the well-known headers, as a server would, which benefits from the decoder using the interned
+     * {@link HttpHeaderNames} constants.
+     */
+    @Benchmark
+    public int testDecodeWholeRequestInMultipleStepsAndGetHeaders() {
+        EmbeddedChannel channel = testDecodeWholeRequestInMultipleSteps(CONTENT_MIXED_DELIMITERS, step);
+        HttpRequest request = channel.readInbound();
+        HttpHeaders headers = request.headers();
+        int length = headers.get(HttpHeaderNames.HOST).length() +
+                     headers.get(HttpHeaderNames.CONTENT_TYPE).length() +
+                     headers.get(HttpHeaderNames.CONTENT_LENGTH).length() +
+                     headers.get(HttpHeaderNames.CONNECTION).length() +
+                     headers.get(HttpHeaderNames.UPGRADE).length();
+        for (;;) {
+            Object msg = channel.readInbound();
+            if (msg == null) {
+                break;
+            }
+            ReferenceCountUtil.release(msg);
+        }
+        return length;
+    }
+
+    private static EmbeddedChannel testDecodeWholeRequestInMultipleSteps(byte[] content, int fragmentSize) {
         final EmbeddedChannel channel = new EmbeddedChannel(new HttpRequestDecoder());
 
         final int headerLength = content.length - CONTENT_LENGTH;
@@ -107,5 +135,6 @@ public class HttpRequestDecoderBenchmark extends AbstractMicrobenchmark {
             // Should produce HttpContent
             channel.writeInbound(Unpooled.wrappedBuffer(content, content.length - i, 1));
         }
+        return channel;
     }
 }
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.protobuf;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.DescriptorProtos.UninterpretedOption;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.protobuf.ProtobufDecoder;
+import io.netty.handler.codec.protobuf.ProtobufEncoder;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Compares {@link ProtobufDecoder} and {@link ProtobufEncoder} on pooled direct buffers with parsing from and
+ * serializing to a freshly allocated {@code byte[]}, which is what they used to do.
+ */
+@State(Scope.Benchmark)
+public class ProtobufCodecBenchmark extends AbstractMicrobenchmark {
+
+    @Param({ "100", "1024", "16384", "262144", "1048576" })
+    public int messageSize;
+
+    private UninterpretedOption message;
+    private ByteBuf encoded;
+    private EmbeddedChannel decoder;
+    private EmbeddedChannel encoder;
+
+    @Setup
+    public void setup() {
+        message = UninterpretedOption.newBuilder()
+                .setIdentifierValue("benchmark")
+                .setPositiveIntValue(messageSize)
+                .setStringValue(ByteString.copyFrom(new byte[messageSize]))
+                .build();
+        byte[] bytes = message.toByteArray();
+        encoded = PooledByteBufAllocator.DEFAULT.directBuffer(bytes.length).writeBytes(bytes);
+
+        decoder = new EmbeddedChannel(new ProtobufDecoder(UninterpretedOption.getDefaultInstance()));
+        encoder = new EmbeddedChannel(new ProtobufEncoder());
+        encoder.config().setAllocator(PooledByteBufAllocator.DEFAULT);
+    }
+
+    @TearDown
+    public void tearDown() {
+        decoder.finish();
+        encoder.finish();
+        encoded.release();
+    }
+
+    @Benchmark
+    public Object decode() {
+        decoder.writeInbound(encoded.duplicate().retain());
+        return decoder.readInbound();
+    }
+
+    @Benchmark
+    public Object decodeFromCopy() throws Exception {
+        ByteBuf encoded = this.encoded;
+        byte[] array = new byte[encoded.readableBytes()];
+        encoded.getBytes(encoded.readerIndex(), array);
+        return UninterpretedOption.PARSER.parseFrom(array, 0, array.length);
+    }
+
+    @Benchmark
+    public int encode() {
+        encoder.writeOutbound(message);
+        ByteBuf buf = encoder.readOutbound();
+        int size = buf.readableBytes();
+        buf.release();
+        return size;
+    }
+
+    @Benchmark
+    public int encodeToByteArray() {
+        ByteBuf buf = Unpooled.wrappedBuffer(message.toByteArray());
+        int size = buf.readableBytes();
+        buf.release();
+        return size;
+    }
+}
@@ -22,6 +22,9 @@ import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.LearningRecvByteBufAllocator;
+import io.netty.channel.RecvByteBufAllocator;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.FixedLengthFrameDecoder;
 import org.junit.Test;
@@ -51,10 +54,24 @@ public class SocketFixedLengthEchoTest extends AbstractSocketTest {
         run();
     }
 
+    @Test
+    public void testFixedLengthEchoLearningRecvByteBufAllocator() throws Throwable {
+        run();
+    }
+
     public void testFixedLengthEcho(ServerBootstrap sb, Bootstrap cb) throws Throwable {
         testFixedLengthEcho(sb, cb, true);
     }
 
+    public void testFixedLengthEchoLearningRecvByteBufAllocator(ServerBootstrap sb, Bootstrap cb) throws Throwable {
+        // Use a small maxCopySize and maxBytesPerRead so that reads switch between the scratch buffer and
+        // dedicated buffers and read loops are cut short.
+        RecvByteBufAllocator allocator = new LearningRecvByteBufAllocator(64, 1024, 65536, 4096, 512);
+        sb.childOption(ChannelOption.RCVBUF_ALLOCATOR, allocator);
+        cb.option(ChannelOption.RCVBUF_ALLOCATOR, allocator);
+        testFixedLengthEcho(sb, cb, true);
+    }
+
     public void testFixedLengthEchoNotAutoRead(ServerBootstrap sb, Bootstrap cb) throws Throwable {
         testFixedLengthEcho(sb, cb, false);
     }
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.testsuite.transport.socket;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerAdapter;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.socket.oio.OioServerSocketChannel;
+import io.netty.handler.codec.LineBasedFrameDecoder;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseDecoder;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.flush.FlushConsolidationHandler;
+import io.netty.util.CharsetUtil;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Sends a burst of pipelined requests and counts the flushes which reach the transport (and so may each result in a
+ * write syscall), once without and once with a {@link FlushConsolidationHandler} in the server pipeline.
+ */
+public class SocketFlushConsolidationTest extends AbstractSocketTest {
+
+    private static final int REQUESTS = 1024;
+    private static final byte[] REDIS_REQUEST = "PING\r\n".getBytes(CharsetUtil.US_ASCII);
+    private static final byte[] REDIS_RESPONSE = "+PONG\r\n".getBytes(CharsetUtil.US_ASCII);
+    private static final byte[] HTTP_REQUEST =
+            "GET / HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(CharsetUtil.US_ASCII);
+    private static final byte[] HTTP_RESPONSE_CONTENT = "OK".getBytes(CharsetUtil.US_ASCII);
+
+    private enum Protocol {
+        REDIS,
+        HTTP
+    }
+
+    @Test(timeout = 30000)
+    public void testPipelinedRedis() throws Throwable {
+        run();
+    }
+
+    public void testPipelinedRedis(ServerBootstrap sb, Bootstrap cb) throws Throwable {
+        testPipelined(sb, cb, Protocol.REDIS, true);
+    }
+
+    @Test(timeout = 30000)
+    public void testPipelinedRedisNotAutoRead() throws Throwable {
+        run();
+    }
+
+    public void testPipelinedRedisNotAutoRead(ServerBootstrap sb, Bootstrap cb) throws Throwable {
+        testPipelined(sb, cb, Protocol.REDIS, false);
+    }
+
+    @Test(timeout = 30000)
+    public void testPipelinedHttp() throws Throwable {
+        run();
+    }
+
+    public void testPipelinedHttp(ServerBootstrap sb, Bootstrap cb) throws Throwable {
+        testPipelined(sb, cb, Protocol.HTTP, true);
+    }
+
+    @Test(timeout = 30000)
+    public void testPipelinedHttpNotAutoRead() throws Throwable {
+        run();
+    }
+
+    public void testPipelinedHttpNotAutoRead(ServerBootstrap sb, Bootstrap cb) throws Throwable {
+        testPipelined(sb, cb, Protocol.HTTP, false);
+    }
+
+    private void testPipelined(ServerBootstrap sb, Bootstrap cb, final Protocol protocol, final boolean autoRead)
+            throws Throwable {
+        final AtomicReference<Throwable> exception = new AtomicReference<Throwable>();
+        final AtomicInteger flushes = new AtomicInteger();
+        final AtomicInteger consolidate = new AtomicInteger();
+
+        sb.childHandler(new ChannelInitializer<Channel>() {
+            @Override
+            public void initChannel(Channel sch) throws Exception {
+                sch.config().setAutoRead(autoRead);
+                ChannelPipeline p = sch.pipeline();
+                p.addLast(new FlushCounter(flushes));
+                if (consolidate.get() != 0) {
+                    p.addLast(new FlushConsolidationHandler());
+                }
+                if (protocol == Protocol.REDIS) {
+                    p.addLast(new LineBasedFrameDecoder(64));
+                } else {
+                    p.addLast(new HttpServerCodec());
+                }
+                p.addLast(new ServerHandler(autoRead, exception));
+            }
+        });
+
+        Channel sc = sb.bind().sync().channel();
+        if (!autoRead && sc instanceof OioServerSocketChannel) {
+            // skip the test for OIO, as an accepted OioSocketChannel sometimes misses the first read() when
+            // auto-read is disabled, which is not related to the flush consolidation.
+            sc.close().sync();
+            return;
+        }
+        try {
+            int plain = sendRequests(cb, protocol, flushes, exception);
+            consolidate.set(1);
+            int consolidated = sendRequests(cb, protocol, flushes, exception);
+
+            logger.info(String.format("%s (autoRead: %b): %d requests, %d flushes, %d with %s",
+                    protocol, autoRead, REQUESTS, plain, consolidated,
+                    FlushConsolidationHandler.class.getSimpleName()));
+
+            assertEquals(REQUESTS, plain);
+            assertTrue("flushes: " + consolidated, consolidated > 0 && consolidated < plain);
+        } finally {
+            sc.close().sync();
+        }
+
+        if (exception.get() != null && !(exception.get() instanceof IOException)) {
+            throw exception.get();
+        }
+    }
+
+    private static int sendRequests(Bootstrap cb, final Protocol protocol, AtomicInteger flushes,
+                                    final AtomicReference<Throwable> exception) throws Throwable {
+        final CountDownLatch responses = new CountDownLatch(REQUESTS);
+        cb.handler(new ChannelInitializer<Channel>() {
+            @Override
+            public void initChannel(Channel ch) throws Exception {
+                ChannelPipeline p = ch.pipeline();
+                if (protocol == Protocol.REDIS) {
+                    p.addLast(new LineBasedFrameDecoder(64));
+                } else {
+                    p.addLast(new HttpResponseDecoder());
+                }
+                p.addLast(new ChannelHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+                        if (protocol == Protocol.REDIS || msg instanceof LastHttpContent) {
+                            responses.countDown();
+                        }
+                        ReferenceCountUtil.release(msg);
+                    }
+
+                    @Override
+                    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+                        if (exception.compareAndSet(null, cause)) {
+                            ctx.close();
+                        }
+                    }
+                });
+            }
+        });
+
+        flushes.set(0);
+        Channel cc = cb.connect().sync().channel();
+        try {
+            byte[] request = protocol == Protocol.REDIS ? REDIS_REQUEST : HTTP_REQUEST;
+            ByteBuf buf = Unpooled.buffer(request.length * REQUESTS);
+            for (int i = 0; i < REQUESTS; i++) {
+                buf.writeBytes(request);
+            }
+            cc.writeAndFlush(buf).sync();
+
+            while (!responses.await(100, TimeUnit.MILLISECONDS)) {
+                if (exception.get() != null) {
+                    throw exception.get();
+                }
+            }
+            return flushes.get();
+        } finally {
+            cc.close().sync();
+        }
+    }
+
+    private static final class FlushCounter extends ChannelHandlerAdapter {
+        private final AtomicInteger flushes;
+
+        FlushCounter(AtomicInteger flushes) {
+            this.flushes = flushes;
+        }
+
+        @Override
+        public void flush(ChannelHandlerContext ctx) throws Exception {
+            flushes.incrementAndGet();
+            ctx.flush();
+        }
+    }
+
+    private static final class ServerHandler extends ChannelHandlerAdapter {
+        private final boolean autoRead;
+        private final AtomicReference<Throwable> exception;
+
+        ServerHandler(boolean autoRead, AtomicReference<Throwable> exception) {
+            this.autoRead = autoRead;
+            this.exception = exception;
+        }
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) throws Exception {
+            if (!autoRead) {
+                ctx.read();
+            }
+            ctx.fireChannelActive();
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+            try {
+                if (msg instanceof ByteBuf) {
+                    ctx.writeAndFlush(Unpooled.wrappedBuffer(REDIS_RESPONSE));
+                } else if (msg instanceof HttpRequest) {
+                    FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
+                            HttpResponseStatus.OK, Unpooled.wrappedBuffer(HTTP_RESPONSE_CONTENT));
+                    response.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, HTTP_RESPONSE_CONTENT.length);
+                    ctx.writeAndFlush(response);
+                }
+            } finally {
+                ReferenceCountUtil.release(msg);
+            }
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+            if (!autoRead) {
+                ctx.read();
+            }
+            ctx.fireChannelReadComplete();
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+            if (exception.compareAndSet(null, cause)) {
+                ctx.close();
+            }
+        }
+    }
+}
@@ -240,6 +240,33 @@ static inline void initInetSocketAddressArray(JNIEnv* env, const struct sockaddr
     }
 }
 
+static inline void putInt(unsigned char* buf, int value) {
+    buf[0] = value >> 24;
+    buf[1] = value >> 16;
+    buf[2] = value >> 8;
+    buf[3] = value;
+}
+
+// Same encoding as initInetSocketAddressArray(...) but into native memory.
+static inline void initInetSocketAddressBytes(const struct sockaddr_storage* addr, unsigned char* buf, int len) {
+    if (addr->ss_family == AF_INET) {
+        struct sockaddr_in* s = (struct sockaddr_in*) addr;
+        memcpy(buf, &s->sin_addr.s_addr, 4);
+        putInt(buf + 4, ntohs(s->sin_port));
+    } else {
+        struct sockaddr_in6* s = (struct sockaddr_in6*) addr;
+        if (len == 8) {
+            // IPv4-mapped-on-IPv6, we only need the last 4 bytes for mapped address
+            memcpy(buf, &(s->sin6_addr.s6_addr[12]), 4);
+            putInt(buf + 4, ntohs(s->sin6_port));
+        } else {
+            memcpy(buf, &(s->sin6_addr.s6_addr), 16);
+            putInt(buf + 16, s->sin6_scope_id);
+            putInt(buf + 20, ntohs(s->sin6_port));
+        }
+    }
+}
+
 static jbyteArray createInetSocketAddressArray(JNIEnv* env, const struct sockaddr_storage* addr) {
     int len = addressLength(addr);
     jbyteArray bArray = (*env)->NewByteArray(env, len);
@@ -1097,6 +1124,48 @@ JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_accept0(JNIEnv* env, j
     return socketFd;
 }
 
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_acceptBatch0(JNIEnv* env, jclass clazz, jint fd, jlong entriesAddress, jint entrySize, jint maxEntries) {
+    // Each entry is filled with the accepted fd (jint), followed by the length of the encoded remote address (1 byte)
+    // and the encoded remote address itself.
+    jint accepted = 0;
+    while (accepted < maxEntries) {
+        jint socketFd;
+        int err;
+        struct sockaddr_storage addr;
+        socklen_t address_len = sizeof(addr);
+
+        do {
+            if (accept4) {
+                socketFd = accept4(fd, (struct sockaddr*) &addr, &address_len, SOCK_NONBLOCK | SOCK_CLOEXEC);
+            } else  {
+                socketFd = accept(fd, (struct sockaddr*) &addr, &address_len);
+            }
+        } while (socketFd == -1 && ((err = errno) == EINTR));
+
+        if (socketFd == -1) {
+            // Report the error only if nothing was accepted, otherwise it will be reported by the next call.
+            return accepted == 0 ? -err : accepted;
+        }
+
+        if (!accept4) {
+            // accept4 was not present so need two more sys-calls ...
+            if (fcntl(socketFd, F_SETFD, FD_CLOEXEC) == -1 || fcntl(socketFd, F_SETFL, O_NONBLOCK) == -1) {
+                err = errno;
+                close(socketFd);
+                return accepted == 0 ? -err : accepted;
+            }
+        }
+
+        unsigned char* entry = (unsigned char*) (intptr_t) entriesAddress + accepted * entrySize;
+        int len = addressLength(&addr);
+        memcpy(entry, &socketFd, sizeof(jint));
+        entry[4] = (unsigned char) len;
+        initInetSocketAddressBytes(&addr, entry + 5, len);
+        accepted++;
+    }
+    return accepted;
+}
+
 JNIEXPORT jlong JNICALL Java_io_netty_channel_epoll_Native_sendfile0(JNIEnv* env, jclass clazz, jint fd, jobject fileRegion, jlong base_off, jlong off, jlong len) {
     jobject fileChannel = (*env)->GetObjectField(env, fileRegion, fileChannelFieldId);
     if (fileChannel == NULL) {
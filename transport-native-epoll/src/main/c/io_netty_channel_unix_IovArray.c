@@ -0,0 +1,28 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+#include <jni.h>
+#include <limits.h>
+#include "io_netty_channel_unix_IovArray.h"
+
+// Define IOV_MAX if not found to limit the iov size on writev calls
+// See https://github.com/netty/netty/issues/2647
+#ifndef IOV_MAX
+#define IOV_MAX 1024
+#endif /* IOV_MAX */
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_unix_IovArray_iovMax(JNIEnv* env, jclass clazz) {
+    return IOV_MAX;
+}
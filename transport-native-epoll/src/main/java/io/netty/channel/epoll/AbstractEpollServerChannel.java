@@ -24,12 +24,15 @@ import io.netty.channel.EventLoop;
 import io.netty.channel.ServerChannel;
 import io.netty.channel.unix.FileDescriptor;
 
+import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 
 
 public abstract class AbstractEpollServerChannel extends AbstractEpollChannel implements ServerChannel {
 
+    private final EpollAcceptMetrics acceptMetrics = new EpollAcceptMetrics(this);
+
     protected AbstractEpollServerChannel(int fd) {
         super(fd, Native.EPOLLIN);
     }
@@ -38,6 +41,13 @@ public abstract class AbstractEpollServerChannel extends AbstractEpollChannel im
         super(null, fd, Native.EPOLLIN, Native.getSoError(fd.intValue()) == 0);
     }
 
+    /**
+     * Returns the {@link EpollAcceptMetrics} of this channel.
+     */
+    public EpollAcceptMetrics acceptMetrics() {
+        return acceptMetrics;
+    }
+
     @Override
     protected boolean isCompatible(EventLoop loop) {
         return loop instanceof EpollEventLoop;
@@ -70,6 +80,16 @@ public abstract class AbstractEpollServerChannel extends AbstractEpollChannel im
         // We need 24 bytes for the address as maximum + 1 byte for storing the length.
         // So use 26 bytes as it's a power of two.
         private final byte[] acceptedAddress = new byte[26];
+        private final Runnable acceptTask = new Runnable() {
+            @Override
+            public void run() {
+                acceptTaskScheduled = false;
+                if (isActive()) {
+                    epollInReady();
+                }
+            }
+        };
+        private boolean acceptTaskScheduled;
 
         @Override
         public void connect(SocketAddress socketAddress, SocketAddress socketAddress2, ChannelPromise channelPromise) {
@@ -90,38 +110,55 @@ public abstract class AbstractEpollServerChannel extends AbstractEpollChannel im
             }
 
             final ChannelPipeline pipeline = pipeline();
+            final EpollAcceptMetrics metrics = acceptMetrics;
+            // Accept at most maxMessagesPerRead connections per event loop iteration, also when edge-triggered,
+            // so an accept storm can not starve the other channels of the event loop.
+            final int budget = config.getMaxMessagesPerRead();
+            boolean budgetExhausted = false;
             Throwable exception = null;
             try {
                 try {
-                    // if edgeTriggered is used we need to read all messages as we are not notified again otherwise.
-                    final int maxMessagesPerRead = edgeTriggered
-                            ? Integer.MAX_VALUE : config.getMaxMessagesPerRead();
-                    int messages = 0;
-                    do {
-                        int socketFd = Native.accept(fd().intValue(), acceptedAddress);
-                        if (socketFd == -1) {
+                    final NativeAcceptArray array = NativeAcceptArray.get();
+                    final int fd = fd().intValue();
+                    int accepted = 0;
+                    while (accepted < budget) {
+                        // Only accept one connection at a time if we are not using EPOLLET and autoRead is off.
+                        int count = array.accept(fd, !edgeTriggered && !config.isAutoRead() ? 1 : budget - accepted);
+                        if (count == 0) {
                             // this means everything was handled for now
                             break;
                         }
                         readPending = false;
-
-                        try {
-                            int len = acceptedAddress[0];
-                            pipeline.fireChannelRead(newChildChannel(socketFd, acceptedAddress, 1, len));
-                        } catch (Throwable t) {
-                            // keep on reading as we use epoll ET and need to consume everything from the socket
-                            pipeline.fireChannelReadComplete();
-                            pipeline.fireExceptionCaught(t);
-                        } finally {
-                            if (!edgeTriggered && !config.isAutoRead()) {
-                                // This is not using EPOLLET so we can stop reading
-                                // ASAP as we will get notified again later with
-                                // pending data
-                                break;
+                        accepted += count;
+                        metrics.incrementAccepted(count);
+
+                        for (int i = 0; i < count; i++) {
+                            int socketFd = array.fd(i);
+                            Channel child;
+                            try {
+                                int len = array.copyAddress(i, acceptedAddress);
+                                child = newChildChannel(socketFd, acceptedAddress, 1, len);
+                            } catch (Throwable t) {
+                                closeAccepted(socketFd);
+                                metrics.incrementDropped();
+                                // keep on reading as we use epoll ET and need to consume everything from the socket
+                                pipeline.fireChannelReadComplete();
+                                pipeline.fireExceptionCaught(t);
+                                continue;
                             }
+                            pipeline.fireChannelRead(child);
                         }
-                    } while (++ messages < maxMessagesPerRead);
+
+                        if (!edgeTriggered && !config.isAutoRead()) {
+                            // This is not using EPOLLET so we can stop reading
+                            // ASAP as we will get notified again later with
+                            // pending data
+                            break;
+                        }
+                    }
+                    budgetExhausted = accepted >= budget;
                 } catch (Throwable t) {
+                    metrics.incrementAcceptErrors();
                     exception = t;
                 }
                 pipeline.fireChannelReadComplete();
@@ -138,8 +175,24 @@ public abstract class AbstractEpollServerChannel extends AbstractEpollChannel im
                 // See https://github.com/netty/netty/issues/2254
                 if (!readPending && !config.isAutoRead()) {
                     clearEpollIn0();
+                } else if (budgetExhausted) {
+                    metrics.incrementBudgetExhausted();
+                    if (edgeTriggered && !acceptTaskScheduled) {
+                        // There may be more pending connections but epoll ET will not notify us again about them,
+                        // so continue to accept once the other tasks and channels of the event loop were served.
+                        acceptTaskScheduled = true;
+                        eventLoop().execute(acceptTask);
+                    }
                 }
             }
         }
     }
+
+    private static void closeAccepted(int fd) {
+        try {
+            Native.close(fd);
+        } catch (IOException ignore) {
+            // ignore
+        }
+    }
 }
@@ -31,6 +31,7 @@ import io.netty.channel.DefaultFileRegion;
 import io.netty.channel.RecvByteBufAllocator;
 import io.netty.channel.socket.ChannelInputShutdownEvent;
 import io.netty.channel.unix.FileDescriptor;
+import io.netty.channel.unix.IovArray;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.StringUtil;
 
@@ -81,7 +82,15 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel {
             return true;
         }
 
-        if (buf.hasMemoryAddress() || buf.nioBufferCount() == 1) {
+        if (buf.hasMemoryAddress()) {
+            int writtenBytes = doWriteBytes(buf, writeSpinCount);
+            in.removeBytes(writtenBytes);
+            return writtenBytes == readableBytes;
+        } else if (PlatformDependent.hasUnsafe()) {
+            // Heap buffers are copied into the staging area of the IovArray and the components of a
+            // CompositeByteBuf are gathered without creating a ByteBuffer[].
+            return writeBytesMultiple(in, IovArrayThreadLocal.get(buf), writeSpinCount);
+        } else if (buf.nioBufferCount() == 1) {
             int writtenBytes = doWriteBytes(buf, writeSpinCount);
             in.removeBytes(writtenBytes);
             return writtenBytes == readableBytes;
@@ -319,22 +328,16 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel {
     protected Object filterOutboundMessage(Object msg) {
         if (msg instanceof ByteBuf) {
             ByteBuf buf = (ByteBuf) msg;
-            if (!buf.hasMemoryAddress() && (PlatformDependent.hasUnsafe() || !buf.isDirect())) {
-                if (buf instanceof CompositeByteBuf) {
-                    // Special handling of CompositeByteBuf to reduce memory copies if some of the Components
-                    // in the CompositeByteBuf are backed by a memoryAddress.
-                    CompositeByteBuf comp = (CompositeByteBuf) buf;
-                    if (!comp.isDirect() || comp.nioBufferCount() > Native.IOV_MAX) {
-                        // more then 1024 buffers for gathering writes so just do a memory copy.
-                        buf = newDirectBuffer(buf);
-                        assert buf.hasMemoryAddress();
-                    }
-                } else {
-                    // We can only handle buffers with memory address so we need to copy if a non direct is
-                    // passed to write.
+            if (PlatformDependent.hasUnsafe()) {
+                // Buffers without a memory address are copied into the staging area of the IovArray once they
+                // are written, so there is no need to allocate a direct copy for each message here.
+                if (buf instanceof CompositeByteBuf && buf.nioBufferCount() > Native.IOV_MAX) {
+                    // more then 1024 buffers for gathering writes so just do a memory copy.
                     buf = newDirectBuffer(buf);
-                    assert buf.hasMemoryAddress();
                 }
+            } else if (!buf.isDirect()) {
+                // We can only handle direct buffers so we need to copy if a non direct is passed to write.
+                buf = newDirectBuffer(buf);
             }
             return buf;
         }
@@ -593,6 +596,9 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel {
             if (allocHandle == null) {
                 this.allocHandle = allocHandle = config.getRecvByteBufAllocator().newHandle();
             }
+            RecvByteBufAllocator.ExtendedHandle extendedHandle =
+                    allocHandle instanceof RecvByteBufAllocator.ExtendedHandle ?
+                            (RecvByteBufAllocator.ExtendedHandle) allocHandle : null;
 
             ByteBuf byteBuf = null;
             boolean close = false;
@@ -605,16 +611,24 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel {
                 do {
                     // we use a direct buffer here as the native implementations only be able
                     // to handle direct buffers.
-                    byteBuf = allocHandle.allocate(allocator);
+                    byteBuf = extendedHandle != null ?
+                            extendedHandle.allocateForRead(allocator) : allocHandle.allocate(allocator);
                     int writable = byteBuf.writableBytes();
                     int localReadAmount = doReadBytes(byteBuf);
                     if (localReadAmount <= 0) {
                         // not was read release the buffer
                         byteBuf.release();
+                        byteBuf = null;
                         close = localReadAmount < 0;
                         break;
                     }
                     readPending = false;
+                    if (extendedHandle != null) {
+                        ByteBuf readBuf = byteBuf;
+                        // finishRead() takes the ownership of the buffer even if it fails.
+                        byteBuf = null;
+                        byteBuf = extendedHandle.finishRead(allocator, readBuf);
+                    }
                     pipeline.fireChannelRead(byteBuf);
                     byteBuf = null;
 
@@ -638,7 +652,8 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel {
                         // pending data
                         break;
                     }
-                } while (++ messages < maxMessagesPerRead);
+                } while (edgeTriggered || extendedHandle == null ?
+                        ++ messages < maxMessagesPerRead : extendedHandle.continueReading(totalReadAmount));
 
                 pipeline.fireChannelReadComplete();
                 allocHandle.record(totalReadAmount);
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.util.internal.StringUtil;
+
+/**
+ * Accept statistics of an {@link AbstractEpollServerChannel}.
+ *
+ * The counters are only updated by the {@link EpollEventLoop} of the channel but can be read from any thread. They
+ * are monotonic, so rates (like accepted connections per second) can be calculated by sampling them periodically.
+ */
+public final class EpollAcceptMetrics {
+
+    private final AbstractEpollServerChannel channel;
+    private final EpollTcpInfo tcpInfo = new EpollTcpInfo();
+
+    private volatile long acceptedConnections;
+    private volatile long acceptCalls;
+    private volatile long acceptErrors;
+    private volatile long droppedConnections;
+    private volatile long budgetExhausted;
+
+    EpollAcceptMetrics(AbstractEpollServerChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Returns the total number of accepted connections.
+     */
+    public long acceptedConnections() {
+        return acceptedConnections;
+    }
+
+    /**
+     * Returns the number of native calls which accepted at least one connection. Together with
+     * {@link #acceptedConnections()} this shows how many connections were accepted per call on average.
+     */
+    public long acceptCalls() {
+        return acceptCalls;
+    }
+
+    /**
+     * Returns the number of times {@code accept(...)} failed, for example because the process ran out of file
+     * descriptors.
+     */
+    public long acceptErrors() {
+        return acceptErrors;
+    }
+
+    /**
+     * Returns the number of connections which were accepted but closed immediately because no child channel could be
+     * created for them.
+     */
+    public long droppedConnections() {
+        return droppedConnections;
+    }
+
+    /**
+     * Returns the number of times the accept budget of an event loop iteration
+     * ({@link io.netty.channel.ChannelConfig#getMaxMessagesPerRead()}) was used up while more connections were
+     * possibly pending. Those connections are accepted in the next iteration, after the other channels of the event
+     * loop were served.
+     */
+    public long budgetExhausted() {
+        return budgetExhausted;
+    }
+
+    /**
+     * Returns the number of connections which are waiting in the accept queue of the listening socket, or {@code -1}
+     * if the channel is not open. Once this reaches {@link #backlog()} the kernel drops new connection attempts.
+     */
+    public long pendingConnections() {
+        synchronized (tcpInfo) {
+            if (!updateTcpInfo()) {
+                return -1;
+            }
+            // For listening sockets tcpi_unacked holds the current length of the accept queue.
+            return tcpInfo.unacked();
+        }
+    }
+
+    /**
+     * Returns the maximal length of the accept queue of the listening socket as used by the kernel, or {@code -1}
+     * if the channel is not open.
+     */
+    public long backlog() {
+        synchronized (tcpInfo) {
+            if (!updateTcpInfo()) {
+                return -1;
+            }
+            // For listening sockets tcpi_sacked holds the backlog.
+            return tcpInfo.sacked();
+        }
+    }
+
+    private boolean updateTcpInfo() {
+        if (!channel.isOpen()) {
+            return false;
+        }
+        try {
+            Native.tcpInfo(channel.fd().intValue(), tcpInfo);
+            return true;
+        } catch (Throwable ignore) {
+            // closed in the meantime or not a TCP socket.
+            return false;
+        }
+    }
+
+    void incrementAccepted(int accepted) {
+        acceptedConnections += accepted;
+        acceptCalls++;
+    }
+
+    void incrementAcceptErrors() {
+        acceptErrors++;
+    }
+
+    void incrementDropped() {
+        droppedConnections++;
+    }
+
+    void incrementBudgetExhausted() {
+        budgetExhausted++;
+    }
+
+    @Override
+    public String toString() {
+        return StringUtil.simpleClassName(this) +
+                "(accepted: " + acceptedConnections +
+                ", acceptCalls: " + acceptCalls +
+                ", acceptErrors: " + acceptErrors +
+                ", dropped: " + droppedConnections +
+                ", budgetExhausted: " + budgetExhausted + ')';
+    }
+}
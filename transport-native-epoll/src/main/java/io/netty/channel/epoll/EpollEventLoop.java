@@ -17,8 +17,11 @@ package io.netty.channel.epoll;
 
 import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SelectMetrics;
+import io.netty.channel.SelectStrategy;
 import io.netty.channel.SingleThreadEventLoop;
 import io.netty.channel.epoll.AbstractEpollChannel.AbstractEpollUnsafe;
+import io.netty.util.IntSupplier;
 import io.netty.util.collection.IntObjectHashMap;
 import io.netty.util.collection.IntObjectMap;
 import io.netty.util.internal.PlatformDependent;
@@ -30,6 +33,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Queue;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
@@ -54,13 +58,25 @@ final class EpollEventLoop extends SingleThreadEventLoop {
     private final IntObjectMap<AbstractEpollChannel> channels = new IntObjectHashMap<AbstractEpollChannel>(4096);
     private final boolean allowGrowing;
     private final EpollEventArray events;
+    private final SelectStrategy selectStrategy;
+    private final SelectMetrics metrics = new SelectMetrics();
+    private final IntSupplier selectNowSupplier = new IntSupplier() {
+        @Override
+        public int get() throws Exception {
+            return epollWaitNow();
+        }
+    };
 
     @SuppressWarnings("unused")
     private volatile int wakenUp;
     private volatile int ioRatio = 50;
 
-    EpollEventLoop(EventLoopGroup parent, Executor executor, int maxEvents) {
+    EpollEventLoop(EventLoopGroup parent, Executor executor, int maxEvents, SelectStrategy strategy) {
         super(parent, executor, false);
+        if (strategy == null) {
+            throw new NullPointerException("selectStrategy");
+        }
+        selectStrategy = strategy;
         if (maxEvents == 0) {
             allowGrowing = true;
             events = new EpollEventArray(4096);
@@ -162,6 +178,18 @@ final class EpollEventLoop extends SingleThreadEventLoop {
         this.ioRatio = ioRatio;
     }
 
+    /**
+     * Returns the {@link SelectMetrics} of this event loop.
+     */
+    SelectMetrics selectMetrics() {
+        return metrics;
+    }
+
+    private int epollWaitNow() throws IOException {
+        metrics.incrementSelectNows();
+        return Native.epollWait(epollFd, events, 0);
+    }
+
     private int epollWait(boolean oldWakenUp) throws IOException {
         int selectCnt = 0;
         long currentTimeNanos = System.nanoTime();
@@ -170,7 +198,7 @@ final class EpollEventLoop extends SingleThreadEventLoop {
             long timeoutMillis = (selectDeadLineNanos - currentTimeNanos + 500000L) / 1000000L;
             if (timeoutMillis <= 0) {
                 if (selectCnt == 0) {
-                    int ready = Native.epollWait(epollFd, events, 0);
+                    int ready = epollWaitNow();
                     if (ready > 0) {
                         return ready;
                     }
@@ -180,6 +208,7 @@ final class EpollEventLoop extends SingleThreadEventLoop {
 
             int selectedKeys = Native.epollWait(epollFd, events, (int) timeoutMillis);
             selectCnt ++;
+            metrics.incrementSelects();
 
             if (selectedKeys != 0 || oldWakenUp || wakenUp == 1 || hasTasks() || hasScheduledTasks()) {
                 // - Selected something,
@@ -188,7 +217,11 @@ final class EpollEventLoop extends SingleThreadEventLoop {
                 // - a scheduled task is ready for processing
                 return selectedKeys;
             }
-            currentTimeNanos = System.nanoTime();
+            long time = System.nanoTime();
+            if (time - TimeUnit.MILLISECONDS.toNanos(timeoutMillis) < currentTimeNanos) {
+                metrics.incrementPrematureReturns();
+            }
+            currentTimeNanos = time;
         }
         return 0;
     }
@@ -197,11 +230,16 @@ final class EpollEventLoop extends SingleThreadEventLoop {
     protected void run() {
         boolean oldWakenUp = WAKEN_UP_UPDATER.getAndSet(this, 0) == 1;
         try {
-            int ready;
-            if (hasTasks()) {
-                // Non blocking just return what is ready directly without block
-                ready = Native.epollWait(epollFd, events, 0);
-            } else {
+            int ready = selectStrategy.calculateStrategy(selectNowSupplier, hasTasks());
+            switch (ready) {
+            case SelectStrategy.CONTINUE:
+                scheduleExecution();
+                return;
+            case SelectStrategy.BUSY_WAIT:
+                // Poll without blocking, the loop is scheduled again directly after this iteration.
+                ready = epollWaitNow();
+                break;
+            case SelectStrategy.SELECT:
                 ready = epollWait(oldWakenUp);
 
                 // 'wakenUp.compareAndSet(false, true)' is always evaluated
@@ -235,6 +273,10 @@ final class EpollEventLoop extends SingleThreadEventLoop {
                 if (wakenUp == 1) {
                     Native.eventFdWrite(eventFd, 1L);
                 }
+                break;
+            default:
+                // The strategy did a non blocking epoll_wait(...) already and something is ready.
+                break;
             }
 
             final int ioRatio = this.ioRatio;
@@ -302,6 +344,7 @@ final class EpollEventLoop extends SingleThreadEventLoop {
             if (fd == eventFd) {
                 // consume wakeup event
                 Native.eventFdRead(eventFd);
+                metrics.incrementWakeups();
             } else {
                 final long ev = events.events(i);
 
@@ -15,12 +15,17 @@
  */
 package io.netty.channel.epoll;
 
+import io.netty.channel.DefaultSelectStrategyFactory;
 import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.MultithreadEventLoopGroup;
+import io.netty.channel.SelectMetrics;
+import io.netty.channel.SelectStrategyFactory;
 import io.netty.util.concurrent.EventExecutor;
 import io.netty.util.concurrent.ExecutorServiceFactory;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Executor;
 
 
@@ -101,7 +106,23 @@ public final class EpollEventLoopGroup extends MultithreadEventLoopGroup {
      */
     @Deprecated
     public EpollEventLoopGroup(int nEventLoops, Executor executor, int maxEventsAtOnce) {
-        super(nEventLoops, executor, maxEventsAtOnce);
+        super(nEventLoops, executor, maxEventsAtOnce, DefaultSelectStrategyFactory.INSTANCE);
+    }
+
+    /**
+     * @param nEventLoops   the number of {@link EventLoop}s that will be used by this instance.
+     *                      If {@code executor} is {@code null} this number will also be the parallelism
+     *                      requested from the default {@link Executor}. It is generally advised for the number
+     *                      of {@link EventLoop}s and the number of {@link Thread}s used by the
+     *                      {@code executor} to lie close together.
+     *                      If set to {@code 0} the behaviour is the same as documented in
+     *                      {@link #EpollEventLoopGroup()}.
+     * @param executor   the {@link Executor} to use, or {@code null} if the default should be used.
+     * @param selectStrategyFactory  the {@link SelectStrategyFactory} which creates the
+     *                               {@link io.netty.channel.SelectStrategy} of each {@link EventLoop}.
+     */
+    public EpollEventLoopGroup(int nEventLoops, Executor executor, SelectStrategyFactory selectStrategyFactory) {
+        super(nEventLoops, executor, 0, selectStrategyFactory);
     }
 
     /**
@@ -121,7 +142,25 @@ public final class EpollEventLoopGroup extends MultithreadEventLoopGroup {
      */
     @Deprecated
     public EpollEventLoopGroup(int nEventLoops, ExecutorServiceFactory executorServiceFactory, int maxEventsAtOnce) {
-        super(nEventLoops, executorServiceFactory, maxEventsAtOnce);
+        super(nEventLoops, executorServiceFactory, maxEventsAtOnce, DefaultSelectStrategyFactory.INSTANCE);
+    }
+
+    /**
+     * @param nEventLoops   the number of {@link EventLoop}s that will be used by this instance.
+     *                      If {@code executorServiceFactory} is {@code null} this number will also be the parallelism
+     *                      requested from the default {@link Executor}. It is generally advised for the number
+     *                      of {@link EventLoop}s and the number of {@link Thread}s used by the
+     *                      {@code executorServiceFactory} to lie close together.
+     *                      If set to {@code 0} the behaviour is the same as documented in
+     *                      {@link #EpollEventLoopGroup()}.
+     * @param executorServiceFactory   the {@link ExecutorServiceFactory} to use, or {@code null} if the default
+     *                                 should be used.
+     * @param selectStrategyFactory  the {@link SelectStrategyFactory} which creates the
+     *                               {@link io.netty.channel.SelectStrategy} of each {@link EventLoop}.
+     */
+    public EpollEventLoopGroup(int nEventLoops, ExecutorServiceFactory executorServiceFactory,
+                               SelectStrategyFactory selectStrategyFactory) {
+        super(nEventLoops, executorServiceFactory, 0, selectStrategyFactory);
     }
 
     /**
@@ -134,8 +173,20 @@ public final class EpollEventLoopGroup extends MultithreadEventLoopGroup {
         }
     }
 
+    /**
+     * Returns the {@link SelectMetrics} of the child event loops, in the same order as {@link #children()}.
+     */
+    public List<SelectMetrics> selectMetrics() {
+        List<SelectMetrics> metrics = new ArrayList<SelectMetrics>();
+        for (EventExecutor e: children()) {
+            metrics.add(((EpollEventLoop) e).selectMetrics());
+        }
+        return metrics;
+    }
+
     @Override
     protected EventLoop newChild(Executor executor, Object... args) throws Exception {
-        return new EpollEventLoop(this, executor, (Integer) args[0]);
+        return new EpollEventLoop(this, executor, (Integer) args[0],
+                ((SelectStrategyFactory) args[1]).newSelectStrategy());
     }
 }
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.ChannelGroupFuture;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import io.netty.util.concurrent.Promise;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Binds one {@link EpollServerSocketChannel} per {@link EpollEventLoop} of the child {@link EventLoopGroup} of a
+ * {@link ServerBootstrap} to the same address by using {@code SO_REUSEPORT}. The kernel load balances the incoming
+ * connections between the listening sockets and each {@link EpollEventLoop} accepts and serves its own connections,
+ * so no connection is handed over between threads.
+ *
+ * <pre>
+ * ServerBootstrap b = new ServerBootstrap().group(new {@link EpollEventLoopGroup}())
+ *         .channel({@link EpollServerSocketChannel}.class)
+ *         .childHandler(...);
+ * EpollReusePortServer server = new EpollReusePortServer(b);
+ * server.bind(8080).sync();
+ * </pre>
+ *
+ * The parent {@link EventLoopGroup} of the {@link ServerBootstrap} is not used. The accept statistics of each listener
+ * are available via {@link EpollServerSocketChannel#acceptMetrics()}, which shows how the kernel balanced the
+ * connections.
+ */
+public final class EpollReusePortServer {
+
+    private final ServerBootstrap bootstrap;
+    private final List<EventLoop> eventLoops;
+    private final ChannelGroup listeners = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+
+    /**
+     * Creates a new instance which binds the listeners with clones of the given {@link ServerBootstrap}, which must
+     * use {@link EpollServerSocketChannel}s and an {@link EpollEventLoopGroup} as child group.
+     */
+    public EpollReusePortServer(ServerBootstrap bootstrap) {
+        if (bootstrap == null) {
+            throw new NullPointerException("bootstrap");
+        }
+        bootstrap.validate();
+        EventLoopGroup childGroup = bootstrap.childGroup();
+        List<EventLoop> eventLoops = new ArrayList<EventLoop>();
+        for (EventExecutor child: childGroup.<EventExecutor>children()) {
+            if (!(child instanceof EpollEventLoop)) {
+                throw new IllegalArgumentException(
+                        "childGroup must be an " + EpollEventLoopGroup.class.getSimpleName() + ": " + childGroup);
+            }
+            eventLoops.add((EventLoop) child);
+        }
+        this.bootstrap = bootstrap.clone().option(EpollChannelOption.SO_REUSEPORT, true);
+        this.eventLoops = eventLoops;
+    }
+
+    /**
+     * Bind one listener per {@link EpollEventLoop} to the given port.
+     */
+    public Future<Void> bind(int inetPort) {
+        return bind(new InetSocketAddress(inetPort));
+    }
+
+    /**
+     * Bind one listener per {@link EpollEventLoop} to the given address. If the port of the address is {@code 0} all
+     * listeners are bound to the port which was picked for the first one. If any listener can not be bound all
+     * listeners are closed and the returned {@link Future} is failed.
+     */
+    public Future<Void> bind(SocketAddress localAddress) {
+        if (localAddress == null) {
+            throw new NullPointerException("localAddress");
+        }
+        Promise<Void> promise = GlobalEventExecutor.INSTANCE.newPromise();
+        bindNext(eventLoops.iterator(), localAddress, promise);
+        return promise;
+    }
+
+    private void bindNext(final Iterator<EventLoop> loops, SocketAddress localAddress, final Promise<Void> promise) {
+        if (!loops.hasNext()) {
+            promise.trySuccess(null);
+            return;
+        }
+        EventLoop loop = loops.next();
+        // Use the EventLoop as parent and child group so the accepted channels are served by the EventLoop which
+        // accepted them.
+        bootstrap.clone(loop, loop).bind(localAddress).addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception {
+                Channel channel = future.channel();
+                if (!future.isSuccess()) {
+                    fail(future.cause(), promise);
+                    return;
+                }
+                if (!(channel instanceof EpollServerSocketChannel)) {
+                    channel.close();
+                    fail(new IllegalArgumentException("channel must be an " +
+                            EpollServerSocketChannel.class.getSimpleName() + ": " + channel), promise);
+                    return;
+                }
+                listeners.add(channel);
+                // Bind the other listeners to the address of the first one, which matters if the port is 0.
+                bindNext(loops, channel.localAddress(), promise);
+            }
+        });
+    }
+
+    private void fail(final Throwable cause, final Promise<Void> promise) {
+        listeners.close().addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception {
+                promise.tryFailure(cause);
+            }
+        });
+    }
+
+    /**
+     * Returns the listeners which are currently bound.
+     */
+    public List<EpollServerSocketChannel> listeners() {
+        List<EpollServerSocketChannel> channels = new ArrayList<EpollServerSocketChannel>(listeners.size());
+        for (Channel channel: listeners) {
+            channels.add((EpollServerSocketChannel) channel);
+        }
+        return channels;
+    }
+
+    /**
+     * Close the listener of the given {@link EventLoop}. Connections which were accepted already are not affected and
+     * new connections are balanced between the remaining listeners, but the kernel resets the connections which are
+     * still queued in the accept queue of the closed listener. Returns {@code null} if there is no listener for the
+     * {@link EventLoop}.
+     */
+    public ChannelFuture closeListener(EventLoop eventLoop) {
+        for (Channel channel: listeners) {
+            if (channel.eventLoop().unwrap() == eventLoop.unwrap()) {
+                return channel.close();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Close all listeners. Connections which were accepted already are not affected.
+     */
+    public ChannelGroupFuture close() {
+        return listeners.close();
+    }
+}
@@ -43,10 +43,10 @@ public final class EpollSocketChannel extends AbstractEpollStreamChannel impleme
     EpollSocketChannel(Channel parent, int fd, InetSocketAddress remote) {
         super(parent, fd);
         config = new EpollSocketChannelConfig(this);
-        // Directly cache the remote and local addresses
+        // Directly cache the remote address, the local address is obtained lazily so accepting a connection does not
+        // need an extra syscall.
         // See https://github.com/netty/netty/issues/2359
         this.remote = remote;
-        local = Native.localAddress(fd);
     }
 
     public EpollSocketChannel() {
@@ -95,6 +95,14 @@ public final class EpollSocketChannel extends AbstractEpollStreamChannel impleme
 
     @Override
     protected SocketAddress localAddress0() {
+        if (local == null) {
+            // Local address not known yet, try to get it now.
+            InetSocketAddress address = Native.localAddress(fd().intValue());
+            if (address != null) {
+                local = address;
+            }
+            return address;
+        }
         return local;
     }
 
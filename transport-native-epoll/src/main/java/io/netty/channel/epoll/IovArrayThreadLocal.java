@@ -15,8 +15,10 @@
  */
 package io.netty.channel.epoll;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.CompositeByteBuf;
 import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.unix.IovArray;
 import io.netty.util.concurrent.FastThreadLocal;
 
 /**
@@ -42,11 +44,22 @@ final class IovArrayThreadLocal {
      */
     static IovArray get(ChannelOutboundBuffer buffer) throws Exception {
         IovArray array = ARRAY.get();
-        array.clear();
+        array.clear(buffer.totalPendingWriteBytes());
         buffer.forEachFlushedMessage(array);
         return array;
     }
 
+    /**
+     * Returns a {@link IovArray} which is filled with the {@link ByteBuf}. If the {@link ByteBuf} is not backed by a
+     * memory address its readable bytes are copied into the staging area of the {@link IovArray}.
+     */
+    static IovArray get(ByteBuf buf) throws Exception {
+        IovArray array = ARRAY.get();
+        array.clear(buf.readableBytes());
+        array.processMessage(buf);
+        return array;
+    }
+
     /**
      * Returns a {@link IovArray} which is filled with the {@link CompositeByteBuf}.
      */
@@ -530,6 +530,25 @@ final class Native {
 
     private static native int accept0(int fd, byte[] addr);
 
+    /**
+     * Accept up to {@code maxEntries} connections via one JNI call and store the accepted fds and their remote
+     * addresses in the native memory at {@code entriesAddress}, using {@code entrySize} bytes for each entry.
+     * Returns the number of accepted connections, which is {@code 0} if everything was consumed.
+     */
+    static int acceptBatch(int fd, long entriesAddress, int entrySize, int maxEntries) throws IOException {
+        int res = acceptBatch0(fd, entriesAddress, entrySize, maxEntries);
+        if (res >= 0) {
+            return res;
+        }
+        if (res == ERRNO_EAGAIN_NEGATIVE || res == ERRNO_EWOULDBLOCK_NEGATIVE) {
+            // Everything consumed so just return 0 here.
+            return 0;
+        }
+        throw newIOException("accept", res);
+    }
+
+    private static native int acceptBatch0(int fd, long entriesAddress, int entrySize, int maxEntries);
+
     public static int recvFd(int fd) throws IOException {
         int res = recvFd0(fd);
         if (res > 0) {
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.util.concurrent.FastThreadLocal;
+import io.netty.util.internal.PlatformDependent;
+
+import java.io.IOException;
+
+/**
+ * Native memory which is filled by {@link Native#acceptBatch(int, long, int, int)} with the accepted fds and their
+ * remote addresses. Each entry is laid out as:
+ *
+ * <pre>
+ * int  fd
+ * byte length of the address
+ * byte address[24] (encoded the same way as the address arrays used by {@link Native#address(byte[], int, int)})
+ * </pre>
+ */
+final class NativeAcceptArray {
+
+    // The maximal number of connections accepted via one call of accept(...).
+    static final int CAPACITY = 64;
+
+    private static final int ENTRY_SIZE = 32;
+    private static final int ADDRESS_LENGTH_OFFSET = 4;
+    private static final int ADDRESS_OFFSET = 5;
+
+    private static final FastThreadLocal<NativeAcceptArray> ARRAY = new FastThreadLocal<NativeAcceptArray>() {
+        @Override
+        protected NativeAcceptArray initialValue() throws Exception {
+            return new NativeAcceptArray();
+        }
+
+        @Override
+        protected void onRemoval(NativeAcceptArray value) throws Exception {
+            // free the direct memory now
+            value.release();
+        }
+    };
+
+    private final long memoryAddress;
+    private int count;
+
+    private NativeAcceptArray() {
+        memoryAddress = PlatformDependent.allocateMemory(CAPACITY * ENTRY_SIZE);
+    }
+
+    /**
+     * Returns the {@link NativeAcceptArray} of the current thread.
+     */
+    static NativeAcceptArray get() {
+        return ARRAY.get();
+    }
+
+    /**
+     * Accept up to {@code max} connections (but not more then {@link #CAPACITY}) of the given listening socket and
+     * return the number of accepted connections. {@code 0} is returned if there is no pending connection.
+     */
+    int accept(int fd, int max) throws IOException {
+        // Reset the count first in case acceptBatch(...) throws.
+        count = 0;
+        count = Native.acceptBatch(fd, memoryAddress, ENTRY_SIZE, Math.min(max, CAPACITY));
+        return count;
+    }
+
+    /**
+     * Returns the fd of the accepted connection at the given index.
+     */
+    int fd(int index) {
+        return PlatformDependent.getInt(entryAddress(index));
+    }
+
+    /**
+     * Copy the remote address of the accepted connection at the given index into the given array, with its length
+     * stored at index {@code 0} and the address starting at index {@code 1}. Returns the length of the address.
+     */
+    int copyAddress(int index, byte[] address) {
+        long entry = entryAddress(index);
+        int len = PlatformDependent.getByte(entry + ADDRESS_LENGTH_OFFSET);
+        address[0] = (byte) len;
+        PlatformDependent.copyMemory(entry + ADDRESS_OFFSET, address, 1, len);
+        return len;
+    }
+
+    private long entryAddress(int index) {
+        assert index < count;
+        return memoryAddress + (long) index * ENTRY_SIZE;
+    }
+
+    private void release() {
+        PlatformDependent.freeMemory(memoryAddress);
+    }
+}
@@ -0,0 +1,325 @@
+/*
+ * Copyright 2014 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.unix;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelOutboundBuffer.MessageProcessor;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.SystemPropertyUtil;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Represent an array of struct array and so can be passed directly over via JNI without the need to do any more
+ * array copies.
+ *
+ * The buffers are written out directly into direct memory to match the struct iov. See also {@code man writev}.
+ *
+ * <pre>
+ * struct iovec {
+ *   void  *iov_base;
+ *   size_t iov_len;
+ * };
+ * </pre>
+ *
+ * Buffers which are not backed by a memory address (like heap buffers) are copied into a direct staging area which
+ * is owned by this {@link IovArray} and reused for every write. The staging area is sized from the expected number
+ * of bytes passed to {@link #clear(long)} and limited to {@code io.netty.iovArray.maxStagingCapacity} bytes.
+ *
+ * See also
+ * <a href="http://rkennke.wordpress.com/2007/07/30/efficient-jni-programming-iv-wrapping-native-data-objects/"
+ * >Efficient JNI programming IV: Wrapping native data objects</a>.
+ *
+ * <strong>Internal usage only!</strong>
+ */
+public final class IovArray implements MessageProcessor {
+
+    /**
+     * The maximum number of {@code iovec} structs that can be passed to {@code writev(...)}.
+     */
+    public static final int IOV_MAX = iovMax();
+
+    /** The size of an address which should be 8 for 64 bits and 4 for 32 bits. */
+    private static final int ADDRESS_SIZE = PlatformDependent.addressSize();
+
+    /**
+     * The size of an {@code iovec} struct in bytes. This is calculated as we have 2 entries each of the size of the
+     * address.
+     */
+    private static final int IOV_SIZE = 2 * ADDRESS_SIZE;
+
+    /**
+     * The needed memory to hold up to {@link #IOV_MAX} iov entries.
+     */
+    private static final int CAPACITY = IOV_MAX * IOV_SIZE;
+
+    private static final int MIN_STAGING_CAPACITY = 4096;
+    private static final int MAX_STAGING_CAPACITY = Math.max(MIN_STAGING_CAPACITY,
+            SystemPropertyUtil.getInt("io.netty.iovArray.maxStagingCapacity", 256 * 1024));
+
+    private final long memoryAddress;
+    private int count;
+    private long size;
+
+    // Direct memory into which buffers without a memory address are copied. Lazy allocated.
+    private ByteBuf staging;
+    private int stagingUsed;
+    private long expectedBytes;
+
+    public IovArray() {
+        memoryAddress = PlatformDependent.allocateMemory(CAPACITY);
+    }
+
+    public void clear() {
+        count = 0;
+        size = 0;
+        stagingUsed = 0;
+        expectedBytes = 0;
+    }
+
+    /**
+     * Clear this {@link IovArray} and use {@code expectedBytes} to size the staging area if buffers without a memory
+     * address are added.
+     */
+    public void clear(long expectedBytes) {
+        clear();
+        this.expectedBytes = expectedBytes;
+    }
+
+    /**
+     * Try to add the given {@link ByteBuf}. Returns {@code true} on success,
+     * {@code false} otherwise.
+     */
+    public boolean add(ByteBuf buf) {
+        if (count == IOV_MAX) {
+            // No more room!
+            return false;
+        }
+
+        final int len = buf.readableBytes();
+        if (len == 0) {
+            // No need to add an empty buffer.
+            // We return true here because we want ChannelOutboundBuffer.forEachFlushedMessage() to continue
+            // fetching the next buffers.
+            return true;
+        }
+
+        if (buf.hasMemoryAddress()) {
+            add(buf.memoryAddress(), buf.readerIndex(), len);
+            return true;
+        }
+        return addStaged(buf, buf.readerIndex(), len);
+    }
+
+    /**
+     * Copy the given range of {@code buf} into the staging area and add it. If the staging area can not hold all the
+     * bytes only a part is added and {@code false} is returned. As only the written bytes are removed from the
+     * {@link io.netty.channel.ChannelOutboundBuffer} the rest is just copied again on the next write.
+     */
+    private boolean addStaged(ByteBuf buf, int index, int len) {
+        if (!ensureStagingCapacity(len)) {
+            return false;
+        }
+        ByteBuf staging = this.staging;
+        int stagingLen = Math.min(len, staging.capacity() - stagingUsed);
+        buf.getBytes(index, staging, stagingUsed, stagingLen);
+        add(staging.memoryAddress(), stagingUsed, stagingLen);
+        stagingUsed += stagingLen;
+        return stagingLen == len;
+    }
+
+    private boolean ensureStagingCapacity(int len) {
+        ByteBuf staging = this.staging;
+        if (stagingUsed > 0) {
+            // Entries point into the current staging area already so we can not reallocate it.
+            return stagingUsed < staging.capacity();
+        }
+        int wanted = (int) Math.min(MAX_STAGING_CAPACITY, Math.max(expectedBytes, len));
+        if (staging == null || staging.capacity() < wanted) {
+            if (staging != null) {
+                staging.release();
+            }
+            this.staging = Unpooled.directBuffer(stagingCapacity(wanted));
+            assert this.staging.hasMemoryAddress();
+        }
+        return true;
+    }
+
+    private static int stagingCapacity(int wanted) {
+        int capacity = MIN_STAGING_CAPACITY;
+        while (capacity < wanted && capacity < MAX_STAGING_CAPACITY) {
+            capacity <<= 1;
+        }
+        return Math.min(capacity, MAX_STAGING_CAPACITY);
+    }
+
+    private void add(long addr, int offset, int len) {
+        if (len == 0) {
+            // No need to add an empty buffer.
+            return;
+        }
+
+        final long baseOffset = memoryAddress(count++);
+        final long lengthOffset = baseOffset + ADDRESS_SIZE;
+
+        if (ADDRESS_SIZE == 8) {
+            // 64bit
+            PlatformDependent.putLong(baseOffset, addr + offset);
+            PlatformDependent.putLong(lengthOffset, len);
+        } else {
+            assert ADDRESS_SIZE == 4;
+            PlatformDependent.putInt(baseOffset, (int) addr + offset);
+            PlatformDependent.putInt(lengthOffset, len);
+        }
+
+        size += len;
+    }
+
+    /**
+     * Try to add the given {@link CompositeByteBuf}. Returns {@code true} on success,
+     * {@code false} otherwise.
+     *
+     * The components are added one by one without creating the intermediate {@link ByteBuffer} array of
+     * {@link CompositeByteBuf#nioBuffers()}.
+     */
+    public boolean add(CompositeByteBuf buf) {
+        if (count + buf.nioBufferCount() > IOV_MAX) {
+            // No more room!
+            return false;
+        }
+        int length = buf.readableBytes();
+        if (length == 0) {
+            return true;
+        }
+        return add(buf, buf.readerIndex(), length);
+    }
+
+    private boolean add(CompositeByteBuf buf, int index, int length) {
+        int i = buf.toComponentIndex(index);
+        while (length > 0) {
+            ByteBuf c = buf.internalComponent(i);
+            int adjustment = buf.toByteIndex(i);
+            int componentIndex = index - adjustment;
+            int localLength = Math.min(length, c.capacity() - componentIndex);
+            if (localLength > 0 && !addComponent(c, componentIndex, localLength)) {
+                return false;
+            }
+            index += localLength;
+            length -= localLength;
+            i ++;
+        }
+        return true;
+    }
+
+    private boolean addComponent(ByteBuf c, int index, int length) {
+        if (c.hasMemoryAddress()) {
+            add(c.memoryAddress(), index, length);
+            return true;
+        }
+        if (c instanceof CompositeByteBuf) {
+            return add((CompositeByteBuf) c, index, length);
+        }
+        if (c.isDirect()) {
+            ByteBuffer[] buffers = c.nioBuffers(index, length);
+            for (ByteBuffer nioBuffer: buffers) {
+                int len = nioBuffer.remaining();
+                if (len != 0) {
+                    add(PlatformDependent.directBufferAddress(nioBuffer), nioBuffer.position(), len);
+                }
+            }
+            return true;
+        }
+        return addStaged(c, index, length);
+    }
+
+    /**
+     * Process the written iov entries. This will return the length of the iov entry on the given index if it is
+     * smaller then the given {@code written} value. Otherwise it returns {@code -1}.
+     */
+    public long processWritten(int index, long written) {
+        long baseOffset = memoryAddress(index);
+        long lengthOffset = baseOffset + ADDRESS_SIZE;
+        if (ADDRESS_SIZE == 8) {
+            // 64bit
+            long len = PlatformDependent.getLong(lengthOffset);
+            if (len > written) {
+                long offset = PlatformDependent.getLong(baseOffset);
+                PlatformDependent.putLong(baseOffset, offset + written);
+                PlatformDependent.putLong(lengthOffset, len - written);
+                return -1;
+            }
+            return len;
+        } else {
+            assert ADDRESS_SIZE == 4;
+            long len = PlatformDependent.getInt(lengthOffset);
+            if (len > written) {
+                int offset = PlatformDependent.getInt(baseOffset);
+                PlatformDependent.putInt(baseOffset, (int) (offset + written));
+                PlatformDependent.putInt(lengthOffset, (int) (len - written));
+                return -1;
+            }
+            return len;
+        }
+    }
+
+    /**
+     * Returns the number if iov entries.
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Returns the size in bytes
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns the {@code memoryAddress} for the given {@code offset}.
+     */
+    public long memoryAddress(int offset) {
+        return memoryAddress + IOV_SIZE * offset;
+    }
+
+    /**
+     * Release the {@link IovArray}. Once release further using of it may crash the JVM!
+     */
+    public void release() {
+        PlatformDependent.freeMemory(memoryAddress);
+        if (staging != null) {
+            staging.release();
+            staging = null;
+        }
+    }
+
+    @Override
+    public boolean processMessage(Object msg) throws Exception {
+        if (msg instanceof ByteBuf) {
+            if (msg instanceof CompositeByteBuf) {
+                return add((CompositeByteBuf) msg);
+            } else {
+                return add((ByteBuf) msg);
+            }
+        }
+        return false;
+    }
+
+    private static native int iovMax();
+}
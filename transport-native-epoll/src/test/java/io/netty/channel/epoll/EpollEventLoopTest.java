@@ -0,0 +1,90 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.channel.EventLoop;
+import io.netty.channel.SelectMetrics;
+import io.netty.channel.SelectStrategy;
+import io.netty.channel.SelectStrategyFactory;
+import io.netty.util.IntSupplier;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class EpollEventLoopTest {
+
+    @Test(timeout = 10000)
+    public void testBusyWaitSelectStrategy() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        EpollEventLoopGroup group = new EpollEventLoopGroup(1, (Executor) null, new SelectStrategyFactory() {
+            @Override
+            public SelectStrategy newSelectStrategy() {
+                return new SelectStrategy() {
+                    @Override
+                    public int calculateStrategy(IntSupplier selectSupplier, boolean hasTasks) throws Exception {
+                        calls.incrementAndGet();
+                        return hasTasks ? selectSupplier.get() : SelectStrategy.BUSY_WAIT;
+                    }
+                };
+            }
+        });
+        try {
+            runTask(group.next());
+            while (calls.get() < 100) {
+                Thread.sleep(10);
+            }
+            SelectMetrics metrics = group.selectMetrics().get(0);
+            assertEquals(0, metrics.selects());
+            assertTrue(metrics.selectNows() > 0);
+        } finally {
+            group.shutdownGracefully().syncUninterruptibly();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testSelectMetrics() throws Exception {
+        EpollEventLoopGroup group = new EpollEventLoopGroup(1);
+        try {
+            EventLoop loop = group.next();
+            runTask(loop);
+            // Give the loop time to block in epoll_wait(...) and wake it up with a task from another thread.
+            Thread.sleep(100);
+            runTask(loop);
+
+            SelectMetrics metrics = group.selectMetrics().get(0);
+            assertTrue(metrics.selects() > 0);
+            assertTrue(metrics.wakeups() > 0);
+        } finally {
+            group.shutdownGracefully().syncUninterruptibly();
+        }
+    }
+
+    private static void runTask(EventLoop loop) throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        loop.execute(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        });
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class EpollReusePortServerTest {
+
+    @Test(timeout = 30000)
+    public void testListenerPerEventLoop() throws Exception {
+        final int loops = 4;
+        final int connections = 200;
+        EventLoopGroup group = new EpollEventLoopGroup(loops);
+        final CountDownLatch latch = new CountDownLatch(connections);
+        final AtomicInteger handedOver = new AtomicInteger();
+        try {
+            ServerBootstrap sb = new ServerBootstrap().group(group)
+                    .channel(EpollServerSocketChannel.class)
+                    .childHandler(new ChannelInitializer<Channel>() {
+                        @Override
+                        protected void initChannel(Channel ch) throws Exception {
+                            if (ch.eventLoop().unwrap() != ch.parent().eventLoop().unwrap()) {
+                                handedOver.incrementAndGet();
+                            }
+                            latch.countDown();
+                        }
+                    });
+            EpollReusePortServer server = new EpollReusePortServer(sb);
+            server.bind(new InetSocketAddress("127.0.0.1", 0)).sync();
+
+            List<EpollServerSocketChannel> listeners = server.listeners();
+            assertEquals(loops, listeners.size());
+            InetSocketAddress address = listeners.get(0).localAddress();
+            for (EpollServerSocketChannel listener: listeners) {
+                assertEquals(address, listener.localAddress());
+                assertTrue(listener.config().isReusePort());
+            }
+
+            for (int i = 0; i < connections; i++) {
+                new Socket(address.getAddress(), address.getPort()).close();
+            }
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            assertEquals(0, handedOver.get());
+
+            long accepted = 0;
+            for (EpollServerSocketChannel listener: listeners) {
+                accepted += listener.acceptMetrics().acceptedConnections();
+            }
+            assertEquals(connections, accepted);
+
+            // Close one listener, the others still accept connections.
+            EventLoop loop = listeners.get(0).eventLoop();
+            server.closeListener(loop).sync();
+            assertEquals(loops - 1, server.listeners().size());
+            assertNull(server.closeListener(loop));
+            new Socket(address.getAddress(), address.getPort()).close();
+
+            server.close().sync();
+            assertTrue(server.listeners().isEmpty());
+        } finally {
+            group.shutdownGracefully();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRequiresEpollChildGroup() throws Exception {
+        EventLoopGroup group = new NioEventLoopGroup(1);
+        try {
+            new EpollReusePortServer(new ServerBootstrap().group(group)
+                    .channel(EpollServerSocketChannel.class)
+                    .childHandler(new ChannelInitializer<Channel>() {
+                        @Override
+                        protected void initChannel(Channel ch) throws Exception {
+                            // NOOP
+                        }
+                    }));
+        } finally {
+            group.shutdownGracefully();
+        }
+    }
+}
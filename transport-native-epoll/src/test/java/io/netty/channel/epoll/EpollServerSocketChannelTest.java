@@ -0,0 +1,86 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class EpollServerSocketChannelTest {
+
+    @Test(timeout = 30000)
+    public void testAcceptBudgetAndMetrics() throws Exception {
+        final int connections = 100;
+        final int budget = 4;
+        EventLoopGroup group = new EpollEventLoopGroup(1);
+        final CountDownLatch latch = new CountDownLatch(connections);
+        List<Socket> sockets = new ArrayList<Socket>(connections);
+        try {
+            ServerBootstrap sb = new ServerBootstrap();
+            EpollServerSocketChannel sc = (EpollServerSocketChannel) sb.group(group)
+                    .channel(EpollServerSocketChannel.class)
+                    .option(ChannelOption.SO_BACKLOG, 128)
+                    .option(ChannelOption.MAX_MESSAGES_PER_READ, budget)
+                    .option(ChannelOption.AUTO_READ, false)
+                    .childHandler(new ChannelInitializer<Channel>() {
+                        @Override
+                        protected void initChannel(Channel ch) throws Exception {
+                            latch.countDown();
+                        }
+                    })
+                    .bind(new InetSocketAddress("127.0.0.1", 0)).syncUninterruptibly().channel();
+            EpollAcceptMetrics metrics = sc.acceptMetrics();
+            assertEquals(128, metrics.backlog());
+
+            // Queue up all the connections in the accept queue before accepting them at once.
+            for (int i = 0; i < connections; i++) {
+                sockets.add(new Socket(sc.localAddress().getAddress(), sc.localAddress().getPort()));
+            }
+            assertEquals(connections, metrics.pendingConnections());
+
+            sc.config().setAutoRead(true);
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+            assertEquals(connections, metrics.acceptedConnections());
+            assertEquals(0, metrics.pendingConnections());
+            assertEquals(0, metrics.acceptErrors());
+            assertEquals(0, metrics.droppedConnections());
+            assertTrue(metrics.acceptCalls() < connections);
+            // The connections were accepted over multiple event loop iterations.
+            assertTrue(metrics.budgetExhausted() >= connections / budget - 1);
+
+            sc.close().syncUninterruptibly();
+            assertEquals(-1, metrics.pendingConnections());
+        } finally {
+            for (Socket socket: sockets) {
+                socket.close();
+            }
+            group.shutdownGracefully();
+        }
+    }
+}
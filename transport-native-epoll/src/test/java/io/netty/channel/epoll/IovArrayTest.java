@@ -0,0 +1,118 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.unix.IovArray;
+import io.netty.util.internal.PlatformDependent;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class IovArrayTest {
+
+    @BeforeClass
+    public static void ensureAvailability() {
+        Epoll.ensureAvailability();
+        Assume.assumeTrue(PlatformDependent.hasUnsafe());
+    }
+
+    @Test
+    public void testHeapBufferIsStaged() {
+        IovArray array = new IovArray();
+        try {
+            ByteBuf buf = Unpooled.copiedBuffer(new byte[] { 1, 2, 3, 4, 5 });
+            buf.skipBytes(1);
+            array.clear(buf.readableBytes());
+            assertTrue(array.add(buf));
+            assertEquals(1, array.count());
+            assertEquals(4, array.size());
+            assertArrayEquals(new byte[] { 2, 3, 4, 5 }, entry(array, 0));
+            buf.release();
+        } finally {
+            array.release();
+        }
+    }
+
+    @Test
+    public void testCompositeComponentsAreGathered() {
+        IovArray array = new IovArray();
+        try {
+            CompositeByteBuf comp = Unpooled.compositeBuffer();
+            comp.addComponent(Unpooled.directBuffer().writeBytes(new byte[] { 1, 2, 3 }));
+            comp.addComponent(Unpooled.copiedBuffer(new byte[] { 4, 5 }));
+            comp.addComponent(Unpooled.directBuffer().writeBytes(new byte[] { 6, 7, 8 }));
+            comp.writerIndex(8);
+            comp.readerIndex(2);
+            array.clear();
+            assertTrue(array.add(comp));
+            assertEquals(3, array.count());
+            assertEquals(6, array.size());
+            assertArrayEquals(new byte[] { 3 }, entry(array, 0));
+            assertArrayEquals(new byte[] { 4, 5 }, entry(array, 1));
+            assertArrayEquals(new byte[] { 6, 7, 8 }, entry(array, 2));
+            comp.release();
+        } finally {
+            array.release();
+        }
+    }
+
+    @Test
+    public void testStagingAreaIsLimited() {
+        IovArray array = new IovArray();
+        try {
+            ByteBuf buf = Unpooled.buffer(4 * 1024 * 1024).writerIndex(4 * 1024 * 1024);
+            array.clear(buf.readableBytes());
+            // Only a part fits into the staging area, the rest will be copied on the next write.
+            assertFalse(array.add(buf));
+            assertEquals(1, array.count());
+            assertTrue(array.size() > 0);
+            assertTrue(array.size() < buf.readableBytes());
+
+            // Nothing fits anymore until the array is cleared.
+            assertFalse(array.add(Unpooled.copiedBuffer(new byte[] { 1 })));
+            assertEquals(1, array.count());
+
+            array.clear();
+            assertTrue(array.add(Unpooled.copiedBuffer(new byte[] { 1 })));
+            assertEquals(1, array.count());
+            assertEquals(1, array.size());
+            buf.release();
+        } finally {
+            array.release();
+        }
+    }
+
+    private static byte[] entry(IovArray array, int index) {
+        long address = array.memoryAddress(index);
+        long base;
+        long len;
+        if (PlatformDependent.addressSize() == 8) {
+            base = PlatformDependent.getLong(address);
+            len = PlatformDependent.getLong(address + 8);
+        } else {
+            base = PlatformDependent.getInt(address);
+            len = PlatformDependent.getInt(address + 4);
+        }
+        byte[] bytes = new byte[(int) len];
+        PlatformDependent.copyMemory(base, bytes, 0, len);
+        return bytes;
+    }
+}
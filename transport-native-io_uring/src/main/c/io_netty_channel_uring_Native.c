@@ -0,0 +1,488 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+#define _GNU_SOURCE
+#include <jni.h>
+#include <stdlib.h>
+#include <string.h>
+#include <errno.h>
+#include <sys/eventfd.h>
+#include <sys/mman.h>
+#include <sys/syscall.h>
+#include <sys/types.h>
+#include <sys/socket.h>
+#include <netinet/in.h>
+#include <netinet/tcp.h>
+#include <unistd.h>
+#include <stddef.h>
+#include <linux/io_uring.h>
+#include "io_netty_channel_uring_Native.h"
+
+// The syscall numbers are the same on all architectures that support io_uring.
+#ifndef __NR_io_uring_setup
+#define __NR_io_uring_setup 425
+#endif
+#ifndef __NR_io_uring_enter
+#define __NR_io_uring_enter 426
+#endif
+#ifndef __NR_io_uring_register
+#define __NR_io_uring_register 427
+#endif
+
+// Indices into the long[] that is filled by ioUringSetup0(...). Must be kept in sync with Native.java.
+#define RING_SQ_HEAD 0
+#define RING_SQ_TAIL 1
+#define RING_SQ_MASK 2
+#define RING_SQ_ENTRIES 3
+#define RING_SQ_FLAGS 4
+#define RING_SQ_DROPPED 5
+#define RING_SQ_ARRAY 6
+#define RING_SQES 7
+#define RING_CQ_HEAD 8
+#define RING_CQ_TAIL 9
+#define RING_CQ_MASK 10
+#define RING_CQ_ENTRIES 11
+#define RING_CQ_OVERFLOW 12
+#define RING_CQES 13
+#define RING_SQ_RING_ADDRESS 14
+#define RING_SQ_RING_SIZE 15
+#define RING_CQ_RING_ADDRESS 16
+#define RING_CQ_RING_SIZE 17
+#define RING_SQES_SIZE 18
+#define RING_FEATURES 19
+#define RING_LENGTH 20
+
+static int sys_io_uring_setup(unsigned int entries, struct io_uring_params* p) {
+    return (int) syscall(__NR_io_uring_setup, entries, p);
+}
+
+static int sys_io_uring_enter(int fd, unsigned int toSubmit, unsigned int minComplete, unsigned int flags) {
+    return (int) syscall(__NR_io_uring_enter, fd, toSubmit, minComplete, flags, NULL, 0);
+}
+
+static int sys_io_uring_register(int fd, unsigned int opcode, void* arg, unsigned int nrArgs) {
+    return (int) syscall(__NR_io_uring_register, fd, opcode, arg, nrArgs);
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_ioUringSetup0(JNIEnv* env, jclass clazz, jint entries, jlongArray ring) {
+    struct io_uring_params p;
+    memset(&p, 0, sizeof(p));
+
+    int ringFd = sys_io_uring_setup((unsigned int) entries, &p);
+    if (ringFd < 0) {
+        return -errno;
+    }
+
+    size_t sqRingSize = p.sq_off.array + p.sq_entries * sizeof(unsigned int);
+    size_t cqRingSize = p.cq_off.cqes + p.cq_entries * sizeof(struct io_uring_cqe);
+    size_t sqesSize = p.sq_entries * sizeof(struct io_uring_sqe);
+
+    void* sqRing = mmap(NULL, sqRingSize, PROT_READ | PROT_WRITE, MAP_SHARED | MAP_POPULATE, ringFd, IORING_OFF_SQ_RING);
+    if (sqRing == MAP_FAILED) {
+        int err = errno;
+        close(ringFd);
+        return -err;
+    }
+    void* cqRing = mmap(NULL, cqRingSize, PROT_READ | PROT_WRITE, MAP_SHARED | MAP_POPULATE, ringFd, IORING_OFF_CQ_RING);
+    if (cqRing == MAP_FAILED) {
+        int err = errno;
+        munmap(sqRing, sqRingSize);
+        close(ringFd);
+        return -err;
+    }
+    void* sqes = mmap(NULL, sqesSize, PROT_READ | PROT_WRITE, MAP_SHARED | MAP_POPULATE, ringFd, IORING_OFF_SQES);
+    if (sqes == MAP_FAILED) {
+        int err = errno;
+        munmap(cqRing, cqRingSize);
+        munmap(sqRing, sqRingSize);
+        close(ringFd);
+        return -err;
+    }
+
+    jlong values[RING_LENGTH];
+    char* sq = (char*) sqRing;
+    char* cq = (char*) cqRing;
+    values[RING_SQ_HEAD] = (jlong) (sq + p.sq_off.head);
+    values[RING_SQ_TAIL] = (jlong) (sq + p.sq_off.tail);
+    values[RING_SQ_MASK] = (jlong) (sq + p.sq_off.ring_mask);
+    values[RING_SQ_ENTRIES] = (jlong) (sq + p.sq_off.ring_entries);
+    values[RING_SQ_FLAGS] = (jlong) (sq + p.sq_off.flags);
+    values[RING_SQ_DROPPED] = (jlong) (sq + p.sq_off.dropped);
+    values[RING_SQ_ARRAY] = (jlong) (sq + p.sq_off.array);
+    values[RING_SQES] = (jlong) sqes;
+    values[RING_CQ_HEAD] = (jlong) (cq + p.cq_off.head);
+    values[RING_CQ_TAIL] = (jlong) (cq + p.cq_off.tail);
+    values[RING_CQ_MASK] = (jlong) (cq + p.cq_off.ring_mask);
+    values[RING_CQ_ENTRIES] = (jlong) (cq + p.cq_off.ring_entries);
+    values[RING_CQ_OVERFLOW] = (jlong) (cq + p.cq_off.overflow);
+    values[RING_CQES] = (jlong) (cq + p.cq_off.cqes);
+    values[RING_SQ_RING_ADDRESS] = (jlong) sqRing;
+    values[RING_SQ_RING_SIZE] = (jlong) sqRingSize;
+    values[RING_CQ_RING_ADDRESS] = (jlong) cqRing;
+    values[RING_CQ_RING_SIZE] = (jlong) cqRingSize;
+    values[RING_SQES_SIZE] = (jlong) sqesSize;
+    values[RING_FEATURES] = (jlong) p.features;
+    (*env)->SetLongArrayRegion(env, ring, 0, RING_LENGTH, values);
+    return ringFd;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_ioUringEnter0(JNIEnv* env, jclass clazz, jint ringFd, jint toSubmit, jint minComplete, jint flags) {
+    int res;
+    do {
+        res = sys_io_uring_enter(ringFd, (unsigned int) toSubmit, (unsigned int) minComplete, (unsigned int) flags);
+        // EINTR can only happen while waiting and we will just return to the event loop in this case so only
+        // retry if we still need to submit something.
+    } while (res < 0 && errno == EINTR && toSubmit > 0);
+    if (res < 0) {
+        return -errno;
+    }
+    return res;
+}
+
+JNIEXPORT jboolean JNICALL Java_io_netty_channel_uring_Native_ioUringProbe0(JNIEnv* env, jclass clazz, jint ringFd, jintArray ops) {
+    size_t len = sizeof(struct io_uring_probe) + 256 * sizeof(struct io_uring_probe_op);
+    struct io_uring_probe* probe = calloc(1, len);
+    if (probe == NULL) {
+        return JNI_FALSE;
+    }
+    if (sys_io_uring_register(ringFd, IORING_REGISTER_PROBE, probe, 256) < 0) {
+        // IORING_REGISTER_PROBE was only added in Linux 5.6, everything older is not supported by us.
+        free(probe);
+        return JNI_FALSE;
+    }
+    jint opsLen = (*env)->GetArrayLength(env, ops);
+    jint* opsArray = (*env)->GetIntArrayElements(env, ops, NULL);
+    if (opsArray == NULL) {
+        free(probe);
+        return JNI_FALSE;
+    }
+    jboolean supported = JNI_TRUE;
+    int i;
+    for (i = 0; i < opsLen; i++) {
+        int op = opsArray[i];
+        if (op > probe->last_op || (probe->ops[op].flags & IO_URING_OP_SUPPORTED) == 0) {
+            supported = JNI_FALSE;
+            break;
+        }
+    }
+    (*env)->ReleaseIntArrayElements(env, ops, opsArray, JNI_ABORT);
+    free(probe);
+    return supported;
+}
+
+JNIEXPORT void JNICALL Java_io_netty_channel_uring_Native_ioUringExit0(JNIEnv* env, jclass clazz, jint ringFd,
+        jlong sqRing, jlong sqRingSize, jlong cqRing, jlong cqRingSize, jlong sqes, jlong sqesSize) {
+    munmap((void*) sqes, (size_t) sqesSize);
+    munmap((void*) cqRing, (size_t) cqRingSize);
+    munmap((void*) sqRing, (size_t) sqRingSize);
+    close(ringFd);
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_eventFd0(JNIEnv* env, jclass clazz) {
+    int fd = eventfd(0, EFD_CLOEXEC | EFD_NONBLOCK);
+    if (fd < 0) {
+        return -errno;
+    }
+    return fd;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_eventFdWrite0(JNIEnv* env, jclass clazz, jint fd, jlong value) {
+    if (eventfd_write(fd, (eventfd_t) value) < 0) {
+        return -errno;
+    }
+    return 0;
+}
+
+static jint socket0(int family, int type) {
+    int fd = socket(family, type | SOCK_NONBLOCK | SOCK_CLOEXEC, 0);
+    if (fd < 0) {
+        return -errno;
+    }
+    if (family == AF_INET6) {
+        // Allow to listen /connect ipv4 and ipv6
+        int optval = 0;
+        if (setsockopt(fd, IPPROTO_IPV6, IPV6_V6ONLY, &optval, sizeof(optval)) < 0) {
+            int err = errno;
+            close(fd);
+            return -err;
+        }
+    }
+    return fd;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_socketStream0(JNIEnv* env, jclass clazz, jboolean ipv6) {
+    return socket0(ipv6 ? AF_INET6 : AF_INET, SOCK_STREAM);
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_socketDgram0(JNIEnv* env, jclass clazz, jboolean ipv6) {
+    return socket0(ipv6 ? AF_INET6 : AF_INET, SOCK_DGRAM);
+}
+
+JNIEXPORT jboolean JNICALL Java_io_netty_channel_uring_Native_isIPv6Supported0(JNIEnv* env, jclass clazz) {
+    int fd = socket(AF_INET6, SOCK_STREAM | SOCK_NONBLOCK, 0);
+    if (fd < 0) {
+        return errno == EAFNOSUPPORT ? JNI_FALSE : JNI_TRUE;
+    }
+    close(fd);
+    return JNI_TRUE;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_bind0(JNIEnv* env, jclass clazz, jint fd, jlong address, jint len) {
+    if (bind(fd, (struct sockaddr*) address, (socklen_t) len) < 0) {
+        return -errno;
+    }
+    return 0;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_listen0(JNIEnv* env, jclass clazz, jint fd, jint backlog) {
+    if (listen(fd, backlog) < 0) {
+        return -errno;
+    }
+    return 0;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_getsockname0(JNIEnv* env, jclass clazz, jint fd, jlong address, jint len) {
+    socklen_t addrLen = (socklen_t) len;
+    if (getsockname(fd, (struct sockaddr*) address, &addrLen) < 0) {
+        return -errno;
+    }
+    return (jint) addrLen;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_getpeername0(JNIEnv* env, jclass clazz, jint fd, jlong address, jint len) {
+    socklen_t addrLen = (socklen_t) len;
+    if (getpeername(fd, (struct sockaddr*) address, &addrLen) < 0) {
+        return -errno;
+    }
+    return (jint) addrLen;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_shutdown0(JNIEnv* env, jclass clazz, jint fd, jboolean read, jboolean write) {
+    int mode;
+    if (read && write) {
+        mode = SHUT_RDWR;
+    } else if (read) {
+        mode = SHUT_RD;
+    } else if (write) {
+        mode = SHUT_WR;
+    } else {
+        return 0;
+    }
+    if (shutdown(fd, mode) < 0) {
+        return -errno;
+    }
+    return 0;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_getIntOpt0(JNIEnv* env, jclass clazz, jint fd, jint level, jint optname) {
+    int optval;
+    socklen_t optlen = sizeof(optval);
+    if (getsockopt(fd, level, optname, &optval, &optlen) < 0) {
+        // Option values are never negative so we can use the sign to signal the error.
+        return -errno;
+    }
+    return optval;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_setIntOpt0(JNIEnv* env, jclass clazz, jint fd, jint level, jint optname, jint value) {
+    int optval = value;
+    if (setsockopt(fd, level, optname, &optval, sizeof(optval)) < 0) {
+        return -errno;
+    }
+    return 0;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_getSoLinger0(JNIEnv* env, jclass clazz, jint fd, jintArray result) {
+    struct linger optval;
+    socklen_t optlen = sizeof(optval);
+    if (getsockopt(fd, SOL_SOCKET, SO_LINGER, &optval, &optlen) < 0) {
+        return -errno;
+    }
+    jint value = optval.l_onoff == 0 ? -1 : optval.l_linger;
+    (*env)->SetIntArrayRegion(env, result, 0, 1, &value);
+    return 0;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_setSoLinger0(JNIEnv* env, jclass clazz, jint fd, jint soLinger) {
+    struct linger solinger;
+    if (soLinger < 0) {
+        solinger.l_onoff = 0;
+        solinger.l_linger = 0;
+    } else {
+        solinger.l_onoff = 1;
+        solinger.l_linger = soLinger;
+    }
+    if (setsockopt(fd, SOL_SOCKET, SO_LINGER, &solinger, sizeof(solinger)) < 0) {
+        return -errno;
+    }
+    return 0;
+}
+
+JNIEXPORT jstring JNICALL Java_io_netty_channel_uring_Native_strError(JNIEnv* env, jclass clazz, jint error) {
+    return (*env)->NewStringUTF(env, strerror(error));
+}
+
+// constants which depend on the architecture or the libc and so need to be looked up
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_afInet(JNIEnv* env, jclass clazz) {
+    return AF_INET;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_afInet6(JNIEnv* env, jclass clazz) {
+    return AF_INET6;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_sockNonblock(JNIEnv* env, jclass clazz) {
+    return SOCK_NONBLOCK;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_sockCloexec(JNIEnv* env, jclass clazz) {
+    return SOCK_CLOEXEC;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_sizeofSockaddrIn(JNIEnv* env, jclass clazz) {
+    return sizeof(struct sockaddr_in);
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_sizeofSockaddrIn6(JNIEnv* env, jclass clazz) {
+    return sizeof(struct sockaddr_in6);
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_sizeofMsghdr(JNIEnv* env, jclass clazz) {
+    return sizeof(struct msghdr);
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_offsetofMsghdrName(JNIEnv* env, jclass clazz) {
+    return offsetof(struct msghdr, msg_name);
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_offsetofMsghdrNamelen(JNIEnv* env, jclass clazz) {
+    return offsetof(struct msghdr, msg_namelen);
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_offsetofMsghdrIov(JNIEnv* env, jclass clazz) {
+    return offsetof(struct msghdr, msg_iov);
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_offsetofMsghdrIovlen(JNIEnv* env, jclass clazz) {
+    return offsetof(struct msghdr, msg_iovlen);
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_solSocket(JNIEnv* env, jclass clazz) {
+    return SOL_SOCKET;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_soRcvbuf(JNIEnv* env, jclass clazz) {
+    return SO_RCVBUF;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_soSndbuf(JNIEnv* env, jclass clazz) {
+    return SO_SNDBUF;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_soKeepalive(JNIEnv* env, jclass clazz) {
+    return SO_KEEPALIVE;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_soReuseaddr(JNIEnv* env, jclass clazz) {
+    return SO_REUSEADDR;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_soReuseport(JNIEnv* env, jclass clazz) {
+    return SO_REUSEPORT;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_soBroadcast(JNIEnv* env, jclass clazz) {
+    return SO_BROADCAST;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_soError(JNIEnv* env, jclass clazz) {
+    return SO_ERROR;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_ipprotoTcp(JNIEnv* env, jclass clazz) {
+    return IPPROTO_TCP;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_tcpNodelay(JNIEnv* env, jclass clazz) {
+    return TCP_NODELAY;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_tcpCork(JNIEnv* env, jclass clazz) {
+    return TCP_CORK;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_tcpKeepidle(JNIEnv* env, jclass clazz) {
+    return TCP_KEEPIDLE;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_tcpKeepintvl(JNIEnv* env, jclass clazz) {
+    return TCP_KEEPINTVL;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_tcpKeepcnt(JNIEnv* env, jclass clazz) {
+    return TCP_KEEPCNT;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_ipprotoIp(JNIEnv* env, jclass clazz) {
+    return IPPROTO_IP;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_ipTos(JNIEnv* env, jclass clazz) {
+    return IP_TOS;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_ipprotoIpv6(JNIEnv* env, jclass clazz) {
+    return IPPROTO_IPV6;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_ipv6Tclass(JNIEnv* env, jclass clazz) {
+    return IPV6_TCLASS;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_errnoEAGAIN(JNIEnv* env, jclass clazz) {
+    return EAGAIN;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_errnoEINTR(JNIEnv* env, jclass clazz) {
+    return EINTR;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_errnoECANCELED(JNIEnv* env, jclass clazz) {
+    return ECANCELED;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_errnoETIME(JNIEnv* env, jclass clazz) {
+    return ETIME;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_errnoEBADF(JNIEnv* env, jclass clazz) {
+    return EBADF;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_errnoEPIPE(JNIEnv* env, jclass clazz) {
+    return EPIPE;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_errnoECONNRESET(JNIEnv* env, jclass clazz) {
+    return ECONNRESET;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_errnoECONNREFUSED(JNIEnv* env, jclass clazz) {
+    return ECONNREFUSED;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_uring_Native_errnoEBUSY(JNIEnv* env, jclass clazz) {
+    return EBUSY;
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+#include <jni.h>
+
+jint Java_io_netty_channel_uring_Native_ioUringSetup0(JNIEnv* env, jclass clazz, jint entries, jlongArray ring);
+jint Java_io_netty_channel_uring_Native_ioUringEnter0(JNIEnv* env, jclass clazz, jint ringFd, jint toSubmit, jint minComplete, jint flags);
+jboolean Java_io_netty_channel_uring_Native_ioUringProbe0(JNIEnv* env, jclass clazz, jint ringFd, jintArray ops);
+void Java_io_netty_channel_uring_Native_ioUringExit0(JNIEnv* env, jclass clazz, jint ringFd, jlong sqRing, jlong sqRingSize, jlong cqRing, jlong cqRingSize, jlong sqes, jlong sqesSize);
+jint Java_io_netty_channel_uring_Native_eventFd0(JNIEnv* env, jclass clazz);
+jint Java_io_netty_channel_uring_Native_eventFdWrite0(JNIEnv* env, jclass clazz, jint fd, jlong value);
+jint Java_io_netty_channel_uring_Native_socketStream0(JNIEnv* env, jclass clazz, jboolean ipv6);
+jint Java_io_netty_channel_uring_Native_socketDgram0(JNIEnv* env, jclass clazz, jboolean ipv6);
+jboolean Java_io_netty_channel_uring_Native_isIPv6Supported0(JNIEnv* env, jclass clazz);
+jint Java_io_netty_channel_uring_Native_bind0(JNIEnv* env, jclass clazz, jint fd, jlong address, jint len);
+jint Java_io_netty_channel_uring_Native_listen0(JNIEnv* env, jclass clazz, jint fd, jint backlog);
+jint Java_io_netty_channel_uring_Native_getsockname0(JNIEnv* env, jclass clazz, jint fd, jlong address, jint len);
+jint Java_io_netty_channel_uring_Native_getpeername0(JNIEnv* env, jclass clazz, jint fd, jlong address, jint len);
+jint Java_io_netty_channel_uring_Native_shutdown0(JNIEnv* env, jclass clazz, jint fd, jboolean read, jboolean write);
+jint Java_io_netty_channel_uring_Native_getIntOpt0(JNIEnv* env, jclass clazz, jint fd, jint level, jint optname);
+jint Java_io_netty_channel_uring_Native_setIntOpt0(JNIEnv* env, jclass clazz, jint fd, jint level, jint optname, jint value);
+jint Java_io_netty_channel_uring_Native_getSoLinger0(JNIEnv* env, jclass clazz, jint fd, jintArray result);
+jint Java_io_netty_channel_uring_Native_setSoLinger0(JNIEnv* env, jclass clazz, jint fd, jint soLinger);
+jstring Java_io_netty_channel_uring_Native_strError(JNIEnv* env, jclass clazz, jint error);
+jint Java_io_netty_channel_uring_Native_afInet(JNIEnv* env, jclass clazz);
+jint Java_io_netty_channel_uring_Native_afInet6(JNIEnv* env, jclass clazz);
+jint Java_io_netty_channel_uring_Native_sockNonblock(JNIEnv* env, jclass clazz);
+jint Java_io_netty_channel_uring_Native_sockCloexec(JNIEnv* env, jclass clazz);
+jint Java_io_netty_channel_uring_Native_sizeofSockaddrIn(JNIEnv* env, jclass clazz);
+jint Java_io_netty_channel_uring_Native_sizeofSockaddrIn6(JNIEnv* env, jclass clazz);
+jint Java_io_netty_channel_uring_Native_sizeofMsghdr(JNIEnv* env, jclass clazz);
+jint Java_io_netty_channel_uring_Native_offsetofMsghdrName(JNIEnv* env, jclass clazz);
+jint Java_io_netty_channel_uring_Native_offsetofMsghdrNamelen(JNIEnv* env, jclass clazz);
+jint Java_io_netty_channel_uring_Native_offsetofMsghdrIov(JNIEnv* env, jclass clazz);
+jint Java_io_netty_channel_uring_Native_offsetofMsghdrIovlen(JNIEnv* env, jclass clazz);
+jint Java_io_netty_channel_uring_Native_solSocket(JNIEnv* env, jclass clazz);
+jint Java_io_netty_channel_uring_Native_soRcvbuf(JNIEnv* env, jclass clazz);
+jint Java_io_netty_channel_uring_Native_soSndbuf(JNIEnv* env, jclass clazz);
+jint Java_io_netty_channel_uring_Native_soKeepalive(JNIEnv* env, jclass clazz);
+jint Java_io_netty_channel_uring_Native_soReuseaddr(JNIEnv* env, jclass clazz);
+jint Java_io_netty_channel_uring_Native_soReuseport(JNIEnv* env, jclass clazz);
+jint Java_io_netty_channel_uring_Native_soBroadcast(JNIEnv* env, jclass clazz);
+jint Java_io_netty_channel_uring_Native_soError(JNIEnv* env, jclass clazz);
+jint Java_io_netty_channel_uring_Native_ipprotoTcp(JNIEnv* env, jclass clazz);
+jint Java_io_netty_channel_uring_Native_tcpNodelay(JNIEnv* env, jclass clazz);
+jint Java_io_netty_channel_uring_Native_tcpCork(JNIEnv* env, jclass clazz);
+jint Java_io_netty_channel_uring_Native_tcpKeepidle(JNIEnv* env, jclass clazz);
+jint Java_io_netty_channel_uring_Native_tcpKeepintvl(JNIEnv* env, jclass clazz);
+jint Java_io_netty_channel_uring_Native_tcpKeepcnt(JNIEnv* env, jclass clazz);
+jint Java_io_netty_channel_uring_Native_ipprotoIp(JNIEnv* env, jclass clazz);
+jint Java_io_netty_channel_uring_Native_ipTos(JNIEnv* env, jclass clazz);
+jint Java_io_netty_channel_uring_Native_ipprotoIpv6(JNIEnv* env, jclass clazz);
+jint Java_io_netty_channel_uring_Native_ipv6Tclass(JNIEnv* env, jclass clazz);
+jint Java_io_netty_channel_uring_Native_errnoEAGAIN(JNIEnv* env, jclass clazz);
+jint Java_io_netty_channel_uring_Native_errnoEINTR(JNIEnv* env, jclass clazz);
+jint Java_io_netty_channel_uring_Native_errnoECANCELED(JNIEnv* env, jclass clazz);
+jint Java_io_netty_channel_uring_Native_errnoETIME(JNIEnv* env, jclass clazz);
+jint Java_io_netty_channel_uring_Native_errnoEBADF(JNIEnv* env, jclass clazz);
+jint Java_io_netty_channel_uring_Native_errnoEPIPE(JNIEnv* env, jclass clazz);
+jint Java_io_netty_channel_uring_Native_errnoECONNRESET(JNIEnv* env, jclass clazz);
+jint Java_io_netty_channel_uring_Native_errnoECONNREFUSED(JNIEnv* env, jclass clazz);
+jint Java_io_netty_channel_uring_Native_errnoEBUSY(JNIEnv* env, jclass clazz);
@@ -0,0 +1,388 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.AbstractChannel;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelMetadata;
+import io.netty.channel.EventLoop;
+import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.unix.FileDescriptor;
+import io.netty.channel.unix.UnixChannel;
+import io.netty.util.ReferenceCountUtil;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.UnresolvedAddressException;
+
+/**
+ * Base class for all io_uring based channels.
+ *
+ * Operations are submitted to the ring of the {@link IoUringEventLoop} the channel is registered with and complete
+ * asynchronously. At most one operation of each kind ({@link #OP_READ}, {@link #OP_WRITE}, {@link #OP_CONNECT}) is in
+ * flight at any time. On close (or deregistration) all in-flight operations are cancelled, but the channel only
+ * leaves the {@link IoUringEventLoop} once the kernel acknowledged all of them, as it may use the memory of the
+ * operations until then. Because of this a channel can only be registered again once its previous registration
+ * was released completely.
+ */
+abstract class AbstractIoUringChannel extends AbstractChannel implements UnixChannel {
+    private static final ChannelMetadata DATA = new ChannelMetadata(false);
+
+    static final int OP_READ = 1;
+    static final int OP_WRITE = 1 << 1;
+    static final int OP_CONNECT = 1 << 2;
+
+    private final FileDescriptor fileDescriptor;
+
+    protected volatile boolean active;
+
+    private IoUringEventLoop loop;
+    private int id;
+    private boolean deregistered;
+    // The number of submissions (including cancellations) which did not complete yet.
+    private int inFlight;
+    private int scheduledOps;
+    private int cancelledOps;
+    private byte readOpcode;
+    private byte writeOpcode;
+    private boolean resourcesReleased;
+
+    AbstractIoUringChannel(Channel parent, FileDescriptor fd, boolean active) {
+        super(parent);
+        if (fd == null) {
+            throw new NullPointerException("fd");
+        }
+        this.active = active;
+        fileDescriptor = fd;
+    }
+
+    @Override
+    public final FileDescriptor fd() {
+        return fileDescriptor;
+    }
+
+    @Override
+    public abstract IoUringChannelConfig config();
+
+    @Override
+    public boolean isActive() {
+        return active;
+    }
+
+    @Override
+    public ChannelMetadata metadata() {
+        return DATA;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return fileDescriptor.isOpen();
+    }
+
+    @Override
+    protected boolean isCompatible(EventLoop loop) {
+        return loop instanceof IoUringEventLoop;
+    }
+
+    @Override
+    protected void doRegister() throws Exception {
+        if (inFlight != 0) {
+            throw new IllegalStateException("operations of the previous registration are still in flight");
+        }
+        loop = (IoUringEventLoop) eventLoop().unwrap();
+        id = loop.add(this);
+        deregistered = false;
+    }
+
+    @Override
+    protected void doDeregister() throws Exception {
+        if (loop == null || deregistered) {
+            return;
+        }
+        deregistered = true;
+        cancelOps();
+        releaseIfDone();
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        active = false;
+        try {
+            if (loop != null) {
+                if (!deregistered) {
+                    cancelOps();
+                }
+                if (inFlight != 0) {
+                    // Make sure the kernel resolved the file descriptor of all operations before it is closed and
+                    // its number can be reused by a new channel.
+                    loop.submitPending();
+                }
+            }
+        } finally {
+            fileDescriptor.close();
+            if (inFlight == 0) {
+                releaseResources();
+            }
+        }
+    }
+
+    @Override
+    protected void doDisconnect() throws Exception {
+        doClose();
+    }
+
+    @Override
+    protected void doBeginRead() throws Exception {
+        // Channel.read() or ChannelHandlerContext.read() was called
+        AbstractIoUringUnsafe unsafe = (AbstractIoUringUnsafe) unsafe();
+        unsafe.readPending = true;
+        if (!isScheduled(OP_READ)) {
+            unsafe.scheduleRead();
+        }
+    }
+
+    @Override
+    protected abstract AbstractIoUringUnsafe newUnsafe();
+
+    /**
+     * Returns {@code true} if an operation of the given kind is in flight.
+     */
+    final boolean isScheduled(int op) {
+        return (scheduledOps & op) != 0;
+    }
+
+    /**
+     * Submit an operation of the given kind. The completion is passed to the {@link AbstractIoUringUnsafe}.
+     */
+    final void submit(int op, byte opcode, long address, int len, long offset, int opFlags) throws IOException {
+        assert !isScheduled(op);
+        loop.submit(opcode, fileDescriptor.intValue(), address, len, offset, opFlags, id, 0);
+        inFlight++;
+        scheduledOps |= op;
+        if (op == OP_READ) {
+            readOpcode = opcode;
+        } else if (op == OP_WRITE) {
+            writeOpcode = opcode;
+        }
+    }
+
+    private void cancelOps() throws IOException {
+        int toCancel = scheduledOps & ~cancelledOps;
+        if (toCancel == 0) {
+            return;
+        }
+        int fd = fileDescriptor.intValue();
+        if ((toCancel & OP_READ) != 0) {
+            loop.submitCancel(fd, IoUringEventLoop.userData(id, readOpcode, 0), id);
+            inFlight++;
+        }
+        if ((toCancel & OP_WRITE) != 0) {
+            loop.submitCancel(fd, IoUringEventLoop.userData(id, writeOpcode, 0), id);
+            inFlight++;
+        }
+        if ((toCancel & OP_CONNECT) != 0) {
+            loop.submitCancel(fd, IoUringEventLoop.userData(id, Native.IORING_OP_CONNECT, 0), id);
+            inFlight++;
+        }
+        cancelledOps |= toCancel;
+    }
+
+    /**
+     * Called by the {@link IoUringEventLoop} once an operation of this channel completed.
+     */
+    final void completed(int id, byte opcode, int res) {
+        assert id == this.id;
+        inFlight--;
+        if (opcode != Native.IORING_OP_ASYNC_CANCEL) {
+            AbstractIoUringUnsafe unsafe = (AbstractIoUringUnsafe) unsafe();
+            switch (opcode) {
+                case Native.IORING_OP_CONNECT:
+                    completed(OP_CONNECT);
+                    unsafe.connectCompleted(res);
+                    break;
+                case Native.IORING_OP_SEND:
+                case Native.IORING_OP_WRITEV:
+                case Native.IORING_OP_SENDMSG:
+                    completed(OP_WRITE);
+                    unsafe.writeCompleted(res);
+                    break;
+                default:
+                    completed(OP_READ);
+                    unsafe.readCompleted(res);
+                    break;
+            }
+        }
+        releaseIfDone();
+    }
+
+    private void completed(int op) {
+        scheduledOps &= ~op;
+        cancelledOps &= ~op;
+    }
+
+    /**
+     * Returns {@code true} if the channel should not submit any new operation as it is closed or deregistered.
+     */
+    final boolean isReleased() {
+        return deregistered || !isOpen();
+    }
+
+    private void releaseIfDone() {
+        if (inFlight == 0 && isReleased()) {
+            if (loop != null) {
+                loop.remove(id);
+                loop = null;
+                id = 0;
+            }
+            if (!isOpen()) {
+                releaseResources();
+            }
+        }
+    }
+
+    private void releaseResources() {
+        if (!resourcesReleased) {
+            resourcesReleased = true;
+            doReleaseResources();
+        }
+    }
+
+    /**
+     * Release the native resources of the channel. Called once the channel is closed and the kernel does not use
+     * any of its memory anymore.
+     */
+    protected void doReleaseResources() {
+        // NOOP
+    }
+
+    /**
+     * Returns an off-heap copy of the specified {@link ByteBuf}, and releases the original one.
+     */
+    protected final ByteBuf newDirectBuffer(ByteBuf buf) {
+        return newDirectBuffer(buf, buf);
+    }
+
+    /**
+     * Returns an off-heap copy of the specified {@link ByteBuf}, and releases the specified holder.
+     * The caller must ensure that the holder releases the original {@link ByteBuf} when the holder is released by
+     * this method.
+     */
+    protected final ByteBuf newDirectBuffer(Object holder, ByteBuf buf) {
+        final int readableBytes = buf.readableBytes();
+        if (readableBytes == 0) {
+            ReferenceCountUtil.safeRelease(holder);
+            return Unpooled.EMPTY_BUFFER;
+        }
+
+        final ByteBufAllocator alloc = alloc();
+        if (alloc.isDirectBufferPooled()) {
+            return newDirectBuffer0(holder, buf, alloc, readableBytes);
+        }
+
+        final ByteBuf directBuf = ByteBufUtil.threadLocalDirectBuffer();
+        if (directBuf == null) {
+            return newDirectBuffer0(holder, buf, alloc, readableBytes);
+        }
+
+        directBuf.writeBytes(buf, buf.readerIndex(), readableBytes);
+        ReferenceCountUtil.safeRelease(holder);
+        return directBuf;
+    }
+
+    private static ByteBuf newDirectBuffer0(Object holder, ByteBuf buf, ByteBufAllocator alloc, int capacity) {
+        final ByteBuf directBuf = alloc.directBuffer(capacity);
+        directBuf.writeBytes(buf, buf.readerIndex(), capacity);
+        ReferenceCountUtil.safeRelease(holder);
+        return directBuf;
+    }
+
+    protected static void checkResolvable(InetSocketAddress addr) {
+        if (addr.isUnresolved()) {
+            throw new UnresolvedAddressException();
+        }
+    }
+
+    protected abstract class AbstractIoUringUnsafe extends AbstractUnsafe {
+        protected boolean readPending;
+
+        /**
+         * Submit the next read operation.
+         */
+        abstract void scheduleRead() throws IOException;
+
+        /**
+         * Called once the read operation completed with the given result, which is a negative errno on failure.
+         */
+        abstract void readCompleted(int res);
+
+        /**
+         * Called once the write operation completed with the given result, which is a negative errno on failure.
+         */
+        void writeCompleted(int res) {
+            // NOOP
+        }
+
+        /**
+         * Called once the connect operation completed with the given result, which is a negative errno on failure.
+         */
+        void connectCompleted(int res) {
+            // NOOP
+        }
+
+        /**
+         * Returns {@code true} if another read should be submitted after a read completed.
+         */
+        protected final boolean shouldReadAgain() {
+            return !isReleased() && isActive() && (readPending || config().isAutoRead());
+        }
+
+        /**
+         * Allocate a direct buffer with a memory address for the next read.
+         */
+        protected final ByteBuf allocateReadBuffer() {
+            RecvByteBufAllocator.Handle allocHandle = recvBufAllocHandle();
+            ByteBuf buf = allocHandle.allocate(config().getAllocator());
+            if (!buf.hasMemoryAddress()) {
+                // io_uring can only read into native memory.
+                int capacity = buf.capacity();
+                buf.release();
+                buf = config().getAllocator().directBuffer(capacity);
+            }
+            return buf;
+        }
+
+        @Override
+        protected void flush0() {
+            // Flush immediately only when there's no write in flight.
+            // Otherwise the completion of the write will call flush0() again.
+            if (isScheduled(OP_WRITE)) {
+                return;
+            }
+            super.flush0();
+        }
+
+        /**
+         * Continue to flush once the write operation completed.
+         */
+        protected final void writeCompletedFlush() {
+            super.flush0();
+        }
+    }
+}
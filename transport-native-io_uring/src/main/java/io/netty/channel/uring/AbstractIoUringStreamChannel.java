@@ -0,0 +1,465 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelOutboundBuffer.MessageProcessor;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.ConnectTimeoutException;
+import io.netty.channel.socket.ChannelInputShutdownEvent;
+import io.netty.channel.unix.FileDescriptor;
+import io.netty.channel.unix.IovArray;
+import io.netty.util.internal.EmptyArrays;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.StringUtil;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Base class for stream based io_uring channels.
+ *
+ * Reads are done with {@code IORING_OP_RECV} directly into a buffer of the
+ * {@link io.netty.channel.RecvByteBufAllocator} and writes with {@code IORING_OP_SEND}, or {@code IORING_OP_WRITEV}
+ * via an {@link IovArray} if more than one buffer is flushed. {@link io.netty.channel.FileRegion}s are not supported.
+ */
+public abstract class AbstractIoUringStreamChannel extends AbstractIoUringChannel {
+
+    private static final String EXPECTED_TYPES =
+            " (expected: " + StringUtil.simpleClassName(ByteBuf.class) + ')';
+
+    private static final ClosedChannelException CLOSED_CHANNEL_EXCEPTION = new ClosedChannelException();
+
+    static {
+        CLOSED_CHANNEL_EXCEPTION.setStackTrace(EmptyArrays.EMPTY_STACK_TRACE);
+    }
+
+    private volatile boolean inputShutdown;
+    private volatile boolean outputShutdown;
+
+    // The buffers which are written by the write operation in flight. They are retained until the operation completes
+    // as the kernel still reads from them even if the channel is closed in the meantime.
+    private final List<ByteBuf> writtenBuffers = new ArrayList<ByteBuf>();
+    private final WriteProcessor writeProcessor = new WriteProcessor();
+    private IovArray iovArray;
+    private IOException writeFailure;
+
+    // Native memory which holds the sockaddr of the connect operation.
+    private long connectAddress;
+
+    AbstractIoUringStreamChannel(Channel parent, FileDescriptor fd, boolean active) {
+        super(parent, fd, active);
+    }
+
+    @Override
+    protected abstract IoUringStreamUnsafe newUnsafe();
+
+    @Override
+    protected void doWrite(ChannelOutboundBuffer in) throws Exception {
+        IOException writeFailure = this.writeFailure;
+        if (writeFailure != null) {
+            // The last write operation failed, propagate the failure so all flushed messages are failed.
+            this.writeFailure = null;
+            throw writeFailure;
+        }
+        for (;;) {
+            final int msgCount = in.size();
+            if (msgCount == 0) {
+                // Wrote all messages.
+                return;
+            }
+            Object msg = in.current();
+            if (!(msg instanceof ByteBuf)) {
+                // Should never reach here.
+                throw new Error();
+            }
+            ByteBuf buf = (ByteBuf) msg;
+            if (msgCount == 1 && buf.hasMemoryAddress()) {
+                int readableBytes = buf.readableBytes();
+                if (readableBytes == 0) {
+                    in.remove();
+                    continue;
+                }
+                writtenBuffers.add(buf.retain());
+                submit(OP_WRITE, Native.IORING_OP_SEND, buf.memoryAddress() + buf.readerIndex(), readableBytes, 0, 0);
+                return;
+            }
+
+            // Do a gathering write of all flushed buffers.
+            IovArray array = iovArray;
+            if (array == null) {
+                iovArray = array = new IovArray();
+            }
+            array.clear();
+            in.forEachFlushedMessage(writeProcessor);
+            if (array.count() == 0) {
+                // The outbound buffer contained empty buffers only.
+                releaseWrittenBuffers();
+                in.removeBytes(0);
+                continue;
+            }
+            submit(OP_WRITE, Native.IORING_OP_WRITEV, array.memoryAddress(0), array.count(), 0, 0);
+            return;
+        }
+    }
+
+    private void releaseWrittenBuffers() {
+        List<ByteBuf> buffers = writtenBuffers;
+        for (int i = 0; i < buffers.size(); i++) {
+            buffers.get(i).release();
+        }
+        buffers.clear();
+    }
+
+    @Override
+    protected Object filterOutboundMessage(Object msg) {
+        if (msg instanceof ByteBuf) {
+            ByteBuf buf = (ByteBuf) msg;
+            if (!buf.hasMemoryAddress()) {
+                if (buf instanceof CompositeByteBuf) {
+                    // Special handling of CompositeByteBuf to reduce memory copies if some of the Components
+                    // in the CompositeByteBuf are backed by a memoryAddress.
+                    CompositeByteBuf comp = (CompositeByteBuf) buf;
+                    if (!comp.isDirect() || comp.nioBufferCount() > IovArray.IOV_MAX) {
+                        // more then IOV_MAX buffers for gathering writes so just do a memory copy.
+                        buf = newDirectBuffer(buf);
+                        assert buf.hasMemoryAddress();
+                    }
+                } else {
+                    // We can only handle buffers with memory address so we need to copy if a non direct is
+                    // passed to write.
+                    buf = newDirectBuffer(buf);
+                    assert buf.hasMemoryAddress();
+                }
+            }
+            return buf;
+        }
+
+        throw new UnsupportedOperationException(
+                "unsupported message type: " + StringUtil.simpleClassName(msg) + EXPECTED_TYPES);
+    }
+
+    protected boolean isInputShutdown0() {
+        return inputShutdown;
+    }
+
+    protected boolean isOutputShutdown0() {
+        return outputShutdown || !isActive();
+    }
+
+    protected void shutdownOutput0(final ChannelPromise promise) {
+        try {
+            Native.shutdown(fd().intValue(), false, true);
+            outputShutdown = true;
+            promise.setSuccess();
+        } catch (Throwable cause) {
+            promise.setFailure(cause);
+        }
+    }
+
+    /**
+     * Submit the connect to the remote peer. The connect is always completed asynchronously.
+     */
+    protected void doConnect(InetSocketAddress remoteAddress, InetSocketAddress localAddress) throws Exception {
+        if (localAddress != null) {
+            Native.bind(fd().intValue(), localAddress);
+        }
+
+        boolean success = false;
+        try {
+            if (connectAddress == 0) {
+                connectAddress = PlatformDependent.allocateMemory(Native.SIZEOF_SOCKADDR_IN6);
+            }
+            int len = Native.encodeSockaddr(connectAddress, remoteAddress);
+            // IORING_OP_CONNECT expects the length of the address in the offset field.
+            submit(OP_CONNECT, Native.IORING_OP_CONNECT, connectAddress, 0, len, 0);
+            success = true;
+        } finally {
+            if (!success) {
+                doClose();
+            }
+        }
+    }
+
+    @Override
+    protected void doReleaseResources() {
+        if (iovArray != null) {
+            iovArray.release();
+            iovArray = null;
+        }
+        if (connectAddress != 0) {
+            PlatformDependent.freeMemory(connectAddress);
+            connectAddress = 0;
+        }
+    }
+
+    private final class WriteProcessor implements MessageProcessor {
+        @Override
+        public boolean processMessage(Object msg) throws Exception {
+            if (iovArray.processMessage(msg)) {
+                writtenBuffers.add(((ByteBuf) msg).retain());
+                return true;
+            }
+            return false;
+        }
+    }
+
+    class IoUringStreamUnsafe extends AbstractIoUringUnsafe {
+        /**
+         * The future of the current connection attempt.  If not null, subsequent
+         * connection attempts will fail.
+         */
+        private ChannelPromise connectPromise;
+        private ScheduledFuture<?> connectTimeoutFuture;
+        private SocketAddress requestedRemoteAddress;
+
+        // The buffer the read operation in flight reads into.
+        private ByteBuf readBuffer;
+
+        private void closeOnRead(ChannelPipeline pipeline) {
+            inputShutdown = true;
+            if (isOpen()) {
+                if (Boolean.TRUE.equals(config().getOption(ChannelOption.ALLOW_HALF_CLOSURE))) {
+                    pipeline.fireUserEventTriggered(ChannelInputShutdownEvent.INSTANCE);
+                } else {
+                    close(voidPromise());
+                }
+            }
+        }
+
+        @Override
+        void scheduleRead() throws IOException {
+            if (inputShutdown) {
+                return;
+            }
+            ByteBuf buf = allocateReadBuffer();
+            readBuffer = buf;
+            boolean success = false;
+            try {
+                submit(OP_READ, Native.IORING_OP_RECV,
+                        buf.memoryAddress() + buf.writerIndex(), buf.writableBytes(), 0, 0);
+                success = true;
+            } finally {
+                if (!success) {
+                    readBuffer = null;
+                    buf.release();
+                }
+            }
+        }
+
+        @Override
+        void readCompleted(int res) {
+            ByteBuf byteBuf = readBuffer;
+            readBuffer = null;
+            if (isReleased() || res == Native.ERRNO_ECANCELED_NEGATIVE) {
+                // The read was cancelled as the channel was closed or deregistered.
+                byteBuf.release();
+                return;
+            }
+
+            final ChannelPipeline pipeline = pipeline();
+            if (res > 0) {
+                byteBuf.writerIndex(byteBuf.writerIndex() + res);
+                recvBufAllocHandle().record(res);
+                readPending = false;
+                pipeline.fireChannelRead(byteBuf);
+                pipeline.fireChannelReadComplete();
+            } else {
+                byteBuf.release();
+                pipeline.fireChannelReadComplete();
+                if (res < 0) {
+                    pipeline.fireExceptionCaught(Native.ioResultException(
+                            "io_uring:read", res, Native.CONNECTION_RESET_EXCEPTION_READ));
+                }
+                // EOF or an IOException.
+                closeOnRead(pipeline);
+                return;
+            }
+
+            if (shouldReadAgain() && !isScheduled(OP_READ)) {
+                try {
+                    scheduleRead();
+                } catch (Throwable t) {
+                    pipeline.fireExceptionCaught(t);
+                    close(voidPromise());
+                }
+            }
+        }
+
+        @Override
+        void writeCompleted(int res) {
+            releaseWrittenBuffers();
+            if (isReleased()) {
+                // The outbound buffer was already failed by the close.
+                return;
+            }
+            if (res >= 0) {
+                ChannelOutboundBuffer in = outboundBuffer();
+                if (in != null) {
+                    in.removeBytes(res);
+                }
+            } else {
+                writeFailure = Native.ioResultException(
+                        "io_uring:write", res, Native.CONNECTION_RESET_EXCEPTION_WRITE);
+            }
+            // Write the remaining flushed messages or fail them if the write failed.
+            writeCompletedFlush();
+        }
+
+        @Override
+        public void connect(
+                final SocketAddress remoteAddress, final SocketAddress localAddress, final ChannelPromise promise) {
+            if (!promise.setUncancellable() || !ensureOpen(promise)) {
+                return;
+            }
+
+            try {
+                if (connectPromise != null) {
+                    throw new IllegalStateException("connection attempt already made");
+                }
+
+                doConnect(remoteAddress, localAddress);
+                connectPromise = promise;
+                requestedRemoteAddress = remoteAddress;
+
+                // Schedule connect timeout.
+                int connectTimeoutMillis = config().getConnectTimeoutMillis();
+                if (connectTimeoutMillis > 0) {
+                    connectTimeoutFuture = eventLoop().schedule(new Runnable() {
+                        @Override
+                        public void run() {
+                            ChannelPromise connectPromise = IoUringStreamUnsafe.this.connectPromise;
+                            ConnectTimeoutException cause =
+                                    new ConnectTimeoutException("connection timed out: " + remoteAddress);
+                            if (connectPromise != null && connectPromise.tryFailure(cause)) {
+                                close(voidPromise());
+                            }
+                        }
+                    }, connectTimeoutMillis, TimeUnit.MILLISECONDS);
+                }
+
+                promise.addListener(new ChannelFutureListener() {
+                    @Override
+                    public void operationComplete(ChannelFuture future) throws Exception {
+                        if (future.isCancelled()) {
+                            if (connectTimeoutFuture != null) {
+                                connectTimeoutFuture.cancel(false);
+                            }
+                            connectPromise = null;
+                            close(voidPromise());
+                        }
+                    }
+                });
+            } catch (Throwable t) {
+                closeIfClosed();
+                promise.tryFailure(annotateConnectException(t, remoteAddress));
+            }
+        }
+
+        /**
+         * Connect to the given remote address. Called from {@link #connect(SocketAddress, SocketAddress,
+         * ChannelPromise)}.
+         */
+        protected void doConnect(SocketAddress remoteAddress, SocketAddress localAddress) throws Exception {
+            AbstractIoUringStreamChannel.this.doConnect(
+                    (InetSocketAddress) remoteAddress, (InetSocketAddress) localAddress);
+        }
+
+        @Override
+        void connectCompleted(int res) {
+            // Note this method is invoked by the event loop only if the connection attempt was
+            // neither cancelled nor timed out.
+            assert eventLoop().inEventLoop();
+
+            ChannelPromise promise = connectPromise;
+            try {
+                if (isReleased()) {
+                    if (promise != null) {
+                        promise.tryFailure(CLOSED_CHANNEL_EXCEPTION);
+                    }
+                    return;
+                }
+                if (res < 0) {
+                    fulfillConnectPromise(promise, annotateConnectException(
+                            Native.connectException(res), requestedRemoteAddress));
+                } else {
+                    fulfillConnectPromise(promise, isActive());
+                }
+            } finally {
+                // Check for null as the connectTimeoutFuture is only created if a connectTimeoutMillis > 0 is used
+                // See https://github.com/netty/netty/issues/1770
+                if (connectTimeoutFuture != null) {
+                    connectTimeoutFuture.cancel(false);
+                }
+                connectPromise = null;
+            }
+        }
+
+        private void fulfillConnectPromise(ChannelPromise promise, boolean wasActive) {
+            if (promise == null) {
+                // Closed via cancellation and the promise has been notified already.
+                return;
+            }
+            active = true;
+            connected();
+
+            // trySuccess() will return false if a user cancelled the connection attempt.
+            boolean promiseSet = promise.trySuccess();
+
+            // Regardless if the connection attempt was cancelled, channelActive() event should be triggered,
+            // because what happened is what happened.
+            if (!wasActive && isActive()) {
+                pipeline().fireChannelActive();
+            }
+
+            // If a user cancelled the connection attempt, close the channel, which is followed by channelInactive().
+            if (!promiseSet) {
+                close(voidPromise());
+            }
+        }
+
+        private void fulfillConnectPromise(ChannelPromise promise, Throwable cause) {
+            if (promise == null) {
+                // Closed via cancellation and the promise has been notified already.
+                return;
+            }
+
+            // Use tryFailure() instead of setFailure() to avoid the race against cancel().
+            promise.tryFailure(cause);
+            closeIfClosed();
+        }
+
+        /**
+         * Called once the connection was established.
+         */
+        protected void connected() {
+            // NOOP
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * Tells if the {@code netty-transport-native-io_uring} transport is supported.
+ *
+ * It needs a Linux kernel which supports all of the used io_uring operations, which means at least Linux 5.6. If the
+ * transport is not available the epoll or NIO transports should be used instead.
+ */
+public final class IoUring {
+
+    private static final Throwable UNAVAILABILITY_CAUSE;
+
+    static  {
+        Throwable cause = null;
+        int ringFd = -1;
+        long[] ring = new long[Native.RING_LENGTH];
+        try {
+            if (!PlatformDependent.hasUnsafe()) {
+                throw new IllegalStateException("sun.misc.Unsafe not available");
+            }
+            ringFd = Native.ioUringSetup(2, ring);
+            if ((ring[Native.RING_FEATURES] & Native.IORING_FEAT_NODROP) == 0) {
+                // Older kernels may drop completions which we can not handle.
+                throw new UnsupportedOperationException("io_uring does not support IORING_FEAT_NODROP");
+            }
+            if (!Native.ioUringProbe(ringFd, Native.REQUIRED_OPS)) {
+                throw new UnsupportedOperationException("io_uring does not support all required operations");
+            }
+        } catch (Throwable t) {
+            cause = t;
+        } finally {
+            if (ringFd != -1) {
+                Native.ioUringExit(ringFd, ring);
+            }
+        }
+        UNAVAILABILITY_CAUSE = cause;
+    }
+
+    /**
+     * Returns {@code true} if and only if the {@code netty-transport-native-io_uring} is available.
+     */
+    public static boolean isAvailable() {
+        return UNAVAILABILITY_CAUSE == null;
+    }
+
+    /**
+     * Ensure that {@code netty-transport-native-io_uring} is available.
+     *
+     * @throws UnsatisfiedLinkError if unavailable
+     */
+    public static void ensureAvailability() {
+        if (UNAVAILABILITY_CAUSE != null) {
+            throw (Error) new UnsatisfiedLinkError(
+                    "failed to load the required native library").initCause(UNAVAILABILITY_CAUSE);
+        }
+    }
+
+    /**
+     * Returns the cause of unavailability of {@code netty-transport-native-io_uring}.
+     *
+     * @return the cause if unavailable. {@code null} if available.
+     */
+    public static Throwable unavailabilityCause() {
+        return UNAVAILABILITY_CAUSE;
+    }
+
+    private IoUring() { }
+}
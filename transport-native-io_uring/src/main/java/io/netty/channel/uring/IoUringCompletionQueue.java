@@ -0,0 +1,92 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * The completion queue of an io_uring instance.
+ *
+ * <pre>
+ * struct io_uring_cqe {
+ *   __u64 user_data;   // 0
+ *   __s32 res;         // 8
+ *   __u32 flags;       // 12
+ * };
+ * </pre>
+ *
+ * Not thread-safe, must only be used from the {@link IoUringEventLoop}.
+ */
+final class IoUringCompletionQueue {
+    private static final int CQE_SIZE = 16;
+    private static final int CQE_USER_DATA = 0;
+    private static final int CQE_RES = 8;
+    private static final int CQE_FLAGS = 12;
+
+    /**
+     * Callback which is notified for each completion.
+     */
+    interface CompletionCallback {
+        void handle(long userData, int res, int flags);
+    }
+
+    private final long headAddress;
+    private final long tailAddress;
+    private final long cqesAddress;
+    private final int ringMask;
+
+    private int head;
+
+    IoUringCompletionQueue(long[] ring) {
+        headAddress = ring[Native.RING_CQ_HEAD];
+        tailAddress = ring[Native.RING_CQ_TAIL];
+        cqesAddress = ring[Native.RING_CQES];
+        ringMask = PlatformDependent.getInt(ring[Native.RING_CQ_MASK]);
+        head = PlatformDependent.getInt(headAddress);
+    }
+
+    /**
+     * Returns {@code true} if there are completions which were not processed yet.
+     */
+    boolean hasCompletions() {
+        return head != PlatformDependent.getIntVolatile(tailAddress);
+    }
+
+    /**
+     * Process all ready completions and return how many were processed. Completions which are produced while
+     * the callback is notified are processed as well.
+     */
+    int process(CompletionCallback callback) {
+        int processed = 0;
+        int tail = PlatformDependent.getIntVolatile(tailAddress);
+        while (head != tail) {
+            long cqe = cqesAddress + (long) CQE_SIZE * (head & ringMask);
+            long userData = PlatformDependent.getLong(cqe + CQE_USER_DATA);
+            int res = PlatformDependent.getInt(cqe + CQE_RES);
+            int flags = PlatformDependent.getInt(cqe + CQE_FLAGS);
+
+            // Hand the slot back to the kernel before calling the callback as it may submit new entries.
+            PlatformDependent.putOrderedInt(headAddress, ++head);
+            processed++;
+            callback.handle(userData, res, flags);
+
+            if (head == tail) {
+                tail = PlatformDependent.getIntVolatile(tailAddress);
+            }
+        }
+        return processed;
+    }
+}
@@ -0,0 +1,605 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.channel.AddressedEnvelope;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelMetadata;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultAddressedEnvelope;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.channel.unix.FileDescriptor;
+import io.netty.channel.unix.IovArray;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.StringUtil;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.nio.channels.NotYetConnectedException;
+
+/**
+ * {@link DatagramChannel} implementation that uses linux io_uring to submit {@code recvmsg} and {@code sendmsg}
+ * operations asynchronously. Multicast is not supported.
+ */
+public final class IoUringDatagramChannel extends AbstractIoUringChannel implements DatagramChannel {
+    private static final ChannelMetadata METADATA = new ChannelMetadata(true);
+    private static final String EXPECTED_TYPES =
+            " (expected: " + StringUtil.simpleClassName(DatagramPacket.class) + ", " +
+            StringUtil.simpleClassName(AddressedEnvelope.class) + '<' +
+            StringUtil.simpleClassName(ByteBuf.class) + ", " +
+            StringUtil.simpleClassName(InetSocketAddress.class) + ">, " +
+            StringUtil.simpleClassName(ByteBuf.class) + ')';
+
+    private static final int ADDRESS_SIZE = PlatformDependent.addressSize();
+    // Layout of the native memory of a channel: the msghdr, iovec and sockaddr of the recvmsg operation followed by
+    // the msghdr and sockaddr of the sendmsg operation. The iovecs of the sendmsg operation are stored in an IovArray.
+    private static final int MSGHDR_SIZE = align(Native.SIZEOF_MSGHDR);
+    private static final int SOCKADDR_SIZE = align(Native.SIZEOF_SOCKADDR_IN6);
+    private static final int RECV_MSGHDR_OFFSET = 0;
+    private static final int RECV_IOV_OFFSET = RECV_MSGHDR_OFFSET + MSGHDR_SIZE;
+    private static final int RECV_SOCKADDR_OFFSET = RECV_IOV_OFFSET + 2 * ADDRESS_SIZE;
+    private static final int SEND_MSGHDR_OFFSET = RECV_SOCKADDR_OFFSET + SOCKADDR_SIZE;
+    private static final int SEND_SOCKADDR_OFFSET = SEND_MSGHDR_OFFSET + MSGHDR_SIZE;
+    private static final int MEMORY_SIZE = SEND_SOCKADDR_OFFSET + SOCKADDR_SIZE;
+
+    private volatile InetSocketAddress local;
+    private volatile InetSocketAddress remote;
+    private volatile boolean connected;
+    private final IoUringDatagramChannelConfig config;
+
+    private long memoryAddress;
+    private IovArray iovArray;
+    // The buffer which is written by the sendmsg operation in flight. It is retained until the operation completes
+    // as the kernel still reads from it even if the channel is closed in the meantime.
+    private ByteBuf writtenBuffer;
+
+    public IoUringDatagramChannel() {
+        super(null, new FileDescriptor(Native.socketDgramFd()), false);
+        config = new IoUringDatagramChannelConfig(this);
+    }
+
+    /**
+     * Create a new {@link IoUringDatagramChannel} from the given {@link FileDescriptor}.
+     */
+    public IoUringDatagramChannel(FileDescriptor fd) {
+        super(null, fd, true);
+        config = new IoUringDatagramChannelConfig(this);
+
+        // As we create an IoUringDatagramChannel from a FileDescriptor we should try to obtain the remote and local
+        // address from it. This is needed as the FileDescriptor may be bound already.
+        local = Native.localAddress(fd.intValue());
+    }
+
+    @Override
+    public InetSocketAddress remoteAddress() {
+        return (InetSocketAddress) super.remoteAddress();
+    }
+
+    @Override
+    public InetSocketAddress localAddress() {
+        return (InetSocketAddress) super.localAddress();
+    }
+
+    @Override
+    public ChannelMetadata metadata() {
+        return METADATA;
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public boolean isActive() {
+        return fd().isOpen() &&
+                (config.getOption(ChannelOption.DATAGRAM_CHANNEL_ACTIVE_ON_REGISTRATION) && isRegistered()
+                        || active);
+    }
+
+    @Override
+    public boolean isConnected() {
+        return connected;
+    }
+
+    @Override
+    public ChannelFuture joinGroup(InetAddress multicastAddress) {
+        return joinGroup(multicastAddress, newPromise());
+    }
+
+    @Override
+    public ChannelFuture joinGroup(InetAddress multicastAddress, ChannelPromise promise) {
+        try {
+            return joinGroup(
+                    multicastAddress,
+                    NetworkInterface.getByInetAddress(localAddress().getAddress()),
+                    null, promise);
+        } catch (SocketException e) {
+            promise.setFailure(e);
+        }
+        return promise;
+    }
+
+    @Override
+    public ChannelFuture joinGroup(
+            InetSocketAddress multicastAddress, NetworkInterface networkInterface) {
+        return joinGroup(multicastAddress, networkInterface, newPromise());
+    }
+
+    @Override
+    public ChannelFuture joinGroup(
+            InetSocketAddress multicastAddress, NetworkInterface networkInterface,
+            ChannelPromise promise) {
+        return joinGroup(multicastAddress.getAddress(), networkInterface, null, promise);
+    }
+
+    @Override
+    public ChannelFuture joinGroup(
+            InetAddress multicastAddress, NetworkInterface networkInterface, InetAddress source) {
+        return joinGroup(multicastAddress, networkInterface, source, newPromise());
+    }
+
+    @Override
+    public ChannelFuture joinGroup(
+            final InetAddress multicastAddress, final NetworkInterface networkInterface,
+            final InetAddress source, final ChannelPromise promise) {
+
+        if (multicastAddress == null) {
+            throw new NullPointerException("multicastAddress");
+        }
+
+        if (networkInterface == null) {
+            throw new NullPointerException("networkInterface");
+        }
+
+        promise.setFailure(new UnsupportedOperationException("Multicast not supported"));
+        return promise;
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(InetAddress multicastAddress) {
+        return leaveGroup(multicastAddress, newPromise());
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(InetAddress multicastAddress, ChannelPromise promise) {
+        try {
+            return leaveGroup(
+                    multicastAddress, NetworkInterface.getByInetAddress(localAddress().getAddress()), null, promise);
+        } catch (SocketException e) {
+            promise.setFailure(e);
+        }
+        return promise;
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(
+            InetSocketAddress multicastAddress, NetworkInterface networkInterface) {
+        return leaveGroup(multicastAddress, networkInterface, newPromise());
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(
+            InetSocketAddress multicastAddress,
+            NetworkInterface networkInterface, ChannelPromise promise) {
+        return leaveGroup(multicastAddress.getAddress(), networkInterface, null, promise);
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(
+            InetAddress multicastAddress, NetworkInterface networkInterface, InetAddress source) {
+        return leaveGroup(multicastAddress, networkInterface, source, newPromise());
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(
+            final InetAddress multicastAddress, final NetworkInterface networkInterface, final InetAddress source,
+            final ChannelPromise promise) {
+        if (multicastAddress == null) {
+            throw new NullPointerException("multicastAddress");
+        }
+        if (networkInterface == null) {
+            throw new NullPointerException("networkInterface");
+        }
+
+        promise.setFailure(new UnsupportedOperationException("Multicast not supported"));
+
+        return promise;
+    }
+
+    @Override
+    public ChannelFuture block(
+            InetAddress multicastAddress, NetworkInterface networkInterface,
+            InetAddress sourceToBlock) {
+        return block(multicastAddress, networkInterface, sourceToBlock, newPromise());
+    }
+
+    @Override
+    public ChannelFuture block(
+            final InetAddress multicastAddress, final NetworkInterface networkInterface,
+            final InetAddress sourceToBlock, final ChannelPromise promise) {
+        if (multicastAddress == null) {
+            throw new NullPointerException("multicastAddress");
+        }
+        if (sourceToBlock == null) {
+            throw new NullPointerException("sourceToBlock");
+        }
+
+        if (networkInterface == null) {
+            throw new NullPointerException("networkInterface");
+        }
+        promise.setFailure(new UnsupportedOperationException("Multicast not supported"));
+        return promise;
+    }
+
+    @Override
+    public ChannelFuture block(InetAddress multicastAddress, InetAddress sourceToBlock) {
+        return block(multicastAddress, sourceToBlock, newPromise());
+    }
+
+    @Override
+    public ChannelFuture block(
+            InetAddress multicastAddress, InetAddress sourceToBlock, ChannelPromise promise) {
+        try {
+            return block(
+                    multicastAddress,
+                    NetworkInterface.getByInetAddress(localAddress().getAddress()),
+                    sourceToBlock, promise);
+        } catch (Throwable e) {
+            promise.setFailure(e);
+        }
+        return promise;
+    }
+
+    @Override
+    protected AbstractIoUringUnsafe newUnsafe() {
+        return new IoUringDatagramChannelUnsafe();
+    }
+
+    @Override
+    protected InetSocketAddress localAddress0() {
+        return local;
+    }
+
+    @Override
+    protected InetSocketAddress remoteAddress0() {
+        return remote;
+    }
+
+    @Override
+    protected void doBind(SocketAddress localAddress) throws Exception {
+        InetSocketAddress addr = (InetSocketAddress) localAddress;
+        checkResolvable(addr);
+        int fd = fd().intValue();
+        Native.bind(fd, addr);
+        local = Native.localAddress(fd);
+        active = true;
+    }
+
+    @Override
+    protected void doWrite(ChannelOutboundBuffer in) throws Exception {
+        for (;;) {
+            Object msg = in.current();
+            if (msg == null) {
+                // Wrote all messages.
+                return;
+            }
+            try {
+                if (submitSendMsg(msg)) {
+                    return;
+                }
+                in.remove();
+            } catch (IOException e) {
+                // Continue on write error as a DatagramChannel can write to multiple remote peers
+                //
+                // See https://github.com/netty/netty/issues/2665
+                in.remove(e);
+            } catch (NotYetConnectedException e) {
+                in.remove(e);
+            }
+        }
+    }
+
+    /**
+     * Submit a {@code sendmsg} operation for the given message. Returns {@code false} if there was nothing to write.
+     */
+    private boolean submitSendMsg(Object msg) throws IOException {
+        final ByteBuf data;
+        InetSocketAddress remoteAddress;
+        if (msg instanceof AddressedEnvelope) {
+            @SuppressWarnings("unchecked")
+            AddressedEnvelope<ByteBuf, InetSocketAddress> envelope =
+                    (AddressedEnvelope<ByteBuf, InetSocketAddress>) msg;
+            data = envelope.content();
+            remoteAddress = envelope.recipient();
+        } else {
+            data = (ByteBuf) msg;
+            remoteAddress = null;
+        }
+
+        if (data.readableBytes() == 0) {
+            return false;
+        }
+
+        if (remoteAddress == null) {
+            remoteAddress = remote;
+            if (remoteAddress == null) {
+                throw new NotYetConnectedException();
+            }
+        }
+
+        IovArray array = iovArray;
+        if (array == null) {
+            iovArray = array = new IovArray();
+        }
+        array.clear();
+        if (data instanceof CompositeByteBuf) {
+            array.add((CompositeByteBuf) data);
+        } else {
+            array.add(data);
+        }
+
+        long address = memory();
+        long msghdr = address + SEND_MSGHDR_OFFSET;
+        long sockaddr = address + SEND_SOCKADDR_OFFSET;
+        int sockaddrLen = Native.encodeSockaddr(sockaddr, remoteAddress);
+        initMsghdr(msghdr, sockaddr, sockaddrLen, array.memoryAddress(0), array.count());
+
+        writtenBuffer = data.retain();
+        boolean success = false;
+        try {
+            submit(OP_WRITE, Native.IORING_OP_SENDMSG, msghdr, 1, 0, 0);
+            success = true;
+        } finally {
+            if (!success) {
+                writtenBuffer = null;
+                data.release();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected Object filterOutboundMessage(Object msg) {
+        if (msg instanceof DatagramPacket) {
+            DatagramPacket packet = (DatagramPacket) msg;
+            ByteBuf content = packet.content();
+            if (isWritable(content)) {
+                return msg;
+            }
+
+            // We can only handle direct buffers so we need to copy if a non direct is
+            // passed to write.
+            return new DatagramPacket(newDirectBuffer(packet, content), packet.recipient());
+        }
+
+        if (msg instanceof ByteBuf) {
+            ByteBuf buf = (ByteBuf) msg;
+            if (isWritable(buf)) {
+                return buf;
+            }
+            return newDirectBuffer(buf);
+        }
+
+        if (msg instanceof AddressedEnvelope) {
+            @SuppressWarnings("unchecked")
+            AddressedEnvelope<Object, SocketAddress> e = (AddressedEnvelope<Object, SocketAddress>) msg;
+            if (e.content() instanceof ByteBuf &&
+                (e.recipient() == null || e.recipient() instanceof InetSocketAddress)) {
+
+                ByteBuf content = (ByteBuf) e.content();
+                if (isWritable(content)) {
+                    return e;
+                }
+                // We can only handle direct buffers so we need to copy if a non direct is
+                // passed to write.
+                return new DefaultAddressedEnvelope<ByteBuf, InetSocketAddress>(
+                        newDirectBuffer(e, content), (InetSocketAddress) e.recipient());
+            }
+        }
+
+        throw new UnsupportedOperationException(
+                "unsupported message type: " + StringUtil.simpleClassName(msg) + EXPECTED_TYPES);
+    }
+
+    private static boolean isWritable(ByteBuf buf) {
+        if (buf.hasMemoryAddress()) {
+            return true;
+        }
+        // Special handling of CompositeByteBuf to reduce memory copies if some of the Components
+        // in the CompositeByteBuf are backed by a memoryAddress.
+        return buf instanceof CompositeByteBuf && buf.isDirect() && buf.nioBufferCount() <= IovArray.IOV_MAX;
+    }
+
+    @Override
+    public IoUringDatagramChannelConfig config() {
+        return config;
+    }
+
+    @Override
+    protected void doDisconnect() throws Exception {
+        connected = false;
+    }
+
+    @Override
+    protected void doReleaseResources() {
+        if (iovArray != null) {
+            iovArray.release();
+            iovArray = null;
+        }
+        if (memoryAddress != 0) {
+            PlatformDependent.freeMemory(memoryAddress);
+            memoryAddress = 0;
+        }
+    }
+
+    private long memory() {
+        long address = memoryAddress;
+        if (address == 0) {
+            memoryAddress = address = PlatformDependent.allocateMemory(MEMORY_SIZE);
+        }
+        return address;
+    }
+
+    private static void initMsghdr(long msghdr, long name, int nameLen, long iov, int iovLen) {
+        for (int i = 0; i < Native.SIZEOF_MSGHDR; i += 4) {
+            PlatformDependent.putInt(msghdr + i, 0);
+        }
+        putAddress(msghdr + Native.MSGHDR_OFFSETOF_NAME, name);
+        PlatformDependent.putInt(msghdr + Native.MSGHDR_OFFSETOF_NAMELEN, nameLen);
+        putAddress(msghdr + Native.MSGHDR_OFFSETOF_IOV, iov);
+        putAddress(msghdr + Native.MSGHDR_OFFSETOF_IOVLEN, iovLen);
+    }
+
+    private static void putAddress(long address, long value) {
+        if (ADDRESS_SIZE == 8) {
+            PlatformDependent.putLong(address, value);
+        } else {
+            assert ADDRESS_SIZE == 4;
+            PlatformDependent.putInt(address, (int) value);
+        }
+    }
+
+    private static int align(int size) {
+        return size + 7 & ~7;
+    }
+
+    final class IoUringDatagramChannelUnsafe extends AbstractIoUringUnsafe {
+
+        // The buffer the recvmsg operation in flight reads into.
+        private ByteBuf readBuffer;
+
+        @Override
+        public void connect(SocketAddress remote, SocketAddress local, ChannelPromise channelPromise) {
+            boolean success = false;
+            try {
+                try {
+                    boolean wasActive = isActive();
+                    InetSocketAddress remoteAddress = (InetSocketAddress) remote;
+                    if (local != null) {
+                        InetSocketAddress localAddress = (InetSocketAddress) local;
+                        doBind(localAddress);
+                    }
+
+                    checkResolvable(remoteAddress);
+                    IoUringDatagramChannel.this.remote = remoteAddress;
+                    IoUringDatagramChannel.this.local = Native.localAddress(fd().intValue());
+                    success = true;
+
+                    // Regardless if the connection attempt was cancelled, channelActive() event should be triggered,
+                    // because what happened is what happened.
+                    if (!wasActive && isActive()) {
+                        pipeline().fireChannelActive();
+                    }
+                } finally {
+                    if (!success) {
+                        doClose();
+                    } else {
+                        channelPromise.setSuccess();
+                        connected = true;
+                    }
+                }
+            } catch (Throwable cause) {
+                channelPromise.setFailure(cause);
+            }
+        }
+
+        @Override
+        void scheduleRead() throws IOException {
+            ByteBuf buf = allocateReadBuffer();
+            readBuffer = buf;
+            boolean success = false;
+            try {
+                long address = memory();
+                long msghdr = address + RECV_MSGHDR_OFFSET;
+                long iov = address + RECV_IOV_OFFSET;
+                putAddress(iov, buf.memoryAddress() + buf.writerIndex());
+                putAddress(iov + ADDRESS_SIZE, buf.writableBytes());
+                initMsghdr(msghdr, address + RECV_SOCKADDR_OFFSET, Native.SIZEOF_SOCKADDR_IN6, iov, 1);
+                submit(OP_READ, Native.IORING_OP_RECVMSG, msghdr, 1, 0, 0);
+                success = true;
+            } finally {
+                if (!success) {
+                    readBuffer = null;
+                    buf.release();
+                }
+            }
+        }
+
+        @Override
+        void readCompleted(int res) {
+            ByteBuf byteBuf = readBuffer;
+            readBuffer = null;
+            if (isReleased() || res == Native.ERRNO_ECANCELED_NEGATIVE) {
+                // The read was cancelled as the channel was closed or deregistered.
+                byteBuf.release();
+                return;
+            }
+
+            final ChannelPipeline pipeline = pipeline();
+            if (res >= 0) {
+                byteBuf.writerIndex(byteBuf.writerIndex() + res);
+                recvBufAllocHandle().record(res);
+                readPending = false;
+                InetSocketAddress sender = Native.decodeSockaddr(memoryAddress + RECV_SOCKADDR_OFFSET);
+                pipeline.fireChannelRead(new DatagramPacket(byteBuf, local, sender));
+                pipeline.fireChannelReadComplete();
+            } else {
+                byteBuf.release();
+                pipeline.fireChannelReadComplete();
+                pipeline.fireExceptionCaught(Native.newIOException("io_uring:recvmsg", res));
+            }
+
+            if (shouldReadAgain() && !isScheduled(OP_READ)) {
+                try {
+                    scheduleRead();
+                } catch (Throwable t) {
+                    pipeline.fireExceptionCaught(t);
+                    close(voidPromise());
+                }
+            }
+        }
+
+        @Override
+        void writeCompleted(int res) {
+            writtenBuffer.release();
+            writtenBuffer = null;
+            if (isReleased()) {
+                // The outbound buffer was already failed by the close.
+                return;
+            }
+            ChannelOutboundBuffer in = outboundBuffer();
+            if (in != null) {
+                if (res >= 0) {
+                    in.remove();
+                } else {
+                    // Continue on write error as a DatagramChannel can write to multiple remote peers
+                    //
+                    // See https://github.com/netty/netty/issues/2665
+                    in.remove(Native.ioResultException(
+                            "io_uring:sendmsg", res, Native.CONNECTION_RESET_EXCEPTION_SENDMSG));
+                }
+            }
+            writeCompletedFlush();
+        }
+    }
+}
@@ -0,0 +1,376 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SingleThreadEventLoop;
+import io.netty.channel.unix.FileDescriptor;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * A {@link SingleThreadEventLoop} implementation which uses <a href="http://kernel.dk/io_uring.pdf">io_uring</a>
+ * under the covers. This {@link EventLoop} works only on Linux systems!
+ *
+ * All operations of the registered channels are only enqueued in the submission queue and submitted together with
+ * a single {@code io_uring_enter(...)} call per iteration, which also waits for the next completions. The
+ * {@code user_data} of each submission encodes the id of the channel (assigned on registration) and the opcode, so
+ * completions can be routed back without any lookup structure besides the id map.
+ */
+final class IoUringEventLoop extends SingleThreadEventLoop implements IoUringCompletionQueue.CompletionCallback {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(IoUringEventLoop.class);
+    private static final AtomicIntegerFieldUpdater<IoUringEventLoop> WAKEN_UP_UPDATER;
+
+    static {
+        AtomicIntegerFieldUpdater<IoUringEventLoop> updater =
+                PlatformDependent.newAtomicIntegerFieldUpdater(IoUringEventLoop.class, "wakenUp");
+        if (updater == null) {
+            updater = AtomicIntegerFieldUpdater.newUpdater(IoUringEventLoop.class, "wakenUp");
+        }
+        WAKEN_UP_UPDATER = updater;
+    }
+
+    /**
+     * The id used for the operations of the event loop itself. Channels never get this id assigned.
+     */
+    private static final int LOOP_ID = 0;
+    private static final int DRAIN_ATTEMPTS = 10;
+    private static final long DRAIN_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final int ringFd;
+    private final long[] ring = new long[Native.RING_LENGTH];
+    private final IoUringSubmissionQueue submissionQueue;
+    private final IoUringCompletionQueue completionQueue;
+    private final int eventFd;
+
+    // Native memory which is used by the operations of the event loop itself:
+    // 8 bytes for the eventfd counter followed by a struct __kernel_timespec for the timeout.
+    private final long memoryAddress;
+    private final long eventFdBufferAddress;
+    private final long timeoutAddress;
+
+    private final IntObjectMap<AbstractIoUringChannel> channels =
+            new IntObjectHashMap<AbstractIoUringChannel>(4096);
+    private int lastId;
+
+    private boolean eventFdReadPending;
+    private boolean timeoutPending;
+    private long timeoutDeadlineNanos;
+    private int timeoutGeneration;
+
+    @SuppressWarnings("unused")
+    private volatile int wakenUp;
+    private volatile int ioRatio = 50;
+
+    IoUringEventLoop(EventLoopGroup parent, Executor executor, int ringSize) {
+        super(parent, executor, false);
+        IoUring.ensureAvailability();
+        boolean success = false;
+        int ringFd = -1;
+        int eventFd = -1;
+        try {
+            this.ringFd = ringFd = Native.ioUringSetup(ringSize, ring);
+            this.eventFd = eventFd = Native.eventFd();
+            success = true;
+        } catch (IOException e) {
+            throw new IllegalStateException("failed to create a new io_uring instance", e);
+        } finally {
+            if (!success) {
+                if (ringFd != -1) {
+                    Native.ioUringExit(ringFd, ring);
+                }
+                if (eventFd != -1) {
+                    try {
+                        new FileDescriptor(eventFd).close();
+                    } catch (Exception e) {
+                        // ignore
+                    }
+                }
+            }
+        }
+        submissionQueue = new IoUringSubmissionQueue(ringFd, ring);
+        completionQueue = new IoUringCompletionQueue(ring);
+        memoryAddress = PlatformDependent.allocateMemory(24);
+        eventFdBufferAddress = memoryAddress;
+        timeoutAddress = memoryAddress + 8;
+    }
+
+    /**
+     * Encode the {@code user_data} of a submission.
+     */
+    static long userData(int id, byte op, int data) {
+        return (long) id << 32 | (op & 0xffL) << 16 | data & 0xffff;
+    }
+
+    @Override
+    protected void wakeup(boolean inEventLoop) {
+        if (!inEventLoop && WAKEN_UP_UPDATER.compareAndSet(this, 0, 1)) {
+            // write to the eventfd which will then complete the pending read and so wake-up io_uring_enter(...)
+            Native.eventFdWrite(eventFd, 1L);
+        }
+    }
+
+    /**
+     * Register the given channel with this {@link EventLoop} and return the id which must be used for all of its
+     * submissions.
+     */
+    int add(AbstractIoUringChannel ch) {
+        assert inEventLoop();
+        int id = lastId;
+        do {
+            id++;
+            if (id == LOOP_ID) {
+                id++;
+            }
+        } while (channels.containsKey(id));
+        lastId = id;
+        channels.put(id, ch);
+        return id;
+    }
+
+    /**
+     * Remove the registration with the given id. Must only be called once no operation of it is in flight anymore.
+     */
+    void remove(int id) {
+        assert inEventLoop();
+        channels.remove(id);
+    }
+
+    /**
+     * Enqueue a new submission for the channel with the given id. It is submitted to the kernel together with all
+     * other pending submissions in the next iteration of the event loop.
+     */
+    void submit(byte op, int fd, long address, int len, long offset, int opFlags, int id, int data)
+            throws IOException {
+        assert inEventLoop();
+        submissionQueue.enqueue(op, 0, fd, address, len, offset, opFlags, userData(id, op, data));
+    }
+
+    /**
+     * Enqueue the cancellation of the operation with the given {@code user_data}.
+     */
+    void submitCancel(int fd, long userData, int id) throws IOException {
+        assert inEventLoop();
+        submissionQueue.enqueue(Native.IORING_OP_ASYNC_CANCEL, 0, fd, userData, 0, 0, 0,
+                userData(id, Native.IORING_OP_ASYNC_CANCEL, 0));
+    }
+
+    /**
+     * Submit all pending submissions to the kernel now. This must be done before a file descriptor with pending
+     * submissions is closed, as the kernel resolves the file descriptor of an operation only once it is submitted.
+     * Otherwise the operation could end up on a new file which reuses the same file descriptor number.
+     */
+    void submitPending() throws IOException {
+        assert inEventLoop();
+        if (submissionQueue.pending() != 0) {
+            submissionQueue.submit();
+        }
+    }
+
+    @Override
+    protected Queue<Runnable> newTaskQueue() {
+        // This event loop never calls takeTask()
+        return PlatformDependent.newMpscQueue();
+    }
+
+    /**
+     * Returns the percentage of the desired amount of time spent for I/O in the event loop.
+     */
+    public int getIoRatio() {
+        return ioRatio;
+    }
+
+    /**
+     * Sets the percentage of the desired amount of time spent for I/O in the event loop.  The default value is
+     * {@code 50}, which means the event loop will try to spend the same amount of time for I/O as for non-I/O tasks.
+     */
+    public void setIoRatio(int ioRatio) {
+        if (ioRatio <= 0 || ioRatio > 100) {
+            throw new IllegalArgumentException("ioRatio: " + ioRatio + " (expected: 0 < ioRatio <= 100)");
+        }
+        this.ioRatio = ioRatio;
+    }
+
+    private void armEventFd() throws IOException {
+        if (!eventFdReadPending) {
+            submissionQueue.enqueue(Native.IORING_OP_READ, 0, eventFd, eventFdBufferAddress, 8, 0, 0,
+                    userData(LOOP_ID, Native.IORING_OP_READ, 0));
+            eventFdReadPending = true;
+        }
+    }
+
+    /**
+     * Make sure the ring is waken up at the latest at the given deadline. A pending timeout which expires earlier is
+     * kept as it only results in an additional iteration of the event loop.
+     */
+    private void armTimeout(long deadlineNanos) throws IOException {
+        if (timeoutPending) {
+            if (timeoutDeadlineNanos - deadlineNanos <= 0) {
+                return;
+            }
+            submissionQueue.enqueue(Native.IORING_OP_TIMEOUT_REMOVE, 0, -1,
+                    userData(LOOP_ID, Native.IORING_OP_TIMEOUT, timeoutGeneration), 0, 0, 0,
+                    userData(LOOP_ID, Native.IORING_OP_TIMEOUT_REMOVE, 0));
+        }
+        long timeoutNanos = Math.max(0, deadlineNanos - System.nanoTime());
+        // struct __kernel_timespec { int64_t tv_sec; long long tv_nsec; } which is copied by the kernel on submit.
+        PlatformDependent.putLong(timeoutAddress, timeoutNanos / 1000000000L);
+        PlatformDependent.putLong(timeoutAddress + 8, timeoutNanos % 1000000000L);
+        timeoutGeneration = (timeoutGeneration + 1) & 0xffff;
+        submissionQueue.enqueue(Native.IORING_OP_TIMEOUT, 0, -1, timeoutAddress, 1, 0, 0,
+                userData(LOOP_ID, Native.IORING_OP_TIMEOUT, timeoutGeneration));
+        timeoutPending = true;
+        timeoutDeadlineNanos = deadlineNanos;
+    }
+
+    @Override
+    protected void run() {
+        WAKEN_UP_UPDATER.set(this, 0);
+        try {
+            armEventFd();
+            if (hasTasks() || completionQueue.hasCompletions()) {
+                // Non blocking, just submit what is pending and process what is ready.
+                submissionQueue.submit();
+            } else {
+                long currentTimeNanos = System.nanoTime();
+                armTimeout(currentTimeNanos + delayNanos(currentTimeNanos));
+                // If a task is added from now on, wakeup(...) will complete the pending eventfd read and so
+                // io_uring_enter(...) will return.
+                submissionQueue.submitAndWait();
+            }
+
+            final int ioRatio = this.ioRatio;
+            if (ioRatio == 100) {
+                processCompletions();
+                runAllTasks();
+            } else {
+                final long ioStartTime = System.nanoTime();
+
+                processCompletions();
+
+                final long ioTime = System.nanoTime() - ioStartTime;
+                runAllTasks(ioTime * (100 - ioRatio) / ioRatio);
+            }
+            if (isShuttingDown()) {
+                closeAll();
+                if (confirmShutdown()) {
+                    cleanupAndTerminate(true);
+                    return;
+                }
+            }
+        } catch (Throwable t) {
+            logger.warn("Unexpected exception in the io_uring loop.", t);
+
+            // Prevent possible consecutive immediate failures that lead to
+            // excessive CPU consumption.
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                // Ignore.
+            }
+        }
+
+        scheduleExecution();
+    }
+
+    private void processCompletions() {
+        completionQueue.process(this);
+    }
+
+    @Override
+    public void handle(long userData, int res, int flags) {
+        int id = (int) (userData >>> 32);
+        byte op = (byte) (userData >>> 16);
+        int data = (int) userData & 0xffff;
+        if (id == LOOP_ID) {
+            if (op == Native.IORING_OP_READ) {
+                eventFdReadPending = false;
+            } else if (op == Native.IORING_OP_TIMEOUT && data == timeoutGeneration) {
+                timeoutPending = false;
+            }
+            return;
+        }
+        AbstractIoUringChannel ch = channels.get(id);
+        if (ch != null) {
+            ch.completed(id, op, res);
+        }
+    }
+
+    private void closeAll() {
+        processCompletions();
+        Collection<AbstractIoUringChannel> array = new ArrayList<AbstractIoUringChannel>(channels.size());
+
+        for (IntObjectMap.Entry<AbstractIoUringChannel> entry: channels.entries()) {
+            array.add(entry.value());
+        }
+
+        for (AbstractIoUringChannel ch: array) {
+            ch.unsafe().close(ch.unsafe().voidPromise());
+        }
+    }
+
+    /**
+     * Wait until all operations of the closed channels and the eventfd read were completed, as the kernel may
+     * otherwise still write into memory which is released once the ring is destroyed.
+     */
+    private void drain() throws IOException {
+        if (eventFdReadPending) {
+            Native.eventFdWrite(eventFd, 1L);
+        }
+        for (int i = 0; i < DRAIN_ATTEMPTS && (eventFdReadPending || !channels.isEmpty()); i++) {
+            armTimeout(System.nanoTime() + DRAIN_TIMEOUT_NANOS);
+            submissionQueue.submitAndWait();
+            processCompletions();
+        }
+        if (!channels.isEmpty()) {
+            logger.warn("{} channel(s) still have pending io_uring operations on shutdown.", channels.size());
+        }
+    }
+
+    @Override
+    protected void cleanup() {
+        try {
+            try {
+                drain();
+            } catch (IOException e) {
+                logger.warn("Failed to wait for pending io_uring operations.", e);
+            }
+            try {
+                new FileDescriptor(eventFd).close();
+            } catch (IOException e) {
+                logger.warn("Failed to close the event fd.", e);
+            }
+        } finally {
+            Native.ioUringExit(ringFd, ring);
+            if (!eventFdReadPending) {
+                // only release the memory if the kernel is guaranteed to not write into it anymore.
+                PlatformDependent.freeMemory(memoryAddress);
+            }
+        }
+    }
+}
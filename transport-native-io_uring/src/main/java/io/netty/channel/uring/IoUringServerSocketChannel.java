@@ -0,0 +1,192 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.unix.FileDescriptor;
+import io.netty.util.internal.PlatformDependent;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+
+/**
+ * {@link ServerSocketChannel} implementation that uses linux io_uring to accept connections asynchronously.
+ */
+public final class IoUringServerSocketChannel extends AbstractIoUringChannel implements ServerSocketChannel {
+
+    private final IoUringServerSocketChannelConfig config;
+    private volatile InetSocketAddress local;
+
+    // Native memory which holds the sockaddr of the accepted connection followed by its length.
+    private long acceptedAddress;
+
+    public IoUringServerSocketChannel() {
+        super(null, new FileDescriptor(Native.socketStreamFd()), false);
+        config = new IoUringServerSocketChannelConfig(this);
+    }
+
+    /**
+     * Creates a new {@link IoUringServerSocketChannel} from an existing {@link FileDescriptor}.
+     */
+    public IoUringServerSocketChannel(FileDescriptor fd) {
+        super(null, fd, Native.getIntOpt(fd.intValue(), Native.SOL_SOCKET, Native.SO_ERROR) == 0);
+        config = new IoUringServerSocketChannelConfig(this);
+
+        // As we create an IoUringServerSocketChannel from a FileDescriptor we should try to obtain the local
+        // address from it. This is needed as the FileDescriptor may be bound already.
+        local = Native.localAddress(fd.intValue());
+    }
+
+    @Override
+    protected void doBind(SocketAddress localAddress) throws Exception {
+        InetSocketAddress addr = (InetSocketAddress) localAddress;
+        checkResolvable(addr);
+        int fd = fd().intValue();
+        Native.bind(fd, addr);
+        local = Native.localAddress(fd);
+        Native.listen(fd, config.getBacklog());
+        active = true;
+    }
+
+    @Override
+    public InetSocketAddress remoteAddress() {
+        return (InetSocketAddress) super.remoteAddress();
+    }
+
+    @Override
+    public InetSocketAddress localAddress() {
+        return (InetSocketAddress) super.localAddress();
+    }
+
+    @Override
+    public IoUringServerSocketChannelConfig config() {
+        return config;
+    }
+
+    @Override
+    protected InetSocketAddress localAddress0() {
+        return local;
+    }
+
+    @Override
+    protected InetSocketAddress remoteAddress0() {
+        return null;
+    }
+
+    @Override
+    protected AbstractIoUringUnsafe newUnsafe() {
+        return new IoUringServerSocketUnsafe();
+    }
+
+    @Override
+    protected void doWrite(ChannelOutboundBuffer in) throws Exception {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected Object filterOutboundMessage(Object msg) throws Exception {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected void doReleaseResources() {
+        if (acceptedAddress != 0) {
+            PlatformDependent.freeMemory(acceptedAddress);
+            acceptedAddress = 0;
+        }
+    }
+
+    final class IoUringServerSocketUnsafe extends AbstractIoUringUnsafe {
+
+        @Override
+        public void connect(SocketAddress socketAddress, SocketAddress socketAddress2, ChannelPromise channelPromise) {
+            // Connect not supported by ServerChannel implementations
+            channelPromise.setFailure(new UnsupportedOperationException());
+        }
+
+        @Override
+        void scheduleRead() throws IOException {
+            long address = acceptedAddress;
+            if (address == 0) {
+                acceptedAddress = address = PlatformDependent.allocateMemory(Native.SIZEOF_SOCKADDR_IN6 + 4);
+            }
+            long addressLen = address + Native.SIZEOF_SOCKADDR_IN6;
+            PlatformDependent.putInt(addressLen, Native.SIZEOF_SOCKADDR_IN6);
+            // IORING_OP_ACCEPT expects the pointer to the length of the address in the offset field.
+            submit(OP_READ, Native.IORING_OP_ACCEPT, address, 0, addressLen,
+                    Native.SOCK_NONBLOCK | Native.SOCK_CLOEXEC);
+        }
+
+        @Override
+        void readCompleted(int res) {
+            if (isReleased()) {
+                if (res >= 0) {
+                    // The connection was accepted while the channel was closed or deregistered.
+                    closeAccepted(res);
+                }
+                return;
+            }
+            if (res == Native.ERRNO_ECANCELED_NEGATIVE) {
+                return;
+            }
+
+            final ChannelPipeline pipeline = pipeline();
+            if (res >= 0) {
+                readPending = false;
+                IoUringSocketChannel child;
+                try {
+                    child = new IoUringSocketChannel(
+                            IoUringServerSocketChannel.this, res, Native.decodeSockaddr(acceptedAddress));
+                } catch (Throwable t) {
+                    closeAccepted(res);
+                    pipeline.fireChannelReadComplete();
+                    pipeline.fireExceptionCaught(t);
+                    scheduleReadIfNeeded();
+                    return;
+                }
+                pipeline.fireChannelRead(child);
+                pipeline.fireChannelReadComplete();
+            } else {
+                pipeline.fireChannelReadComplete();
+                pipeline.fireExceptionCaught(Native.newIOException("io_uring:accept", res));
+            }
+            scheduleReadIfNeeded();
+        }
+
+        private void scheduleReadIfNeeded() {
+            if (shouldReadAgain() && !isScheduled(OP_READ)) {
+                try {
+                    scheduleRead();
+                } catch (Throwable t) {
+                    pipeline().fireExceptionCaught(t);
+                    close(voidPromise());
+                }
+            }
+        }
+    }
+
+    private static void closeAccepted(int fd) {
+        try {
+            new FileDescriptor(fd).close();
+        } catch (IOException ignore) {
+            // ignore
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoop;
+import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.unix.FileDescriptor;
+import io.netty.util.internal.OneTimeTask;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+
+/**
+ * {@link SocketChannel} implementation that uses linux io_uring to submit all socket operations asynchronously.
+ */
+public final class IoUringSocketChannel extends AbstractIoUringStreamChannel implements SocketChannel {
+
+    private final IoUringSocketChannelConfig config;
+
+    private volatile InetSocketAddress local;
+    private volatile InetSocketAddress remote;
+
+    IoUringSocketChannel(Channel parent, int fd, InetSocketAddress remote) {
+        super(parent, new FileDescriptor(fd), true);
+        config = new IoUringSocketChannelConfig(this);
+        // Directly cache the remote and local addresses
+        // See https://github.com/netty/netty/issues/2359
+        this.remote = remote;
+        local = Native.localAddress(fd);
+    }
+
+    public IoUringSocketChannel() {
+        super(null, new FileDescriptor(Native.socketStreamFd()), false);
+        config = new IoUringSocketChannelConfig(this);
+    }
+
+    /**
+     * Creates a new {@link IoUringSocketChannel} from an existing {@link FileDescriptor}.
+     */
+    public IoUringSocketChannel(FileDescriptor fd) {
+        super(null, fd, Native.getIntOpt(fd.intValue(), Native.SOL_SOCKET, Native.SO_ERROR) == 0);
+        config = new IoUringSocketChannelConfig(this);
+
+        // As we create an IoUringSocketChannel from a FileDescriptor we should try to obtain the remote and local
+        // address from it. This is needed as the FileDescriptor may be bound/connected already.
+        remote = Native.remoteAddress(fd.intValue());
+        local = Native.localAddress(fd.intValue());
+    }
+
+    @Override
+    public InetSocketAddress remoteAddress() {
+        return (InetSocketAddress) super.remoteAddress();
+    }
+
+    @Override
+    public InetSocketAddress localAddress() {
+        return (InetSocketAddress) super.localAddress();
+    }
+
+    @Override
+    protected SocketAddress localAddress0() {
+        return local;
+    }
+
+    @Override
+    protected SocketAddress remoteAddress0() {
+        if (remote == null) {
+            // Remote address not know, try to get it now.
+            InetSocketAddress address = Native.remoteAddress(fd().intValue());
+            if (address != null) {
+                remote = address;
+            }
+            return address;
+        }
+        return remote;
+    }
+
+    @Override
+    protected void doBind(SocketAddress local) throws Exception {
+        InetSocketAddress localAddress = (InetSocketAddress) local;
+        checkResolvable(localAddress);
+        int fd = fd().intValue();
+        Native.bind(fd, localAddress);
+        this.local = Native.localAddress(fd);
+    }
+
+    @Override
+    public IoUringSocketChannelConfig config() {
+        return config;
+    }
+
+    @Override
+    public boolean isInputShutdown() {
+        return isInputShutdown0();
+    }
+
+    @Override
+    public boolean isOutputShutdown() {
+        return isOutputShutdown0();
+    }
+
+    @Override
+    public ChannelFuture shutdownOutput() {
+        return shutdownOutput(newPromise());
+    }
+
+    @Override
+    public ChannelFuture shutdownOutput(final ChannelPromise promise) {
+        EventLoop loop = eventLoop();
+        if (loop.inEventLoop()) {
+            shutdownOutput0(promise);
+        } else {
+            loop.execute(new OneTimeTask() {
+                @Override
+                public void run() {
+                    shutdownOutput0(promise);
+                }
+            });
+        }
+        return promise;
+    }
+
+    @Override
+    public ServerSocketChannel parent() {
+        return (ServerSocketChannel) super.parent();
+    }
+
+    @Override
+    protected IoUringStreamUnsafe newUnsafe() {
+        return new IoUringSocketChannelUnsafe();
+    }
+
+    @Override
+    protected void doConnect(InetSocketAddress remoteAddress, InetSocketAddress localAddress) throws Exception {
+        if (localAddress != null) {
+            checkResolvable(localAddress);
+        }
+        checkResolvable(remoteAddress);
+        super.doConnect(remoteAddress, localAddress);
+        // We always need to set the localAddress even if not connected yet
+        //
+        // See https://github.com/netty/netty/issues/3463
+        local = Native.localAddress(fd().intValue());
+    }
+
+    private final class IoUringSocketChannelUnsafe extends IoUringStreamUnsafe {
+        @Override
+        protected void connected() {
+            int fd = fd().intValue();
+            remote = Native.remoteAddress(fd);
+            local = Native.localAddress(fd);
+        }
+    }
+}
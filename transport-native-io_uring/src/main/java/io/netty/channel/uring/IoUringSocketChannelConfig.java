@@ -0,0 +1,340 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.MessageSizeEstimator;
+import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.socket.SocketChannelConfig;
+import io.netty.util.internal.PlatformDependent;
+
+import java.util.Map;
+
+import static io.netty.channel.ChannelOption.*;
+
+public final class IoUringSocketChannelConfig extends IoUringChannelConfig implements SocketChannelConfig {
+
+    private final IoUringSocketChannel channel;
+    private volatile boolean allowHalfClosure;
+
+    /**
+     * Creates a new instance.
+     */
+    IoUringSocketChannelConfig(IoUringSocketChannel channel) {
+        super(channel);
+
+        this.channel = channel;
+        if (PlatformDependent.canEnableTcpNoDelayByDefault()) {
+            setTcpNoDelay(true);
+        }
+    }
+
+    @Override
+    public Map<ChannelOption<?>, Object> getOptions() {
+        return getOptions(
+                super.getOptions(),
+                SO_RCVBUF, SO_SNDBUF, TCP_NODELAY, SO_KEEPALIVE, SO_REUSEADDR, SO_LINGER, IP_TOS,
+                ALLOW_HALF_CLOSURE, EpollChannelOption.TCP_CORK, EpollChannelOption.TCP_KEEPCNT,
+                EpollChannelOption.TCP_KEEPIDLE, EpollChannelOption.TCP_KEEPINTVL);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T getOption(ChannelOption<T> option) {
+        if (option == SO_RCVBUF) {
+            return (T) Integer.valueOf(getReceiveBufferSize());
+        }
+        if (option == SO_SNDBUF) {
+            return (T) Integer.valueOf(getSendBufferSize());
+        }
+        if (option == TCP_NODELAY) {
+            return (T) Boolean.valueOf(isTcpNoDelay());
+        }
+        if (option == SO_KEEPALIVE) {
+            return (T) Boolean.valueOf(isKeepAlive());
+        }
+        if (option == SO_REUSEADDR) {
+            return (T) Boolean.valueOf(isReuseAddress());
+        }
+        if (option == SO_LINGER) {
+            return (T) Integer.valueOf(getSoLinger());
+        }
+        if (option == IP_TOS) {
+            return (T) Integer.valueOf(getTrafficClass());
+        }
+        if (option == ALLOW_HALF_CLOSURE) {
+            return (T) Boolean.valueOf(isAllowHalfClosure());
+        }
+        if (option == EpollChannelOption.TCP_CORK) {
+            return (T) Boolean.valueOf(isTcpCork());
+        }
+        if (option == EpollChannelOption.TCP_KEEPIDLE) {
+            return (T) Integer.valueOf(getTcpKeepIdle());
+        }
+        if (option == EpollChannelOption.TCP_KEEPINTVL) {
+            return (T) Integer.valueOf(getTcpKeepIntvl());
+        }
+        if (option == EpollChannelOption.TCP_KEEPCNT) {
+            return (T) Integer.valueOf(getTcpKeepCnt());
+        }
+        return super.getOption(option);
+    }
+
+    @Override
+    public <T> boolean setOption(ChannelOption<T> option, T value) {
+        validate(option, value);
+
+        if (option == SO_RCVBUF) {
+            setReceiveBufferSize((Integer) value);
+        } else if (option == SO_SNDBUF) {
+            setSendBufferSize((Integer) value);
+        } else if (option == TCP_NODELAY) {
+            setTcpNoDelay((Boolean) value);
+        } else if (option == SO_KEEPALIVE) {
+            setKeepAlive((Boolean) value);
+        } else if (option == SO_REUSEADDR) {
+            setReuseAddress((Boolean) value);
+        } else if (option == SO_LINGER) {
+            setSoLinger((Integer) value);
+        } else if (option == IP_TOS) {
+            setTrafficClass((Integer) value);
+        } else if (option == ALLOW_HALF_CLOSURE) {
+            setAllowHalfClosure((Boolean) value);
+        } else if (option == EpollChannelOption.TCP_CORK) {
+            setTcpCork((Boolean) value);
+        } else if (option == EpollChannelOption.TCP_KEEPIDLE) {
+            setTcpKeepIdle((Integer) value);
+        } else if (option == EpollChannelOption.TCP_KEEPCNT) {
+            setTcpKeepCntl((Integer) value);
+        } else if (option == EpollChannelOption.TCP_KEEPINTVL) {
+            setTcpKeepIntvl((Integer) value);
+        } else {
+            return super.setOption(option, value);
+        }
+
+        return true;
+    }
+
+    @Override
+    public int getReceiveBufferSize() {
+        return Native.getIntOpt(channel.fd().intValue(), Native.SOL_SOCKET, Native.SO_RCVBUF);
+    }
+
+    @Override
+    public int getSendBufferSize() {
+        return Native.getIntOpt(channel.fd().intValue(), Native.SOL_SOCKET, Native.SO_SNDBUF);
+    }
+
+    @Override
+    public int getSoLinger() {
+        return Native.getSoLinger(channel.fd().intValue());
+    }
+
+    @Override
+    public int getTrafficClass() {
+        return Native.getTrafficClass(channel.fd().intValue());
+    }
+
+    @Override
+    public boolean isKeepAlive() {
+        return Native.getIntOpt(channel.fd().intValue(), Native.SOL_SOCKET, Native.SO_KEEPALIVE) != 0;
+    }
+
+    @Override
+    public boolean isReuseAddress() {
+        return Native.getIntOpt(channel.fd().intValue(), Native.SOL_SOCKET, Native.SO_REUSEADDR) != 0;
+    }
+
+    @Override
+    public boolean isTcpNoDelay() {
+        return Native.getIntOpt(channel.fd().intValue(), Native.IPPROTO_TCP, Native.TCP_NODELAY) != 0;
+    }
+
+    /**
+     * Get the {@code TCP_CORK} option on the socket. See {@code man 7 tcp} for more details.
+     */
+    public boolean isTcpCork() {
+        return Native.getIntOpt(channel.fd().intValue(), Native.IPPROTO_TCP, Native.TCP_CORK) != 0;
+    }
+
+    /**
+     * Get the {@code TCP_KEEPIDLE} option on the socket. See {@code man 7 tcp} for more details.
+     */
+    public int getTcpKeepIdle() {
+        return Native.getIntOpt(channel.fd().intValue(), Native.IPPROTO_TCP, Native.TCP_KEEPIDLE);
+    }
+
+    /**
+     * Get the {@code TCP_KEEPINTVL} option on the socket. See {@code man 7 tcp} for more details.
+     */
+    public int getTcpKeepIntvl() {
+        return Native.getIntOpt(channel.fd().intValue(), Native.IPPROTO_TCP, Native.TCP_KEEPINTVL);
+    }
+
+    /**
+     * Get the {@code TCP_KEEPCNT} option on the socket. See {@code man 7 tcp} for more details.
+     */
+    public int getTcpKeepCnt() {
+        return Native.getIntOpt(channel.fd().intValue(), Native.IPPROTO_TCP, Native.TCP_KEEPCNT);
+    }
+
+    @Override
+    public IoUringSocketChannelConfig setKeepAlive(boolean keepAlive) {
+        Native.setIntOpt(channel.fd().intValue(), Native.SOL_SOCKET, Native.SO_KEEPALIVE, keepAlive ? 1 : 0);
+        return this;
+    }
+
+    @Override
+    public IoUringSocketChannelConfig setPerformancePreferences(
+            int connectionTime, int latency, int bandwidth) {
+        return this;
+    }
+
+    @Override
+    public IoUringSocketChannelConfig setReceiveBufferSize(int receiveBufferSize) {
+        Native.setIntOpt(channel.fd().intValue(), Native.SOL_SOCKET, Native.SO_RCVBUF, receiveBufferSize);
+        return this;
+    }
+
+    @Override
+    public IoUringSocketChannelConfig setReuseAddress(boolean reuseAddress) {
+        Native.setIntOpt(channel.fd().intValue(), Native.SOL_SOCKET, Native.SO_REUSEADDR, reuseAddress ? 1 : 0);
+        return this;
+    }
+
+    @Override
+    public IoUringSocketChannelConfig setSendBufferSize(int sendBufferSize) {
+        Native.setIntOpt(channel.fd().intValue(), Native.SOL_SOCKET, Native.SO_SNDBUF, sendBufferSize);
+        return this;
+    }
+
+    @Override
+    public IoUringSocketChannelConfig setSoLinger(int soLinger) {
+        Native.setSoLinger(channel.fd().intValue(), soLinger);
+        return this;
+    }
+
+    @Override
+    public IoUringSocketChannelConfig setTcpNoDelay(boolean tcpNoDelay) {
+        Native.setIntOpt(channel.fd().intValue(), Native.IPPROTO_TCP, Native.TCP_NODELAY, tcpNoDelay ? 1 : 0);
+        return this;
+    }
+
+    /**
+     * Set the {@code TCP_CORK} option on the socket. See {@code man 7 tcp} for more details.
+     */
+    public IoUringSocketChannelConfig setTcpCork(boolean tcpCork) {
+        Native.setIntOpt(channel.fd().intValue(), Native.IPPROTO_TCP, Native.TCP_CORK, tcpCork ? 1 : 0);
+        return this;
+    }
+
+    @Override
+    public IoUringSocketChannelConfig setTrafficClass(int trafficClass) {
+        Native.setTrafficClass(channel.fd().intValue(), trafficClass);
+        return this;
+    }
+
+    /**
+     * Set the {@code TCP_KEEPIDLE} option on the socket. See {@code man 7 tcp} for more details.
+     */
+    public IoUringSocketChannelConfig setTcpKeepIdle(int seconds) {
+        Native.setIntOpt(channel.fd().intValue(), Native.IPPROTO_TCP, Native.TCP_KEEPIDLE, seconds);
+        return this;
+    }
+
+    /**
+     * Set the {@code TCP_KEEPINTVL} option on the socket. See {@code man 7 tcp} for more details.
+     */
+    public IoUringSocketChannelConfig setTcpKeepIntvl(int seconds) {
+        Native.setIntOpt(channel.fd().intValue(), Native.IPPROTO_TCP, Native.TCP_KEEPINTVL, seconds);
+        return this;
+    }
+
+    /**
+     * Set the {@code TCP_KEEPCNT} option on the socket. See {@code man 7 tcp} for more details.
+     */
+    public IoUringSocketChannelConfig setTcpKeepCntl(int probes) {
+        Native.setIntOpt(channel.fd().intValue(), Native.IPPROTO_TCP, Native.TCP_KEEPCNT, probes);
+        return this;
+    }
+
+    @Override
+    public boolean isAllowHalfClosure() {
+        return allowHalfClosure;
+    }
+
+    @Override
+    public IoUringSocketChannelConfig setAllowHalfClosure(boolean allowHalfClosure) {
+        this.allowHalfClosure = allowHalfClosure;
+        return this;
+    }
+
+    @Override
+    public IoUringSocketChannelConfig setConnectTimeoutMillis(int connectTimeoutMillis) {
+        super.setConnectTimeoutMillis(connectTimeoutMillis);
+        return this;
+    }
+
+    @Override
+    public IoUringSocketChannelConfig setMaxMessagesPerRead(int maxMessagesPerRead) {
+        super.setMaxMessagesPerRead(maxMessagesPerRead);
+        return this;
+    }
+
+    @Override
+    public IoUringSocketChannelConfig setWriteSpinCount(int writeSpinCount) {
+        super.setWriteSpinCount(writeSpinCount);
+        return this;
+    }
+
+    @Override
+    public IoUringSocketChannelConfig setAllocator(ByteBufAllocator allocator) {
+        super.setAllocator(allocator);
+        return this;
+    }
+
+    @Override
+    public IoUringSocketChannelConfig setRecvByteBufAllocator(RecvByteBufAllocator allocator) {
+        super.setRecvByteBufAllocator(allocator);
+        return this;
+    }
+
+    @Override
+    public IoUringSocketChannelConfig setAutoRead(boolean autoRead) {
+        super.setAutoRead(autoRead);
+        return this;
+    }
+
+    @Override
+    public IoUringSocketChannelConfig setWriteBufferHighWaterMark(int writeBufferHighWaterMark) {
+        super.setWriteBufferHighWaterMark(writeBufferHighWaterMark);
+        return this;
+    }
+
+    @Override
+    public IoUringSocketChannelConfig setWriteBufferLowWaterMark(int writeBufferLowWaterMark) {
+        super.setWriteBufferLowWaterMark(writeBufferLowWaterMark);
+        return this;
+    }
+
+    @Override
+    public IoUringSocketChannelConfig setMessageSizeEstimator(MessageSizeEstimator estimator) {
+        super.setMessageSizeEstimator(estimator);
+        return this;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.util.internal.PlatformDependent;
+
+import java.io.IOException;
+
+/**
+ * The submission queue of an io_uring instance. Entries are only written to the shared memory by
+ * {@link #enqueue(byte, int, int, long, int, long, int, long)} and handed to the kernel in batches by
+ * {@link #submit()} or {@link #submitAndWait()}, so many operations are submitted with a single syscall.
+ *
+ * <pre>
+ * struct io_uring_sqe {
+ *   __u8  opcode;      // 0
+ *   __u8  flags;       // 1
+ *   __u16 ioprio;      // 2
+ *   __s32 fd;          // 4
+ *   __u64 off;         // 8
+ *   __u64 addr;        // 16
+ *   __u32 len;         // 24
+ *   __u32 op_flags;    // 28
+ *   __u64 user_data;   // 32
+ *   __u64 pad[3];      // 40
+ * };
+ * </pre>
+ *
+ * Not thread-safe, must only be used from the {@link IoUringEventLoop}.
+ */
+final class IoUringSubmissionQueue {
+    private static final int SQE_SIZE = 64;
+    private static final int SQE_OPCODE = 0;
+    private static final int SQE_FLAGS = 1;
+    private static final int SQE_FD = 4;
+    private static final int SQE_OFF = 8;
+    private static final int SQE_ADDR = 16;
+    private static final int SQE_LEN = 24;
+    private static final int SQE_OP_FLAGS = 28;
+    private static final int SQE_USER_DATA = 32;
+
+    private final int ringFd;
+    private final long headAddress;
+    private final long tailAddress;
+    private final long sqesAddress;
+    private final int ringMask;
+    private final int ringEntries;
+
+    private int tail;
+    private int pending;
+
+    IoUringSubmissionQueue(int ringFd, long[] ring) {
+        this.ringFd = ringFd;
+        headAddress = ring[Native.RING_SQ_HEAD];
+        tailAddress = ring[Native.RING_SQ_TAIL];
+        sqesAddress = ring[Native.RING_SQES];
+        ringMask = PlatformDependent.getInt(ring[Native.RING_SQ_MASK]);
+        ringEntries = PlatformDependent.getInt(ring[Native.RING_SQ_ENTRIES]);
+        tail = PlatformDependent.getInt(tailAddress);
+
+        // Use an identity mapping between the index array and the sqes so we never need to touch it again.
+        long arrayAddress = ring[Native.RING_SQ_ARRAY];
+        for (int i = 0; i < ringEntries; i++) {
+            PlatformDependent.putInt(arrayAddress + 4L * i, i);
+        }
+    }
+
+    /**
+     * Add a new submission queue entry. If the queue is full all pending entries are submitted first.
+     */
+    void enqueue(byte op, int flags, int fd, long address, int len, long offset, int opFlags, long userData)
+            throws IOException {
+        if (tail - PlatformDependent.getIntVolatile(headAddress) == ringEntries) {
+            submit();
+            if (tail - PlatformDependent.getIntVolatile(headAddress) == ringEntries) {
+                throw new IOException("io_uring submission queue is full");
+            }
+        }
+        long sqe = sqesAddress + (long) SQE_SIZE * (tail & ringMask);
+        for (int i = 0; i < SQE_SIZE; i += 8) {
+            PlatformDependent.putLong(sqe + i, 0);
+        }
+        PlatformDependent.putByte(sqe + SQE_OPCODE, op);
+        PlatformDependent.putByte(sqe + SQE_FLAGS, (byte) flags);
+        PlatformDependent.putInt(sqe + SQE_FD, fd);
+        PlatformDependent.putLong(sqe + SQE_OFF, offset);
+        PlatformDependent.putLong(sqe + SQE_ADDR, address);
+        PlatformDependent.putInt(sqe + SQE_LEN, len);
+        PlatformDependent.putInt(sqe + SQE_OP_FLAGS, opFlags);
+        PlatformDependent.putLong(sqe + SQE_USER_DATA, userData);
+        tail++;
+        pending++;
+    }
+
+    /**
+     * Returns the number of entries which were enqueued but not submitted yet.
+     */
+    int pending() {
+        return pending;
+    }
+
+    /**
+     * Submit all pending entries without waiting for any completion.
+     */
+    int submit() throws IOException {
+        if (pending == 0) {
+            return 0;
+        }
+        return enter(0, 0);
+    }
+
+    /**
+     * Submit all pending entries and wait until at least one completion is ready.
+     */
+    int submitAndWait() throws IOException {
+        return enter(1, Native.IORING_ENTER_GETEVENTS);
+    }
+
+    private int enter(int minComplete, int flags) throws IOException {
+        // Publish the new tail before entering the kernel.
+        PlatformDependent.putOrderedInt(tailAddress, tail);
+        int res = Native.ioUringEnter(ringFd, pending, minComplete, flags);
+        if (res > 0) {
+            pending -= res;
+        }
+        return res;
+    }
+}
@@ -0,0 +1,522 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.channel.ChannelException;
+import io.netty.channel.epoll.Epoll;
+import io.netty.util.NetUtil;
+import io.netty.util.internal.EmptyArrays;
+import io.netty.util.internal.NativeLibraryLoader;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.SystemPropertyUtil;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.channels.ClosedChannelException;
+import java.util.Locale;
+
+/**
+ * Native helper methods
+ *
+ * <strong>Internal usage only!</strong>
+ */
+final class Native {
+
+    static {
+        String name = SystemPropertyUtil.get("os.name").toLowerCase(Locale.UK).trim();
+        if (!name.startsWith("linux")) {
+            throw new IllegalStateException("Only supported on Linux");
+        }
+        // The io.netty.channel.unix classes (FileDescriptor, IovArray) are implemented by the epoll library.
+        Epoll.ensureAvailability();
+        NativeLibraryLoader.load("netty-transport-native-io_uring", PlatformDependent.getClassLoader(Native.class));
+    }
+
+    // Opcodes and flags of io_uring. These are part of the kernel ABI (see linux/io_uring.h) and so never change.
+    static final byte IORING_OP_NOP = 0;
+    static final byte IORING_OP_WRITEV = 2;
+    static final byte IORING_OP_SENDMSG = 9;
+    static final byte IORING_OP_RECVMSG = 10;
+    static final byte IORING_OP_TIMEOUT = 11;
+    static final byte IORING_OP_TIMEOUT_REMOVE = 12;
+    static final byte IORING_OP_ACCEPT = 13;
+    static final byte IORING_OP_ASYNC_CANCEL = 14;
+    static final byte IORING_OP_CONNECT = 16;
+    static final byte IORING_OP_READ = 22;
+    static final byte IORING_OP_SEND = 26;
+    static final byte IORING_OP_RECV = 27;
+
+    static final int IORING_ENTER_GETEVENTS = 1;
+    static final int IORING_FEAT_NODROP = 1 << 1;
+    static final int IORING_SQ_CQ_OVERFLOW = 1 << 1;
+
+    /**
+     * All the operations the transport makes use of. {@link IoUring} is only available if the kernel supports all of
+     * them.
+     */
+    static final int[] REQUIRED_OPS = {
+            IORING_OP_NOP, IORING_OP_WRITEV, IORING_OP_SENDMSG, IORING_OP_RECVMSG, IORING_OP_TIMEOUT,
+            IORING_OP_TIMEOUT_REMOVE, IORING_OP_ACCEPT, IORING_OP_ASYNC_CANCEL, IORING_OP_CONNECT,
+            IORING_OP_READ, IORING_OP_SEND, IORING_OP_RECV
+    };
+
+    // Indices into the array which is filled by ioUringSetup0(...). Must be kept in sync with the native code.
+    static final int RING_SQ_HEAD = 0;
+    static final int RING_SQ_TAIL = 1;
+    static final int RING_SQ_MASK = 2;
+    static final int RING_SQ_ENTRIES = 3;
+    static final int RING_SQ_FLAGS = 4;
+    static final int RING_SQ_DROPPED = 5;
+    static final int RING_SQ_ARRAY = 6;
+    static final int RING_SQES = 7;
+    static final int RING_CQ_HEAD = 8;
+    static final int RING_CQ_TAIL = 9;
+    static final int RING_CQ_MASK = 10;
+    static final int RING_CQ_ENTRIES = 11;
+    static final int RING_CQ_OVERFLOW = 12;
+    static final int RING_CQES = 13;
+    static final int RING_SQ_RING_ADDRESS = 14;
+    static final int RING_SQ_RING_SIZE = 15;
+    static final int RING_CQ_RING_ADDRESS = 16;
+    static final int RING_CQ_RING_SIZE = 17;
+    static final int RING_SQES_SIZE = 18;
+    static final int RING_FEATURES = 19;
+    static final int RING_LENGTH = 20;
+
+    // Socket related constants which may differ between architectures.
+    static final int AF_INET = afInet();
+    static final int AF_INET6 = afInet6();
+    static final int SOCK_NONBLOCK = sockNonblock();
+    static final int SOCK_CLOEXEC = sockCloexec();
+    static final int SIZEOF_SOCKADDR_IN = sizeofSockaddrIn();
+    static final int SIZEOF_SOCKADDR_IN6 = sizeofSockaddrIn6();
+    static final int SIZEOF_MSGHDR = sizeofMsghdr();
+    static final int MSGHDR_OFFSETOF_NAME = offsetofMsghdrName();
+    static final int MSGHDR_OFFSETOF_NAMELEN = offsetofMsghdrNamelen();
+    static final int MSGHDR_OFFSETOF_IOV = offsetofMsghdrIov();
+    static final int MSGHDR_OFFSETOF_IOVLEN = offsetofMsghdrIovlen();
+
+    static final int SOL_SOCKET = solSocket();
+    static final int SO_RCVBUF = soRcvbuf();
+    static final int SO_SNDBUF = soSndbuf();
+    static final int SO_KEEPALIVE = soKeepalive();
+    static final int SO_REUSEADDR = soReuseaddr();
+    static final int SO_REUSEPORT = soReuseport();
+    static final int SO_BROADCAST = soBroadcast();
+    static final int SO_ERROR = soError();
+    static final int IPPROTO_TCP = ipprotoTcp();
+    static final int TCP_NODELAY = tcpNodelay();
+    static final int TCP_CORK = tcpCork();
+    static final int TCP_KEEPIDLE = tcpKeepidle();
+    static final int TCP_KEEPINTVL = tcpKeepintvl();
+    static final int TCP_KEEPCNT = tcpKeepcnt();
+    static final int IPPROTO_IP = ipprotoIp();
+    static final int IP_TOS = ipTos();
+    static final int IPPROTO_IPV6 = ipprotoIpv6();
+    static final int IPV6_TCLASS = ipv6Tclass();
+
+    /**
+     * {@code true} if sockets are created as {@code AF_INET6}, which also allows to use IPv4 addresses.
+     */
+    static final boolean USE_IPV6 = !NetUtil.isIpV4StackPreferred() && isIPv6Supported0();
+
+    // As all our JNI methods return -errno on error we need to compare with the negative errno codes.
+    static final int ERRNO_EAGAIN_NEGATIVE = -errnoEAGAIN();
+    static final int ERRNO_EINTR_NEGATIVE = -errnoEINTR();
+    static final int ERRNO_ECANCELED_NEGATIVE = -errnoECANCELED();
+    static final int ERRNO_ETIME_NEGATIVE = -errnoETIME();
+    static final int ERRNO_EBUSY_NEGATIVE = -errnoEBUSY();
+    private static final int ERRNO_EBADF_NEGATIVE = -errnoEBADF();
+    private static final int ERRNO_EPIPE_NEGATIVE = -errnoEPIPE();
+    private static final int ERRNO_ECONNRESET_NEGATIVE = -errnoECONNRESET();
+    private static final int ERRNO_ECONNREFUSED_NEGATIVE = -errnoECONNREFUSED();
+
+    private static final byte[] IPV4_MAPPED_IPV6_PREFIX = {
+            0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, (byte) 0xff, (byte) 0xff };
+
+    /**
+     * Holds the mappings for errno codes to String messages.
+     * This eliminates the need to call back into JNI to get the right String message on an exception
+     * and thus is faster.
+     *
+     * The array length of 1024 should be more then enough because errno.h only holds < 200 codes.
+     */
+    private static final String[] ERRORS = new String[1024];
+
+    // Pre-instantiated exceptions which does not need any stacktrace and
+    // can be thrown multiple times for performance reasons.
+    private static final ClosedChannelException CLOSED_CHANNEL_EXCEPTION;
+    static final IOException CONNECTION_RESET_EXCEPTION_READ;
+    static final IOException CONNECTION_RESET_EXCEPTION_WRITE;
+    static final IOException CONNECTION_RESET_EXCEPTION_SENDMSG;
+
+    static {
+        for (int i = 0; i < ERRORS.length; i++) {
+            // This is ok as strerror returns 'Unknown error i' when the message is not known.
+            ERRORS[i] = strError(i);
+        }
+        CONNECTION_RESET_EXCEPTION_READ = newConnectionResetException("io_uring:read(...)",
+                ERRNO_ECONNRESET_NEGATIVE);
+        CONNECTION_RESET_EXCEPTION_WRITE = newConnectionResetException("io_uring:write(...)",
+                ERRNO_EPIPE_NEGATIVE);
+        CONNECTION_RESET_EXCEPTION_SENDMSG = newConnectionResetException("io_uring:sendmsg(...)",
+                ERRNO_EPIPE_NEGATIVE);
+        CLOSED_CHANNEL_EXCEPTION = new ClosedChannelException();
+        CLOSED_CHANNEL_EXCEPTION.setStackTrace(EmptyArrays.EMPTY_STACK_TRACE);
+    }
+
+    private static IOException newConnectionResetException(String method, int errnoNegative) {
+        IOException exception = newIOException(method, errnoNegative);
+        exception.setStackTrace(EmptyArrays.EMPTY_STACK_TRACE);
+        return exception;
+    }
+
+    static IOException newIOException(String method, int err) {
+        return new IOException(method + "() failed: " + ERRORS[-err]);
+    }
+
+    /**
+     * Returns the exception which should be used to fail an operation that completed with the negative errno
+     * {@code err}.
+     */
+    static IOException ioResultException(String method, int err, IOException resetCause) {
+        if (err == ERRNO_EPIPE_NEGATIVE || err == ERRNO_ECONNRESET_NEGATIVE) {
+            return resetCause;
+        }
+        if (err == ERRNO_EBADF_NEGATIVE) {
+            return CLOSED_CHANNEL_EXCEPTION;
+        }
+        return newIOException(method, err);
+    }
+
+    static IOException connectException(int err) {
+        if (err == ERRNO_ECONNREFUSED_NEGATIVE) {
+            return new ConnectException(ERRORS[-err]);
+        }
+        return newIOException("io_uring:connect", err);
+    }
+
+    // io_uring operations
+
+    static int ioUringSetup(int entries, long[] ring) throws IOException {
+        int res = ioUringSetup0(entries, ring);
+        if (res < 0) {
+            throw newIOException("io_uring_setup", res);
+        }
+        return res;
+    }
+
+    /**
+     * Submit {@code toSubmit} entries and optionally wait for {@code minComplete} completions. Returns the number of
+     * submitted entries, or a negative errno if the call should just be retried later: {@code -EINTR} if the wait
+     * was interrupted by a signal, {@code -EAGAIN} or {@code -EBUSY} if the kernel can not accept more submissions
+     * until completions are consumed.
+     */
+    static int ioUringEnter(int ringFd, int toSubmit, int minComplete, int flags) throws IOException {
+        int res = ioUringEnter0(ringFd, toSubmit, minComplete, flags);
+        if (res < 0 && res != ERRNO_EINTR_NEGATIVE && res != ERRNO_EAGAIN_NEGATIVE && res != ERRNO_EBUSY_NEGATIVE) {
+            throw newIOException("io_uring_enter", res);
+        }
+        return res;
+    }
+
+    static void ioUringExit(int ringFd, long[] ring) {
+        ioUringExit0(ringFd, ring[RING_SQ_RING_ADDRESS], ring[RING_SQ_RING_SIZE], ring[RING_CQ_RING_ADDRESS],
+                ring[RING_CQ_RING_SIZE], ring[RING_SQES], ring[RING_SQES_SIZE]);
+    }
+
+    static boolean ioUringProbe(int ringFd, int[] ops) {
+        return ioUringProbe0(ringFd, ops);
+    }
+
+    private static native int ioUringSetup0(int entries, long[] ring);
+    private static native int ioUringEnter0(int ringFd, int toSubmit, int minComplete, int flags);
+    private static native boolean ioUringProbe0(int ringFd, int[] ops);
+    private static native void ioUringExit0(int ringFd, long sqRing, long sqRingSize, long cqRing, long cqRingSize,
+                                            long sqes, long sqesSize);
+
+    static int eventFd() throws IOException {
+        int res = eventFd0();
+        if (res < 0) {
+            throw newIOException("eventfd", res);
+        }
+        return res;
+    }
+
+    static void eventFdWrite(int fd, long value) {
+        int res = eventFdWrite0(fd, value);
+        if (res < 0) {
+            throw new ChannelException(newIOException("eventfd_write", res));
+        }
+    }
+
+    private static native int eventFd0();
+    private static native int eventFdWrite0(int fd, long value);
+
+    // socket operations
+
+    static int socketStreamFd() {
+        int res = socketStream0(USE_IPV6);
+        if (res < 0) {
+            throw new ChannelException(newIOException("socketStreamFd", res));
+        }
+        return res;
+    }
+
+    static int socketDgramFd() {
+        int res = socketDgram0(USE_IPV6);
+        if (res < 0) {
+            throw new ChannelException(newIOException("socketDgramFd", res));
+        }
+        return res;
+    }
+
+    private static native int socketStream0(boolean ipv6);
+    private static native int socketDgram0(boolean ipv6);
+    private static native boolean isIPv6Supported0();
+
+    static void bind(int fd, InetSocketAddress address) throws IOException {
+        long memory = PlatformDependent.allocateMemory(SIZEOF_SOCKADDR_IN6);
+        try {
+            int len = encodeSockaddr(memory, address);
+            int res = bind0(fd, memory, len);
+            if (res < 0) {
+                throw newIOException("bind", res);
+            }
+        } finally {
+            PlatformDependent.freeMemory(memory);
+        }
+    }
+
+    private static native int bind0(int fd, long address, int len);
+
+    static void listen(int fd, int backlog) throws IOException {
+        int res = listen0(fd, backlog);
+        if (res < 0) {
+            throw newIOException("listen", res);
+        }
+    }
+
+    private static native int listen0(int fd, int backlog);
+
+    static InetSocketAddress localAddress(int fd) {
+        long memory = PlatformDependent.allocateMemory(SIZEOF_SOCKADDR_IN6);
+        try {
+            int res = getsockname0(fd, memory, SIZEOF_SOCKADDR_IN6);
+            // may fail if the socket is not bound or already closed.
+            return res < 0 ? null : decodeSockaddr(memory);
+        } finally {
+            PlatformDependent.freeMemory(memory);
+        }
+    }
+
+    static InetSocketAddress remoteAddress(int fd) {
+        long memory = PlatformDependent.allocateMemory(SIZEOF_SOCKADDR_IN6);
+        try {
+            int res = getpeername0(fd, memory, SIZEOF_SOCKADDR_IN6);
+            // may fail if the socket is not connected or already closed.
+            // See https://github.com/netty/netty/issues/3328
+            return res < 0 ? null : decodeSockaddr(memory);
+        } finally {
+            PlatformDependent.freeMemory(memory);
+        }
+    }
+
+    private static native int getsockname0(int fd, long address, int len);
+    private static native int getpeername0(int fd, long address, int len);
+
+    static void shutdown(int fd, boolean read, boolean write) throws IOException {
+        int res = shutdown0(fd, read, write);
+        if (res < 0) {
+            throw newIOException("shutdown", res);
+        }
+    }
+
+    private static native int shutdown0(int fd, boolean read, boolean write);
+
+    static int getIntOpt(int fd, int level, int optname) {
+        int res = getIntOpt0(fd, level, optname);
+        if (res < 0) {
+            throw new ChannelException(newIOException("getsockopt", res));
+        }
+        return res;
+    }
+
+    static void setIntOpt(int fd, int level, int optname, int value) {
+        int res = setIntOpt0(fd, level, optname, value);
+        if (res < 0) {
+            throw new ChannelException(newIOException("setsockopt", res));
+        }
+    }
+
+    static int getTrafficClass(int fd) {
+        return getIntOpt(fd, IPPROTO_IP, IP_TOS);
+    }
+
+    static void setTrafficClass(int fd, int trafficClass) {
+        setIntOpt(fd, IPPROTO_IP, IP_TOS, trafficClass);
+        if (USE_IPV6) {
+            setIntOpt(fd, IPPROTO_IPV6, IPV6_TCLASS, trafficClass);
+        }
+    }
+
+    static int getSoLinger(int fd) {
+        int[] result = new int[1];
+        int res = getSoLinger0(fd, result);
+        if (res < 0) {
+            throw new ChannelException(newIOException("getsockopt", res));
+        }
+        return result[0];
+    }
+
+    static void setSoLinger(int fd, int soLinger) {
+        int res = setSoLinger0(fd, soLinger);
+        if (res < 0) {
+            throw new ChannelException(newIOException("setsockopt", res));
+        }
+    }
+
+    private static native int getIntOpt0(int fd, int level, int optname);
+    private static native int setIntOpt0(int fd, int level, int optname, int value);
+    private static native int getSoLinger0(int fd, int[] result);
+    private static native int setSoLinger0(int fd, int soLinger);
+
+    /**
+     * Encode the given {@link InetSocketAddress} as {@code sockaddr_in6} or {@code sockaddr_in} (depending on the
+     * family of the sockets we create) into the memory at {@code address} and return the length of the struct.
+     * The memory must be at least {@link #SIZEOF_SOCKADDR_IN6} bytes.
+     */
+    static int encodeSockaddr(long address, InetSocketAddress socketAddress) {
+        InetAddress inetAddress = socketAddress.getAddress();
+        byte[] bytes = inetAddress.getAddress();
+        int port = socketAddress.getPort();
+        if (USE_IPV6) {
+            // struct sockaddr_in6 { sa_family_t family; in_port_t port; uint32_t flowinfo; in6_addr addr;
+            //                       uint32_t scope_id; }
+            PlatformDependent.putShort(address, (short) AF_INET6);
+            putPort(address + 2, port);
+            PlatformDependent.putInt(address + 4, 0);
+            PlatformDependent.putInt(address + 24, 0);
+            if (bytes.length == 4) {
+                PlatformDependent.copyMemory(IPV4_MAPPED_IPV6_PREFIX, 0, address + 8, IPV4_MAPPED_IPV6_PREFIX.length);
+                PlatformDependent.copyMemory(bytes, 0, address + 8 + IPV4_MAPPED_IPV6_PREFIX.length, 4);
+            } else {
+                PlatformDependent.copyMemory(bytes, 0, address + 8, 16);
+                PlatformDependent.putInt(address + 24, ((Inet6Address) inetAddress).getScopeId());
+            }
+            return SIZEOF_SOCKADDR_IN6;
+        }
+        // struct sockaddr_in { sa_family_t family; in_port_t port; in_addr addr; }
+        if (bytes.length != 4) {
+            throw new IllegalArgumentException("IPv6 address not supported by IPv4 socket: " + socketAddress);
+        }
+        PlatformDependent.putShort(address, (short) AF_INET);
+        putPort(address + 2, port);
+        PlatformDependent.copyMemory(bytes, 0, address + 4, 4);
+        PlatformDependent.putLong(address + 8, 0);
+        return SIZEOF_SOCKADDR_IN;
+    }
+
+    /**
+     * Decode the {@code sockaddr_in6} or {@code sockaddr_in} which is stored in the memory at {@code address}.
+     */
+    static InetSocketAddress decodeSockaddr(long address) {
+        int family = PlatformDependent.getShort(address);
+        int port = (PlatformDependent.getByte(address + 2) & 0xff) << 8 | PlatformDependent.getByte(address + 3) & 0xff;
+        try {
+            if (family == AF_INET6) {
+                byte[] bytes = new byte[16];
+                PlatformDependent.copyMemory(address + 8, bytes, 0, 16);
+                if (isIpv4Mapped(bytes)) {
+                    byte[] ipv4 = new byte[4];
+                    System.arraycopy(bytes, 12, ipv4, 0, 4);
+                    return new InetSocketAddress(InetAddress.getByAddress(ipv4), port);
+                }
+                int scopeId = PlatformDependent.getInt(address + 24);
+                return new InetSocketAddress(Inet6Address.getByAddress(null, bytes, scopeId), port);
+            }
+            byte[] ipv4 = new byte[4];
+            PlatformDependent.copyMemory(address + 4, ipv4, 0, 4);
+            return new InetSocketAddress(InetAddress.getByAddress(ipv4), port);
+        } catch (UnknownHostException e) {
+            throw new Error("Should never happen", e);
+        }
+    }
+
+    private static boolean isIpv4Mapped(byte[] bytes) {
+        for (int i = 0; i < IPV4_MAPPED_IPV6_PREFIX.length; i++) {
+            if (bytes[i] != IPV4_MAPPED_IPV6_PREFIX[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void putPort(long address, int port) {
+        // network byte order
+        PlatformDependent.putByte(address, (byte) (port >>> 8));
+        PlatformDependent.putByte(address + 1, (byte) port);
+    }
+
+    private static native String strError(int err);
+
+    private static native int afInet();
+    private static native int afInet6();
+    private static native int sockNonblock();
+    private static native int sockCloexec();
+    private static native int sizeofSockaddrIn();
+    private static native int sizeofSockaddrIn6();
+    private static native int sizeofMsghdr();
+    private static native int offsetofMsghdrName();
+    private static native int offsetofMsghdrNamelen();
+    private static native int offsetofMsghdrIov();
+    private static native int offsetofMsghdrIovlen();
+    private static native int solSocket();
+    private static native int soRcvbuf();
+    private static native int soSndbuf();
+    private static native int soKeepalive();
+    private static native int soReuseaddr();
+    private static native int soReuseport();
+    private static native int soBroadcast();
+    private static native int soError();
+    private static native int ipprotoTcp();
+    private static native int tcpNodelay();
+    private static native int tcpCork();
+    private static native int tcpKeepidle();
+    private static native int tcpKeepintvl();
+    private static native int tcpKeepcnt();
+    private static native int ipprotoIp();
+    private static native int ipTos();
+    private static native int ipprotoIpv6();
+    private static native int ipv6Tclass();
+    private static native int errnoEAGAIN();
+    private static native int errnoEINTR();
+    private static native int errnoECANCELED();
+    private static native int errnoETIME();
+    private static native int errnoEBUSY();
+    private static native int errnoEBADF();
+    private static native int errnoEPIPE();
+    private static native int errnoECONNRESET();
+    private static native int errnoECONNREFUSED();
+
+    private Native() {
+        // utility
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Compares the throughput of {@link IoUringSocketChannel} with {@link EpollSocketChannel} by streaming the same
+ * amount of data over a loopback connection with both transports.
+ */
+public class IoUringSocketThroughputTest {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(IoUringSocketThroughputTest.class);
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final long TOTAL_BYTES = 64L * 1024 * 1024;
+    private static final int ROUNDS = 3;
+
+    @Rule
+    public final Timeout globalTimeout = new Timeout(120000);
+
+    @BeforeClass
+    public static void checkAvailability() {
+        assumeTrue(IoUring.isAvailable());
+    }
+
+    @Test
+    public void testThroughput() throws Throwable {
+        EventLoopGroup epollGroup = new EpollEventLoopGroup(2);
+        EventLoopGroup ioUringGroup = new IoUringEventLoopGroup(2);
+        try {
+            // Warm up both transports first.
+            transfer(epollGroup, EpollServerSocketChannel.class, EpollSocketChannel.class);
+            transfer(ioUringGroup, IoUringServerSocketChannel.class, IoUringSocketChannel.class);
+
+            long epollNanos = 0;
+            long ioUringNanos = 0;
+            for (int i = 0; i < ROUNDS; i++) {
+                epollNanos += transfer(epollGroup, EpollServerSocketChannel.class, EpollSocketChannel.class);
+                ioUringNanos += transfer(ioUringGroup, IoUringServerSocketChannel.class, IoUringSocketChannel.class);
+            }
+            logger.info(String.format("Throughput epoll: %.1f MiB/s, io_uring: %.1f MiB/s",
+                    throughput(epollNanos), throughput(ioUringNanos)));
+        } finally {
+            epollGroup.shutdownGracefully().sync();
+            ioUringGroup.shutdownGracefully().sync();
+        }
+    }
+
+    private static double throughput(long nanos) {
+        return (double) TOTAL_BYTES * ROUNDS / (1024 * 1024) / (nanos / 1e9);
+    }
+
+    /**
+     * Streams {@link #TOTAL_BYTES} from the client to the server and returns the elapsed time in nanoseconds.
+     */
+    private static long transfer(EventLoopGroup group, Class<? extends ServerChannel> serverChannelClass,
+                                 Class<? extends Channel> channelClass) throws Throwable {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Throwable[] error = new Throwable[1];
+        ServerBootstrap sb = new ServerBootstrap().group(group).channel(serverChannelClass)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) throws Exception {
+                        ch.pipeline().addLast(new SimpleChannelInboundHandler<ByteBuf>() {
+                            private long received;
+
+                            @Override
+                            protected void messageReceived(ChannelHandlerContext ctx, ByteBuf msg) {
+                                received += msg.readableBytes();
+                                if (received >= TOTAL_BYTES) {
+                                    latch.countDown();
+                                }
+                            }
+
+                            @Override
+                            public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+                                error[0] = cause;
+                                latch.countDown();
+                            }
+                        });
+                    }
+                });
+        Bootstrap cb = new Bootstrap().group(group).channel(channelClass)
+                .handler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) throws Exception {
+                        // NOOP
+                    }
+                });
+
+        Channel sc = sb.bind(new InetSocketAddress("127.0.0.1", 0)).sync().channel();
+        Channel cc = cb.connect(sc.localAddress()).sync().channel();
+        try {
+            ByteBuf chunk = cc.alloc().directBuffer(CHUNK_SIZE).writeZero(CHUNK_SIZE);
+            try {
+                long start = System.nanoTime();
+                for (long written = 0; written < TOTAL_BYTES; written += CHUNK_SIZE) {
+                    if (!cc.isWritable()) {
+                        cc.writeAndFlush(chunk.duplicate().retain()).sync();
+                    } else {
+                        cc.writeAndFlush(chunk.duplicate().retain());
+                    }
+                }
+                assertTrue(latch.await(60, TimeUnit.SECONDS));
+                long elapsed = System.nanoTime() - start;
+                if (error[0] != null) {
+                    throw error[0];
+                }
+                return elapsed;
+            } finally {
+                chunk.release();
+            }
+        } finally {
+            cc.close().sync();
+            sc.close().sync();
+        }
+    }
+}
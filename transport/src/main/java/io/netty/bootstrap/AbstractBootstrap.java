@@ -59,7 +59,11 @@ public abstract class AbstractBootstrap<B extends AbstractBootstrap<B, C>, C ext
     }
 
     AbstractBootstrap(AbstractBootstrap<B, C> bootstrap) {
-        group = bootstrap.group;
+        this(bootstrap, bootstrap.group);
+    }
+
+    AbstractBootstrap(AbstractBootstrap<B, C> bootstrap, EventLoopGroup group) {
+        this.group = group;
         channelFactory = bootstrap.channelFactory;
         handler = bootstrap.handler;
         localAddress = bootstrap.localAddress;
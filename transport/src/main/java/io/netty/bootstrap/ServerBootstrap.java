@@ -54,8 +54,12 @@ public class ServerBootstrap extends AbstractBootstrap<ServerBootstrap, ServerCh
     public ServerBootstrap() { }
 
     private ServerBootstrap(ServerBootstrap bootstrap) {
-        super(bootstrap);
-        childGroup = bootstrap.childGroup;
+        this(bootstrap, bootstrap.group(), bootstrap.childGroup);
+    }
+
+    private ServerBootstrap(ServerBootstrap bootstrap, EventLoopGroup parentGroup, EventLoopGroup childGroup) {
+        super(bootstrap, parentGroup);
+        this.childGroup = childGroup;
         childHandler = bootstrap.childHandler;
         synchronized (bootstrap.childOptions) {
             childOptions.putAll(bootstrap.childOptions);
@@ -292,6 +296,20 @@ public class ServerBootstrap extends AbstractBootstrap<ServerBootstrap, ServerCh
         return new ServerBootstrap(this);
     }
 
+    /**
+     * Returns a deep clone of this bootstrap which uses the given {@link EventLoopGroup}s instead of the ones of this
+     * bootstrap.
+     */
+    public ServerBootstrap clone(EventLoopGroup parentGroup, EventLoopGroup childGroup) {
+        if (parentGroup == null) {
+            throw new NullPointerException("parentGroup");
+        }
+        if (childGroup == null) {
+            throw new NullPointerException("childGroup");
+        }
+        return new ServerBootstrap(this, parentGroup, childGroup);
+    }
+
     @Override
     public String toString() {
         StringBuilder buf = new StringBuilder(super.toString());
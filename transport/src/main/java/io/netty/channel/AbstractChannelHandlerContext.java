@@ -27,6 +27,8 @@ import io.netty.util.concurrent.PausableEventExecutor;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.StringUtil;
 import java.net.SocketAddress;
+import java.util.Arrays;
+import java.util.Map;
 import java.util.WeakHashMap;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
@@ -80,8 +82,37 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
             MASK_WRITE |
             MASK_FLUSH;
 
+    // Each event type has a slot in the dispatch tables of a context. The slot of an event is the position of its bit
+    // in 'skipFlags' minus the two handler life cycle bits, so that inbound events use the slots [0, 9) of
+    // 'inboundDispatch' and outbound events use the slots [0, 8) of 'outboundDispatch'.
+
+    private static final int INBOUND_SLOTS = Integer.bitCount(MASKGROUP_INBOUND);
+    private static final int OUTBOUND_SLOTS = Integer.bitCount(MASKGROUP_OUTBOUND);
+    private static final int INBOUND_SHIFT = Integer.numberOfTrailingZeros(MASK_EXCEPTION_CAUGHT);
+    private static final int OUTBOUND_SHIFT = Integer.numberOfTrailingZeros(MASK_BIND);
+
+    private static final int SLOT_EXCEPTION_CAUGHT = inboundSlot(MASK_EXCEPTION_CAUGHT);
+    private static final int SLOT_CHANNEL_REGISTERED = inboundSlot(MASK_CHANNEL_REGISTERED);
+    private static final int SLOT_CHANNEL_UNREGISTERED = inboundSlot(MASK_CHANNEL_UNREGISTERED);
+    private static final int SLOT_CHANNEL_ACTIVE = inboundSlot(MASK_CHANNEL_ACTIVE);
+    private static final int SLOT_CHANNEL_INACTIVE = inboundSlot(MASK_CHANNEL_INACTIVE);
+    private static final int SLOT_CHANNEL_READ = inboundSlot(MASK_CHANNEL_READ);
+    private static final int SLOT_CHANNEL_READ_COMPLETE = inboundSlot(MASK_CHANNEL_READ_COMPLETE);
+    private static final int SLOT_CHANNEL_WRITABILITY_CHANGED = inboundSlot(MASK_CHANNEL_WRITABILITY_CHANGED);
+    private static final int SLOT_USER_EVENT_TRIGGERED = inboundSlot(MASK_USER_EVENT_TRIGGERED);
+
+    private static final int SLOT_BIND = outboundSlot(MASK_BIND);
+    private static final int SLOT_CONNECT = outboundSlot(MASK_CONNECT);
+    private static final int SLOT_DISCONNECT = outboundSlot(MASK_DISCONNECT);
+    private static final int SLOT_CLOSE = outboundSlot(MASK_CLOSE);
+    private static final int SLOT_DEREGISTER = outboundSlot(MASK_DEREGISTER);
+    private static final int SLOT_READ = outboundSlot(MASK_READ);
+    private static final int SLOT_WRITE = outboundSlot(MASK_WRITE);
+    private static final int SLOT_FLUSH = outboundSlot(MASK_FLUSH);
+
     /**
-     * Cache the result of the costly generation of {@link #skipFlags} in a thread-local {@link WeakHashMap}.
+     * Cache the result of the costly generation of {@link #skipFlags} in a thread-local {@link WeakHashMap}, so that
+     * the lookup on the hot path (i.e. when a pipeline is initialized) is free of contention.
      */
     private static final FastThreadLocal<WeakHashMap<Class<?>, Integer>> skipFlagsCache =
             new FastThreadLocal<WeakHashMap<Class<?>, Integer>>() {
@@ -91,6 +122,12 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
                 }
             };
 
+    /**
+     * Backs {@link #skipFlagsCache}, so that the reflection is performed only once per handler type no matter how
+     * many threads initialize a pipeline. Access must be synchronized on the map itself.
+     */
+    private static final Map<Class<?>, Integer> globalSkipFlagsCache = new WeakHashMap<Class<?>, Integer>();
+
     private static final AtomicReferenceFieldUpdater<AbstractChannelHandlerContext, PausableChannelEventExecutor>
             WRAPPED_EVENTEXECUTOR_UPDATER;
 
@@ -107,22 +144,25 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
 
     /**
      * Returns an integer bitset that tells which handler methods were annotated with {@link Skip}.
-     * It gets the value from {@link #skipFlagsCache} if an handler of the same type were queried before.
-     * Otherwise, it delegates to {@link #skipFlags0(Class)} to get it.
+     * It gets the value from {@link #skipFlagsCache} or {@link #globalSkipFlagsCache} if an handler of the same type
+     * were queried before. Otherwise, it delegates to {@link #skipFlags0(Class)} to get it.
      */
     static int skipFlags(ChannelHandler handler) {
         WeakHashMap<Class<?>, Integer> cache = skipFlagsCache.get();
         Class<? extends ChannelHandler> handlerType = handler.getClass();
-        int flagsVal;
         Integer flags = cache.get(handlerType);
-        if (flags != null) {
-            flagsVal = flags;
-        } else {
-            flagsVal = skipFlags0(handlerType);
-            cache.put(handlerType, Integer.valueOf(flagsVal));
+        if (flags == null) {
+            synchronized (globalSkipFlagsCache) {
+                flags = globalSkipFlagsCache.get(handlerType);
+                if (flags == null) {
+                    flags = Integer.valueOf(skipFlags0(handlerType));
+                    globalSkipFlagsCache.put(handlerType, flags);
+                }
+            }
+            cache.put(handlerType, flags);
         }
 
-        return flagsVal;
+        return flags;
     }
 
     /**
@@ -207,11 +247,94 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
         return handlerType.getMethod(methodName, newParamTypes).isAnnotationPresent(Skip.class);
     }
 
+    private static int inboundSlot(int mask) {
+        return Integer.numberOfTrailingZeros(mask) - INBOUND_SHIFT;
+    }
+
+    private static int outboundSlot(int mask) {
+        return Integer.numberOfTrailingZeros(mask) - OUTBOUND_SHIFT;
+    }
+
+    /**
+     * Recomputes the dispatch tables of all contexts between {@code head} and {@code tail} (inclusive), so that each
+     * event is propagated directly to the next context whose handler did not annotate the corresponding method with
+     * {@link Skip}. Must be called whenever the links of the pipeline are modified.
+     */
+    static void rebuildDispatchTables(AbstractChannelHandlerContext head, AbstractChannelHandlerContext tail) {
+        AbstractChannelHandlerContext[] targets = new AbstractChannelHandlerContext[INBOUND_SLOTS];
+        Arrays.fill(targets, tail);
+        for (AbstractChannelHandlerContext ctx = tail.prev; ctx != null; ctx = ctx.prev) {
+            ctx.inboundDispatch = updateDispatchTable(ctx.inboundDispatch, targets);
+            for (int i = 0; i < INBOUND_SLOTS; i ++) {
+                if ((ctx.skipFlags & 1 << i + INBOUND_SHIFT) == 0) {
+                    targets[i] = ctx;
+                }
+            }
+        }
+
+        targets = new AbstractChannelHandlerContext[OUTBOUND_SLOTS];
+        Arrays.fill(targets, head);
+        for (AbstractChannelHandlerContext ctx = head.next; ctx != null; ctx = ctx.next) {
+            ctx.outboundDispatch = updateDispatchTable(ctx.outboundDispatch, targets);
+            for (int i = 0; i < OUTBOUND_SLOTS; i ++) {
+                if ((ctx.skipFlags & 1 << i + OUTBOUND_SHIFT) == 0) {
+                    targets[i] = ctx;
+                }
+            }
+        }
+    }
+
+    private static AbstractChannelHandlerContext[] updateDispatchTable(
+            AbstractChannelHandlerContext[] table, AbstractChannelHandlerContext[] targets) {
+        if (table != null && Arrays.equals(table, targets)) {
+            // Keep the published table if nothing changed.
+            return table;
+        }
+        return targets.clone();
+    }
+
+    /**
+     * Recomputes the dispatch tables of a context that was unlinked from the pipeline from its (retained) {@link #next}
+     * and {@link #prev} references, so that events triggered by it after the removal keep flowing through the
+     * pipeline. {@link #rebuildDispatchTables(AbstractChannelHandlerContext, AbstractChannelHandlerContext)} must have
+     * been called for the remaining contexts already.
+     */
+    void inheritDispatchTables() {
+        AbstractChannelHandlerContext next = this.next;
+        AbstractChannelHandlerContext[] inbound = new AbstractChannelHandlerContext[INBOUND_SLOTS];
+        for (int i = 0; i < INBOUND_SLOTS; i ++) {
+            inbound[i] = next.inboundDispatch == null || (next.skipFlags & 1 << i + INBOUND_SHIFT) == 0 ?
+                    next : next.inboundDispatch[i];
+        }
+
+        AbstractChannelHandlerContext prev = this.prev;
+        AbstractChannelHandlerContext[] outbound = new AbstractChannelHandlerContext[OUTBOUND_SLOTS];
+        for (int i = 0; i < OUTBOUND_SLOTS; i ++) {
+            outbound[i] = prev.outboundDispatch == null || (prev.skipFlags & 1 << i + OUTBOUND_SHIFT) == 0 ?
+                    prev : prev.outboundDispatch[i];
+        }
+
+        inboundDispatch = inbound;
+        outboundDispatch = outbound;
+    }
+
     volatile AbstractChannelHandlerContext next;
     volatile AbstractChannelHandlerContext prev;
 
+    /**
+     * The context that handles each inbound event next, indexed by the slot of the event. {@code null} for the tail.
+     * The array is never modified once published, it is replaced when the pipeline changes.
+     */
+    private volatile AbstractChannelHandlerContext[] inboundDispatch;
+
+    /**
+     * The context that handles each outbound event next, indexed by the slot of the event. {@code null} for the
+     * head. The array is never modified once published, it is replaced when the pipeline changes.
+     */
+    private volatile AbstractChannelHandlerContext[] outboundDispatch;
+
     private final AbstractChannel channel;
-    private final DefaultChannelPipeline pipeline;
+    final DefaultChannelPipeline pipeline;
     private final String name;
 
     /**
@@ -223,6 +346,13 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
      */
     boolean invokedThisChannelRead;
 
+    /**
+     * Copy of the {@link DefaultChannelPipeline#tracer} which is read for every traced event. It is not volatile so
+     * that passing an event from one handler to the next costs only a plain read when tracing is disabled, which
+     * means a new tracer may be picked up with a delay by the threads that invoke the handlers.
+     */
+    ChannelPipelineTracer tracer;
+
     /**
      * Set when a user calls {@link #fireChannelRead(Object)} on this context.
      * Cleared when a user calls {@link #fireChannelReadComplete()} on this context.
@@ -251,13 +381,10 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
     final ChannelHandlerInvoker invoker;
     private ChannelFuture succeededFuture;
 
-    // Lazily instantiated tasks used to trigger events to a handler with different executor.
-    // These needs to be volatile as otherwise an other Thread may see an half initialized instance.
+    // Lazily cached queue of the pipeline for events which are triggered from outside of the executor of the
+    // handler. This needs to be volatile as otherwise an other Thread may see an half initialized instance.
     // See the JMM for more details
-    volatile Runnable invokeChannelReadCompleteTask;
-    volatile Runnable invokeReadTask;
-    volatile Runnable invokeFlushTask;
-    volatile Runnable invokeChannelWritableStateChangedTask;
+    volatile DefaultChannelHandlerInvoker.InvocationQueue invocationQueue;
 
     /**
      * Wrapped {@link EventLoop} and {@link ChannelHandlerInvoker} to support {@link Channel#deregister()}.
@@ -341,49 +468,49 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
 
     @Override
     public ChannelHandlerContext fireChannelRegistered() {
-        AbstractChannelHandlerContext next = findContextInbound();
+        AbstractChannelHandlerContext next = findContextInbound(SLOT_CHANNEL_REGISTERED);
         next.invoker().invokeChannelRegistered(next);
         return this;
     }
 
     @Override
     public ChannelHandlerContext fireChannelUnregistered() {
-        AbstractChannelHandlerContext next = findContextInbound();
+        AbstractChannelHandlerContext next = findContextInbound(SLOT_CHANNEL_UNREGISTERED);
         next.invoker().invokeChannelUnregistered(next);
         return this;
     }
 
     @Override
     public ChannelHandlerContext fireChannelActive() {
-        AbstractChannelHandlerContext next = findContextInbound();
+        AbstractChannelHandlerContext next = findContextInbound(SLOT_CHANNEL_ACTIVE);
         next.invoker().invokeChannelActive(next);
         return this;
     }
 
     @Override
     public ChannelHandlerContext fireChannelInactive() {
-        AbstractChannelHandlerContext next = findContextInbound();
+        AbstractChannelHandlerContext next = findContextInbound(SLOT_CHANNEL_INACTIVE);
         next.invoker().invokeChannelInactive(next);
         return this;
     }
 
     @Override
     public ChannelHandlerContext fireExceptionCaught(Throwable cause) {
-        AbstractChannelHandlerContext next = findContextInbound();
+        AbstractChannelHandlerContext next = findContextInbound(SLOT_EXCEPTION_CAUGHT);
         next.invoker().invokeExceptionCaught(next, cause);
         return this;
     }
 
     @Override
     public ChannelHandlerContext fireUserEventTriggered(Object event) {
-        AbstractChannelHandlerContext next = findContextInbound();
+        AbstractChannelHandlerContext next = findContextInbound(SLOT_USER_EVENT_TRIGGERED);
         next.invoker().invokeUserEventTriggered(next, event);
         return this;
     }
 
     @Override
     public ChannelHandlerContext fireChannelRead(Object msg) {
-        AbstractChannelHandlerContext next = findContextInbound();
+        AbstractChannelHandlerContext next = findContextInbound(SLOT_CHANNEL_READ);
         ReferenceCountUtil.touch(msg, next);
         invokedNextChannelRead = true;
         next.invoker().invokeChannelRead(next, msg);
@@ -408,7 +535,7 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
             invokedNextChannelRead = false;
             invokedPrevRead = false;
 
-            AbstractChannelHandlerContext next = findContextInbound();
+            AbstractChannelHandlerContext next = findContextInbound(SLOT_CHANNEL_READ_COMPLETE);
             next.invoker().invokeChannelReadComplete(next);
             return this;
         }
@@ -440,7 +567,7 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
 
     @Override
     public ChannelHandlerContext fireChannelWritabilityChanged() {
-        AbstractChannelHandlerContext next = findContextInbound();
+        AbstractChannelHandlerContext next = findContextInbound(SLOT_CHANNEL_WRITABILITY_CHANGED);
         next.invoker().invokeChannelWritabilityChanged(next);
         return this;
     }
@@ -477,7 +604,7 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
 
     @Override
     public ChannelFuture bind(final SocketAddress localAddress, final ChannelPromise promise) {
-        AbstractChannelHandlerContext next = findContextOutbound();
+        AbstractChannelHandlerContext next = findContextOutbound(SLOT_BIND);
         next.invoker().invokeBind(next, localAddress, promise);
         return promise;
     }
@@ -489,7 +616,7 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
 
     @Override
     public ChannelFuture connect(SocketAddress remoteAddress, SocketAddress localAddress, ChannelPromise promise) {
-        AbstractChannelHandlerContext next = findContextOutbound();
+        AbstractChannelHandlerContext next = findContextOutbound(SLOT_CONNECT);
         next.invoker().invokeConnect(next, remoteAddress, localAddress, promise);
         return promise;
     }
@@ -500,28 +627,28 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
             return close(promise);
         }
 
-        AbstractChannelHandlerContext next = findContextOutbound();
+        AbstractChannelHandlerContext next = findContextOutbound(SLOT_DISCONNECT);
         next.invoker().invokeDisconnect(next, promise);
         return promise;
     }
 
     @Override
     public ChannelFuture close(ChannelPromise promise) {
-        AbstractChannelHandlerContext next = findContextOutbound();
+        AbstractChannelHandlerContext next = findContextOutbound(SLOT_CLOSE);
         next.invoker().invokeClose(next, promise);
         return promise;
     }
 
     @Override
     public ChannelFuture deregister(ChannelPromise promise) {
-        AbstractChannelHandlerContext next = findContextOutbound();
+        AbstractChannelHandlerContext next = findContextOutbound(SLOT_DEREGISTER);
         next.invoker().invokeDeregister(next, promise);
         return promise;
     }
 
     @Override
     public ChannelHandlerContext read() {
-        AbstractChannelHandlerContext next = findContextOutbound();
+        AbstractChannelHandlerContext next = findContextOutbound(SLOT_READ);
         invokedPrevRead = true;
         next.invoker().invokeRead(next);
         return this;
@@ -534,7 +661,7 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
 
     @Override
     public ChannelFuture write(Object msg, ChannelPromise promise) {
-        AbstractChannelHandlerContext next = findContextOutbound();
+        AbstractChannelHandlerContext next = findContextOutbound(SLOT_WRITE);
         ReferenceCountUtil.touch(msg, next);
         next.invoker().invokeWrite(next, msg, promise);
         return promise;
@@ -542,7 +669,7 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
 
     @Override
     public ChannelHandlerContext flush() {
-        AbstractChannelHandlerContext next = findContextOutbound();
+        AbstractChannelHandlerContext next = findContextOutbound(SLOT_FLUSH);
         next.invoker().invokeFlush(next);
         return this;
     }
@@ -550,10 +677,10 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
     @Override
     public ChannelFuture writeAndFlush(Object msg, ChannelPromise promise) {
         AbstractChannelHandlerContext next;
-        next = findContextOutbound();
+        next = findContextOutbound(SLOT_WRITE);
         ReferenceCountUtil.touch(msg, next);
         next.invoker().invokeWrite(next, msg, promise);
-        next = findContextOutbound();
+        next = findContextOutbound(SLOT_FLUSH);
         next.invoker().invokeFlush(next);
         return promise;
     }
@@ -587,20 +714,12 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
         return new FailedChannelFuture(channel(), executor(), cause);
     }
 
-    private AbstractChannelHandlerContext findContextInbound() {
-        AbstractChannelHandlerContext ctx = this;
-        do {
-            ctx = ctx.next;
-        } while ((ctx.skipFlags & MASKGROUP_INBOUND) == MASKGROUP_INBOUND);
-        return ctx;
+    private AbstractChannelHandlerContext findContextInbound(int slot) {
+        return inboundDispatch[slot];
     }
 
-    private AbstractChannelHandlerContext findContextOutbound() {
-        AbstractChannelHandlerContext ctx = this;
-        do {
-            ctx = ctx.prev;
-        } while ((ctx.skipFlags & MASKGROUP_OUTBOUND) == MASKGROUP_OUTBOUND);
-        return ctx;
+    private AbstractChannelHandlerContext findContextOutbound(int slot) {
+        return outboundDispatch[slot];
     }
 
     @Override
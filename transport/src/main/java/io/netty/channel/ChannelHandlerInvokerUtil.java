@@ -80,8 +80,14 @@ public final class ChannelHandlerInvokerUtil {
 
     public static void invokeChannelReadNow(final ChannelHandlerContext ctx, final Object msg) {
         try {
-            ((AbstractChannelHandlerContext) ctx).invokedThisChannelRead = true;
-            ctx.handler().channelRead(ctx, msg);
+            AbstractChannelHandlerContext context = (AbstractChannelHandlerContext) ctx;
+            context.invokedThisChannelRead = true;
+            ChannelPipelineTracer tracer = context.tracer;
+            if (tracer == null) {
+                ctx.handler().channelRead(ctx, msg);
+            } else {
+                tracer.channelRead(ctx, msg);
+            }
         } catch (Throwable t) {
             notifyHandlerException(ctx, t);
         }
@@ -155,7 +161,12 @@ public final class ChannelHandlerInvokerUtil {
 
     public static void invokeWriteNow(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
         try {
-            ctx.handler().write(ctx, msg, promise);
+            ChannelPipelineTracer tracer = ((AbstractChannelHandlerContext) ctx).tracer;
+            if (tracer == null) {
+                ctx.handler().write(ctx, msg, promise);
+            } else {
+                tracer.write(ctx, msg, promise);
+            }
         } catch (Throwable t) {
             notifyOutboundHandlerException(t, promise);
         }
@@ -163,7 +174,12 @@ public final class ChannelHandlerInvokerUtil {
 
     public static void invokeFlushNow(final ChannelHandlerContext ctx) {
         try {
-            ctx.handler().flush(ctx);
+            ChannelPipelineTracer tracer = ((AbstractChannelHandlerContext) ctx).tracer;
+            if (tracer == null) {
+                ctx.handler().flush(ctx);
+            } else {
+                tracer.flush(ctx);
+            }
         } catch (Throwable t) {
             notifyHandlerException(ctx, t);
         }
@@ -19,17 +19,14 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufHolder;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.socket.nio.NioSocketChannel;
-import io.netty.util.Recycler;
-import io.netty.util.Recycler.Handle;
 import io.netty.util.ReferenceCountUtil;
-import io.netty.util.concurrent.FastThreadLocal;
-import io.netty.util.internal.InternalThreadLocalMap;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
@@ -44,31 +41,42 @@ import java.util.concurrent.atomic.AtomicLongFieldUpdater;
  * <li>{@link #getUserDefinedWritability(int)} and {@link #setUserDefinedWritability(int, boolean)}</li>
  * </ul>
  * </p>
+ * <p>
+ * The entries are kept in a ring which grows with the number of pending messages. Once all messages were removed,
+ * the ring and the array returned by {@link #nioBuffers()} are shrunk back to 16 slots each, so an idle channel
+ * retains at most 16 reusable entries, a 16-slot entry array and a 16-slot {@link ByteBuffer} array.
+ * </p>
  */
 public final class ChannelOutboundBuffer {
 
     private static final InternalLogger logger = InternalLoggerFactory.getInstance(ChannelOutboundBuffer.class);
 
-    private static final FastThreadLocal<ByteBuffer[]> NIO_BUFFERS = new FastThreadLocal<ByteBuffer[]>() {
-        @Override
-        protected ByteBuffer[] initialValue() throws Exception {
-            return new ByteBuffer[1024];
-        }
-    };
+    // Larger rings and NIO buffer arrays are released once the buffer is empty again.
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int INITIAL_NIO_BUFFERS = 16;
 
     private final Channel channel;
 
-    // Entry(flushedEntry) --> ... Entry(unflushedEntry) --> ... Entry(tailEntry)
+    // The entries are kept in a ring which is indexed by sequence numbers that only ever grow:
     //
-    // The Entry that is the first in the linked-list structure that was flushed
-    private Entry flushedEntry;
-    // The Entry which is the first unflushed in the linked-list structure
-    private Entry unflushedEntry;
-    // The Entry which represents the tail of the buffer
-    private Entry tailEntry;
+    // entries[head] --> ... entries[unflushed] --> ... entries[tail - 1]
+    //
+    // The Entry objects stay in their slots and are reused once they were removed.
+    private Entry[] entries = new Entry[INITIAL_CAPACITY];
+    // The first flushed entry
+    private int head;
+    // The first unflushed entry
+    private int unflushed;
+    // The slot the next entry is added to
+    private int tail;
     // The number of flushed entries that are not written yet
     private int flushed;
 
+    // The NIO buffers of the entries [head, nioEntry) as returned by nioBuffers(). The buffers of entries which were
+    // removed since the last nioBuffers() call are skipped via nioBufferOffset.
+    private ByteBuffer[] nioBufferArray;
+    private int nioBufferOffset;
+    private int nioEntry;
     private int nioBufferCount;
     private long nioBufferSize;
 
@@ -86,6 +94,9 @@ public final class ChannelOutboundBuffer {
 
     private volatile Runnable fireChannelWritabilityChangedTask;
 
+    // The account of the OutboundMemoryBudget which is used by the channel, resolved on the first write.
+    private volatile OutboundMemoryBudget.Account budgetAccount;
+
     static {
         AtomicIntegerFieldUpdater<ChannelOutboundBuffer> unwritableUpdater =
                 PlatformDependent.newAtomicIntegerFieldUpdater(ChannelOutboundBuffer.class, "unwritable");
@@ -111,18 +122,17 @@ public final class ChannelOutboundBuffer {
      * the message was written.
      */
     public void addMessage(Object msg, int size, ChannelPromise promise) {
-        Entry entry = Entry.newInstance(msg, size, total(msg), promise);
-        if (tailEntry == null) {
-            flushedEntry = null;
-            tailEntry = entry;
-        } else {
-            Entry tail = tailEntry;
-            tail.next = entry;
-            tailEntry = entry;
+        Entry[] entries = this.entries;
+        if (tail - head == entries.length) {
+            entries = grow();
         }
-        if (unflushedEntry == null) {
-            unflushedEntry = entry;
+        int index = tail & entries.length - 1;
+        Entry entry = entries[index];
+        if (entry == null) {
+            entries[index] = entry = new Entry();
         }
+        entry.init(msg, size, total(msg), promise);
+        tail ++;
 
         // increment pending bytes after adding message to the unflushed arrays.
         // See https://github.com/netty/netty/issues/1619
@@ -138,25 +148,40 @@ public final class ChannelOutboundBuffer {
         // where added in the meantime.
         //
         // See https://github.com/netty/netty/issues/2577
-        Entry entry = unflushedEntry;
-        if (entry != null) {
-            if (flushedEntry == null) {
-                // there is no flushedEntry yet, so start with the entry
-                flushedEntry = entry;
-            }
-            do {
-                flushed ++;
+        final int tail = this.tail;
+        if (unflushed != tail) {
+            final Entry[] entries = this.entries;
+            final int mask = entries.length - 1;
+            for (int i = unflushed; i != tail; i ++) {
+                Entry entry = entries[i & mask];
                 if (!entry.promise.setUncancellable()) {
                     // Was cancelled so make sure we free up memory and notify about the freed bytes
                     int pending = entry.cancel();
                     decrementPendingOutboundBytes(pending, false);
                 }
-                entry = entry.next;
-            } while (entry != null);
+            }
+
+            // All flushed so move unflushed to the tail
+            unflushed = tail;
+            flushed = tail - head;
+        }
+    }
+
+    private Entry[] grow() {
+        Entry[] oldEntries = entries;
+        int oldMask = oldEntries.length - 1;
+        int newCapacity = oldEntries.length << 1;
+        if (newCapacity < 0) {
+            throw new IllegalStateException();
+        }
 
-            // All flushed so reset unflushedEntry
-            unflushedEntry = null;
+        Entry[] newEntries = new Entry[newCapacity];
+        int newMask = newCapacity - 1;
+        for (int i = head; i != tail; i ++) {
+            newEntries[i & newMask] = oldEntries[i & oldMask];
         }
+        entries = newEntries;
+        return newEntries;
     }
 
     /**
@@ -172,12 +197,38 @@ public final class ChannelOutboundBuffer {
             return;
         }
 
+        // Resolved first, as moving to another account transfers what is pending already.
+        OutboundMemoryBudget.Account account = budgetAccount();
         long newWriteBufferSize = TOTAL_PENDING_SIZE_UPDATER.addAndGet(this, size);
-        if (newWriteBufferSize >= channel.config().getWriteBufferHighWaterMark()) {
+        account.add(size);
+        if (newWriteBufferSize >= channel.config().getWriteBufferHighWaterMark() ||
+                account.isExceeded() && newWriteBufferSize > channel.config().getWriteBufferLowWaterMark()) {
             setUnwritable(invokeLater);
         }
     }
 
+    private OutboundMemoryBudget.Account budgetAccount() {
+        OutboundMemoryBudget.Account account = budgetAccount;
+        if (account == null || account.isUnregistered() && channel.isRegistered()) {
+            account = resolveBudgetAccount();
+        }
+        return account;
+    }
+
+    private synchronized OutboundMemoryBudget.Account resolveBudgetAccount() {
+        OutboundMemoryBudget.Account account = budgetAccount;
+        if (account == null) {
+            OutboundMemoryBudget budget = channel.config().getOption(ChannelOption.OUTBOUND_MEMORY_BUDGET);
+            account = budget == null ? OutboundMemoryBudget.Account.NONE : budget.register(this, channel);
+            budgetAccount = account;
+        } else if (account.isUnregistered() && channel.isRegistered()) {
+            // Written to before the registration, so move to the account of the EventLoop.
+            account = account.budget().move(this, channel, totalPendingSize);
+            budgetAccount = account;
+        }
+        return account;
+    }
+
     /**
      * Decrement the pending bytes which will be written at some point.
      * This method is thread-safe!
@@ -191,7 +242,14 @@ public final class ChannelOutboundBuffer {
             return;
         }
 
+        OutboundMemoryBudget.Account account = budgetAccount;
+        if (account != null && account.isUnregistered() && channel.isRegistered()) {
+            account = resolveBudgetAccount();
+        }
         long newWriteBufferSize = TOTAL_PENDING_SIZE_UPDATER.addAndGet(this, -size);
+        if (account != null) {
+            account.add(-size);
+        }
         if (newWriteBufferSize == 0 || newWriteBufferSize <= channel.config().getWriteBufferLowWaterMark()) {
             setWritable(invokeLater);
         }
@@ -214,20 +272,19 @@ public final class ChannelOutboundBuffer {
      * Return the current message to write or {@code null} if nothing was flushed before and so is ready to be written.
      */
     public Object current() {
-        Entry entry = flushedEntry;
-        if (entry == null) {
+        if (flushed == 0) {
             return null;
         }
 
-        return entry.msg;
+        return entries[head & entries.length - 1].msg;
     }
 
     /**
      * Notify the {@link ChannelPromise} of the current message about writing progress.
      */
     public void progress(long amount) {
-        Entry e = flushedEntry;
-        assert e != null;
+        assert flushed != 0;
+        Entry e = entries[head & entries.length - 1];
         ChannelPromise p = e.promise;
         if (p instanceof ChannelProgressivePromise) {
             long progress = e.progress + amount;
@@ -242,27 +299,25 @@ public final class ChannelOutboundBuffer {
      * messages are ready to be handled.
      */
     public boolean remove() {
-        Entry e = flushedEntry;
-        if (e == null) {
+        if (flushed == 0) {
             return false;
         }
+        Entry e = entries[head & entries.length - 1];
         Object msg = e.msg;
-
         ChannelPromise promise = e.promise;
         int size = e.pendingSize;
+        boolean cancelled = e.cancelled;
 
+        // Remove the entry before notifying the promise, as a listener may add new messages.
         removeEntry(e);
 
-        if (!e.cancelled) {
+        if (!cancelled) {
             // only release message, notify and decrement if it was not canceled before.
             ReferenceCountUtil.safeRelease(msg);
             safeSuccess(promise);
             decrementPendingOutboundBytes(size, false);
         }
 
-        // recycle the entry
-        e.recycle();
-
         return true;
     }
 
@@ -272,18 +327,18 @@ public final class ChannelOutboundBuffer {
      * {@code false} to signal that no more messages are ready to be handled.
      */
     public boolean remove(Throwable cause) {
-        Entry e = flushedEntry;
-        if (e == null) {
+        if (flushed == 0) {
             return false;
         }
+        Entry e = entries[head & entries.length - 1];
         Object msg = e.msg;
-
         ChannelPromise promise = e.promise;
         int size = e.pendingSize;
+        boolean cancelled = e.cancelled;
 
         removeEntry(e);
 
-        if (!e.cancelled) {
+        if (!cancelled) {
             // only release message, fail and decrement if it was not canceled before.
             ReferenceCountUtil.safeRelease(msg);
 
@@ -291,22 +346,27 @@ public final class ChannelOutboundBuffer {
             decrementPendingOutboundBytes(size, false);
         }
 
-        // recycle the entry
-        e.recycle();
-
         return true;
     }
 
     private void removeEntry(Entry e) {
+        if (nioEntry != head) {
+            // The entry is part of the NIO buffers, skip its buffers from now on.
+            nioBufferOffset += e.nioCount;
+            nioBufferCount -= e.nioCount;
+            nioBufferSize -= e.nioBytes;
+        } else {
+            nioEntry ++;
+        }
+        e.clear();
+        head ++;
+
         if (-- flushed == 0) {
             // processed everything
-            flushedEntry = null;
-            if (e == tailEntry) {
-                tailEntry = null;
-                unflushedEntry = null;
+            clearNioBuffers();
+            if (head == tail) {
+                shrink();
             }
-        } else {
-            flushedEntry = e.next;
         }
     }
 
@@ -336,6 +396,11 @@ public final class ChannelOutboundBuffer {
                 if (writtenBytes != 0) {
                     buf.readerIndex(readerIndex + (int) writtenBytes);
                     progress(writtenBytes);
+                    if (nioEntry != head) {
+                        // The NIO buffers of the entry were advanced by the write already.
+                        entries[head & entries.length - 1].nioBytes -= writtenBytes;
+                        nioBufferSize -= writtenBytes;
+                    }
                 }
                 break;
             }
@@ -347,25 +412,57 @@ public final class ChannelOutboundBuffer {
      * {@link #nioBufferCount()} and {@link #nioBufferSize()} will return the number of NIO buffers in the returned
      * array and the total number of readable bytes of the NIO buffers respectively.
      * <p>
+     * The array is maintained incrementally: the NIO buffers of a message are only obtained once, even if it takes
+     * many writes until the message is written completely.
+     * </p>
+     * <p>
      * Note that the returned array is reused and thus should not escape
      * {@link AbstractChannel#doWrite(ChannelOutboundBuffer)}.
      * Refer to {@link NioSocketChannel#doWrite(ChannelOutboundBuffer)} for an example.
      * </p>
      */
     public ByteBuffer[] nioBuffers() {
-        long nioBufferSize = 0;
-        int nioBufferCount = 0;
-        final InternalThreadLocalMap threadLocalMap = InternalThreadLocalMap.get();
-        ByteBuffer[] nioBuffers = NIO_BUFFERS.get(threadLocalMap);
-        Entry entry = flushedEntry;
-        while (isFlushedEntry(entry) && entry.msg instanceof ByteBuf) {
+        ByteBuffer[] nioBuffers = nioBufferArray;
+        if (nioBuffers == null) {
+            nioBufferArray = nioBuffers = new ByteBuffer[INITIAL_NIO_BUFFERS];
+        }
+
+        int nioBufferCount = this.nioBufferCount;
+        if (nioBufferOffset != 0) {
+            // Move the buffers of the remaining entries to the front, as the array is always written from index 0.
+            int offset = nioBufferOffset;
+            System.arraycopy(nioBuffers, offset, nioBuffers, 0, nioBufferCount);
+            Arrays.fill(nioBuffers, nioBufferCount, nioBufferCount + offset, null);
+            nioBufferOffset = 0;
+        }
+
+        final Entry[] entries = this.entries;
+        final int mask = entries.length - 1;
+        if (nioEntry != head && !entries[head & mask].isNioBufferValid()) {
+            // The current message was written without using its NIO buffers, start over.
+            entries[head & mask].clearNioBuffer();
+            clearNioBuffers();
+            nioBuffers = nioBufferArray;
+            if (nioBuffers == null) {
+                nioBufferArray = nioBuffers = new ByteBuffer[INITIAL_NIO_BUFFERS];
+            }
+            nioBufferCount = 0;
+        }
+
+        long nioBufferSize = this.nioBufferSize;
+        final int unflushed = this.unflushed;
+        int i = nioEntry;
+        for (; i != unflushed; i ++) {
+            Entry entry = entries[i & mask];
+            if (!(entry.msg instanceof ByteBuf)) {
+                break;
+            }
             if (!entry.cancelled) {
                 ByteBuf buf = (ByteBuf) entry.msg;
                 final int readerIndex = buf.readerIndex();
                 final int readableBytes = buf.writerIndex() - readerIndex;
 
                 if (readableBytes > 0) {
-                    nioBufferSize += readableBytes;
                     int count = entry.count;
                     if (count == -1) {
                         //noinspection ConstantValueVariableUse
@@ -373,9 +470,9 @@ public final class ChannelOutboundBuffer {
                     }
                     int neededSpace = nioBufferCount + count;
                     if (neededSpace > nioBuffers.length) {
-                        nioBuffers = expandNioBufferArray(nioBuffers, neededSpace, nioBufferCount);
-                        NIO_BUFFERS.set(threadLocalMap, nioBuffers);
+                        nioBufferArray = nioBuffers = expandNioBufferArray(nioBuffers, neededSpace, nioBufferCount);
                     }
+                    int oldNioBufferCount = nioBufferCount;
                     if (count == 1) {
                         ByteBuffer nioBuf = entry.buf;
                         if (nioBuf == null) {
@@ -393,16 +490,44 @@ public final class ChannelOutboundBuffer {
                         }
                         nioBufferCount = fillBufferArray(nioBufs, nioBuffers, nioBufferCount);
                     }
+                    entry.nioCount = nioBufferCount - oldNioBufferCount;
+                    entry.nioBytes = readableBytes;
+                    nioBufferSize += readableBytes;
                 }
             }
-            entry = entry.next;
         }
+        nioEntry = i;
         this.nioBufferCount = nioBufferCount;
         this.nioBufferSize = nioBufferSize;
 
         return nioBuffers;
     }
 
+    /**
+     * Releases the ring and the NIO buffer array if they grew beyond their initial size, so an empty buffer does not
+     * retain the capacity of its largest burst.
+     */
+    private void shrink() {
+        if (entries.length > INITIAL_CAPACITY) {
+            entries = new Entry[INITIAL_CAPACITY];
+        }
+        ByteBuffer[] nioBuffers = nioBufferArray;
+        if (nioBuffers != null && nioBuffers.length > INITIAL_NIO_BUFFERS) {
+            nioBufferArray = null;
+        }
+    }
+
+    private void clearNioBuffers() {
+        ByteBuffer[] nioBuffers = nioBufferArray;
+        if (nioBuffers != null) {
+            Arrays.fill(nioBuffers, 0, nioBufferOffset + nioBufferCount, null);
+        }
+        nioBufferOffset = 0;
+        nioBufferCount = 0;
+        nioBufferSize = 0;
+        nioEntry = head;
+    }
+
     private static int fillBufferArray(ByteBuffer[] nioBufs, ByteBuffer[] nioBuffers, int nioBufferCount) {
         for (ByteBuffer nioBuf: nioBufs) {
             if (nioBuf == null) {
@@ -514,6 +639,28 @@ public final class ChannelOutboundBuffer {
         return 1 << index;
     }
 
+    Channel channel() {
+        return channel;
+    }
+
+    /**
+     * Called by the {@link OutboundMemoryBudget} of the channel once it was exceeded.
+     */
+    void onBudgetExceeded() {
+        if (totalPendingSize > channel.config().getWriteBufferLowWaterMark()) {
+            setUnwritable(true);
+        }
+    }
+
+    /**
+     * Called by the {@link OutboundMemoryBudget} of the channel once it recovered.
+     */
+    void onBudgetRecovered() {
+        if (totalPendingSize < channel.config().getWriteBufferHighWaterMark()) {
+            setWritable(true);
+        }
+    }
+
     private void setWritable(boolean invokeLater) {
         for (;;) {
             final int oldValue = unwritable;
@@ -616,10 +763,20 @@ public final class ChannelOutboundBuffer {
             throw new IllegalStateException("close() must be invoked after all flushed writes are handled.");
         }
 
+        // Give back everything that is still pending to the budget, as no more bytes will be written.
+        OutboundMemoryBudget.Account account = budgetAccount;
+        if (account != null) {
+            budgetAccount = OutboundMemoryBudget.Account.NONE;
+            account.unregister(this, totalPendingSize);
+        }
+
         // Release all unflushed messages.
         try {
-            Entry e = unflushedEntry;
-            while (e != null) {
+            final Entry[] entries = this.entries;
+            final int mask = entries.length - 1;
+            final int tail = this.tail;
+            for (int i = unflushed; i != tail; i ++) {
+                Entry e = entries[i & mask];
                 // Just decrease; do not trigger any events via decrementPendingOutboundBytes()
                 int size = e.pendingSize;
                 TOTAL_PENDING_SIZE_UPDATER.addAndGet(this, -size);
@@ -628,8 +785,9 @@ public final class ChannelOutboundBuffer {
                     ReferenceCountUtil.safeRelease(e.msg);
                     safeFail(e.promise, cause);
                 }
-                e = e.recycleAndGetNext();
+                e.clear();
             }
+            this.tail = unflushed;
         } finally {
             inFail = false;
         }
@@ -666,23 +824,17 @@ public final class ChannelOutboundBuffer {
             throw new NullPointerException("processor");
         }
 
-        Entry entry = flushedEntry;
-        if (entry == null) {
-            return;
-        }
-
-        do {
+        final Entry[] entries = this.entries;
+        final int mask = entries.length - 1;
+        final int unflushed = this.unflushed;
+        for (int i = head; i != unflushed; i ++) {
+            Entry entry = entries[i & mask];
             if (!entry.cancelled) {
                 if (!processor.processMessage(entry.msg)) {
                     return;
                 }
             }
-            entry = entry.next;
-        } while (isFlushedEntry(entry));
-    }
-
-    private boolean isFlushedEntry(Entry e) {
-        return e != null && e != unflushedEntry;
+        }
     }
 
     public interface MessageProcessor {
@@ -694,15 +846,6 @@ public final class ChannelOutboundBuffer {
     }
 
     static final class Entry {
-        private static final Recycler<Entry> RECYCLER = new Recycler<Entry>() {
-            @Override
-            protected Entry newObject(Handle handle) {
-                return new Entry(handle);
-            }
-        };
-
-        private final Handle handle;
-        Entry next;
         Object msg;
         ByteBuffer[] bufs;
         ByteBuffer buf;
@@ -711,19 +854,44 @@ public final class ChannelOutboundBuffer {
         long total;
         int pendingSize;
         int count = -1;
+        // The number of NIO buffers and readable bytes this entry added to the NIO buffers of the outbound buffer.
+        int nioCount;
+        long nioBytes;
         boolean cancelled;
 
-        private Entry(Handle handle) {
-            this.handle = handle;
+        void init(Object msg, int size, long total, ChannelPromise promise) {
+            this.msg = msg;
+            pendingSize = size;
+            this.total = total;
+            this.promise = promise;
         }
 
-        static Entry newInstance(Object msg, int size, long total, ChannelPromise promise) {
-            Entry entry = RECYCLER.get();
-            entry.msg = msg;
-            entry.pendingSize = size;
-            entry.total = total;
-            entry.promise = promise;
-            return entry;
+        /**
+         * Returns {@code false} if the cached NIO buffers do not match the readable bytes of the message anymore,
+         * because it was written without them.
+         */
+        boolean isNioBufferValid() {
+            if (nioCount == 0) {
+                return true;
+            }
+            long remaining;
+            if (buf != null) {
+                remaining = buf.remaining();
+            } else {
+                remaining = 0;
+                for (ByteBuffer b: bufs) {
+                    if (b == null) {
+                        break;
+                    }
+                    remaining += b.remaining();
+                }
+            }
+            return remaining == ((ByteBuf) msg).readableBytes();
+        }
+
+        void clearNioBuffer() {
+            bufs = null;
+            buf = null;
         }
 
         int cancel() {
@@ -745,8 +913,7 @@ public final class ChannelOutboundBuffer {
             return 0;
         }
 
-        void recycle() {
-            next = null;
+        void clear() {
             bufs = null;
             buf = null;
             msg = null;
@@ -755,14 +922,9 @@ public final class ChannelOutboundBuffer {
             total = 0;
             pendingSize = 0;
             count = -1;
+            nioCount = 0;
+            nioBytes = 0;
             cancelled = false;
-            RECYCLER.recycle(this, handle);
-        }
-
-        Entry recycleAndGetNext() {
-            Entry next = this.next;
-            recycle();
-            return next;
         }
     }
 }
@@ -653,6 +653,18 @@ public interface ChannelPipeline extends Iterable<Entry<String, ChannelHandler>>
      */
     Map<String, ChannelHandler> toMap();
 
+    /**
+     * Sets the {@link ChannelPipelineTracer} which measures the {@link ChannelHandler}s of this pipeline, or
+     * {@code null} to stop tracing. Tracing is disabled by default. The threads which invoke the handlers may pick up
+     * the change with a delay.
+     */
+    ChannelPipeline tracer(ChannelPipelineTracer tracer);
+
+    /**
+     * Returns the {@link ChannelPipelineTracer} of this pipeline, or {@code null} if it is not traced.
+     */
+    ChannelPipelineTracer tracer();
+
     /**
      * A {@link Channel} was registered to its {@link EventLoop}.
      *
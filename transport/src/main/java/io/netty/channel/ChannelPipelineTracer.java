@@ -0,0 +1,299 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.util.concurrent.FastThreadLocal;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.StringUtil;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Measures how often and how long the {@link ChannelHandler}s of the {@link ChannelPipeline}s it was
+ * {@linkplain ChannelPipeline#tracer(ChannelPipelineTracer) set on} handle {@link Event}s, aggregated per
+ * {@link ChannelHandler} class. One instance can be shared by many pipelines, usually all child channels of a server.
+ * <p>
+ * Only one of every {@link #sampleRate()} invocations is measured, together with all invocations it causes on the
+ * same thread. Because of that both the inclusive time of a handler and its self time, which excludes the time spent
+ * in the handlers it called, are known. The counts are the number of measured invocations, multiply them with
+ * {@link #sampleRate()} to estimate the total.
+ */
+public final class ChannelPipelineTracer {
+
+    /**
+     * The events which are traced.
+     */
+    public enum Event {
+        /**
+         * {@link ChannelHandler#channelRead(ChannelHandlerContext, Object)}
+         */
+        CHANNEL_READ,
+        /**
+         * {@link ChannelHandler#write(ChannelHandlerContext, Object, ChannelPromise)}
+         */
+        WRITE,
+        /**
+         * {@link ChannelHandler#flush(ChannelHandlerContext)}
+         */
+        FLUSH
+    }
+
+    private static final int COUNT = 0;
+    private static final int TOTAL_NANOS = 1;
+    private static final int SELF_NANOS = 2;
+    private static final int MAX_NANOS = 3;
+    private static final int FIELDS = 4;
+
+    private static final Event[] EVENTS = Event.values();
+
+    private static final FastThreadLocal<TraceState> STATE = new FastThreadLocal<TraceState>() {
+        @Override
+        protected TraceState initialValue() {
+            return new TraceState();
+        }
+    };
+
+    private final int sampleRate;
+    private final ConcurrentMap<Class<?>, AtomicLongArray> stats = PlatformDependent.newConcurrentHashMap();
+
+    /**
+     * Creates a new tracer which measures one of every {@code sampleRate} invocations.
+     */
+    public ChannelPipelineTracer(int sampleRate) {
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("sampleRate: " + sampleRate + " (expected: > 0)");
+        }
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Returns how many invocations there are per measured invocation.
+     */
+    public int sampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Returns a snapshot of the statistics of every {@link ChannelHandler} class which was measured at least once.
+     */
+    public Map<Class<?>, HandlerStats> snapshot() {
+        Map<Class<?>, HandlerStats> snapshot = new HashMap<Class<?>, HandlerStats>(stats.size() * 2);
+        for (Map.Entry<Class<?>, AtomicLongArray> e: stats.entrySet()) {
+            snapshot.put(e.getKey(), new HandlerStats(e.getKey(), e.getValue()));
+        }
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    /**
+     * Discards all statistics.
+     */
+    public void reset() {
+        stats.clear();
+    }
+
+    void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        TraceState state = STATE.get();
+        if (!state.enter(sampleRate)) {
+            ctx.handler().channelRead(ctx, msg);
+            return;
+        }
+
+        long parentChildNanos = state.childNanos;
+        state.childNanos = 0;
+        long start = System.nanoTime();
+        try {
+            ctx.handler().channelRead(ctx, msg);
+        } finally {
+            exit(state, ctx, Event.CHANNEL_READ, start, parentChildNanos);
+        }
+    }
+
+    void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        TraceState state = STATE.get();
+        if (!state.enter(sampleRate)) {
+            ctx.handler().write(ctx, msg, promise);
+            return;
+        }
+
+        long parentChildNanos = state.childNanos;
+        state.childNanos = 0;
+        long start = System.nanoTime();
+        try {
+            ctx.handler().write(ctx, msg, promise);
+        } finally {
+            exit(state, ctx, Event.WRITE, start, parentChildNanos);
+        }
+    }
+
+    void flush(ChannelHandlerContext ctx) throws Exception {
+        TraceState state = STATE.get();
+        if (!state.enter(sampleRate)) {
+            ctx.handler().flush(ctx);
+            return;
+        }
+
+        long parentChildNanos = state.childNanos;
+        state.childNanos = 0;
+        long start = System.nanoTime();
+        try {
+            ctx.handler().flush(ctx);
+        } finally {
+            exit(state, ctx, Event.FLUSH, start, parentChildNanos);
+        }
+    }
+
+    private void exit(TraceState state, ChannelHandlerContext ctx, Event event, long start, long parentChildNanos) {
+        long nanos = System.nanoTime() - start;
+        record(ctx.handler().getClass(), event, nanos, nanos - state.childNanos);
+        if (-- state.depth == 0) {
+            state.childNanos = 0;
+        } else {
+            state.childNanos = parentChildNanos + nanos;
+        }
+    }
+
+    private void record(Class<?> handlerType, Event event, long nanos, long selfNanos) {
+        AtomicLongArray stats = this.stats.get(handlerType);
+        if (stats == null) {
+            AtomicLongArray newStats = new AtomicLongArray(EVENTS.length * FIELDS);
+            stats = this.stats.putIfAbsent(handlerType, newStats);
+            if (stats == null) {
+                stats = newStats;
+            }
+        }
+
+        int offset = event.ordinal() * FIELDS;
+        stats.incrementAndGet(offset + COUNT);
+        stats.addAndGet(offset + TOTAL_NANOS, nanos);
+        stats.addAndGet(offset + SELF_NANOS, selfNanos);
+        for (;;) {
+            long max = stats.get(offset + MAX_NANOS);
+            if (nanos <= max || stats.compareAndSet(offset + MAX_NANOS, max, nanos)) {
+                break;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return StringUtil.simpleClassName(this) + "(sampleRate: " + sampleRate + ", handlers: " + stats.size() + ')';
+    }
+
+    /**
+     * The sampling state of the current thread. Shared by all tracers, so that the time spent in the pipeline of
+     * another channel is attributed correctly as well.
+     */
+    private static final class TraceState {
+        // The number of measured invocations on the stack.
+        int depth;
+        // The nanoseconds spent in the measured invocations made by the current one.
+        long childNanos;
+        // The number of invocations until the next one is measured.
+        int countdown;
+
+        boolean enter(int sampleRate) {
+            if (depth != 0) {
+                depth ++;
+                return true;
+            }
+            // Another tracer with a larger sample rate may have left the countdown behind.
+            if (countdown > sampleRate) {
+                countdown = sampleRate;
+            }
+            if (-- countdown > 0) {
+                return false;
+            }
+            countdown = sampleRate;
+            depth = 1;
+            return true;
+        }
+    }
+
+    /**
+     * A snapshot of the statistics of one {@link ChannelHandler} class.
+     */
+    public static final class HandlerStats {
+
+        private final Class<?> handlerType;
+        private final long[] stats;
+
+        HandlerStats(Class<?> handlerType, AtomicLongArray stats) {
+            this.handlerType = handlerType;
+            this.stats = new long[stats.length()];
+            for (int i = 0; i < this.stats.length; i ++) {
+                this.stats[i] = stats.get(i);
+            }
+        }
+
+        /**
+         * Returns the {@link ChannelHandler} class these statistics belong to.
+         */
+        public Class<?> handlerType() {
+            return handlerType;
+        }
+
+        /**
+         * Returns the number of measured invocations.
+         */
+        public long count(Event event) {
+            return stats[event.ordinal() * FIELDS + COUNT];
+        }
+
+        /**
+         * Returns the nanoseconds spent in the measured invocations, including the handlers they called.
+         */
+        public long totalNanos(Event event) {
+            return stats[event.ordinal() * FIELDS + TOTAL_NANOS];
+        }
+
+        /**
+         * Returns the nanoseconds spent in the measured invocations, excluding the handlers they called.
+         */
+        public long selfNanos(Event event) {
+            return stats[event.ordinal() * FIELDS + SELF_NANOS];
+        }
+
+        /**
+         * Returns the longest measured invocation in nanoseconds, including the handlers it called.
+         */
+        public long maxNanos(Event event) {
+            return stats[event.ordinal() * FIELDS + MAX_NANOS];
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder buf = new StringBuilder(128);
+            buf.append(StringUtil.simpleClassName(handlerType)).append('(');
+            for (Event e: EVENTS) {
+                if (count(e) == 0) {
+                    continue;
+                }
+                if (buf.charAt(buf.length() - 1) != '(') {
+                    buf.append(", ");
+                }
+                buf.append(e).append(": count: ").append(count(e))
+                   .append(", totalNanos: ").append(totalNanos(e))
+                   .append(", selfNanos: ").append(selfNanos(e))
+                   .append(", maxNanos: ").append(maxNanos(e));
+            }
+            return buf.append(')').toString();
+        }
+    }
+}
@@ -60,6 +60,7 @@ public class DefaultChannelConfig implements ChannelConfig {
     private volatile int autoRead = 1;
     private volatile int writeBufferHighWaterMark = 64 * 1024;
     private volatile int writeBufferLowWaterMark = 32 * 1024;
+    private volatile OutboundMemoryBudget outboundMemoryBudget;
 
     public DefaultChannelConfig(Channel channel) {
         if (channel == null) {
@@ -84,7 +85,7 @@ public class DefaultChannelConfig implements ChannelConfig {
                 null,
                 CONNECT_TIMEOUT_MILLIS, MAX_MESSAGES_PER_READ, WRITE_SPIN_COUNT,
                 ALLOCATOR, AUTO_READ, RCVBUF_ALLOCATOR, WRITE_BUFFER_HIGH_WATER_MARK,
-                WRITE_BUFFER_LOW_WATER_MARK, MESSAGE_SIZE_ESTIMATOR);
+                WRITE_BUFFER_LOW_WATER_MARK, MESSAGE_SIZE_ESTIMATOR, OUTBOUND_MEMORY_BUDGET);
     }
 
     protected Map<ChannelOption<?>, Object> getOptions(
@@ -149,6 +150,9 @@ public class DefaultChannelConfig implements ChannelConfig {
         if (option == MESSAGE_SIZE_ESTIMATOR) {
             return (T) getMessageSizeEstimator();
         }
+        if (option == OUTBOUND_MEMORY_BUDGET) {
+            return (T) outboundMemoryBudget;
+        }
         return null;
     }
 
@@ -174,6 +178,8 @@ public class DefaultChannelConfig implements ChannelConfig {
             setWriteBufferLowWaterMark((Integer) value);
         } else if (option == MESSAGE_SIZE_ESTIMATOR) {
             setMessageSizeEstimator((MessageSizeEstimator) value);
+        } else if (option == OUTBOUND_MEMORY_BUDGET) {
+            outboundMemoryBudget = (OutboundMemoryBudget) value;
         } else {
             return false;
         }
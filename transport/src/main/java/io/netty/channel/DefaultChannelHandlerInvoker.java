@@ -19,17 +19,46 @@ package io.netty.channel;
 import io.netty.util.Recycler;
 import io.netty.util.ReferenceCountUtil;
 import io.netty.util.concurrent.EventExecutor;
-import io.netty.util.internal.OneTimeTask;
-import io.netty.util.internal.RecyclableMpscLinkedQueueNode;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
 
 import java.net.SocketAddress;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import static io.netty.channel.ChannelHandlerInvokerUtil.*;
 import static io.netty.channel.DefaultChannelPipeline.*;
 
 public class DefaultChannelHandlerInvoker implements ChannelHandlerInvoker {
 
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(DefaultChannelHandlerInvoker.class);
+
+    /**
+     * If {@code true} events which are triggered from outside the executor are appended to a per
+     * {@link ChannelHandlerContext} queue which is drained in order by a single task, instead of scheduling one task
+     * per event.
+     */
+    private static final boolean BATCH_CROSS_EXECUTOR_INVOCATIONS =
+            SystemPropertyUtil.getBoolean("io.netty.batchCrossExecutorInvocations", true);
+
+    /**
+     * The maximum number of events a single {@link InvocationQueue} task processes before it yields to other tasks
+     * of the executor.
+     */
+    private static final int MAX_INVOCATIONS_PER_BATCH =
+            Math.max(1, SystemPropertyUtil.getInt("io.netty.maxCrossExecutorInvocationsPerBatch", 1024));
+
+    static {
+        if (logger.isDebugEnabled()) {
+            logger.debug("-Dio.netty.batchCrossExecutorInvocations: {}", BATCH_CROSS_EXECUTOR_INVOCATIONS);
+            logger.debug("-Dio.netty.maxCrossExecutorInvocationsPerBatch: {}", MAX_INVOCATIONS_PER_BATCH);
+        }
+    }
+
     private final EventExecutor executor;
+    private final InvocationMetrics metrics = new InvocationMetrics();
 
     public DefaultChannelHandlerInvoker(EventExecutor executor) {
         if (executor == null) {
@@ -44,64 +73,51 @@ public class DefaultChannelHandlerInvoker implements ChannelHandlerInvoker {
         return executor;
     }
 
+    /**
+     * Returns the {@link InvocationMetrics} of this invoker.
+     */
+    public InvocationMetrics metrics() {
+        return metrics;
+    }
+
     @Override
-    public void invokeChannelRegistered(final ChannelHandlerContext ctx) {
+    public void invokeChannelRegistered(ChannelHandlerContext ctx) {
         if (executor.inEventLoop()) {
             invokeChannelRegisteredNow(ctx);
         } else {
-            executor.execute(new OneTimeTask() {
-                @Override
-                public void run() {
-                    invokeChannelRegisteredNow(ctx);
-                }
-            });
+            invokeLater(InvocationTask.newInstance(InvocationTask.CHANNEL_REGISTERED, ctx));
         }
     }
 
     @Override
-    public void invokeChannelUnregistered(final ChannelHandlerContext ctx) {
+    public void invokeChannelUnregistered(ChannelHandlerContext ctx) {
         if (executor.inEventLoop()) {
             invokeChannelUnregisteredNow(ctx);
         } else {
-            executor.execute(new OneTimeTask() {
-                @Override
-                public void run() {
-                    invokeChannelUnregisteredNow(ctx);
-                }
-            });
+            invokeLater(InvocationTask.newInstance(InvocationTask.CHANNEL_UNREGISTERED, ctx));
         }
     }
 
     @Override
-    public void invokeChannelActive(final ChannelHandlerContext ctx) {
+    public void invokeChannelActive(ChannelHandlerContext ctx) {
         if (executor.inEventLoop()) {
             invokeChannelActiveNow(ctx);
         } else {
-            executor.execute(new OneTimeTask() {
-                @Override
-                public void run() {
-                    invokeChannelActiveNow(ctx);
-                }
-            });
+            invokeLater(InvocationTask.newInstance(InvocationTask.CHANNEL_ACTIVE, ctx));
         }
     }
 
     @Override
-    public void invokeChannelInactive(final ChannelHandlerContext ctx) {
+    public void invokeChannelInactive(ChannelHandlerContext ctx) {
         if (executor.inEventLoop()) {
             invokeChannelInactiveNow(ctx);
         } else {
-            executor.execute(new OneTimeTask() {
-                @Override
-                public void run() {
-                    invokeChannelInactiveNow(ctx);
-                }
-            });
+            invokeLater(InvocationTask.newInstance(InvocationTask.CHANNEL_INACTIVE, ctx));
         }
     }
 
     @Override
-    public void invokeExceptionCaught(final ChannelHandlerContext ctx, final Throwable cause) {
+    public void invokeExceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
         if (cause == null) {
             throw new NullPointerException("cause");
         }
@@ -109,24 +125,12 @@ public class DefaultChannelHandlerInvoker implements ChannelHandlerInvoker {
         if (executor.inEventLoop()) {
             invokeExceptionCaughtNow(ctx, cause);
         } else {
-            try {
-                executor.execute(new OneTimeTask() {
-                    @Override
-                    public void run() {
-                        invokeExceptionCaughtNow(ctx, cause);
-                    }
-                });
-            } catch (Throwable t) {
-                if (logger.isWarnEnabled()) {
-                    logger.warn("Failed to submit an exceptionCaught() event.", t);
-                    logger.warn("The exceptionCaught() event that was failed to submit was:", cause);
-                }
-            }
+            invokeLater(InvocationTask.newInstance(InvocationTask.EXCEPTION_CAUGHT, ctx, cause));
         }
     }
 
     @Override
-    public void invokeUserEventTriggered(final ChannelHandlerContext ctx, final Object event) {
+    public void invokeUserEventTriggered(ChannelHandlerContext ctx, Object event) {
         if (event == null) {
             throw new NullPointerException("event");
         }
@@ -134,17 +138,12 @@ public class DefaultChannelHandlerInvoker implements ChannelHandlerInvoker {
         if (executor.inEventLoop()) {
             invokeUserEventTriggeredNow(ctx, event);
         } else {
-            safeExecuteInbound(new OneTimeTask() {
-                @Override
-                public void run() {
-                    invokeUserEventTriggeredNow(ctx, event);
-                }
-            }, event);
+            invokeLater(InvocationTask.newInstance(InvocationTask.USER_EVENT_TRIGGERED, ctx, event));
         }
     }
 
     @Override
-    public void invokeChannelRead(final ChannelHandlerContext ctx, final Object msg) {
+    public void invokeChannelRead(ChannelHandlerContext ctx, Object msg) {
         if (msg == null) {
             throw new NullPointerException("msg");
         }
@@ -152,56 +151,30 @@ public class DefaultChannelHandlerInvoker implements ChannelHandlerInvoker {
         if (executor.inEventLoop()) {
             invokeChannelReadNow(ctx, msg);
         } else {
-            safeExecuteInbound(new OneTimeTask() {
-                @Override
-                public void run() {
-                    invokeChannelReadNow(ctx, msg);
-                }
-            }, msg);
+            invokeLater(InvocationTask.newInstance(InvocationTask.CHANNEL_READ, ctx, msg));
         }
     }
 
     @Override
-    public void invokeChannelReadComplete(final ChannelHandlerContext ctx) {
+    public void invokeChannelReadComplete(ChannelHandlerContext ctx) {
         if (executor.inEventLoop()) {
             invokeChannelReadCompleteNow(ctx);
         } else {
-            AbstractChannelHandlerContext dctx = (AbstractChannelHandlerContext) ctx;
-            Runnable task = dctx.invokeChannelReadCompleteTask;
-            if (task == null) {
-                dctx.invokeChannelReadCompleteTask = task = new Runnable() {
-                    @Override
-                    public void run() {
-                        invokeChannelReadCompleteNow(ctx);
-                    }
-                };
-            }
-            executor.execute(task);
+            invokeLater(InvocationTask.newInstance(InvocationTask.CHANNEL_READ_COMPLETE, ctx));
         }
     }
 
     @Override
-    public void invokeChannelWritabilityChanged(final ChannelHandlerContext ctx) {
+    public void invokeChannelWritabilityChanged(ChannelHandlerContext ctx) {
         if (executor.inEventLoop()) {
             invokeChannelWritabilityChangedNow(ctx);
         } else {
-            AbstractChannelHandlerContext dctx = (AbstractChannelHandlerContext) ctx;
-            Runnable task = dctx.invokeChannelWritableStateChangedTask;
-            if (task == null) {
-                dctx.invokeChannelWritableStateChangedTask = task = new Runnable() {
-                    @Override
-                    public void run() {
-                        invokeChannelWritabilityChangedNow(ctx);
-                    }
-                };
-            }
-            executor.execute(task);
+            invokeLater(InvocationTask.newInstance(InvocationTask.CHANNEL_WRITABILITY_CHANGED, ctx));
         }
     }
 
     @Override
-    public void invokeBind(
-            final ChannelHandlerContext ctx, final SocketAddress localAddress, final ChannelPromise promise) {
+    public void invokeBind(ChannelHandlerContext ctx, SocketAddress localAddress, ChannelPromise promise) {
         if (localAddress == null) {
             throw new NullPointerException("localAddress");
         }
@@ -213,19 +186,14 @@ public class DefaultChannelHandlerInvoker implements ChannelHandlerInvoker {
         if (executor.inEventLoop()) {
             invokeBindNow(ctx, localAddress, promise);
         } else {
-            safeExecuteOutbound(new OneTimeTask() {
-                @Override
-                public void run() {
-                    invokeBindNow(ctx, localAddress, promise);
-                }
-            }, promise);
+            invokeLater(InvocationTask.newInstance(InvocationTask.BIND, ctx, localAddress, null, 0, promise));
         }
     }
 
     @Override
     public void invokeConnect(
-            final ChannelHandlerContext ctx,
-            final SocketAddress remoteAddress, final SocketAddress localAddress, final ChannelPromise promise) {
+            ChannelHandlerContext ctx,
+            SocketAddress remoteAddress, SocketAddress localAddress, ChannelPromise promise) {
         if (remoteAddress == null) {
             throw new NullPointerException("remoteAddress");
         }
@@ -237,17 +205,13 @@ public class DefaultChannelHandlerInvoker implements ChannelHandlerInvoker {
         if (executor.inEventLoop()) {
             invokeConnectNow(ctx, remoteAddress, localAddress, promise);
         } else {
-            safeExecuteOutbound(new OneTimeTask() {
-                @Override
-                public void run() {
-                    invokeConnectNow(ctx, remoteAddress, localAddress, promise);
-                }
-            }, promise);
+            invokeLater(InvocationTask.newInstance(
+                    InvocationTask.CONNECT, ctx, remoteAddress, localAddress, 0, promise));
         }
     }
 
     @Override
-    public void invokeDisconnect(final ChannelHandlerContext ctx, final ChannelPromise promise) {
+    public void invokeDisconnect(ChannelHandlerContext ctx, ChannelPromise promise) {
         if (!validatePromise(ctx, promise, false)) {
             // promise cancelled
             return;
@@ -256,17 +220,12 @@ public class DefaultChannelHandlerInvoker implements ChannelHandlerInvoker {
         if (executor.inEventLoop()) {
             invokeDisconnectNow(ctx, promise);
         } else {
-            safeExecuteOutbound(new OneTimeTask() {
-                @Override
-                public void run() {
-                    invokeDisconnectNow(ctx, promise);
-                }
-            }, promise);
+            invokeLater(InvocationTask.newInstance(InvocationTask.DISCONNECT, ctx, null, null, 0, promise));
         }
     }
 
     @Override
-    public void invokeClose(final ChannelHandlerContext ctx, final ChannelPromise promise) {
+    public void invokeClose(ChannelHandlerContext ctx, ChannelPromise promise) {
         if (!validatePromise(ctx, promise, false)) {
             // promise cancelled
             return;
@@ -275,17 +234,12 @@ public class DefaultChannelHandlerInvoker implements ChannelHandlerInvoker {
         if (executor.inEventLoop()) {
             invokeCloseNow(ctx, promise);
         } else {
-            safeExecuteOutbound(new OneTimeTask() {
-                @Override
-                public void run() {
-                    invokeCloseNow(ctx, promise);
-                }
-            }, promise);
+            invokeLater(InvocationTask.newInstance(InvocationTask.CLOSE, ctx, null, null, 0, promise));
         }
     }
 
     @Override
-    public void invokeDeregister(final ChannelHandlerContext ctx, final ChannelPromise promise) {
+    public void invokeDeregister(ChannelHandlerContext ctx, ChannelPromise promise) {
         if (!validatePromise(ctx, promise, false)) {
             // promise cancelled
             return;
@@ -294,31 +248,16 @@ public class DefaultChannelHandlerInvoker implements ChannelHandlerInvoker {
         if (executor.inEventLoop()) {
             invokeDeregisterNow(ctx, promise);
         } else {
-            safeExecuteOutbound(new OneTimeTask() {
-                @Override
-                public void run() {
-                    invokeDeregisterNow(ctx, promise);
-                }
-            }, promise);
+            invokeLater(InvocationTask.newInstance(InvocationTask.DEREGISTER, ctx, null, null, 0, promise));
         }
     }
 
     @Override
-    public void invokeRead(final ChannelHandlerContext ctx) {
+    public void invokeRead(ChannelHandlerContext ctx) {
         if (executor.inEventLoop()) {
             invokeReadNow(ctx);
         } else {
-            AbstractChannelHandlerContext dctx = (AbstractChannelHandlerContext) ctx;
-            Runnable task = dctx.invokeReadTask;
-            if (task == null) {
-                dctx.invokeReadTask = task = new Runnable() {
-                    @Override
-                    public void run() {
-                        invokeReadNow(ctx);
-                    }
-                };
-            }
-            executor.execute(task);
+            invokeLater(InvocationTask.newInstance(InvocationTask.READ, ctx));
         }
     }
 
@@ -345,110 +284,476 @@ public class DefaultChannelHandlerInvoker implements ChannelHandlerInvoker {
                     buffer.incrementPendingOutboundBytes(size);
                 }
             }
-            safeExecuteOutbound(WriteTask.newInstance(ctx, msg, size, promise), promise, msg);
+            invokeLater(InvocationTask.newInstance(InvocationTask.WRITE, ctx, msg, null, size, promise));
         }
     }
 
     @Override
-    public void invokeFlush(final ChannelHandlerContext ctx) {
+    public void invokeFlush(ChannelHandlerContext ctx) {
         if (executor.inEventLoop()) {
             invokeFlushNow(ctx);
         } else {
-            AbstractChannelHandlerContext dctx = (AbstractChannelHandlerContext) ctx;
-            Runnable task = dctx.invokeFlushTask;
-            if (task == null) {
-                dctx.invokeFlushTask = task = new Runnable() {
-                    @Override
-                    public void run() {
-                        invokeFlushNow(ctx);
-                    }
-                };
-            }
-            executor.execute(task);
+            invokeLater(InvocationTask.newInstance(InvocationTask.FLUSH, ctx));
         }
     }
 
-    private void safeExecuteInbound(Runnable task, Object msg) {
-        boolean success = false;
-        try {
-            executor.execute(task);
-            success = true;
-        } finally {
-            if (!success) {
-                ReferenceCountUtil.release(msg);
+    private void invokeLater(InvocationTask task) {
+        // Must be determined upfront as the task may be recycled as soon as it was handed over.
+        boolean propagateRejection = task.propagatesRejection();
+        Throwable cause;
+        if (BATCH_CROSS_EXECUTOR_INVOCATIONS) {
+            cause = invocationQueue(task.ctx).add(task);
+        } else {
+            task.invoker = this;
+            cause = null;
+            try {
+                executor.execute(task);
+            } catch (Throwable t) {
+                task.fail(t);
+                cause = t;
             }
         }
-    }
 
-    private void safeExecuteOutbound(Runnable task, ChannelPromise promise) {
-        try {
-            executor.execute(task);
-        } catch (Throwable cause) {
-            promise.setFailure(cause);
+        if (cause != null && propagateRejection) {
+            PlatformDependent.throwException(cause);
         }
     }
-    private void safeExecuteOutbound(Runnable task, ChannelPromise promise, Object msg) {
-        try {
-            executor.execute(task);
-        } catch (Throwable cause) {
-            try {
-                promise.setFailure(cause);
-            } finally {
-                ReferenceCountUtil.release(msg);
-            }
+
+    private InvocationQueue invocationQueue(ChannelHandlerContext ctx) {
+        AbstractChannelHandlerContext dctx = (AbstractChannelHandlerContext) ctx;
+        InvocationQueue queue = dctx.invocationQueue;
+        if (queue == null || queue.invoker != this) {
+            // The queue is shared by all contexts of the pipeline which use this invoker, so a close() which skips
+            // the handler that received the writes can not overtake them.
+            queue = dctx.pipeline.invocationQueue(this);
+            dctx.invocationQueue = queue;
         }
+        return queue;
     }
 
-    static final class WriteTask extends RecyclableMpscLinkedQueueNode<SingleThreadEventLoop.NonWakeupRunnable>
-            implements SingleThreadEventLoop.NonWakeupRunnable {
-        private ChannelHandlerContext ctx;
-        private Object msg;
-        private ChannelPromise promise;
-        private int size;
+    /**
+     * A recycled event which is handed over to the executor of a {@link DefaultChannelHandlerInvoker} because it
+     * was triggered from another thread.
+     */
+    static class InvocationTask implements Runnable {
+
+        static final int CHANNEL_REGISTERED = 0;
+        static final int CHANNEL_UNREGISTERED = 1;
+        static final int CHANNEL_ACTIVE = 2;
+        static final int CHANNEL_INACTIVE = 3;
+        static final int EXCEPTION_CAUGHT = 4;
+        static final int USER_EVENT_TRIGGERED = 5;
+        static final int CHANNEL_READ = 6;
+        static final int CHANNEL_READ_COMPLETE = 7;
+        static final int CHANNEL_WRITABILITY_CHANGED = 8;
+        static final int BIND = 9;
+        static final int CONNECT = 10;
+        static final int DISCONNECT = 11;
+        static final int CLOSE = 12;
+        static final int DEREGISTER = 13;
+        static final int READ = 14;
+        static final int WRITE = 15;
+        static final int FLUSH = 16;
+
+        private static final Recycler<InvocationTask> RECYCLER = new Recycler<InvocationTask>() {
+            @Override
+            protected InvocationTask newObject(Handle<InvocationTask> handle) {
+                return new InvocationTask(handle);
+            }
+        };
 
-        private static final Recycler<WriteTask> RECYCLER = new Recycler<WriteTask>() {
+        /**
+         * Used for writes which are executed on their own, so that they do not wake up the {@link EventLoop}.
+         */
+        private static final Recycler<InvocationTask> NON_WAKEUP_RECYCLER = new Recycler<InvocationTask>() {
             @Override
-            protected WriteTask newObject(Handle<WriteTask> handle) {
-                return new WriteTask(handle);
+            protected InvocationTask newObject(Handle<InvocationTask> handle) {
+                return new NonWakeupInvocationTask(handle);
             }
         };
 
-        private static WriteTask newInstance(
-                ChannelHandlerContext ctx, Object msg, int size, ChannelPromise promise) {
-            WriteTask task = RECYCLER.get();
+        static InvocationTask newInstance(int type, ChannelHandlerContext ctx) {
+            return newInstance(type, ctx, null, null, 0, null);
+        }
+
+        static InvocationTask newInstance(int type, ChannelHandlerContext ctx, Object arg) {
+            return newInstance(type, ctx, arg, null, 0, null);
+        }
+
+        static InvocationTask newInstance(
+                int type, ChannelHandlerContext ctx, Object arg, SocketAddress localAddress, int size,
+                ChannelPromise promise) {
+            InvocationTask task = type == WRITE && !BATCH_CROSS_EXECUTOR_INVOCATIONS ?
+                    NON_WAKEUP_RECYCLER.get() : RECYCLER.get();
+            task.type = type;
             task.ctx = ctx;
-            task.msg = msg;
-            task.promise = promise;
+            task.arg = arg;
+            task.localAddress = localAddress;
             task.size = size;
+            task.promise = promise;
             return task;
         }
 
-        private WriteTask(Recycler.Handle<WriteTask> handle) {
+        private final Recycler.Handle<InvocationTask> handle;
+        private int type;
+        private ChannelHandlerContext ctx;
+        // The message, event, cause or remote address of the event.
+        private Object arg;
+        private SocketAddress localAddress;
+        private int size;
+        private ChannelPromise promise;
+        // Only set if the task is executed on its own.
+        private DefaultChannelHandlerInvoker invoker;
+        // Links the tasks of an InvocationQueue.
+        InvocationTask next;
+
+        InvocationTask(Recycler.Handle<InvocationTask> handle) {
+            this.handle = handle;
+        }
+
+        @Override
+        public void run() {
+            DefaultChannelHandlerInvoker invoker = this.invoker;
+            try {
+                invoke();
+            } finally {
+                InvocationMetrics metrics = invoker.metrics;
+                metrics.incrementHops(1);
+                metrics.incrementTasks();
+            }
+        }
+
+        /**
+         * Passes the event to the handler of the context and recycles this task.
+         */
+        void invoke() {
+            try {
+                switch (type) {
+                case CHANNEL_REGISTERED:
+                    invokeChannelRegisteredNow(ctx);
+                    break;
+                case CHANNEL_UNREGISTERED:
+                    invokeChannelUnregisteredNow(ctx);
+                    break;
+                case CHANNEL_ACTIVE:
+                    invokeChannelActiveNow(ctx);
+                    break;
+                case CHANNEL_INACTIVE:
+                    invokeChannelInactiveNow(ctx);
+                    break;
+                case EXCEPTION_CAUGHT:
+                    invokeExceptionCaughtNow(ctx, (Throwable) arg);
+                    break;
+                case USER_EVENT_TRIGGERED:
+                    invokeUserEventTriggeredNow(ctx, arg);
+                    break;
+                case CHANNEL_READ:
+                    invokeChannelReadNow(ctx, arg);
+                    break;
+                case CHANNEL_READ_COMPLETE:
+                    invokeChannelReadCompleteNow(ctx);
+                    break;
+                case CHANNEL_WRITABILITY_CHANGED:
+                    invokeChannelWritabilityChangedNow(ctx);
+                    break;
+                case BIND:
+                    invokeBindNow(ctx, (SocketAddress) arg, promise);
+                    break;
+                case CONNECT:
+                    invokeConnectNow(ctx, (SocketAddress) arg, localAddress, promise);
+                    break;
+                case DISCONNECT:
+                    invokeDisconnectNow(ctx, promise);
+                    break;
+                case CLOSE:
+                    invokeCloseNow(ctx, promise);
+                    break;
+                case DEREGISTER:
+                    invokeDeregisterNow(ctx, promise);
+                    break;
+                case READ:
+                    invokeReadNow(ctx);
+                    break;
+                case WRITE:
+                    decrementPendingOutboundBytes();
+                    invokeWriteNow(ctx, arg, promise);
+                    break;
+                case FLUSH:
+                    invokeFlushNow(ctx);
+                    break;
+                default:
+                    throw new Error();
+                }
+            } finally {
+                recycle();
+            }
+        }
+
+        /**
+         * Fails the event without passing it to the handler because the executor rejected it and recycles this
+         * task.
+         */
+        void fail(Throwable cause) {
+            try {
+                if (type == WRITE) {
+                    decrementPendingOutboundBytes();
+                }
+                if (promise != null) {
+                    promise.setFailure(cause);
+                } else if (type == EXCEPTION_CAUGHT && logger.isWarnEnabled()) {
+                    logger.warn("Failed to submit an exceptionCaught() event.", cause);
+                    logger.warn("The exceptionCaught() event that was failed to submit was:", arg);
+                }
+            } finally {
+                try {
+                    if (type == CHANNEL_READ || type == USER_EVENT_TRIGGERED || type == WRITE) {
+                        ReferenceCountUtil.release(arg);
+                    }
+                } finally {
+                    recycle();
+                }
+            }
+        }
+
+        /**
+         * Returns {@code true} if the caller must be notified about the rejection of this event by an exception,
+         * because it has no promise which can be failed. Flushes never do, as the promises of the writes they
+         * belong to are failed already.
+         */
+        boolean propagatesRejection() {
+            return promise == null && type != EXCEPTION_CAUGHT && type != FLUSH;
+        }
+
+        private void decrementPendingOutboundBytes() {
+            if (size > 0) {
+                ChannelOutboundBuffer buffer = ctx.channel().unsafe().outboundBuffer();
+                // Check for null as it may be set to null if the channel is closed already
+                if (buffer != null) {
+                    buffer.decrementPendingOutboundBytes(size);
+                }
+            }
+        }
+
+        void recycle() {
+            // Set to null so the GC can collect them directly
+            ctx = null;
+            arg = null;
+            localAddress = null;
+            promise = null;
+            invoker = null;
+            next = null;
+            handle.recycle(this);
+        }
+    }
+
+    private static final class NonWakeupInvocationTask extends InvocationTask
+            implements SingleThreadEventLoop.NonWakeupRunnable {
+
+        NonWakeupInvocationTask(Recycler.Handle<InvocationTask> handle) {
             super(handle);
         }
+    }
+
+    /**
+     * Multi-producer single-consumer queue of events which were triggered from outside of the executor for the
+     * {@link ChannelHandlerContext}s of a {@link ChannelPipeline} that use the same invoker. Producers only schedule
+     * this task on the executor if it is not scheduled yet, so a burst of events results in one task and one wakeup
+     * instead of one of each per event. The events are passed to the handlers in the order they were triggered, even
+     * if they are for different handlers of the pipeline.
+     * <p>
+     * Each run only processes the events which were queued before it started. Events which are queued while it runs
+     * are processed by another task which is scheduled behind the tasks that were submitted to the executor in the
+     * meantime, so they never overtake them.
+     * <p>
+     * Flushes are deferred till the next event which is not a write to the same context or the end of the batch,
+     * which means writes that are queued after the last flush of a batch are flushed together with it. Only
+     * consecutive flushes of the same context are merged. Promises are notified exactly as if every event was
+     * executed on its own.
+     */
+    static final class InvocationQueue implements Runnable {
+
+        private static final AtomicIntegerFieldUpdater<InvocationQueue> SCHEDULED_UPDATER;
+        private static final AtomicReferenceFieldUpdater<InvocationQueue, InvocationTask> HEAD_UPDATER;
+
+        static {
+            AtomicIntegerFieldUpdater<InvocationQueue> scheduledUpdater =
+                    PlatformDependent.newAtomicIntegerFieldUpdater(InvocationQueue.class, "scheduled");
+            if (scheduledUpdater == null) {
+                scheduledUpdater = AtomicIntegerFieldUpdater.newUpdater(InvocationQueue.class, "scheduled");
+            }
+            SCHEDULED_UPDATER = scheduledUpdater;
+
+            AtomicReferenceFieldUpdater<InvocationQueue, InvocationTask> headUpdater =
+                    PlatformDependent.newAtomicReferenceFieldUpdater(InvocationQueue.class, "head");
+            if (headUpdater == null) {
+                headUpdater = AtomicReferenceFieldUpdater.newUpdater(
+                        InvocationQueue.class, InvocationTask.class, "head");
+            }
+            HEAD_UPDATER = headUpdater;
+        }
+
+        // The most recently queued task, tasks are linked in reverse order.
+        @SuppressWarnings("UnusedDeclaration")
+        private volatile InvocationTask head;
+        // Tasks which were taken from the queue but not processed yet because of MAX_INVOCATIONS_PER_BATCH.
+        // Only accessed by the thread which set the scheduled flag.
+        private InvocationTask pending;
+        final DefaultChannelHandlerInvoker invoker;
+        @SuppressWarnings("UnusedDeclaration")
+        private volatile int scheduled;
+
+        InvocationQueue(DefaultChannelHandlerInvoker invoker) {
+            this.invoker = invoker;
+        }
+
+        /**
+         * Adds the task and schedules the processing of the queue if necessary. Returns the cause if the executor
+         * rejected it, in which case all queued tasks were failed.
+         */
+        Throwable add(InvocationTask task) {
+            for (;;) {
+                InvocationTask head = this.head;
+                task.next = head;
+                if (HEAD_UPDATER.compareAndSet(this, head, task)) {
+                    break;
+                }
+            }
+            // Only schedule if no one else did yet. The consumer resets the flag before it checks the queue a last
+            // time, so either it or we will pick up the task.
+            if (scheduled == 0 && SCHEDULED_UPDATER.compareAndSet(this, 0, 1)) {
+                return schedule();
+            }
+            return null;
+        }
+
+        private Throwable schedule() {
+            Throwable failure = null;
+            for (;;) {
+                try {
+                    invoker.executor.execute(this);
+                    return failure;
+                } catch (Throwable cause) {
+                    // We own the queue as the task could not be scheduled, so fail everything that is pending.
+                    failAll(cause);
+                    failure = cause;
+                    scheduled = 0;
+                    if (head == null || !SCHEDULED_UPDATER.compareAndSet(this, 0, 1)) {
+                        return failure;
+                    }
+                }
+            }
+        }
+
+        private void failAll(Throwable cause) {
+            InvocationTask task = pending;
+            pending = null;
+            if (task == null) {
+                task = takeAll();
+            }
+            while (task != null) {
+                InvocationTask next = task.next;
+                task.fail(cause);
+                task = next;
+                if (task == null) {
+                    task = takeAll();
+                }
+            }
+        }
+
+        /**
+         * Removes all queued tasks and returns them linked in the order they were added.
+         */
+        private InvocationTask takeAll() {
+            InvocationTask task = HEAD_UPDATER.getAndSet(this, null);
+            InvocationTask reversed = null;
+            while (task != null) {
+                InvocationTask next = task.next;
+                task.next = reversed;
+                reversed = task;
+                task = next;
+            }
+            return reversed;
+        }
 
         @Override
         public void run() {
+            InvocationTask task = pending;
+            pending = null;
+            if (task == null) {
+                task = takeAll();
+            }
+
+            ChannelHandlerContext flushCtx = null;
+            int invocations = 0;
             try {
-                if (size > 0) {
-                    ChannelOutboundBuffer buffer = ctx.channel().unsafe().outboundBuffer();
-                    // Check for null as it may be set to null if the channel is closed already
-                    if (buffer != null) {
-                        buffer.decrementPendingOutboundBytes(size);
+                while (task != null) {
+                    InvocationTask next = task.next;
+                    invocations ++;
+                    if (task.type == InvocationTask.FLUSH) {
+                        ChannelHandlerContext ctx = task.ctx;
+                        task.recycle();
+                        if (flushCtx != ctx) {
+                            // Only consecutive flushes of the same context are merged.
+                            if (flushCtx != null) {
+                                flushSafely(flushCtx);
+                            }
+                            flushCtx = ctx;
+                        }
+                    } else {
+                        if (flushCtx != null && (task.type != InvocationTask.WRITE || task.ctx != flushCtx)) {
+                            // Flush before any other event so that the handlers observe the same order.
+                            ChannelHandlerContext ctx = flushCtx;
+                            flushCtx = null;
+                            flushSafely(ctx);
+                        }
+                        invokeSafely(task);
+                    }
+                    task = next;
+
+                    if (invocations == MAX_INVOCATIONS_PER_BATCH) {
+                        // Give other tasks a chance to run and continue later.
+                        pending = task;
+                        break;
                     }
                 }
-                invokeWriteNow(ctx, msg, promise);
             } finally {
-                // Set to null so the GC can collect them directly
-                ctx = null;
-                msg = null;
-                promise = null;
+                if (flushCtx != null) {
+                    flushSafely(flushCtx);
+                }
+                InvocationMetrics metrics = invoker.metrics;
+                metrics.incrementHops(invocations);
+                metrics.incrementTasks();
+            }
+
+            if (pending == null) {
+                scheduled = 0;
+                // Check again as a producer may have added a task after we took them the last time but before we
+                // reset the flag.
+                if (head == null || !SCHEDULED_UPDATER.compareAndSet(this, 0, 1)) {
+                    return;
+                }
             }
+            schedule();
         }
 
-        @Override
-        public SingleThreadEventLoop.NonWakeupRunnable value() {
-            return this;
+        /**
+         * Invokes the task and logs what it throws, so that a failing event can not stop the processing of the
+         * events which are queued behind it.
+         */
+        private static void invokeSafely(InvocationTask task) {
+            try {
+                task.invoke();
+            } catch (Throwable t) {
+                logger.warn("Unexpected exception while invoking a queued event.", t);
+            }
+        }
+
+        private static void flushSafely(ChannelHandlerContext ctx) {
+            try {
+                invokeFlushNow(ctx);
+            } catch (Throwable t) {
+                logger.warn("Unexpected exception while invoking a queued flush.", t);
+            }
         }
     }
 }
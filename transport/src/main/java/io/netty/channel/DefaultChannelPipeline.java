@@ -16,6 +16,7 @@
 package io.netty.channel;
 
 import io.netty.channel.Channel.Unsafe;
+import io.netty.channel.DefaultChannelHandlerInvoker.InvocationQueue;
 import io.netty.util.ReferenceCountUtil;
 import io.netty.util.concurrent.EventExecutor;
 import io.netty.util.concurrent.EventExecutorGroup;
@@ -70,6 +71,13 @@ final class DefaultChannelPipeline implements ChannelPipeline {
      */
     private Map<EventExecutorGroup, ChannelHandlerInvoker> childInvokers;
 
+    /**
+     * @see #invocationQueue(DefaultChannelHandlerInvoker)
+     */
+    private Map<DefaultChannelHandlerInvoker, InvocationQueue> invocationQueues;
+
+    volatile ChannelPipelineTracer tracer;
+
     DefaultChannelPipeline(AbstractChannel channel) {
         if (channel == null) {
             throw new NullPointerException("channel");
@@ -81,6 +89,7 @@ final class DefaultChannelPipeline implements ChannelPipeline {
 
         head.next = tail;
         tail.prev = head;
+        rebuildDispatchTables();
     }
 
     @Override
@@ -119,6 +128,7 @@ final class DefaultChannelPipeline implements ChannelPipeline {
         newCtx.next = nextCtx;
         head.next = newCtx;
         nextCtx.prev = newCtx;
+        rebuildDispatchTables();
 
         name2ctx.put(name, newCtx);
 
@@ -156,6 +166,7 @@ final class DefaultChannelPipeline implements ChannelPipeline {
         newCtx.next = tail;
         prev.next = newCtx;
         tail.prev = newCtx;
+        rebuildDispatchTables();
 
         name2ctx.put(name, newCtx);
 
@@ -196,6 +207,7 @@ final class DefaultChannelPipeline implements ChannelPipeline {
         newCtx.next = ctx;
         ctx.prev.next = newCtx;
         ctx.prev = newCtx;
+        rebuildDispatchTables();
 
         name2ctx.put(name, newCtx);
 
@@ -236,6 +248,7 @@ final class DefaultChannelPipeline implements ChannelPipeline {
         newCtx.next = ctx.next;
         ctx.next.prev = newCtx;
         ctx.next = newCtx;
+        rebuildDispatchTables();
 
         name2ctx.put(name, newCtx);
 
@@ -360,6 +373,27 @@ final class DefaultChannelPipeline implements ChannelPipeline {
         return invoker;
     }
 
+    /**
+     * Returns the queue of the events which are triggered for the handlers of this pipeline from outside of the
+     * executor of the specified invoker. All contexts which use the same invoker share one queue, so the events are
+     * passed on in the order they were triggered even if they are for different handlers.
+     */
+    InvocationQueue invocationQueue(DefaultChannelHandlerInvoker invoker) {
+        synchronized (this) {
+            Map<DefaultChannelHandlerInvoker, InvocationQueue> invocationQueues = this.invocationQueues;
+            if (invocationQueues == null) {
+                invocationQueues = this.invocationQueues =
+                        new IdentityHashMap<DefaultChannelHandlerInvoker, InvocationQueue>(2);
+            }
+            InvocationQueue queue = invocationQueues.get(invoker);
+            if (queue == null) {
+                queue = new InvocationQueue(invoker);
+                invocationQueues.put(invoker, queue);
+            }
+            return queue;
+        }
+    }
+
     String generateName(ChannelHandler handler) {
         WeakHashMap<Class<?>, String> cache = nameCaches[(int) (Thread.currentThread().getId() % nameCaches.length)];
         Class<?> handlerType = handler.getClass();
@@ -447,6 +481,8 @@ final class DefaultChannelPipeline implements ChannelPipeline {
         AbstractChannelHandlerContext next = ctx.next;
         prev.next = next;
         next.prev = prev;
+        rebuildDispatchTables();
+        ctx.inheritDispatchTables();
         name2ctx.remove(ctx.name());
         callHandlerRemoved(ctx);
     }
@@ -549,6 +585,8 @@ final class DefaultChannelPipeline implements ChannelPipeline {
         // update the reference to the replacement so forward of buffered content will work correctly
         oldCtx.prev = newCtx;
         oldCtx.next = newCtx;
+        rebuildDispatchTables();
+        oldCtx.inheritDispatchTables();
 
         // Invoke newHandler.handlerAdded() first (i.e. before oldHandler.handlerRemoved() is invoked)
         // because callHandlerRemoved() will trigger inboundBufferUpdated() or flush() on newHandler and those
@@ -557,6 +595,21 @@ final class DefaultChannelPipeline implements ChannelPipeline {
         callHandlerRemoved(oldCtx);
     }
 
+    // No need for synchronization because it is always executed in a synchronized(this) block
+    // (or from the constructor).
+    private void rebuildDispatchTables() {
+        AbstractChannelHandlerContext.rebuildDispatchTables(head, tail);
+        updateTracers();
+    }
+
+    // No need for synchronization because it is always executed in a synchronized(this) block.
+    private void updateTracers() {
+        ChannelPipelineTracer tracer = this.tracer;
+        for (AbstractChannelHandlerContext ctx = head; ctx != null; ctx = ctx.next) {
+            ctx.tracer = tracer;
+        }
+    }
+
     private static void checkMultiplicity(ChannelHandlerContext ctx) {
         ChannelHandler handler = ctx.handler();
         if (handler instanceof ChannelHandlerAdapter) {
@@ -789,6 +842,20 @@ final class DefaultChannelPipeline implements ChannelPipeline {
         }
     }
 
+    @Override
+    public ChannelPipeline tracer(ChannelPipelineTracer tracer) {
+        synchronized (this) {
+            this.tracer = tracer;
+            updateTracers();
+        }
+        return this;
+    }
+
+    @Override
+    public ChannelPipelineTracer tracer() {
+        return tracer;
+    }
+
     @Override
     public Map<String, ChannelHandler> toMap() {
         Map<String, ChannelHandler> map = new LinkedHashMap<String, ChannelHandler>();
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.util.internal.StringUtil;
+
+/**
+ * Statistics about the events a {@link DefaultChannelHandlerInvoker} had to hand over to its executor because they
+ * were triggered from another thread, for example by a handler which was added with a different
+ * {@link io.netty.util.concurrent.EventExecutorGroup} than the one of the next handler.
+ *
+ * The counters are only updated by the executor of the invoker but can be read from any thread. They are monotonic,
+ * so rates can be calculated by sampling them periodically.
+ */
+public final class InvocationMetrics {
+
+    private volatile long hops;
+    private volatile long tasks;
+
+    /**
+     * Returns the number of events which were executed by the executor after being triggered from another thread.
+     */
+    public long hops() {
+        return hops;
+    }
+
+    /**
+     * Returns the number of tasks the executor ran to process {@link #hops()}. If consecutive events are batched
+     * this is less than {@link #hops()}.
+     */
+    public long tasks() {
+        return tasks;
+    }
+
+    /**
+     * Must only be called by the executor of the invoker this instance belongs to.
+     */
+    void incrementHops(int hops) {
+        this.hops += hops;
+    }
+
+    /**
+     * Must only be called by the executor of the invoker this instance belongs to.
+     */
+    void incrementTasks() {
+        tasks++;
+    }
+
+    @Override
+    public String toString() {
+        return StringUtil.simpleClassName(this) +
+                "(hops: " + hops +
+                ", tasks: " + tasks + ')';
+    }
+}
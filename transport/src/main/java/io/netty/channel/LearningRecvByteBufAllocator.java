@@ -0,0 +1,229 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.util.concurrent.FastThreadLocal;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The {@link RecvByteBufAllocator} that predicts the buffer size of each {@link Channel} from a moving average of the
+ * number of bytes it read, and seeds the prediction of new {@link Channel}s with a moving average over all
+ * {@link Channel}s which use the same instance on the same thread (i.e. {@link EventLoop}). Use one instance per
+ * listener (for example via {@code ServerBootstrap.childOption(ChannelOption.RCVBUF_ALLOCATOR, ...)}) so that
+ * short-lived connections start with a good guess instead of a fixed initial size.
+ * <p>
+ * Transports which read synchronously (NIO and epoll) additionally:
+ * <ul>
+ * <li>stop a read loop once it read {@code maxBytesPerRead} bytes, instead of after
+ *     {@link ChannelConfig#getMaxMessagesPerRead()} reads, and</li>
+ * <li>read into a scratch buffer which is shared by all {@link Channel}s of the thread while the prediction is not
+ *     larger than {@code maxCopySize}, and copy the read bytes into a buffer of the exact size. This avoids
+ *     allocating too large buffers and issuing more reads than necessary when the prediction is too small.</li>
+ * </ul>
+ */
+public class LearningRecvByteBufAllocator implements RecvByteBufAllocator {
+
+    static final int DEFAULT_MINIMUM = 64;
+    static final int DEFAULT_INITIAL = 1024;
+    static final int DEFAULT_MAXIMUM = 65536;
+    static final int DEFAULT_MAX_BYTES_PER_READ = 256 * 1024;
+    static final int DEFAULT_MAX_COPY_SIZE = 2048;
+
+    private static final int SCRATCH_CAPACITY = DEFAULT_MAXIMUM;
+
+    private static final FastThreadLocal<ByteBuf> SCRATCH = new FastThreadLocal<ByteBuf>() {
+        @Override
+        protected ByteBuf initialValue() throws Exception {
+            // Not allocated via an allocator as it is never released while the thread is alive.
+            return Unpooled.wrappedBuffer(ByteBuffer.allocateDirect(SCRATCH_CAPACITY));
+        }
+
+        @Override
+        protected void onRemoval(ByteBuf value) throws Exception {
+            value.release();
+        }
+    };
+
+    /**
+     * The moving average of the number of bytes read per read loop by the {@link Channel}s of one thread.
+     */
+    private static final class Statistics {
+        int average;
+
+        void record(int readBytes) {
+            average = average == 0 ? readBytes : average + (readBytes - average) / 8;
+        }
+    }
+
+    private final class HandleImpl implements ExtendedHandle {
+        private int nextReceiveBufferSize;
+        private int average;
+        private boolean scratch;
+
+        HandleImpl(int initial) {
+            nextReceiveBufferSize = initial;
+        }
+
+        @Override
+        public ByteBuf allocate(ByteBufAllocator alloc) {
+            return alloc.ioBuffer(nextReceiveBufferSize);
+        }
+
+        @Override
+        public int guess() {
+            return nextReceiveBufferSize;
+        }
+
+        @Override
+        public void record(int actualReadBytes) {
+            if (actualReadBytes <= 0) {
+                // Nothing to learn from.
+                return;
+            }
+
+            statistics.get().record(actualReadBytes);
+
+            average = average == 0 ? actualReadBytes : average + (actualReadBytes - average) / 4;
+            if (actualReadBytes >= nextReceiveBufferSize) {
+                // The buffer was filled, so grow fast.
+                nextReceiveBufferSize = normalize(Math.max(nextReceiveBufferSize << 1, average));
+            } else {
+                nextReceiveBufferSize = normalize(average);
+            }
+        }
+
+        @Override
+        public ByteBuf allocateForRead(ByteBufAllocator alloc) {
+            if (nextReceiveBufferSize > maxCopySize) {
+                // The previous scratch buffer may have been released without finishRead() after an empty read.
+                scratch = false;
+                return allocate(alloc);
+            }
+
+            ByteBuf buffer = SCRATCH.get().retain();
+            if (maximum < SCRATCH_CAPACITY) {
+                buffer = buffer.slice(0, maximum);
+            }
+            buffer.clear();
+            scratch = true;
+            return buffer;
+        }
+
+        @Override
+        public ByteBuf finishRead(ByteBufAllocator alloc, ByteBuf buffer) {
+            if (!scratch) {
+                return buffer;
+            }
+
+            scratch = false;
+            try {
+                return alloc.ioBuffer(buffer.readableBytes()).writeBytes(buffer);
+            } finally {
+                buffer.release();
+            }
+        }
+
+        @Override
+        public boolean continueReading(int totalReadBytes) {
+            return totalReadBytes < maxBytesPerRead;
+        }
+    }
+
+    private final FastThreadLocal<Statistics> statistics = new FastThreadLocal<Statistics>() {
+        @Override
+        protected Statistics initialValue() throws Exception {
+            return new Statistics();
+        }
+    };
+
+    private final int minimum;
+    private final int initial;
+    private final int maximum;
+    private final int maxBytesPerRead;
+    private final int maxCopySize;
+
+    /**
+     * Creates a new instance with the default parameters. With the default parameters, the expected buffer size
+     * starts from {@code 1024} until the first {@link Channel} of a thread read something, does not go down below
+     * {@code 64}, and does not go up above {@code 65536}. A read loop stops after {@code 262144} bytes and the scratch
+     * buffer is used while the expected buffer size is not larger than {@code 2048}.
+     */
+    public LearningRecvByteBufAllocator() {
+        this(DEFAULT_MINIMUM, DEFAULT_INITIAL, DEFAULT_MAXIMUM, DEFAULT_MAX_BYTES_PER_READ, DEFAULT_MAX_COPY_SIZE);
+    }
+
+    /**
+     * Creates a new instance with the specified parameters.
+     *
+     * @param minimum          the inclusive lower bound of the expected buffer size
+     * @param initial          the initial buffer size when no feed back was received on the current thread
+     * @param maximum          the inclusive upper bound of the expected buffer size
+     * @param maxBytesPerRead  the number of bytes after which a read loop stops
+     * @param maxCopySize      the largest expected buffer size for which the scratch buffer is used, or {@code 0}
+     *                         to disable the scratch buffer
+     */
+    public LearningRecvByteBufAllocator(
+            int minimum, int initial, int maximum, int maxBytesPerRead, int maxCopySize) {
+        if (minimum <= 0) {
+            throw new IllegalArgumentException("minimum: " + minimum);
+        }
+        if (initial < minimum) {
+            throw new IllegalArgumentException("initial: " + initial);
+        }
+        if (maximum < initial) {
+            throw new IllegalArgumentException("maximum: " + maximum);
+        }
+        if (maxBytesPerRead <= 0) {
+            throw new IllegalArgumentException("maxBytesPerRead: " + maxBytesPerRead + " (expected: > 0)");
+        }
+        if (maxCopySize < 0) {
+            throw new IllegalArgumentException("maxCopySize: " + maxCopySize + " (expected: >= 0)");
+        }
+
+        this.minimum = minimum;
+        this.initial = initial;
+        this.maximum = maximum;
+        this.maxBytesPerRead = maxBytesPerRead;
+        this.maxCopySize = maxCopySize;
+    }
+
+    @Override
+    public Handle newHandle() {
+        int average = statistics.get().average;
+        return new HandleImpl(average == 0 ? initial : normalize(average));
+    }
+
+    /**
+     * Rounds the specified size up to the next power of two within the bounds of this allocator.
+     */
+    private int normalize(int size) {
+        if (size <= minimum) {
+            return minimum;
+        }
+        if (size >= maximum) {
+            return maximum;
+        }
+        int normalized = Integer.highestOneBit(size);
+        if (normalized != size) {
+            normalized <<= 1;
+        }
+        return Math.min(normalized, maximum);
+    }
+}
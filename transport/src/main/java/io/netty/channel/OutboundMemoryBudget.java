@@ -0,0 +1,538 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.StringUtil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Bounds the bytes which are pending in the {@link ChannelOutboundBuffer}s of all {@link Channel}s that share it
+ * via {@link ChannelOption#OUTBOUND_MEMORY_BUDGET}, in addition to the per {@link Channel}
+ * {@linkplain ChannelOption#WRITE_BUFFER_HIGH_WATER_MARK high} and
+ * {@linkplain ChannelOption#WRITE_BUFFER_LOW_WATER_MARK low water marks}. The pending bytes are accounted per
+ * {@link EventLoop} and in total.
+ * <p>
+ * Once more than {@link #maxPendingBytes()} are pending the budget is exceeded and the configured {@link Action}s
+ * are taken, until at most {@link #resumePendingBytes()} are pending again. The actions are taken by one task per
+ * {@link EventLoop}, which only touches the {@link Channel}s registered to it.
+ * <p>
+ * The option must be set before the first write, usually via the bootstrap.
+ */
+public final class OutboundMemoryBudget {
+
+    /**
+     * What to do while an {@link OutboundMemoryBudget} is exceeded.
+     */
+    public enum Action {
+        /**
+         * Lower the high water mark of every {@link Channel} to its low water mark, so all {@link Channel}s which
+         * have more than their low water mark pending become unwritable.
+         */
+        MARK_UNWRITABLE,
+        /**
+         * Disable {@linkplain ChannelConfig#setAutoRead(boolean) auto read} of every {@link Channel}, so that no
+         * more inbound data arrives which would be written somewhere. Auto read is enabled again for the same
+         * {@link Channel}s once the budget recovered.
+         */
+        PAUSE_AUTO_READ,
+        /**
+         * Close the {@link Channel}s with the most pending bytes, until closing them would be enough to recover.
+         */
+        CLOSE_WORST_OFFENDERS
+    }
+
+    private static final AtomicLongFieldUpdater<OutboundMemoryBudget> PENDING_BYTES_UPDATER;
+    private static final AtomicLongFieldUpdater<OutboundMemoryBudget> CLOSED_CHANNELS_UPDATER;
+    private static final AtomicIntegerFieldUpdater<OutboundMemoryBudget> EXCEEDED_UPDATER;
+
+    static {
+        AtomicLongFieldUpdater<OutboundMemoryBudget> pendingBytesUpdater =
+                PlatformDependent.newAtomicLongFieldUpdater(OutboundMemoryBudget.class, "pendingBytes");
+        if (pendingBytesUpdater == null) {
+            pendingBytesUpdater = AtomicLongFieldUpdater.newUpdater(OutboundMemoryBudget.class, "pendingBytes");
+        }
+        PENDING_BYTES_UPDATER = pendingBytesUpdater;
+
+        AtomicLongFieldUpdater<OutboundMemoryBudget> closedChannelsUpdater =
+                PlatformDependent.newAtomicLongFieldUpdater(OutboundMemoryBudget.class, "closedChannels");
+        if (closedChannelsUpdater == null) {
+            closedChannelsUpdater = AtomicLongFieldUpdater.newUpdater(OutboundMemoryBudget.class, "closedChannels");
+        }
+        CLOSED_CHANNELS_UPDATER = closedChannelsUpdater;
+
+        AtomicIntegerFieldUpdater<OutboundMemoryBudget> exceededUpdater =
+                PlatformDependent.newAtomicIntegerFieldUpdater(OutboundMemoryBudget.class, "exceeded");
+        if (exceededUpdater == null) {
+            exceededUpdater = AtomicIntegerFieldUpdater.newUpdater(OutboundMemoryBudget.class, "exceeded");
+        }
+        EXCEEDED_UPDATER = exceededUpdater;
+    }
+
+    private final long maxPendingBytes;
+    private final long resumePendingBytes;
+    private final boolean markUnwritable;
+    private final boolean pauseAutoRead;
+    private final boolean closeWorstOffenders;
+    private final ConcurrentMap<EventExecutor, Account> accounts = PlatformDependent.newConcurrentHashMap();
+    // Used for channels which were not registered yet when they were written to, till they are registered.
+    private final Account unregisteredAccount = new Account(this, null);
+
+    private volatile long pendingBytes;
+    private volatile int exceeded;
+    private volatile long exceededCount;
+    private volatile long closedChannels;
+
+    /**
+     * Creates a new budget which recovers once at most three quarters of {@code maxPendingBytes} are pending.
+     */
+    public OutboundMemoryBudget(long maxPendingBytes, Action... actions) {
+        this(maxPendingBytes, maxPendingBytes - (maxPendingBytes >>> 2), actions);
+    }
+
+    /**
+     * Creates a new budget.
+     *
+     * @param maxPendingBytes       the budget is exceeded once more bytes are pending
+     * @param resumePendingBytes    the budget recovers once at most this many bytes are pending
+     * @param actions               what to do while the budget is exceeded
+     */
+    public OutboundMemoryBudget(long maxPendingBytes, long resumePendingBytes, Action... actions) {
+        if (maxPendingBytes <= 0) {
+            throw new IllegalArgumentException("maxPendingBytes: " + maxPendingBytes + " (expected: > 0)");
+        }
+        if (resumePendingBytes < 0 || resumePendingBytes > maxPendingBytes) {
+            throw new IllegalArgumentException(
+                    "resumePendingBytes: " + resumePendingBytes + " (expected: 0-" + maxPendingBytes + ')');
+        }
+        if (actions == null) {
+            throw new NullPointerException("actions");
+        }
+
+        this.maxPendingBytes = maxPendingBytes;
+        this.resumePendingBytes = resumePendingBytes;
+
+        boolean markUnwritable = false;
+        boolean pauseAutoRead = false;
+        boolean closeWorstOffenders = false;
+        for (Action a: actions) {
+            if (a == null) {
+                throw new NullPointerException("actions");
+            }
+            switch (a) {
+            case MARK_UNWRITABLE:
+                markUnwritable = true;
+                break;
+            case PAUSE_AUTO_READ:
+                pauseAutoRead = true;
+                break;
+            case CLOSE_WORST_OFFENDERS:
+                closeWorstOffenders = true;
+                break;
+            }
+        }
+        this.markUnwritable = markUnwritable;
+        this.pauseAutoRead = pauseAutoRead;
+        this.closeWorstOffenders = closeWorstOffenders;
+    }
+
+    /**
+     * Returns the number of pending bytes above which this budget is exceeded.
+     */
+    public long maxPendingBytes() {
+        return maxPendingBytes;
+    }
+
+    /**
+     * Returns the number of pending bytes at or below which an exceeded budget recovers.
+     */
+    public long resumePendingBytes() {
+        return resumePendingBytes;
+    }
+
+    /**
+     * Returns {@code true} if this budget is exceeded at the moment.
+     */
+    public boolean isExceeded() {
+        return exceeded != 0;
+    }
+
+    /**
+     * Returns the number of bytes which are pending in all {@link Channel}s using this budget.
+     */
+    public long pendingBytes() {
+        return pendingBytes;
+    }
+
+    /**
+     * Returns the number of bytes which are pending in the {@link Channel}s using this budget that are registered to
+     * the given {@link EventLoop}.
+     */
+    public long pendingBytes(EventLoop eventLoop) {
+        Account account = accounts.get(eventLoop.unwrap());
+        return account == null ? 0 : account.pendingBytes;
+    }
+
+    /**
+     * Returns a snapshot of the pending bytes per {@link EventLoop}.
+     */
+    public Map<EventExecutor, Long> pendingBytesPerEventLoop() {
+        Map<EventExecutor, Long> result = new IdentityHashMap<EventExecutor, Long>();
+        for (Account account: accounts.values()) {
+            result.put(account.executor, account.pendingBytes);
+        }
+        return result;
+    }
+
+    /**
+     * Returns how often this budget was exceeded.
+     */
+    public long exceededCount() {
+        return exceededCount;
+    }
+
+    /**
+     * Returns the number of {@link Channel}s which were closed by {@link Action#CLOSE_WORST_OFFENDERS}.
+     */
+    public long closedChannels() {
+        return closedChannels;
+    }
+
+    /**
+     * Returns the {@link Account} the given {@link ChannelOutboundBuffer} must report its pending bytes to.
+     */
+    Account register(ChannelOutboundBuffer buffer, Channel channel) {
+        Account account = channel.isRegistered() ? account(channel.eventLoop().unwrap()) : unregisteredAccount;
+        account.buffers.add(buffer);
+        if (exceeded != 0 && markUnwritable) {
+            buffer.onBudgetExceeded();
+        }
+        return account;
+    }
+
+    /**
+     * Moves the given {@link ChannelOutboundBuffer}, which has {@code pendingBytes} pending, from the account of the
+     * unregistered {@link Channel}s to the one of the {@link EventLoop} its {@link Channel} was registered to since.
+     */
+    Account move(ChannelOutboundBuffer buffer, Channel channel, long pendingBytes) {
+        Account account = account(channel.eventLoop().unwrap());
+        account.buffers.add(buffer);
+        account.addLocal(pendingBytes);
+        unregisteredAccount.buffers.remove(buffer);
+        unregisteredAccount.addLocal(-pendingBytes);
+        return account;
+    }
+
+    private Account account(EventExecutor executor) {
+        Account account = accounts.get(executor);
+        if (account == null) {
+            Account newAccount = new Account(this, executor);
+            account = accounts.putIfAbsent(executor, newAccount);
+            if (account == null) {
+                account = newAccount;
+            }
+        }
+        return account;
+    }
+
+    private void add(long delta) {
+        long pendingBytes = PENDING_BYTES_UPDATER.addAndGet(this, delta);
+        if (delta > 0) {
+            if (pendingBytes > maxPendingBytes && exceeded == 0 && EXCEEDED_UPDATER.compareAndSet(this, 0, 1)) {
+                onExceeded();
+            }
+        } else if (pendingBytes <= resumePendingBytes && exceeded != 0 &&
+                EXCEEDED_UPDATER.compareAndSet(this, 1, 0)) {
+            onRecovered();
+        }
+    }
+
+    private synchronized void onExceeded() {
+        if (exceeded == 0) {
+            // Recovered already.
+            return;
+        }
+        exceededCount ++;
+
+        // Every EventLoop takes the actions for its own channels, so the work done here only depends on the number
+        // of EventLoops. As the tasks of the same EventLoop run in order and onRecovered() is synchronized as well,
+        // the tasks of a recovery can never overtake the ones of the preceding exceeding.
+        List<Account> accounts = new ArrayList<Account>(this.accounts.values());
+        accounts.add(unregisteredAccount);
+        OffenderSearch search = closeWorstOffenders ? new OffenderSearch(accounts.size()) : null;
+        for (Account account: accounts) {
+            account.execute(new ExceededTask(account, search));
+        }
+    }
+
+    private synchronized void onRecovered() {
+        if (exceeded != 0) {
+            // Exceeded again already.
+            return;
+        }
+
+        for (Account account: accounts.values()) {
+            account.execute(new RecoveredTask(account));
+        }
+        unregisteredAccount.execute(new RecoveredTask(unregisteredAccount));
+    }
+
+    /**
+     * Closes the {@link Channel}s with the most pending bytes out of the ones every {@link EventLoop} reported, until
+     * closing them would be enough to recover.
+     */
+    private void closeWorstOffenders(List<ChannelOutboundBuffer>[] candidates) {
+        int[] next = new int[candidates.length];
+        long pendingBytes = this.pendingBytes;
+        while (pendingBytes > resumePendingBytes) {
+            // Every list is sorted already, so the worst offender is the largest head of all lists.
+            ChannelOutboundBuffer worst = null;
+            long worstPendingBytes = 0;
+            int worstIndex = -1;
+            for (int i = 0; i < candidates.length; i ++) {
+                List<ChannelOutboundBuffer> list = candidates[i];
+                if (list == null || next[i] == list.size()) {
+                    continue;
+                }
+                ChannelOutboundBuffer buffer = list.get(next[i]);
+                long bufferPendingBytes = buffer.totalPendingWriteBytes();
+                if (worst == null || bufferPendingBytes > worstPendingBytes) {
+                    worst = buffer;
+                    worstPendingBytes = bufferPendingBytes;
+                    worstIndex = i;
+                }
+            }
+            if (worst == null || worstPendingBytes == 0) {
+                break;
+            }
+            next[worstIndex] ++;
+            pendingBytes -= worstPendingBytes;
+            CLOSED_CHANNELS_UPDATER.incrementAndGet(this);
+
+            // Never close from within the write which exceeded the budget.
+            final Channel channel = worst.channel();
+            channel.eventLoop().execute(new Runnable() {
+                @Override
+                public void run() {
+                    channel.close();
+                }
+            });
+        }
+    }
+
+    @Override
+    public String toString() {
+        return StringUtil.simpleClassName(this) +
+                "(pendingBytes: " + pendingBytes +
+                ", maxPendingBytes: " + maxPendingBytes +
+                ", resumePendingBytes: " + resumePendingBytes +
+                ", exceeded: " + isExceeded() +
+                ", exceededCount: " + exceededCount +
+                ", closedChannels: " + closedChannels + ')';
+    }
+
+    /**
+     * The pending bytes of the {@link ChannelOutboundBuffer}s of one {@link EventLoop}.
+     */
+    static final class Account {
+
+        /**
+         * Used by {@link ChannelOutboundBuffer}s which do not use a budget.
+         */
+        static final Account NONE = new Account(null, null);
+
+        private static final AtomicLongFieldUpdater<Account> ACCOUNT_PENDING_BYTES_UPDATER;
+
+        static {
+            AtomicLongFieldUpdater<Account> pendingBytesUpdater =
+                    PlatformDependent.newAtomicLongFieldUpdater(Account.class, "pendingBytes");
+            if (pendingBytesUpdater == null) {
+                pendingBytesUpdater = AtomicLongFieldUpdater.newUpdater(Account.class, "pendingBytes");
+            }
+            ACCOUNT_PENDING_BYTES_UPDATER = pendingBytesUpdater;
+        }
+
+        private final OutboundMemoryBudget budget;
+        private final EventExecutor executor;
+        private final Set<ChannelOutboundBuffer> buffers =
+                Collections.newSetFromMap(PlatformDependent.<ChannelOutboundBuffer, Boolean>newConcurrentHashMap());
+        // The channels whose auto read was disabled by the budget. Only accessed by the tasks of this account, which
+        // run one after another.
+        private final List<Channel> pausedChannels = new ArrayList<Channel>();
+        private volatile long pendingBytes;
+
+        private Account(OutboundMemoryBudget budget, EventExecutor executor) {
+            this.budget = budget;
+            this.executor = executor;
+        }
+
+        void add(long delta) {
+            if (budget != null) {
+                ACCOUNT_PENDING_BYTES_UPDATER.addAndGet(this, delta);
+                budget.add(delta);
+            }
+        }
+
+        private void addLocal(long delta) {
+            ACCOUNT_PENDING_BYTES_UPDATER.addAndGet(this, delta);
+        }
+
+        /**
+         * Returns {@code true} if this is the account of the {@link Channel}s which were not registered yet when
+         * they were written to.
+         */
+        boolean isUnregistered() {
+            return budget != null && executor == null;
+        }
+
+        OutboundMemoryBudget budget() {
+            return budget;
+        }
+
+        /**
+         * Runs the task on the {@link EventLoop} of this account. The account of the unregistered {@link Channel}s
+         * has none, so its task runs right away, just like the task of a terminated {@link EventLoop}.
+         */
+        private void execute(Runnable task) {
+            if (executor != null) {
+                try {
+                    executor.execute(task);
+                    return;
+                } catch (RejectedExecutionException ignored) {
+                    // Terminated, so its channels are closed already or about to be.
+                }
+            }
+            task.run();
+        }
+
+        /**
+         * Returns {@code true} if the high water mark must be lowered to the low water mark at the moment.
+         */
+        boolean isExceeded() {
+            return budget != null && budget.markUnwritable && budget.exceeded != 0;
+        }
+
+        /**
+         * Stops accounting the given {@link ChannelOutboundBuffer}, which had {@code pendingBytes} pending.
+         */
+        void unregister(ChannelOutboundBuffer buffer, long pendingBytes) {
+            if (budget != null) {
+                buffers.remove(buffer);
+                add(-pendingBytes);
+            }
+        }
+    }
+
+    private final class ExceededTask implements Runnable {
+        private final Account account;
+        private final OffenderSearch search;
+
+        ExceededTask(Account account, OffenderSearch search) {
+            this.account = account;
+            this.search = search;
+        }
+
+        @Override
+        public void run() {
+            List<ChannelOutboundBuffer> buffers = new ArrayList<ChannelOutboundBuffer>(account.buffers);
+            for (ChannelOutboundBuffer buffer: buffers) {
+                if (markUnwritable) {
+                    buffer.onBudgetExceeded();
+                }
+                if (pauseAutoRead) {
+                    ChannelConfig config = buffer.channel().config();
+                    if (config.isAutoRead()) {
+                        config.setAutoRead(false);
+                        account.pausedChannels.add(buffer.channel());
+                    }
+                }
+            }
+            if (search != null) {
+                search.report(buffers);
+            }
+        }
+    }
+
+    private final class RecoveredTask implements Runnable {
+        private final Account account;
+
+        RecoveredTask(Account account) {
+            this.account = account;
+        }
+
+        @Override
+        public void run() {
+            if (markUnwritable) {
+                for (ChannelOutboundBuffer buffer: account.buffers) {
+                    buffer.onBudgetRecovered();
+                }
+            }
+
+            List<Channel> pausedChannels = account.pausedChannels;
+            for (Channel channel: pausedChannels) {
+                if (channel.isOpen()) {
+                    channel.config().setAutoRead(true);
+                }
+            }
+            pausedChannels.clear();
+        }
+    }
+
+    /**
+     * Collects the {@link ChannelOutboundBuffer}s of every {@link EventLoop}, sorted by their pending bytes, and
+     * lets the {@link EventLoop} which reports last pick the worst offenders out of them.
+     */
+    private final class OffenderSearch {
+        private final List<ChannelOutboundBuffer>[] candidates;
+        private int reported;
+
+        @SuppressWarnings("unchecked")
+        OffenderSearch(int accounts) {
+            candidates = new List[accounts];
+        }
+
+        void report(List<ChannelOutboundBuffer> buffers) {
+            Collections.sort(buffers, new Comparator<ChannelOutboundBuffer>() {
+                @Override
+                public int compare(ChannelOutboundBuffer o1, ChannelOutboundBuffer o2) {
+                    long p1 = o1.totalPendingWriteBytes();
+                    long p2 = o2.totalPendingWriteBytes();
+                    return p1 < p2 ? 1 : p1 > p2 ? -1 : 0;
+                }
+            });
+
+            synchronized (this) {
+                candidates[reported ++] = buffers;
+                if (reported != candidates.length) {
+                    return;
+                }
+            }
+            closeWorstOffenders(candidates);
+        }
+    }
+}
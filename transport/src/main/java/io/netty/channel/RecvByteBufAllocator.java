@@ -51,4 +51,34 @@ public interface RecvByteBufAllocator {
          */
         void record(int actualReadBytes);
     }
+
+    /**
+     * A {@link Handle} which also controls how a transport reads synchronously in a read loop. Transports which read
+     * synchronously check if their {@link Handle} is an {@link ExtendedHandle} and if so use
+     * {@link #allocateForRead(ByteBufAllocator)}, {@link #finishRead(ByteBufAllocator, ByteBuf)} and
+     * {@link #continueReading(int)} instead of {@link #allocate(ByteBufAllocator)} and
+     * {@link ChannelConfig#getMaxMessagesPerRead()}.
+     */
+    interface ExtendedHandle extends Handle {
+        /**
+         * Returns the buffer the transport should read into next. Unlike {@link #allocate(ByteBufAllocator)} the
+         * returned buffer may be shared with other channels of the same thread, so the transport must read into it
+         * synchronously and then pass it to {@link #finishRead(ByteBufAllocator, ByteBuf)} before it allocates
+         * another buffer, or release it if nothing was read.
+         */
+        ByteBuf allocateForRead(ByteBufAllocator alloc);
+
+        /**
+         * Called with the buffer returned by {@link #allocateForRead(ByteBufAllocator)} once data was read into it.
+         * Returns the buffer which should be passed through the {@link ChannelPipeline}, which might be a copy of
+         * the read bytes. The ownership of the specified buffer is transferred to this method, even if it fails.
+         */
+        ByteBuf finishRead(ByteBufAllocator alloc, ByteBuf buffer);
+
+        /**
+         * Returns {@code true} if the transport should try to read once more in the current read loop after it read
+         * {@code totalReadBytes} so far.
+         */
+        boolean continueReading(int totalReadBytes);
+    }
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.util.internal.StringUtil;
+
+/**
+ * Statistics about the select loop of an {@link EventLoop} which multiplexes its channels with a selector (or a
+ * native equivalent like epoll).
+ *
+ * The counters are only updated by the {@link EventLoop} they belong to but can be read from any thread. They are
+ * monotonic, so rates can be calculated by sampling them periodically.
+ */
+public final class SelectMetrics {
+
+    private volatile long selects;
+    private volatile long selectNows;
+    private volatile long wakeups;
+    private volatile long prematureReturns;
+    private volatile long rebuilds;
+
+    /**
+     * Returns the number of blocking select calls.
+     */
+    public long selects() {
+        return selects;
+    }
+
+    /**
+     * Returns the number of non blocking select calls. This includes the calls which were done because of
+     * {@link SelectStrategy#BUSY_WAIT}.
+     */
+    public long selectNows() {
+        return selectNows;
+    }
+
+    /**
+     * Returns the number of times a blocking select was ended by waking up the {@link EventLoop}, for example
+     * because a task was submitted from another thread.
+     */
+    public long wakeups() {
+        return wakeups;
+    }
+
+    /**
+     * Returns the number of blocking select calls which returned before their timeout without any ready channel and
+     * without being woken up.
+     */
+    public long prematureReturns() {
+        return prematureReturns;
+    }
+
+    /**
+     * Returns the number of times the selector was rebuilt because it returned prematurely too often in a row.
+     */
+    public long rebuilds() {
+        return rebuilds;
+    }
+
+    /**
+     * Must only be called by the {@link EventLoop} this instance belongs to.
+     */
+    public void incrementSelects() {
+        selects++;
+    }
+
+    /**
+     * Must only be called by the {@link EventLoop} this instance belongs to.
+     */
+    public void incrementSelectNows() {
+        selectNows++;
+    }
+
+    /**
+     * Must only be called by the {@link EventLoop} this instance belongs to.
+     */
+    public void incrementWakeups() {
+        wakeups++;
+    }
+
+    /**
+     * Must only be called by the {@link EventLoop} this instance belongs to.
+     */
+    public void incrementPrematureReturns() {
+        prematureReturns++;
+    }
+
+    /**
+     * Must only be called by the {@link EventLoop} this instance belongs to.
+     */
+    public void incrementRebuilds() {
+        rebuilds++;
+    }
+
+    @Override
+    public String toString() {
+        return StringUtil.simpleClassName(this) +
+                "(selects: " + selects +
+                ", selectNows: " + selectNows +
+                ", wakeups: " + wakeups +
+                ", prematureReturns: " + prematureReturns +
+                ", rebuilds: " + rebuilds + ')';
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.util.IntSupplier;
+
+/**
+ * Select strategy interface.
+ *
+ * Provides the ability to control the behavior of the select loop of an {@link EventLoop}. For example a blocking
+ * select operation can be delayed or skipped entirely if there are events to process immediately, or the
+ * {@link EventLoop} can busy spin to trade CPU time for latency.
+ */
+public interface SelectStrategy {
+
+    /**
+     * Indicates a blocking select should follow.
+     */
+    int SELECT = -1;
+    /**
+     * Indicates the IO loop should be retried, no blocking select to follow directly.
+     */
+    int CONTINUE = -2;
+    /**
+     * Indicates the IO loop should poll for new events without blocking. Transports which support busy polling
+     * natively may use it, all others just do a non blocking select.
+     */
+    int BUSY_WAIT = -3;
+
+    /**
+     * The {@link SelectStrategy} can be used to steer the outcome of a potential select call.
+     *
+     * @param selectSupplier The supplier with the result of a non blocking select (the number of ready channels).
+     * @param hasTasks true if tasks are waiting to be processed.
+     * @return {@link #SELECT} if the next step should be blocking select, {@link #CONTINUE} if the next step should
+     *         be to not select but rather jump back to the IO loop and try again, {@link #BUSY_WAIT} if the next
+     *         step should be a non blocking select. Any value {@code >= 0} is treated as the number of ready channels
+     *         which was returned by {@code selectSupplier} and so indicates that work needs to be done.
+     */
+    int calculateStrategy(IntSupplier selectSupplier, boolean hasTasks) throws Exception;
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.group;
+
+import io.netty.channel.Channel;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.StringUtil;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Statistics about the {@link ChannelGroup#broadcast(Object, ChannelMatcher, boolean)} calls of a
+ * {@link DefaultChannelGroup}.
+ *
+ * The counters are updated by the {@link io.netty.channel.EventLoop}s of the channels in the group and can be read
+ * from any thread. They are monotonic, so rates can be calculated by sampling them periodically.
+ */
+public final class BroadcastMetrics {
+
+    private static final AtomicLongFieldUpdater<BroadcastMetrics> BROADCASTS_UPDATER;
+    private static final AtomicLongFieldUpdater<BroadcastMetrics> WRITES_UPDATER;
+    private static final AtomicLongFieldUpdater<BroadcastMetrics> SKIPPED_UPDATER;
+
+    static {
+        AtomicLongFieldUpdater<BroadcastMetrics> broadcastsUpdater =
+                PlatformDependent.newAtomicLongFieldUpdater(BroadcastMetrics.class, "broadcasts");
+        if (broadcastsUpdater == null) {
+            broadcastsUpdater = AtomicLongFieldUpdater.newUpdater(BroadcastMetrics.class, "broadcasts");
+        }
+        BROADCASTS_UPDATER = broadcastsUpdater;
+
+        AtomicLongFieldUpdater<BroadcastMetrics> writesUpdater =
+                PlatformDependent.newAtomicLongFieldUpdater(BroadcastMetrics.class, "writes");
+        if (writesUpdater == null) {
+            writesUpdater = AtomicLongFieldUpdater.newUpdater(BroadcastMetrics.class, "writes");
+        }
+        WRITES_UPDATER = writesUpdater;
+
+        AtomicLongFieldUpdater<BroadcastMetrics> skippedUpdater =
+                PlatformDependent.newAtomicLongFieldUpdater(BroadcastMetrics.class, "skipped");
+        if (skippedUpdater == null) {
+            skippedUpdater = AtomicLongFieldUpdater.newUpdater(BroadcastMetrics.class, "skipped");
+        }
+        SKIPPED_UPDATER = skippedUpdater;
+    }
+
+    private volatile long broadcasts;
+    private volatile long writes;
+    private volatile long skipped;
+
+    /**
+     * Returns the number of broadcasts.
+     */
+    public long broadcasts() {
+        return broadcasts;
+    }
+
+    /**
+     * Returns the number of messages which were written to a {@link Channel} by a broadcast.
+     */
+    public long writes() {
+        return writes;
+    }
+
+    /**
+     * Returns the number of times a {@link Channel} was left out of a broadcast because it was not
+     * {@linkplain Channel#isWritable() writable} or not registered.
+     */
+    public long skipped() {
+        return skipped;
+    }
+
+    void incrementBroadcasts() {
+        BROADCASTS_UPDATER.incrementAndGet(this);
+    }
+
+    void add(int writes, int skipped) {
+        if (writes != 0) {
+            WRITES_UPDATER.addAndGet(this, writes);
+        }
+        if (skipped != 0) {
+            SKIPPED_UPDATER.addAndGet(this, skipped);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return StringUtil.simpleClassName(this) +
+                "(broadcasts: " + broadcasts +
+                ", writes: " + writes +
+                ", skipped: " + skipped + ')';
+    }
+}
@@ -20,12 +20,14 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufHolder;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerAdapter;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelId;
 import io.netty.channel.EventLoop;
 import io.netty.channel.ServerChannel;
 import io.netty.util.CharsetUtil;
+import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GlobalEventExecutor;
 
 import java.util.Set;
@@ -169,6 +171,35 @@ public interface ChannelGroup extends Set<Channel>, Comparable<ChannelGroup> {
      */
     ChannelGroupFuture writeAndFlush(Object message, ChannelMatcher matcher);
 
+    /**
+     * Shortcut for calling {@link #broadcast(Object, ChannelMatcher, boolean)} for all {@link Channel}s in this
+     * group without a void promise.
+     */
+    Future<Void> broadcast(Object message);
+
+    /**
+     * Writes and flushes the specified {@code message} to all {@link Channel}s in this group that match the given
+     * {@link ChannelMatcher}, like {@link #writeAndFlush(Object, ChannelMatcher)} does, but with less overhead per
+     * {@link Channel} for groups with many members:
+     * <ul>
+     * <li>The {@link Channel}s are grouped by their {@link EventLoop} and only one task is submitted per
+     *     {@link EventLoop}.</li>
+     * <li>The {@code message} is retained once per {@link Channel}, with a single call per {@link EventLoop},
+     *     and every {@link Channel} writes a {@linkplain ByteBuf#duplicate() duplicate} of it. Pass a
+     *     {@link ByteBuf} or {@link ByteBufHolder} which is encoded already to encode it only once for all
+     *     {@link Channel}s.</li>
+     * <li>{@link Channel}s which are not {@linkplain Channel#isWritable() writable} are skipped.</li>
+     * <li>No {@link ChannelFuture} is kept per {@link Channel}.</li>
+     * </ul>
+     *
+     * @param voidPromise if {@code true} the writes use the {@linkplain Channel#voidPromise() void promise} and
+     *                    the returned {@link Future} is notified once the {@code message} was written to all
+     *                    {@link Channel}s. If {@code false} it is notified once all writes completed, and failed
+     *                    with a {@link ChannelGroupException} which contains the {@link Channel}s whose write
+     *                    failed, if any.
+     */
+    Future<Void> broadcast(Object message, ChannelMatcher matcher, boolean voidPromise);
+
     /**
      * Disconnects all {@link Channel}s in this group from their remote peers.
      *
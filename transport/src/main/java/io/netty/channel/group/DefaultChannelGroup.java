@@ -21,20 +21,27 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelId;
+import io.netty.channel.EventLoop;
 import io.netty.channel.ServerChannel;
+import io.netty.channel.group.DefaultChannelGroupFuture.DefaultEntry;
 import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.DefaultPromise;
 import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.StringUtil;
 
 import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * The default {@link ChannelGroup} implementation.
@@ -52,6 +59,7 @@ public class DefaultChannelGroup extends AbstractSet<Channel> implements Channel
             remove(future.channel());
         }
     };
+    private final BroadcastMetrics broadcastMetrics = new BroadcastMetrics();
 
     /**
      * Creates a new group with a generated name and the provided {@link EventExecutor} to notify the
@@ -339,6 +347,72 @@ public class DefaultChannelGroup extends AbstractSet<Channel> implements Channel
         return new DefaultChannelGroupFuture(this, futures, executor);
     }
 
+    @Override
+    public Future<Void> broadcast(Object message) {
+        return broadcast(message, ChannelMatchers.all(), false);
+    }
+
+    @Override
+    public Future<Void> broadcast(Object message, ChannelMatcher matcher, boolean voidPromise) {
+        if (message == null) {
+            throw new NullPointerException("message");
+        }
+        if (matcher == null) {
+            throw new NullPointerException("matcher");
+        }
+
+        broadcastMetrics.incrementBroadcasts();
+
+        // Group the channels by their EventLoop so that each of them only needs to run a single task.
+        Map<EventLoop, List<Channel>> channelsByLoop = new IdentityHashMap<EventLoop, List<Channel>>();
+        int channels = 0;
+        int unregistered = 0;
+        for (Channel c: nonServerChannels.values()) {
+            if (!matcher.matches(c)) {
+                continue;
+            }
+            if (!c.isRegistered()) {
+                unregistered ++;
+                continue;
+            }
+            EventLoop loop = c.eventLoop().unwrap();
+            List<Channel> loopChannels = channelsByLoop.get(loop);
+            if (loopChannels == null) {
+                loopChannels = new ArrayList<Channel>();
+                channelsByLoop.put(loop, loopChannels);
+            }
+            loopChannels.add(c);
+            channels ++;
+        }
+        broadcastMetrics.add(0, unregistered);
+
+        BroadcastPromise promise = new BroadcastPromise(executor, channels);
+        for (Map.Entry<EventLoop, List<Channel>> e: channelsByLoop.entrySet()) {
+            List<Channel> loopChannels = e.getValue();
+            Channel[] array = loopChannels.toArray(new Channel[loopChannels.size()]);
+            // One reference per channel, released by its write or when it is skipped.
+            ReferenceCountUtil.retain(message, array.length);
+            try {
+                e.getKey().execute(new BroadcastTask(message, array, voidPromise, promise, broadcastMetrics));
+            } catch (Throwable cause) {
+                ReferenceCountUtil.release(message, array.length);
+                for (Channel c: array) {
+                    promise.fail(c, cause);
+                }
+            }
+        }
+
+        ReferenceCountUtil.release(message);
+        return promise;
+    }
+
+    /**
+     * Returns the statistics of the {@link #broadcast(Object, ChannelMatcher, boolean)} calls of this group.
+     */
+    public BroadcastMetrics broadcastMetrics() {
+        return broadcastMetrics;
+    }
+
     @Override
     public int hashCode() {
         return System.identityHashCode(this);
@@ -363,4 +437,128 @@ public class DefaultChannelGroup extends AbstractSet<Channel> implements Channel
     public String toString() {
         return StringUtil.simpleClassName(this) + "(name: " + name() + ", size: " + size() + ')';
     }
+
+    /**
+     * Writes a broadcast message to all channels of the group which are registered to the same {@link EventLoop}.
+     */
+    private static final class BroadcastTask implements Runnable {
+        private final Object message;
+        private final Channel[] channels;
+        private final boolean voidPromise;
+        private final BroadcastPromise promise;
+        private final BroadcastMetrics metrics;
+
+        BroadcastTask(Object message, Channel[] channels, boolean voidPromise, BroadcastPromise promise,
+                      BroadcastMetrics metrics) {
+            this.message = message;
+            this.channels = channels;
+            this.voidPromise = voidPromise;
+            this.promise = promise;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void run() {
+            final Object message = this.message;
+            final Channel[] channels = this.channels;
+
+            // Update the metrics before any write can notify the promise.
+            int skipped = 0;
+            for (int i = 0; i < channels.length; i ++) {
+                if (!channels[i].isWritable()) {
+                    channels[i] = null;
+                    skipped ++;
+                }
+            }
+            metrics.add(channels.length - skipped, skipped);
+
+            for (Channel c: channels) {
+                if (c == null) {
+                    ReferenceCountUtil.release(message);
+                    promise.done();
+                    continue;
+                }
+
+                // The message was retained for every channel already, so the duplicate shares that reference.
+                Object msg;
+                if (message instanceof ByteBuf) {
+                    msg = ((ByteBuf) message).duplicate();
+                } else if (message instanceof ByteBufHolder) {
+                    msg = ((ByteBufHolder) message).duplicate();
+                } else {
+                    msg = message;
+                }
+
+                if (voidPromise) {
+                    c.writeAndFlush(msg, c.voidPromise());
+                    promise.done();
+                } else {
+                    c.writeAndFlush(msg).addListener(promise);
+                }
+            }
+        }
+    }
+
+    /**
+     * The {@link Future} of a broadcast, which is notified once all channels are {@link #done()}.
+     */
+    private static final class BroadcastPromise extends DefaultPromise<Void> implements ChannelFutureListener {
+        private static final AtomicIntegerFieldUpdater<BroadcastPromise> PENDING_UPDATER;
+
+        static {
+            AtomicIntegerFieldUpdater<BroadcastPromise> pendingUpdater =
+                    PlatformDependent.newAtomicIntegerFieldUpdater(BroadcastPromise.class, "pending");
+            if (pendingUpdater == null) {
+                pendingUpdater = AtomicIntegerFieldUpdater.newUpdater(BroadcastPromise.class, "pending");
+            }
+            PENDING_UPDATER = pendingUpdater;
+        }
+
+        private volatile int pending;
+        // Guarded by this promise, only created if a write failed.
+        private List<Map.Entry<Channel, Throwable>> failed;
+
+        BroadcastPromise(EventExecutor executor, int pending) {
+            super(executor);
+            this.pending = pending;
+            if (pending == 0) {
+                setSuccess(null);
+            }
+        }
+
+        @Override
+        public void operationComplete(ChannelFuture future) {
+            if (future.isSuccess()) {
+                done();
+            } else {
+                fail(future.channel(), future.cause());
+            }
+        }
+
+        void fail(Channel channel, Throwable cause) {
+            synchronized (this) {
+                if (failed == null) {
+                    failed = new ArrayList<Map.Entry<Channel, Throwable>>();
+                }
+                failed.add(new DefaultEntry<Channel, Throwable>(channel, cause));
+            }
+            done();
+        }
+
+        void done() {
+            if (PENDING_UPDATER.decrementAndGet(this) != 0) {
+                return;
+            }
+
+            List<Map.Entry<Channel, Throwable>> failed;
+            synchronized (this) {
+                failed = this.failed;
+            }
+            if (failed == null) {
+                trySuccess(null);
+            } else {
+                tryFailure(new ChannelGroupException(failed));
+            }
+        }
+    }
 }
@@ -23,23 +23,30 @@ import io.netty.channel.ChannelMetadata;
 import io.netty.channel.ChannelOutboundBuffer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.ChannelPromise;
-import io.netty.channel.DefaultChannelConfig;
 import io.netty.channel.EventLoop;
 import io.netty.channel.SingleThreadEventLoop;
 import io.netty.util.ReferenceCountUtil;
 import io.netty.util.internal.InternalThreadLocalMap;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
 
 import java.net.SocketAddress;
 import java.nio.channels.AlreadyConnectedException;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.ConnectionPendingException;
 import java.nio.channels.NotYetConnectedException;
-import java.util.ArrayDeque;
-import java.util.Collections;
-import java.util.Queue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * A {@link Channel} for the local transport.
+ * <p>
+ * Each channel owns a bounded ring into which its peer hands over everything it flushes, and the peer's
+ * {@link EventLoop} is woken up at most once per batch. Messages which do not fit into the ring stay in the
+ * {@link ChannelOutboundBuffer} of the writer, so a reader which does not keep up makes the writer unwritable.
+ * If both peers run on the same {@link EventLoop} (see {@link LocalChannelOption#PIN_TO_PEER_EVENT_LOOP}) the
+ * messages are passed to the peer's pipeline directly.
  */
 public class LocalChannel extends AbstractChannel {
 
@@ -47,22 +54,64 @@ public class LocalChannel extends AbstractChannel {
 
     private static final ChannelMetadata METADATA = new ChannelMetadata(false);
 
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(LocalChannel.class);
+
     private static final int MAX_READER_STACK_DEPTH = 8;
+    private static final int RING_CAPACITY;
+
+    private static final AtomicIntegerFieldUpdater<LocalChannel> DELIVERY_SCHEDULED_UPDATER;
+    private static final AtomicIntegerFieldUpdater<LocalChannel> WRITE_PENDING_UPDATER;
+
+    static {
+        int ringCapacity = SystemPropertyUtil.getInt("io.netty.local.ringCapacity", 1024);
+        if (ringCapacity < 16) {
+            ringCapacity = 16;
+        }
+        // Round up to the next power of two.
+        RING_CAPACITY = Integer.highestOneBit(ringCapacity - 1) << 1;
+        if (logger.isDebugEnabled()) {
+            logger.debug("-Dio.netty.local.ringCapacity: {}", RING_CAPACITY);
+        }
+
+        AtomicIntegerFieldUpdater<LocalChannel> deliveryScheduledUpdater =
+                PlatformDependent.newAtomicIntegerFieldUpdater(LocalChannel.class, "deliveryScheduled");
+        if (deliveryScheduledUpdater == null) {
+            deliveryScheduledUpdater = AtomicIntegerFieldUpdater.newUpdater(LocalChannel.class, "deliveryScheduled");
+        }
+        DELIVERY_SCHEDULED_UPDATER = deliveryScheduledUpdater;
 
-    private final ChannelConfig config = new DefaultChannelConfig(this);
-    private final Queue<Object> inboundBuffer = new ArrayDeque<Object>();
+        AtomicIntegerFieldUpdater<LocalChannel> writePendingUpdater =
+                PlatformDependent.newAtomicIntegerFieldUpdater(LocalChannel.class, "writePending");
+        if (writePendingUpdater == null) {
+            writePendingUpdater = AtomicIntegerFieldUpdater.newUpdater(LocalChannel.class, "writePending");
+        }
+        WRITE_PENDING_UPDATER = writePendingUpdater;
+    }
+
+    private final LocalChannelConfig config = new LocalChannelConfig(this);
+    // Written by the peer, read by this channel.
+    private final LocalRingBuffer inboundBuffer = new LocalRingBuffer(RING_CAPACITY);
     private final Runnable readTask = new Runnable() {
         @Override
         public void run() {
-            ChannelPipeline pipeline = pipeline();
-            for (;;) {
-                Object m = inboundBuffer.poll();
-                if (m == null) {
-                    break;
-                }
-                pipeline.fireChannelRead(m);
-            }
-            pipeline.fireChannelReadComplete();
+            readInbound();
+        }
+    };
+
+    // Scheduled by the peer once per batch of messages it added to the inboundBuffer.
+    private final Runnable deliveryTask = new Runnable() {
+        @Override
+        public void run() {
+            deliveryScheduled = 0;
+            finishPeerRead(LocalChannel.this);
+        }
+    };
+
+    // Scheduled by the peer once it made room in its inboundBuffer for the messages this channel could not add.
+    private final Runnable resumeWriteTask = new Runnable() {
+        @Override
+        public void run() {
+            ((LocalUnsafe) unsafe()).resumeWrite();
         }
     };
 
@@ -80,6 +129,8 @@ public class LocalChannel extends AbstractChannel {
     private volatile ChannelPromise connectPromise;
     private volatile boolean readInProgress;
     private volatile boolean registerInProgress;
+    private volatile int deliveryScheduled;
+    private volatile int writePending;
 
     public LocalChannel() {
         super(null);
@@ -210,6 +261,15 @@ public class LocalChannel extends AbstractChannel {
             state = State.CLOSED;
         }
 
+        // Release the messages which were handed over by the peer but never read.
+        for (;;) {
+            Object m = inboundBuffer.poll();
+            if (m == null) {
+                break;
+            }
+            ReferenceCountUtil.release(m);
+        }
+
         final LocalChannel peer = this.peer;
         if (peer != null && peer.isActive()) {
             // Need to execute the close in the correct EventLoop
@@ -246,8 +306,6 @@ public class LocalChannel extends AbstractChannel {
             return;
         }
 
-        ChannelPipeline pipeline = pipeline();
-        Queue<Object> inboundBuffer = this.inboundBuffer;
         if (inboundBuffer.isEmpty()) {
             readInProgress = true;
             return;
@@ -258,14 +316,7 @@ public class LocalChannel extends AbstractChannel {
         if (stackDepth < MAX_READER_STACK_DEPTH) {
             threadLocals.setLocalChannelReaderStackDepth(stackDepth + 1);
             try {
-                for (;;) {
-                    Object received = inboundBuffer.poll();
-                    if (received == null) {
-                        break;
-                    }
-                    pipeline.fireChannelRead(received);
-                }
-                pipeline.fireChannelReadComplete();
+                readInbound();
             } finally {
                 threadLocals.setLocalChannelReaderStackDepth(stackDepth);
             }
@@ -285,54 +336,102 @@ public class LocalChannel extends AbstractChannel {
         }
 
         final LocalChannel peer = this.peer;
-        final ChannelPipeline peerPipeline = peer.pipeline();
-        final EventLoop peerLoop = peer.eventLoop();
+        final LocalRingBuffer peerBuffer = peer.inboundBuffer;
 
-        if (peerLoop == eventLoop()) {
-            for (;;) {
-                Object msg = in.current();
-                if (msg == null) {
+        for (;;) {
+            Object msg = in.current();
+            if (msg == null) {
+                break;
+            }
+
+            // Retain before the hand-over as the peer may release the message before it is removed from 'in'.
+            ReferenceCountUtil.retain(msg);
+            if (!peerBuffer.offer(msg)) {
+                // The ring is full. Let the peer catch up and ask it to resume this write once it made room.
+                deliverToPeer(peer);
+                writePending = 1;
+                if (!peerBuffer.offer(msg)) {
+                    ReferenceCountUtil.release(msg);
                     break;
                 }
-                peer.inboundBuffer.add(msg);
-                ReferenceCountUtil.retain(msg);
-                in.remove();
-            }
-            finishPeerRead(peer, peerPipeline);
-        } else {
-            // Use a copy because the original msgs will be recycled by AbstractChannel.
-            final Object[] msgsCopy = new Object[in.size()];
-            for (int i = 0; i < msgsCopy.length; i ++) {
-                msgsCopy[i] = ReferenceCountUtil.retain(in.current());
-                in.remove();
             }
+            in.remove();
+        }
 
-            peerLoop.execute(new Runnable() {
-                @Override
-                public void run() {
-                    Collections.addAll(peer.inboundBuffer, msgsCopy);
-                    finishPeerRead(peer, peerPipeline);
+        deliverToPeer(peer);
+    }
+
+    /**
+     * Makes the peer read what was added to its inboundBuffer, either directly if it runs on the current thread
+     * or by scheduling its deliveryTask unless it is scheduled already.
+     */
+    private static void deliverToPeer(LocalChannel peer) {
+        final EventLoop peerLoop = peer.eventLoop();
+        if (peerLoop.inEventLoop()) {
+            final InternalThreadLocalMap threadLocals = InternalThreadLocalMap.get();
+            final Integer stackDepth = threadLocals.localChannelReaderStackDepth();
+            if (stackDepth < MAX_READER_STACK_DEPTH) {
+                threadLocals.setLocalChannelReaderStackDepth(stackDepth + 1);
+                try {
+                    finishPeerRead(peer);
+                } finally {
+                    threadLocals.setLocalChannelReaderStackDepth(stackDepth);
                 }
-            });
+                return;
+            }
+        }
+        if (DELIVERY_SCHEDULED_UPDATER.getAndSet(peer, 1) == 0) {
+            peerLoop.execute(peer.deliveryTask);
         }
     }
 
-    private static void finishPeerRead(LocalChannel peer, ChannelPipeline peerPipeline) {
-        if (peer.readInProgress) {
+    private static void finishPeerRead(LocalChannel peer) {
+        if (peer.readInProgress && !peer.inboundBuffer.isEmpty()) {
             peer.readInProgress = false;
-            for (;;) {
-                Object received = peer.inboundBuffer.poll();
-                if (received == null) {
-                    break;
-                }
-                peerPipeline.fireChannelRead(received);
+            peer.readInbound();
+        }
+    }
+
+    /**
+     * Reads at most one ring worth of messages, so that a peer which keeps writing can not starve the
+     * {@link EventLoop}, and resumes the peer's writes if it ran out of room before.
+     */
+    private void readInbound() {
+        final ChannelPipeline pipeline = pipeline();
+        final LocalRingBuffer inboundBuffer = this.inboundBuffer;
+        for (int i = inboundBuffer.capacity(); i > 0; i --) {
+            Object received = inboundBuffer.poll();
+            if (received == null) {
+                break;
             }
-            peerPipeline.fireChannelReadComplete();
+            pipeline.fireChannelRead(received);
+        }
+
+        // Use getAndSet() instead of a volatile read so the writer can not miss the room made above.
+        final LocalChannel peer = this.peer;
+        if (peer != null && WRITE_PENDING_UPDATER.getAndSet(peer, 0) != 0) {
+            peer.eventLoop().execute(peer.resumeWriteTask);
         }
+
+        pipeline.fireChannelReadComplete();
     }
 
     private class LocalUnsafe extends AbstractUnsafe {
 
+        @Override
+        public void register(EventLoop eventLoop, ChannelPromise promise) {
+            final LocalChannel peer = LocalChannel.this.peer;
+            if (peer != null && parent() != null && peer.isRegistered() &&
+                (config.isPinToPeerEventLoop() || peer.config.isPinToPeerEventLoop())) {
+                eventLoop = peer.eventLoop().unwrap();
+            }
+            super.register(eventLoop, promise);
+        }
+
+        void resumeWrite() {
+            flush0();
+        }
+
         @Override
         public void connect(final SocketAddress remoteAddress,
                 SocketAddress localAddress, final ChannelPromise promise) {
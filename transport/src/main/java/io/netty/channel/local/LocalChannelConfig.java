@@ -0,0 +1,69 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.local;
+
+import io.netty.channel.ChannelOption;
+import io.netty.channel.DefaultChannelConfig;
+
+import java.util.Map;
+
+import static io.netty.channel.local.LocalChannelOption.*;
+
+/**
+ * The {@link io.netty.channel.ChannelConfig} of a {@link LocalChannel}.
+ */
+final class LocalChannelConfig extends DefaultChannelConfig {
+
+    private volatile boolean pinToPeerEventLoop;
+
+    LocalChannelConfig(LocalChannel channel) {
+        super(channel);
+    }
+
+    @Override
+    public Map<ChannelOption<?>, Object> getOptions() {
+        return getOptions(super.getOptions(), PIN_TO_PEER_EVENT_LOOP);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T getOption(ChannelOption<T> option) {
+        if (option == PIN_TO_PEER_EVENT_LOOP) {
+            return (T) Boolean.valueOf(isPinToPeerEventLoop());
+        }
+        return super.getOption(option);
+    }
+
+    @Override
+    public <T> boolean setOption(ChannelOption<T> option, T value) {
+        validate(option, value);
+
+        if (option == PIN_TO_PEER_EVENT_LOOP) {
+            setPinToPeerEventLoop((Boolean) value);
+        } else {
+            return super.setOption(option, value);
+        }
+        return true;
+    }
+
+    boolean isPinToPeerEventLoop() {
+        return pinToPeerEventLoop;
+    }
+
+    void setPinToPeerEventLoop(boolean pinToPeerEventLoop) {
+        this.pinToPeerEventLoop = pinToPeerEventLoop;
+    }
+}
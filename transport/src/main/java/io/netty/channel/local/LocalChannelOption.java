@@ -0,0 +1,37 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.local;
+
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoop;
+
+/**
+ * {@link ChannelOption}s which are specific to the local transport.
+ */
+public final class LocalChannelOption {
+    private static final Class<LocalChannelOption> T = LocalChannelOption.class;
+
+    /**
+     * If {@code true} on either end of a connection, the {@link LocalChannel} accepted by a
+     * {@link LocalServerChannel} is registered to the {@link EventLoop} of the channel which connected to it,
+     * regardless of the group it was handed to. Both peers then share one thread and messages are passed to the
+     * peer's pipeline directly instead of via a task.
+     */
+    public static final ChannelOption<Boolean> PIN_TO_PEER_EVENT_LOOP =
+            ChannelOption.valueOf(T, "PIN_TO_PEER_EVENT_LOOP");
+
+    private LocalChannelOption() { }
+}
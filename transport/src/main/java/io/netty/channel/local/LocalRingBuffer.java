@@ -0,0 +1,106 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.local;
+
+import io.netty.util.internal.PlatformDependent;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * A bounded single-producer single-consumer ring which hands the messages of a {@link LocalChannel} over to its
+ * peer. {@link #offer(Object)} must only be called by the writing peer and {@link #poll()} only by the reading one.
+ */
+final class LocalRingBuffer {
+
+    private static final AtomicLongFieldUpdater<LocalRingBuffer> PRODUCER_INDEX_UPDATER;
+    private static final AtomicLongFieldUpdater<LocalRingBuffer> CONSUMER_INDEX_UPDATER;
+
+    static {
+        AtomicLongFieldUpdater<LocalRingBuffer> producerIndexUpdater =
+                PlatformDependent.newAtomicLongFieldUpdater(LocalRingBuffer.class, "producerIndex");
+        if (producerIndexUpdater == null) {
+            producerIndexUpdater = AtomicLongFieldUpdater.newUpdater(LocalRingBuffer.class, "producerIndex");
+        }
+        PRODUCER_INDEX_UPDATER = producerIndexUpdater;
+
+        AtomicLongFieldUpdater<LocalRingBuffer> consumerIndexUpdater =
+                PlatformDependent.newAtomicLongFieldUpdater(LocalRingBuffer.class, "consumerIndex");
+        if (consumerIndexUpdater == null) {
+            consumerIndexUpdater = AtomicLongFieldUpdater.newUpdater(LocalRingBuffer.class, "consumerIndex");
+        }
+        CONSUMER_INDEX_UPDATER = consumerIndexUpdater;
+    }
+
+    private final Object[] buffer;
+    private final int mask;
+
+    private volatile long producerIndex;
+    private volatile long consumerIndex;
+
+    // Only accessed by the producer, caches the last consumerIndex it has seen so that it does not need to read
+    // the consumer's cache line on every offer.
+    private long producerLimit;
+
+    LocalRingBuffer(int capacity) {
+        if (capacity <= 0 || (capacity & capacity - 1) != 0) {
+            throw new IllegalArgumentException("capacity: " + capacity + " (expected: a power of two)");
+        }
+        buffer = new Object[capacity];
+        mask = capacity - 1;
+        producerLimit = capacity;
+    }
+
+    int capacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Adds the given message and returns {@code true}, or returns {@code false} if the ring is full.
+     */
+    boolean offer(Object msg) {
+        final long index = producerIndex;
+        if (index >= producerLimit) {
+            producerLimit = consumerIndex + buffer.length;
+            if (index >= producerLimit) {
+                return false;
+            }
+        }
+        buffer[(int) index & mask] = msg;
+        // Publishes the message to the consumer.
+        PRODUCER_INDEX_UPDATER.lazySet(this, index + 1);
+        return true;
+    }
+
+    /**
+     * Removes and returns the oldest message, or returns {@code null} if the ring is empty.
+     */
+    Object poll() {
+        final long index = consumerIndex;
+        if (index >= producerIndex) {
+            return null;
+        }
+        final int offset = (int) index & mask;
+        final Object msg = buffer[offset];
+        buffer[offset] = null;
+        // Hands the slot back to the producer.
+        CONSUMER_INDEX_UPDATER.lazySet(this, index + 1);
+        return msg;
+    }
+
+    boolean isEmpty() {
+        return consumerIndex >= producerIndex;
+    }
+}
@@ -102,6 +102,9 @@ public abstract class AbstractNioByteChannel extends AbstractNioChannel {
             final ByteBufAllocator allocator = config.getAllocator();
             final int maxMessagesPerRead = config.getMaxMessagesPerRead();
             RecvByteBufAllocator.Handle allocHandle = recvBufAllocHandle();
+            RecvByteBufAllocator.ExtendedHandle extendedHandle =
+                    allocHandle instanceof RecvByteBufAllocator.ExtendedHandle ?
+                            (RecvByteBufAllocator.ExtendedHandle) allocHandle : null;
 
             ByteBuf byteBuf = null;
             int messages = 0;
@@ -110,7 +113,8 @@ public abstract class AbstractNioByteChannel extends AbstractNioChannel {
                 int totalReadAmount = 0;
                 boolean readPendingReset = false;
                 do {
-                    byteBuf = allocHandle.allocate(allocator);
+                    byteBuf = extendedHandle != null ?
+                            extendedHandle.allocateForRead(allocator) : allocHandle.allocate(allocator);
                     int writable = byteBuf.writableBytes();
                     int localReadAmount = doReadBytes(byteBuf);
                     if (localReadAmount <= 0) {
@@ -124,6 +128,12 @@ public abstract class AbstractNioByteChannel extends AbstractNioChannel {
                         readPendingReset = true;
                         setReadPending(false);
                     }
+                    if (extendedHandle != null) {
+                        ByteBuf readBuf = byteBuf;
+                        // finishRead() takes the ownership of the buffer even if it fails.
+                        byteBuf = null;
+                        byteBuf = extendedHandle.finishRead(allocator, readBuf);
+                    }
                     pipeline.fireChannelRead(byteBuf);
                     byteBuf = null;
 
@@ -145,7 +155,8 @@ public abstract class AbstractNioByteChannel extends AbstractNioChannel {
                         // which might mean we drained the recv buffer completely.
                         break;
                     }
-                } while (++ messages < maxMessagesPerRead);
+                } while (extendedHandle != null ?
+                        extendedHandle.continueReading(totalReadAmount) : ++ messages < maxMessagesPerRead);
 
                 pipeline.fireChannelReadComplete();
                 allocHandle.record(totalReadAmount);
@@ -19,7 +19,10 @@ package io.netty.channel.nio;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelException;
 import io.netty.channel.EventLoopException;
+import io.netty.channel.SelectMetrics;
+import io.netty.channel.SelectStrategy;
 import io.netty.channel.SingleThreadEventLoop;
+import io.netty.util.IntSupplier;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.SystemPropertyUtil;
 import io.netty.util.internal.logging.InternalLogger;
@@ -32,6 +35,8 @@ import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.spi.SelectorProvider;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.ConcurrentModificationException;
@@ -96,6 +101,14 @@ public final class NioEventLoop extends SingleThreadEventLoop {
     private SelectedSelectionKeySet selectedKeys;
 
     private final SelectorProvider provider;
+    private final SelectStrategy selectStrategy;
+    private final SelectMetrics metrics = new SelectMetrics();
+    private final IntSupplier selectNowSupplier = new IntSupplier() {
+        @Override
+        public int get() throws Exception {
+            return selectNow();
+        }
+    };
 
     /**
      * Boolean that controls determines if a blocked Selector.select should
@@ -109,12 +122,17 @@ public final class NioEventLoop extends SingleThreadEventLoop {
     private int cancelledKeys;
     private boolean needsToSelectAgain;
 
-    NioEventLoop(NioEventLoopGroup parent, Executor executor, SelectorProvider selectorProvider) {
+    NioEventLoop(NioEventLoopGroup parent, Executor executor, SelectorProvider selectorProvider,
+                 SelectStrategy strategy) {
         super(parent, executor, false);
         if (selectorProvider == null) {
             throw new NullPointerException("selectorProvider");
         }
+        if (strategy == null) {
+            throw new NullPointerException("selectStrategy");
+        }
         provider = selectorProvider;
+        selectStrategy = strategy;
         selector = openSelector();
     }
 
@@ -130,34 +148,82 @@ public final class NioEventLoop extends SingleThreadEventLoop {
             return selector;
         }
 
-        try {
-            SelectedSelectionKeySet selectedKeySet = new SelectedSelectionKeySet();
+        final SelectedSelectionKeySet selectedKeySet = new SelectedSelectionKeySet();
+        Object result = AccessController.doPrivileged(new PrivilegedAction<Object>() {
+            @Override
+            public Object run() {
+                try {
+                    return instrumentSelector(selector, selectedKeySet);
+                } catch (Throwable t) {
+                    return t;
+                }
+            }
+        });
 
-            Class<?> selectorImplClass =
-                    Class.forName("sun.nio.ch.SelectorImpl", false, PlatformDependent.getSystemClassLoader());
+        if (result == Boolean.TRUE && selector.selectedKeys() == selectedKeySet) {
+            selectedKeys = selectedKeySet;
+            logger.trace("Instrumented an optimized java.util.Set into: {}", selector);
+            return selector;
+        }
 
-            // Ensure the current selector implementation is what we can instrument.
-            if (!selectorImplClass.isAssignableFrom(selector.getClass())) {
-                return selector;
-            }
+        selectedKeys = null;
+        if (result == Boolean.FALSE) {
+            // The selector implementation is not the one we can instrument, it was not touched at all.
+            logger.trace("Failed to instrument an optimized java.util.Set into: {}", selector);
+            return selector;
+        }
+
+        // The selector may be instrumented partly, so replace it by a new one which was not touched.
+        if (result instanceof Throwable) {
+            logger.trace("Failed to instrument an optimized java.util.Set into: {}", selector, result);
+        } else {
+            logger.trace("Failed to instrument an optimized java.util.Set into: {}", selector);
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close a selector.", e);
+        }
+        try {
+            return provider.openSelector();
+        } catch (IOException e) {
+            throw new ChannelException("failed to open a new selector", e);
+        }
+    }
 
-            Field selectedKeysField = selectorImplClass.getDeclaredField("selectedKeys");
-            Field publicSelectedKeysField = selectorImplClass.getDeclaredField("publicSelectedKeys");
+    /**
+     * Replace the selected key sets of the {@link Selector} by the given {@link SelectedSelectionKeySet}. Returns
+     * {@code false} if the {@link Selector} is not of the expected type and so was not modified.
+     */
+    private static Boolean instrumentSelector(Selector selector, SelectedSelectionKeySet selectedKeySet)
+            throws Exception {
+        Class<?> selectorImplClass =
+                Class.forName("sun.nio.ch.SelectorImpl", false, PlatformDependent.getSystemClassLoader());
 
-            selectedKeysField.setAccessible(true);
-            publicSelectedKeysField.setAccessible(true);
+        // Ensure the current selector implementation is what we can instrument.
+        if (!selectorImplClass.isAssignableFrom(selector.getClass())) {
+            return Boolean.FALSE;
+        }
 
-            selectedKeysField.set(selector, selectedKeySet);
-            publicSelectedKeysField.set(selector, selectedKeySet);
+        Field selectedKeysField = selectorImplClass.getDeclaredField("selectedKeys");
+        Field publicSelectedKeysField = selectorImplClass.getDeclaredField("publicSelectedKeys");
 
-            selectedKeys = selectedKeySet;
-            logger.trace("Instrumented an optimized java.util.Set into: {}", selector);
-        } catch (Throwable t) {
-            selectedKeys = null;
-            logger.trace("Failed to instrument an optimized java.util.Set into: {}", selector, t);
+        if (PlatformDependent.hasUnsafe()) {
+            // Use Unsafe to replace the fields as setAccessible(true) is denied by newer JDKs unless the
+            // sun.nio.ch package is opened explicitly.
+            long selectedKeysFieldOffset = PlatformDependent.objectFieldOffset(selectedKeysField);
+            long publicSelectedKeysFieldOffset = PlatformDependent.objectFieldOffset(publicSelectedKeysField);
+            PlatformDependent.putObject(selector, selectedKeysFieldOffset, selectedKeySet);
+            PlatformDependent.putObject(selector, publicSelectedKeysFieldOffset, selectedKeySet);
+            return Boolean.TRUE;
         }
 
-        return selector;
+        selectedKeysField.setAccessible(true);
+        publicSelectedKeysField.setAccessible(true);
+
+        selectedKeysField.set(selector, selectedKeySet);
+        publicSelectedKeysField.set(selector, selectedKeySet);
+        return Boolean.TRUE;
     }
 
     @Override
@@ -215,6 +281,13 @@ public final class NioEventLoop extends SingleThreadEventLoop {
         this.ioRatio = ioRatio;
     }
 
+    /**
+     * Returns the {@link SelectMetrics} of this event loop.
+     */
+    public SelectMetrics selectMetrics() {
+        return metrics;
+    }
+
     /**
      * Replaces the current {@link Selector} of this event loop with newly created {@link Selector}s to work
      * around the infamous epoll 100% CPU bug.
@@ -284,6 +357,7 @@ public final class NioEventLoop extends SingleThreadEventLoop {
         }
 
         selector = newSelector;
+        metrics.incrementRebuilds();
 
         try {
             // time to close the old selector as everything else is registered to the new one
@@ -301,9 +375,15 @@ public final class NioEventLoop extends SingleThreadEventLoop {
     protected void run() {
         boolean oldWakenUp = wakenUp.getAndSet(false);
         try {
-            if (hasTasks()) {
+            switch (selectStrategy.calculateStrategy(selectNowSupplier, hasTasks())) {
+            case SelectStrategy.CONTINUE:
+                scheduleExecution();
+                return;
+            case SelectStrategy.BUSY_WAIT:
+                // NIO does not support busy waiting, so just poll without blocking.
                 selectNow();
-            } else {
+                break;
+            case SelectStrategy.SELECT:
                 select(oldWakenUp);
 
                 // 'wakenUp.compareAndSet(false, true)' is always evaluated
@@ -337,6 +417,10 @@ public final class NioEventLoop extends SingleThreadEventLoop {
                 if (wakenUp.get()) {
                     selector.wakeup();
                 }
+                break;
+            default:
+                // The strategy did a selectNow() already and something is ready.
+                break;
             }
 
             cancelledKeys = 0;
@@ -595,9 +679,10 @@ public final class NioEventLoop extends SingleThreadEventLoop {
         }
     }
 
-    void selectNow() throws IOException {
+    int selectNow() throws IOException {
+        metrics.incrementSelectNows();
         try {
-            selector.selectNow();
+            return selector.selectNow();
         } finally {
             // restore wakup state if needed
             if (wakenUp.get()) {
@@ -616,6 +701,7 @@ public final class NioEventLoop extends SingleThreadEventLoop {
                 long timeoutMillis = (selectDeadLineNanos - currentTimeNanos + 500000L) / 1000000L;
                 if (timeoutMillis <= 0) {
                     if (selectCnt == 0) {
+                        metrics.incrementSelectNows();
                         selector.selectNow();
                         selectCnt = 1;
                     }
@@ -624,8 +710,12 @@ public final class NioEventLoop extends SingleThreadEventLoop {
 
                 int selectedKeys = selector.select(timeoutMillis);
                 selectCnt ++;
+                metrics.incrementSelects();
 
                 if (selectedKeys != 0 || oldWakenUp || wakenUp.get() || hasTasks() || hasScheduledTasks()) {
+                    if (selectedKeys == 0 && (oldWakenUp || wakenUp.get() || hasTasks())) {
+                        metrics.incrementWakeups();
+                    }
                     // - Selected something,
                     // - waken up by user, or
                     // - the task queue has a pending task.
@@ -651,21 +741,23 @@ public final class NioEventLoop extends SingleThreadEventLoop {
                 if (time - TimeUnit.MILLISECONDS.toNanos(timeoutMillis) >= currentTimeNanos) {
                     // timeoutMillis elapsed without anything selected.
                     selectCnt = 1;
-                } else if (SELECTOR_AUTO_REBUILD_THRESHOLD > 0 &&
-                        selectCnt >= SELECTOR_AUTO_REBUILD_THRESHOLD) {
-                    // The selector returned prematurely many times in a row.
-                    // Rebuild the selector to work around the problem.
-                    logger.warn(
-                            "Selector.select() returned prematurely {} times in a row; rebuilding selector.",
-                            selectCnt);
-
-                    rebuildSelector();
-                    selector = this.selector;
-
-                    // Select again to populate selectedKeys.
-                    selector.selectNow();
-                    selectCnt = 1;
-                    break;
+                } else {
+                    metrics.incrementPrematureReturns();
+                    if (SELECTOR_AUTO_REBUILD_THRESHOLD > 0 && selectCnt >= SELECTOR_AUTO_REBUILD_THRESHOLD) {
+                        // The selector returned prematurely many times in a row.
+                        // Rebuild the selector to work around the problem.
+                        logger.warn(
+                                "Selector.select() returned prematurely {} times in a row; rebuilding selector.",
+                                selectCnt);
+
+                        rebuildSelector();
+                        selector = this.selector;
+
+                        // Select again to populate selectedKeys.
+                        selector.selectNow();
+                        selectCnt = 1;
+                        break;
+                    }
                 }
 
                 currentTimeNanos = time;
@@ -16,8 +16,10 @@
 package io.netty.channel.nio;
 
 import io.netty.channel.Channel;
+import io.netty.channel.DefaultSelectStrategyFactory;
 import io.netty.channel.EventLoop;
 import io.netty.channel.MultithreadEventLoopGroup;
+import io.netty.channel.SelectStrategyFactory;
 import io.netty.util.concurrent.EventExecutor;
 import io.netty.util.concurrent.ExecutorServiceFactory;
 
@@ -103,7 +105,25 @@ public class NioEventLoopGroup extends MultithreadEventLoopGroup {
      * @param selectorProvider  the {@link SelectorProvider} to use. This value must not be {@code null}.
      */
     public NioEventLoopGroup(int nEventLoops, Executor executor, final SelectorProvider selectorProvider) {
-        super(nEventLoops, executor, selectorProvider);
+        this(nEventLoops, executor, selectorProvider, DefaultSelectStrategyFactory.INSTANCE);
+    }
+
+    /**
+     * @param nEventLoops   the number of {@link EventLoop}s that will be used by this instance.
+     *                      If {@code executor} is {@code null} this number will also be the parallelism
+     *                      requested from the default {@link Executor}. It is generally advised for the number
+     *                      of {@link EventLoop}s and the number of {@link Thread}s used by the
+     *                      {@code executor} to lie close together.
+     *                      If set to {@code 0} the behaviour is the same as documented in
+     *                      {@link #NioEventLoopGroup()}.
+     * @param executor  the {@link Executor} to use, or {@code null} if the default should be used.
+     * @param selectorProvider  the {@link SelectorProvider} to use. This value must not be {@code null}.
+     * @param selectStrategyFactory  the {@link SelectStrategyFactory} which creates the
+     *                               {@link io.netty.channel.SelectStrategy} of each {@link EventLoop}.
+     */
+    public NioEventLoopGroup(int nEventLoops, Executor executor, final SelectorProvider selectorProvider,
+                             final SelectStrategyFactory selectStrategyFactory) {
+        super(nEventLoops, executor, selectorProvider, selectStrategyFactory);
     }
 
     /**
@@ -120,7 +140,27 @@ public class NioEventLoopGroup extends MultithreadEventLoopGroup {
      */
     public NioEventLoopGroup(
             int nEventLoops, ExecutorServiceFactory executorServiceFactory, final SelectorProvider selectorProvider) {
-        super(nEventLoops, executorServiceFactory, selectorProvider);
+        this(nEventLoops, executorServiceFactory, selectorProvider, DefaultSelectStrategyFactory.INSTANCE);
+    }
+
+    /**
+     * @param nEventLoops   the number of {@link EventLoop}s that will be used by this instance.
+     *                      If {@code executorServiceFactory} is {@code null} this number will also be the parallelism
+     *                      requested from the default executor. It is generally advised for the number
+     *                      of {@link EventLoop}s and the number of {@link Thread}s used by the
+     *                      {@code executorServiceFactory} to lie close together.
+     *                      If set to {@code 0} the behaviour is the same as documented in
+     *                      {@link #NioEventLoopGroup()}.
+     * @param executorServiceFactory   the {@link ExecutorServiceFactory} to use, or {@code null} if the
+     *                                 default should be used.
+     * @param selectorProvider  the {@link SelectorProvider} to use. This value must not be {@code null}.
+     * @param selectStrategyFactory  the {@link SelectStrategyFactory} which creates the
+     *                               {@link io.netty.channel.SelectStrategy} of each {@link EventLoop}.
+     */
+    public NioEventLoopGroup(
+            int nEventLoops, ExecutorServiceFactory executorServiceFactory, final SelectorProvider selectorProvider,
+            final SelectStrategyFactory selectStrategyFactory) {
+        super(nEventLoops, executorServiceFactory, selectorProvider, selectStrategyFactory);
     }
 
     /**
@@ -145,6 +185,7 @@ public class NioEventLoopGroup extends MultithreadEventLoopGroup {
 
     @Override
     protected EventLoop newChild(Executor executor, Object... args) throws Exception {
-        return new NioEventLoop(this, executor, (SelectorProvider) args[0]);
+        return new NioEventLoop(this, executor, (SelectorProvider) args[0],
+                ((SelectStrategyFactory) args[1]).newSelectStrategy());
     }
 }
@@ -19,6 +19,7 @@ package io.netty.channel.nio;
 import java.nio.channels.SelectionKey;
 import java.util.AbstractSet;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 final class SelectedSelectionKeySet extends AbstractSet<SelectionKey> {
 
@@ -103,8 +104,34 @@ final class SelectedSelectionKeySet extends AbstractSet<SelectionKey> {
         return false;
     }
 
+    /**
+     * Returns an {@link Iterator} over the keys which were selected since the last {@link #flip()}. The event loop
+     * never uses it, but a JDK may do so internally.
+     */
     @Override
     public Iterator<SelectionKey> iterator() {
-        throw new UnsupportedOperationException();
+        final SelectionKey[] keys = isA ? keysA : keysB;
+        final int size = size();
+        return new Iterator<SelectionKey>() {
+            private int idx;
+
+            @Override
+            public boolean hasNext() {
+                return idx < size;
+            }
+
+            @Override
+            public SelectionKey next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return keys[idx++];
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
     }
 }
@@ -118,6 +118,148 @@ public class ChannelOutboundBufferTest {
         buf.release();
     }
 
+    @Test
+    public void testNioBuffersIncremental() {
+        TestChannel channel = new TestChannel();
+
+        ChannelOutboundBuffer buffer = new ChannelOutboundBuffer(channel);
+        for (int i = 0; i < 100; i++) {
+            ByteBuf buf = directBuffer().writeBytes("buf1".getBytes(CharsetUtil.US_ASCII));
+            buffer.addMessage(buf, buf.readableBytes(), channel.voidPromise());
+        }
+        buffer.addFlush();
+
+        ByteBuffer[] buffers = buffer.nioBuffers();
+        assertEquals(100, buffer.nioBufferCount());
+        assertEquals(400, buffer.nioBufferSize());
+        ByteBuffer second = buffers[1];
+
+        // Write 6 bytes like a gathering write would.
+        buffers[0].position(buffers[0].limit());
+        second.position(second.position() + 2);
+        buffer.removeBytes(6);
+
+        buffers = buffer.nioBuffers();
+        assertEquals(99, buffer.nioBufferCount());
+        assertEquals(394, buffer.nioBufferSize());
+        assertSame(second, buffers[0]);
+        assertEquals(2, buffers[0].remaining());
+        assertNull(buffers[99]);
+
+        for (int i = 0; i < 10; i++) {
+            ByteBuf buf = directBuffer().writeBytes("buf2".getBytes(CharsetUtil.US_ASCII));
+            buffer.addMessage(buf, buf.readableBytes(), channel.voidPromise());
+        }
+        buffer.nioBuffers();
+        assertEquals("Should still be 99 as not flushed yet", 99, buffer.nioBufferCount());
+        buffer.addFlush();
+        buffers = buffer.nioBuffers();
+        assertEquals(109, buffer.nioBufferCount());
+        assertEquals(434, buffer.nioBufferSize());
+        assertSame(second, buffers[0]);
+
+        release(buffer);
+        buffer.nioBuffers();
+        assertEquals(0, buffer.nioBufferCount());
+        assertEquals(0, buffer.nioBufferSize());
+    }
+
+    @Test
+    public void testNioBuffersAfterWriteWithoutNioBuffers() {
+        TestChannel channel = new TestChannel();
+
+        ChannelOutboundBuffer buffer = new ChannelOutboundBuffer(channel);
+        ByteBuf buf = directBuffer().writeBytes("buf1".getBytes(CharsetUtil.US_ASCII));
+        buffer.addMessage(buf, buf.readableBytes(), channel.voidPromise());
+        buffer.addFlush();
+        assertEquals(4, buffer.nioBuffers()[0].remaining());
+
+        // Write 2 bytes of the message directly, which does not touch its cached NIO buffer.
+        buffer.removeBytes(2);
+        assertEquals(2, buf.readableBytes());
+
+        ByteBuffer[] buffers = buffer.nioBuffers();
+        assertEquals(1, buffer.nioBufferCount());
+        assertEquals(2, buffer.nioBufferSize());
+        assertEquals(2, buffers[0].remaining());
+        assertEquals('f', buffers[0].get(buffers[0].position()));
+        release(buffer);
+    }
+
+    @Test
+    public void testNioBuffersShrinkOnceEmpty() {
+        TestChannel channel = new TestChannel();
+
+        ChannelOutboundBuffer buffer = new ChannelOutboundBuffer(channel);
+
+        ByteBuf buf = directBuffer().writeBytes("buf1".getBytes(CharsetUtil.US_ASCII));
+        for (int i = 0; i < 64; i++) {
+            buffer.addMessage(buf.copy(), buf.readableBytes(), channel.voidPromise());
+        }
+        buffer.addFlush();
+        assertThat(buffer.nioBuffers().length, greaterThanOrEqualTo(64));
+
+        // A pending unflushed message keeps the capacity.
+        buffer.addMessage(buf.copy(), buf.readableBytes(), channel.voidPromise());
+        buffer.removeBytes(64 * buf.readableBytes());
+        assertEquals(0, buffer.size());
+        assertThat(buffer.nioBuffers().length, greaterThanOrEqualTo(64));
+
+        buffer.addFlush();
+        buffer.removeBytes(buf.readableBytes());
+        assertTrue(buffer.isEmpty());
+        assertEquals(16, buffer.nioBuffers().length);
+
+        // The buffer is still usable after it was shrunk.
+        for (int i = 0; i < 64; i++) {
+            buffer.addMessage(buf.copy(), buf.readableBytes(), channel.voidPromise());
+        }
+        buffer.addFlush();
+        buffer.nioBuffers();
+        assertEquals(64, buffer.nioBufferCount());
+        release(buffer);
+        buf.release();
+    }
+
+    @Test
+    public void testRingWrapsAndGrows() throws Exception {
+        TestChannel channel = new TestChannel();
+
+        ChannelOutboundBuffer buffer = new ChannelOutboundBuffer(channel);
+        int next = 0;
+        int expected = 0;
+        for (int round = 0; round < 10; round++) {
+            // Add more than is removed, so the ring grows while its head is somewhere in the middle.
+            for (int i = 0; i < 7; i++) {
+                ByteBuf buf = buffer(4).writeInt(next++);
+                buffer.addMessage(buf, buf.readableBytes(), channel.voidPromise());
+            }
+            buffer.addFlush();
+            for (int i = 0; i < 3; i++) {
+                assertEquals(expected++, ((ByteBuf) buffer.current()).getInt(0));
+                assertTrue(buffer.remove());
+            }
+        }
+        assertEquals(40, buffer.size());
+
+        final int[] values = new int[40];
+        buffer.forEachFlushedMessage(new ChannelOutboundBuffer.MessageProcessor() {
+            private int i;
+
+            @Override
+            public boolean processMessage(Object msg) {
+                values[i++] = ((ByteBuf) msg).getInt(0);
+                return true;
+            }
+        });
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(expected + i, values[i]);
+        }
+        release(buffer);
+        assertTrue(buffer.isEmpty());
+        assertNull(buffer.current());
+    }
+
     private static void release(ChannelOutboundBuffer buffer) {
         for (;;) {
             if (!buffer.remove()) {
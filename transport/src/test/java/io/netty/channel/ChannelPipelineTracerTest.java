@@ -0,0 +1,145 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.channel.ChannelPipelineTracer.Event;
+import io.netty.channel.ChannelPipelineTracer.HandlerStats;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ChannelPipelineTracerTest {
+
+    @Test
+    public void testTraceAllInvocations() {
+        ChannelPipelineTracer tracer = new ChannelPipelineTracer(1);
+        EmbeddedChannel ch = new EmbeddedChannel(new OuterHandler(), new InnerHandler());
+        ch.pipeline().tracer(tracer);
+        assertSame(tracer, ch.pipeline().tracer());
+
+        for (int i = 0; i < 8; i ++) {
+            assertTrue(ch.writeInbound(i));
+            assertTrue(ch.writeOutbound(i));
+        }
+
+        Map<Class<?>, HandlerStats> snapshot = tracer.snapshot();
+        HandlerStats outer = snapshot.get(OuterHandler.class);
+        HandlerStats inner = snapshot.get(InnerHandler.class);
+        assertEquals(8, outer.count(Event.CHANNEL_READ));
+        assertEquals(8, inner.count(Event.CHANNEL_READ));
+        assertEquals(8, outer.count(Event.WRITE));
+        assertEquals(8, outer.count(Event.FLUSH));
+        assertEquals(0, inner.count(Event.WRITE));
+
+        // The inner handler spins, so most of the time of the outer handler is spent in the inner handler.
+        assertTrue(outer.totalNanos(Event.CHANNEL_READ) >= inner.totalNanos(Event.CHANNEL_READ));
+        assertTrue(outer.selfNanos(Event.CHANNEL_READ) < inner.selfNanos(Event.CHANNEL_READ));
+        assertTrue(inner.maxNanos(Event.CHANNEL_READ) >= InnerHandler.SPIN_NANOS);
+        assertTrue(inner.selfNanos(Event.CHANNEL_READ) >= 8 * InnerHandler.SPIN_NANOS);
+
+        ch.pipeline().tracer(null);
+        assertTrue(ch.writeInbound(8));
+        assertEquals(8, tracer.snapshot().get(OuterHandler.class).count(Event.CHANNEL_READ));
+
+        tracer.reset();
+        assertTrue(tracer.snapshot().isEmpty());
+        ch.finish();
+    }
+
+    @Test
+    public void testHandlerAddedAfterTracerIsTraced() {
+        ChannelPipelineTracer tracer = new ChannelPipelineTracer(1);
+        EmbeddedChannel ch = new EmbeddedChannel(new OuterHandler());
+        ch.pipeline().tracer(tracer);
+        ch.pipeline().addFirst(new InnerHandler());
+
+        assertTrue(ch.writeInbound(1));
+        assertEquals(1, tracer.snapshot().get(InnerHandler.class).count(Event.CHANNEL_READ));
+        ch.finish();
+    }
+
+    @Test
+    public void testSampling() {
+        ChannelPipelineTracer tracer = new ChannelPipelineTracer(16);
+        EmbeddedChannel ch = new EmbeddedChannel(new OuterHandler(), new InnerHandler());
+        ch.pipeline().tracer(tracer);
+
+        for (int i = 0; i < 64; i ++) {
+            assertTrue(ch.writeInbound(i));
+        }
+
+        HandlerStats outer = tracer.snapshot().get(OuterHandler.class);
+        long count = outer == null ? 0 : outer.count(Event.CHANNEL_READ);
+        assertTrue(count > 0);
+        assertTrue(count < 64);
+        ch.finish();
+    }
+
+    @Test
+    public void testTraceException() {
+        ChannelPipelineTracer tracer = new ChannelPipelineTracer(1);
+        EmbeddedChannel ch = new EmbeddedChannel(new ChannelHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                throw new IllegalStateException();
+            }
+        });
+        ch.pipeline().tracer(tracer);
+
+        try {
+            ch.writeInbound(1);
+            fail();
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+        assertEquals(1, tracer.snapshot().size());
+        assertEquals(1, tracer.snapshot().values().iterator().next().count(Event.CHANNEL_READ));
+        ch.finish();
+    }
+
+    private static final class OuterHandler extends ChannelHandlerAdapter {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ctx.fireChannelRead(msg);
+        }
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            ctx.write(msg, promise);
+        }
+
+        @Override
+        public void flush(ChannelHandlerContext ctx) {
+            ctx.flush();
+        }
+    }
+
+    private static final class InnerHandler extends ChannelHandlerAdapter {
+        static final long SPIN_NANOS = 100000;
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            long deadline = System.nanoTime() + SPIN_NANOS;
+            while (System.nanoTime() < deadline) {
+                continue;
+            }
+            ctx.fireChannelRead(msg);
+        }
+    }
+}
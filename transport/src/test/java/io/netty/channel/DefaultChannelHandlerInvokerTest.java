@@ -0,0 +1,448 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.local.LocalChannel;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.EventExecutorGroup;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class DefaultChannelHandlerInvokerTest {
+
+    private EventLoopGroup group;
+    private Channel channel;
+    private RecordingHandler recorder;
+
+    @Before
+    public void setUp() throws Exception {
+        group = new DefaultEventLoopGroup(1);
+        recorder = new RecordingHandler();
+        channel = new LocalChannel();
+        channel.pipeline().addLast(recorder);
+        group.register(channel).sync();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        channel.close().awaitUninterruptibly();
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+    }
+
+    @Test(timeout = 10000)
+    public void testCrossThreadWritesAreBatched() throws Exception {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch unblock = new CountDownLatch(1);
+        // Block the EventLoop so all writes end up in the same batch.
+        channel.eventLoop().execute(new Runnable() {
+            @Override
+            public void run() {
+                blocked.countDown();
+                try {
+                    unblock.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        blocked.await();
+
+        List<ChannelFuture> futures = new ArrayList<ChannelFuture>();
+        for (int i = 0; i < 100; i++) {
+            futures.add(channel.writeAndFlush(i));
+        }
+        unblock.countDown();
+
+        for (ChannelFuture future: futures) {
+            assertTrue(future.sync().isSuccess());
+        }
+        List<Object> events = recorder.events();
+        assertEquals(101, events.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, events.get(i));
+        }
+        // All flushes of the batch were merged into one.
+        assertSame(RecordingHandler.FLUSH, events.get(100));
+    }
+
+    @Test(timeout = 10000)
+    public void testCrossThreadWriteOrderPerThread() throws Throwable {
+        final int threads = 4;
+        final int writes = 10000;
+        final CountDownLatch done = new CountDownLatch(threads * writes);
+        final ChannelFutureListener listener = new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception {
+                if (future.isSuccess()) {
+                    done.countDown();
+                }
+            }
+        };
+        List<Thread> producers = new ArrayList<Thread>();
+        for (int i = 0; i < threads; i++) {
+            final int id = i;
+            Thread t = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < writes; j++) {
+                        ChannelFuture f = j % 10 == 9 ? channel.writeAndFlush(new long[] { id, j })
+                                                      : channel.write(new long[] { id, j });
+                        f.addListener(listener);
+                    }
+                }
+            };
+            producers.add(t);
+            t.start();
+        }
+        for (Thread t: producers) {
+            t.join();
+        }
+        done.await();
+
+        long[] next = new long[threads];
+        for (Object event: recorder.events()) {
+            if (event != RecordingHandler.FLUSH) {
+                long[] w = (long[]) event;
+                assertEquals(next[(int) w[0]]++, w[1]);
+            }
+        }
+        for (long n: next) {
+            assertEquals(writes, n);
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testCrossThreadWriteFailsIfRejected() throws Exception {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch unblock = new CountDownLatch(1);
+        channel.eventLoop().execute(new Runnable() {
+            @Override
+            public void run() {
+                blocked.countDown();
+                try {
+                    unblock.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        blocked.await();
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+        unblock.countDown();
+        group.terminationFuture().sync();
+
+        ByteBuf buf = Unpooled.buffer().writeByte(1);
+        ChannelFuture future = channel.writeAndFlush(buf);
+        assertTrue(future.await(5, TimeUnit.SECONDS));
+        assertTrue(future.cause() instanceof RejectedExecutionException);
+        assertEquals(0, buf.refCnt());
+        assertTrue(recorder.events().isEmpty());
+    }
+
+    @Test(timeout = 10000)
+    public void testCrossExecutorEventsAreBatchedInOrder() throws Exception {
+        EventExecutorGroup handlerGroup = new DefaultEventExecutorGroup(1);
+        try {
+            final EventExecutor handlerExecutor = handlerGroup.next();
+            DefaultChannelHandlerInvoker invoker = new DefaultChannelHandlerInvoker(handlerExecutor);
+            final List<Object> events = new ArrayList<Object>();
+            final CountDownLatch done = new CountDownLatch(1);
+            channel.pipeline().addFirst(invoker, "offloaded", new ChannelHandlerAdapter() {
+                @Override
+                public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+                    assertTrue(handlerExecutor.inEventLoop());
+                    events.add(msg);
+                }
+
+                @Override
+                public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+                    events.add(evt);
+                }
+
+                @Override
+                public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+                    events.add("readComplete");
+                    done.countDown();
+                }
+            });
+
+            final CountDownLatch blocked = new CountDownLatch(1);
+            final CountDownLatch unblock = new CountDownLatch(1);
+            // Block the handler executor so all events end up in the same batch.
+            handlerExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    blocked.countDown();
+                    try {
+                        unblock.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            blocked.await();
+
+            long hops = invoker.metrics().hops();
+            long tasks = invoker.metrics().tasks();
+            channel.eventLoop().submit(new Runnable() {
+                @Override
+                public void run() {
+                    ChannelPipeline p = channel.pipeline();
+                    for (int i = 0; i < 100; i++) {
+                        p.fireChannelRead(i);
+                        if (i == 49) {
+                            p.fireUserEventTriggered("event");
+                        }
+                    }
+                    p.fireChannelReadComplete();
+                }
+            }).sync();
+            unblock.countDown();
+            done.await();
+
+            assertEquals(102, events.size());
+            for (int i = 0; i < 50; i++) {
+                assertEquals(i, events.get(i));
+            }
+            assertEquals("event", events.get(50));
+            for (int i = 50; i < 100; i++) {
+                assertEquals(i, events.get(i + 1));
+            }
+            assertEquals("readComplete", events.get(101));
+
+            // Wait until the metrics were updated by the handler executor.
+            handlerExecutor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    // NOOP
+                }
+            }).sync();
+            assertEquals(102, invoker.metrics().hops() - hops);
+            assertEquals(1, invoker.metrics().tasks() - tasks);
+        } finally {
+            channel.pipeline().remove("offloaded");
+            handlerGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testCrossExecutorFlushIsNotReorderedWithClose() throws Exception {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch unblock = new CountDownLatch(1);
+        channel.eventLoop().execute(new Runnable() {
+            @Override
+            public void run() {
+                blocked.countDown();
+                try {
+                    unblock.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        blocked.await();
+
+        channel.writeAndFlush(1);
+        ChannelFuture closeFuture = channel.close();
+        unblock.countDown();
+        closeFuture.sync();
+
+        List<Object> events = recorder.events();
+        assertEquals(3, events.size());
+        assertEquals(1, events.get(0));
+        assertSame(RecordingHandler.FLUSH, events.get(1));
+        assertSame(RecordingHandler.CLOSE, events.get(2));
+    }
+
+    @Test(timeout = 10000)
+    public void testCrossThreadCloseDoesNotOvertakeWritesOfOtherContext() throws Exception {
+        // Only handles writes, so close() skips its context and is queued on the one of the recorder.
+        channel.pipeline().addLast(new WriteOnlyHandler());
+
+        final int writes = 5000;
+        List<ChannelFuture> futures = new ArrayList<ChannelFuture>();
+        for (int i = 0; i < writes; i++) {
+            futures.add(channel.writeAndFlush(i));
+        }
+        channel.close().sync();
+
+        for (ChannelFuture future: futures) {
+            assertTrue(future.await().isSuccess());
+        }
+        List<Object> events = recorder.events();
+        assertSame(RecordingHandler.CLOSE, events.get(events.size() - 1));
+        int next = 0;
+        for (Object event: events) {
+            if (event != RecordingHandler.FLUSH && event != RecordingHandler.CLOSE) {
+                assertEquals(next++, event);
+            }
+        }
+        assertEquals(writes, next);
+    }
+
+    @Test(timeout = 10000)
+    public void testCrossThreadCloseDoesNotOvertakeWriteQueuedWhileDraining() throws Exception {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch unblock = new CountDownLatch(1);
+        channel.pipeline().addLast(new WriteOnlyHandler() {
+            @Override
+            public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+                if (Integer.valueOf(1).equals(msg)) {
+                    // Block while the queue of this context is drained.
+                    blocked.countDown();
+                    unblock.await();
+                }
+                super.write(ctx, msg, promise);
+            }
+        });
+
+        ChannelFuture first = channel.writeAndFlush(1);
+        blocked.await();
+        ChannelFuture second = channel.writeAndFlush(2);
+        ChannelFuture closeFuture = channel.close();
+        unblock.countDown();
+        closeFuture.sync();
+
+        assertTrue(first.await().isSuccess());
+        assertTrue(second.await().isSuccess());
+        // How the flushes are merged depends on when the queue is drained, so only the other events are checked.
+        List<Object> events = recorder.events();
+        events.removeAll(Collections.singleton(RecordingHandler.FLUSH));
+        assertEquals(Arrays.<Object>asList(1, 2, RecordingHandler.CLOSE), events);
+    }
+
+    @Test(timeout = 10000)
+    public void testCrossThreadFlushesOfDifferentContextsAreNotMerged() throws Exception {
+        List<String> events = Collections.synchronizedList(new ArrayList<String>());
+        channel.pipeline().addLast("b", new NamedHandler("b", events));
+        channel.pipeline().addLast("a", new NamedHandler("a", events));
+        ChannelHandlerContext ctxA = channel.pipeline().context("a");
+
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch unblock = new CountDownLatch(1);
+        // Block the EventLoop so all events end up in the same batch.
+        channel.eventLoop().execute(new Runnable() {
+            @Override
+            public void run() {
+                blocked.countDown();
+                try {
+                    unblock.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        blocked.await();
+
+        // Writes and flushes of the channel go to "a", the ones of the context of "a" to "b".
+        channel.write(1);
+        channel.flush();
+        ctxA.write(2);
+        ctxA.flush();
+        channel.flush();
+        unblock.countDown();
+        // The queue was scheduled before, so it has been drained once this task completes.
+        channel.eventLoop().submit(new Runnable() {
+            @Override
+            public void run() {
+                // NOOP
+            }
+        }).sync();
+
+        assertEquals(Arrays.asList("a.write", "a.flush", "b.write", "b.flush", "a.flush"), events);
+    }
+
+    private static final class NamedHandler extends ChannelHandlerAdapter {
+        private final String name;
+        private final List<String> events;
+
+        NamedHandler(String name, List<String> events) {
+            this.name = name;
+            this.events = events;
+        }
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+            events.add(name + ".write");
+            ReferenceCountUtil.release(msg);
+            promise.setSuccess();
+        }
+
+        @Override
+        public void flush(ChannelHandlerContext ctx) throws Exception {
+            events.add(name + ".flush");
+        }
+    }
+
+    private static class WriteOnlyHandler extends ChannelHandlerAdapter {
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+            ctx.write(msg, promise);
+        }
+    }
+
+    private static final class RecordingHandler extends ChannelHandlerAdapter {
+        static final Object FLUSH = new Object();
+        static final Object CLOSE = new Object();
+
+        private final List<Object> events = new ArrayList<Object>();
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+            synchronized (events) {
+                events.add(msg);
+            }
+            ReferenceCountUtil.release(msg);
+            promise.setSuccess();
+        }
+
+        @Override
+        public void flush(ChannelHandlerContext ctx) throws Exception {
+            synchronized (events) {
+                events.add(FLUSH);
+            }
+        }
+
+        @Override
+        public void close(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+            synchronized (events) {
+                events.add(CLOSE);
+            }
+            ctx.close(promise);
+        }
+
+        List<Object> events() {
+            synchronized (events) {
+                return new ArrayList<Object>(events);
+            }
+        }
+    }
+}
@@ -36,6 +36,7 @@ import org.junit.Test;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Queue;
@@ -833,6 +834,91 @@ public class DefaultChannelPipelineTest {
         assertNull(ch.readInbound());
     }
 
+    @Test
+    public void testDispatchOnlyToInterestedHandlers() throws Exception {
+        final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+        EmbeddedChannel ch = new EmbeddedChannel(new ChannelHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+                events.add("read1");
+                ctx.fireChannelRead(msg);
+            }
+        }, new ChannelHandlerAdapter() {
+            @Override
+            public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+                events.add("event2");
+                ctx.fireUserEventTriggered(evt);
+            }
+
+            @Override
+            public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+                events.add("write2");
+                ctx.write(msg, promise);
+            }
+        }, new ChannelHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+                events.add("read3");
+                ctx.fireChannelRead(msg);
+            }
+
+            @Override
+            public void flush(ChannelHandlerContext ctx) throws Exception {
+                events.add("flush3");
+                ctx.flush();
+            }
+        });
+
+        ChannelPipeline p = ch.pipeline();
+        AbstractChannelHandlerContext ctx1 = (AbstractChannelHandlerContext) p.firstContext();
+        AbstractChannelHandlerContext ctx2 = ctx1.next;
+        AbstractChannelHandlerContext ctx3 = ctx2.next;
+
+        // The handler of ctx2 does not handle channelRead(), so ctx1 must dispatch it to ctx3 directly.
+        assertTrue(ch.writeInbound("msg"));
+        assertEquals("msg", ch.readInbound());
+        assertEquals(Arrays.asList("read1", "read3"), events);
+        events.clear();
+
+        p.fireUserEventTriggered("evt");
+        assertEquals(Collections.singletonList("event2"), events);
+        events.clear();
+
+        assertTrue(ch.writeOutbound("out"));
+        assertEquals("out", ch.readOutbound());
+        assertEquals(Arrays.asList("write2", "flush3"), events);
+        events.clear();
+
+        // Remove the handler of ctx3 and ensure ctx1 now dispatches channelRead() straight to the tail,
+        // while the removed context still forwards to the remaining handlers.
+        p.remove(ctx3.handler());
+        assertTrue(ch.writeInbound("msg2"));
+        assertEquals("msg2", ch.readInbound());
+        assertEquals(Collections.singletonList("read1"), events);
+        events.clear();
+
+        ctx3.write("removed");
+        assertEquals(Collections.singletonList("write2"), events);
+        events.clear();
+        ch.flush();
+        assertEquals("removed", ch.readOutbound());
+        assertTrue(events.isEmpty());
+
+        // Adding a handler between ctx1 and ctx2 must make it visible to events triggered by ctx1.
+        p.addAfter(ctx1.name(), "inserted", new ChannelHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+                events.add("inserted");
+                ctx.fireChannelRead(msg);
+            }
+        });
+        assertTrue(ch.writeInbound("msg3"));
+        assertEquals("msg3", ch.readInbound());
+        assertEquals(Arrays.asList("read1", "inserted"), events);
+
+        assertFalse(ch.finish());
+    }
+
     private static int next(AbstractChannelHandlerContext ctx) {
         AbstractChannelHandlerContext next = ctx.next;
         if (next == null) {
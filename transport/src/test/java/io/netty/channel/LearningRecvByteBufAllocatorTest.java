@@ -0,0 +1,154 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.RecvByteBufAllocator.ExtendedHandle;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class LearningRecvByteBufAllocatorTest {
+
+    private static final ByteBufAllocator ALLOC = UnpooledByteBufAllocator.DEFAULT;
+
+    @Test
+    public void testGrowsWhenFilled() {
+        LearningRecvByteBufAllocator allocator = new LearningRecvByteBufAllocator();
+        RecvByteBufAllocator.Handle handle = allocator.newHandle();
+        assertEquals(1024, handle.guess());
+        handle.record(1024);
+        assertEquals(2048, handle.guess());
+        handle.record(8192);
+        assertEquals(4096, handle.guess());
+        handle.record(65536 * 4);
+        assertEquals(65536, handle.guess());
+    }
+
+    @Test
+    public void testShrinks() {
+        LearningRecvByteBufAllocator allocator = new LearningRecvByteBufAllocator();
+        RecvByteBufAllocator.Handle handle = allocator.newHandle();
+        for (int i = 0; i < 32; i++) {
+            handle.record(100);
+        }
+        assertEquals(128, handle.guess());
+        for (int i = 0; i < 32; i++) {
+            handle.record(10);
+        }
+        assertEquals(64, handle.guess());
+    }
+
+    @Test
+    public void testNewHandlesAreSeededPerThread() throws Exception {
+        final LearningRecvByteBufAllocator allocator = new LearningRecvByteBufAllocator();
+        RecvByteBufAllocator.Handle handle = allocator.newHandle();
+        handle.record(300);
+        handle.record(300);
+        assertEquals(512, allocator.newHandle().guess());
+
+        // Another allocator (i.e. listener) does not share the statistics.
+        assertEquals(1024, new LearningRecvByteBufAllocator().newHandle().guess());
+
+        // Neither does another thread.
+        final AtomicInteger guess = new AtomicInteger();
+        Thread t = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                guess.set(allocator.newHandle().guess());
+            }
+        });
+        t.start();
+        t.join();
+        assertEquals(1024, guess.get());
+    }
+
+    @Test
+    public void testReadBudget() {
+        ExtendedHandle handle = (ExtendedHandle) new LearningRecvByteBufAllocator(64, 1024, 65536, 4096, 0)
+                .newHandle();
+        assertTrue(handle.continueReading(0));
+        assertTrue(handle.continueReading(4095));
+        assertFalse(handle.continueReading(4096));
+    }
+
+    @Test
+    public void testScratchBufferIsCopied() {
+        ExtendedHandle handle = (ExtendedHandle) new LearningRecvByteBufAllocator(64, 1024, 65536, 4096, 1024)
+                .newHandle();
+        ByteBuf scratch = handle.allocateForRead(ALLOC);
+        assertEquals(65536, scratch.writableBytes());
+        scratch.writeBytes(new byte[] { 1, 2, 3 });
+
+        ByteBuf buf = handle.finishRead(ALLOC, scratch);
+        assertNotSame(scratch, buf);
+        assertEquals(3, buf.readableBytes());
+        assertEquals(3, buf.capacity());
+        assertEquals(1, buf.getByte(0));
+        assertEquals(3, buf.getByte(2));
+        // The scratch buffer is still owned by the thread.
+        assertEquals(1, scratch.refCnt());
+        buf.release();
+
+        // The next read reuses the same scratch buffer.
+        ByteBuf scratch2 = handle.allocateForRead(ALLOC);
+        assertEquals(0, scratch2.readableBytes());
+        scratch2.release();
+        assertEquals(1, scratch2.refCnt());
+    }
+
+    @Test
+    public void testScratchBufferIsLimitedToMaximum() {
+        ExtendedHandle handle = (ExtendedHandle) new LearningRecvByteBufAllocator(64, 512, 4096, 4096, 1024)
+                .newHandle();
+        ByteBuf scratch = handle.allocateForRead(ALLOC);
+        assertEquals(4096, scratch.writableBytes());
+        scratch.release();
+    }
+
+    @Test
+    public void testNoScratchBufferForLargeReads() {
+        ExtendedHandle handle = (ExtendedHandle) new LearningRecvByteBufAllocator(64, 1024, 65536, 4096, 1024)
+                .newHandle();
+        handle.record(8192);
+        ByteBuf buf = handle.allocateForRead(ALLOC);
+        assertEquals(8192, buf.capacity());
+        assertSame(buf, handle.finishRead(ALLOC, buf));
+        buf.release();
+    }
+
+    @Test
+    public void testNoCopyAfterScratchBufferWasReleased() {
+        ExtendedHandle handle = (ExtendedHandle) new LearningRecvByteBufAllocator(64, 1024, 65536, 4096, 1024)
+                .newHandle();
+
+        // Transports release the buffer without calling finishRead() if nothing was read.
+        ByteBuf scratch = handle.allocateForRead(ALLOC);
+        scratch.release();
+
+        handle.record(8192);
+        ByteBuf buf = handle.allocateForRead(ALLOC);
+        assertEquals(8192, buf.capacity());
+        buf.writeBytes(new byte[] { 1, 2, 3 });
+        assertSame(buf, handle.finishRead(ALLOC, buf));
+        assertEquals(1, buf.refCnt());
+        buf.release();
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.OutboundMemoryBudget.Action;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.local.LocalChannel;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static io.netty.buffer.Unpooled.*;
+import static org.junit.Assert.*;
+
+public class OutboundMemoryBudgetTest {
+
+    @Test
+    public void testAccounting() {
+        OutboundMemoryBudget budget = new OutboundMemoryBudget(1000);
+        EmbeddedChannel ch1 = newChannel(budget);
+        EmbeddedChannel ch2 = newChannel(budget);
+
+        ch1.write(wrappedBuffer(new byte[100]));
+        ch2.write(wrappedBuffer(new byte[50]));
+        assertEquals(150, budget.pendingBytes());
+        // Every EmbeddedChannel has its own EventLoop.
+        assertEquals(100, budget.pendingBytes(ch1.eventLoop()));
+        assertEquals(50, budget.pendingBytes(ch2.eventLoop()));
+        assertFalse(budget.isExceeded());
+
+        ch1.flush();
+        assertEquals(50, budget.pendingBytes());
+
+        ch2.close();
+        assertEquals(0, budget.pendingBytes());
+        assertEquals(Long.valueOf(0), budget.pendingBytesPerEventLoop().get(ch2.eventLoop().unwrap()));
+
+        ch1.finish();
+        releaseOutbound(ch1);
+    }
+
+    @Test
+    public void testMarkUnwritable() {
+        OutboundMemoryBudget budget = new OutboundMemoryBudget(100, 75, Action.MARK_UNWRITABLE);
+        EmbeddedChannel ch1 = newChannel(budget);
+        EmbeddedChannel ch2 = newChannel(budget);
+        EmbeddedChannel ch3 = newChannel(budget);
+
+        ch1.write(wrappedBuffer(new byte[60]));
+        ch3.write(wrappedBuffer(new byte[5]));
+        assertTrue(ch1.isWritable());
+
+        ch2.write(wrappedBuffer(new byte[60]));
+        ch1.runPendingTasks();
+        ch2.runPendingTasks();
+        assertTrue(budget.isExceeded());
+        assertEquals(1, budget.exceededCount());
+        assertFalse(ch1.isWritable());
+        assertFalse(ch2.isWritable());
+        // Below the low water mark.
+        assertTrue(ch3.isWritable());
+        ch3.write(wrappedBuffer(new byte[10]));
+        assertFalse(ch3.isWritable());
+
+        ch1.flush();
+        ch1.runPendingTasks();
+        ch2.runPendingTasks();
+        ch3.runPendingTasks();
+        assertFalse(budget.isExceeded());
+        assertTrue(ch1.isWritable());
+        assertTrue(ch2.isWritable());
+        assertTrue(ch3.isWritable());
+
+        assertFalse(ch2.finish());
+        assertFalse(ch3.finish());
+        ch1.finish();
+        releaseOutbound(ch1);
+    }
+
+    @Test
+    public void testPauseAutoRead() {
+        OutboundMemoryBudget budget = new OutboundMemoryBudget(100, 75, Action.PAUSE_AUTO_READ);
+        EmbeddedChannel ch1 = newChannel(budget);
+        EmbeddedChannel ch2 = newChannel(budget);
+        ch2.config().setAutoRead(false);
+
+        ch1.write(wrappedBuffer(new byte[60]));
+        ch2.write(wrappedBuffer(new byte[60]));
+        assertTrue(budget.isExceeded());
+        // Every EventLoop pauses its own channels.
+        assertTrue(ch1.config().isAutoRead());
+        ch1.runPendingTasks();
+        ch2.runPendingTasks();
+        assertFalse(ch1.config().isAutoRead());
+        assertFalse(ch2.config().isAutoRead());
+        // Only MARK_UNWRITABLE changes the writability.
+        assertTrue(ch1.isWritable());
+
+        ch2.flush();
+        assertFalse(budget.isExceeded());
+        ch1.runPendingTasks();
+        ch2.runPendingTasks();
+        assertTrue(ch1.config().isAutoRead());
+        // Was disabled by the user, not by the budget.
+        assertFalse(ch2.config().isAutoRead());
+
+        assertFalse(ch1.finish());
+        ch2.finish();
+        releaseOutbound(ch2);
+    }
+
+    @Test
+    public void testCloseWorstOffenders() {
+        OutboundMemoryBudget budget = new OutboundMemoryBudget(100, 75, Action.CLOSE_WORST_OFFENDERS);
+        EmbeddedChannel ch1 = newChannel(budget);
+        EmbeddedChannel ch2 = newChannel(budget);
+        EmbeddedChannel ch3 = newChannel(budget);
+
+        ch1.write(wrappedBuffer(new byte[40]));
+        ch2.write(wrappedBuffer(new byte[50]));
+        ch3.write(wrappedBuffer(new byte[30]));
+        assertTrue(budget.isExceeded());
+        // The channels are closed later.
+        assertTrue(ch2.isOpen());
+
+        // Every EventLoop reports its channels, then the worst offender is closed by its own EventLoop.
+        ch1.runPendingTasks();
+        ch2.runPendingTasks();
+        ch3.runPendingTasks();
+        assertTrue(ch2.isOpen());
+        ch2.runPendingTasks();
+        assertTrue(ch1.isOpen());
+        assertFalse(ch2.isOpen());
+        assertTrue(ch3.isOpen());
+        assertEquals(1, budget.closedChannels());
+        assertEquals(70, budget.pendingBytes());
+        assertFalse(budget.isExceeded());
+
+        assertFalse(ch1.finish());
+        assertFalse(ch3.finish());
+        assertEquals(0, budget.pendingBytes());
+    }
+
+    @Test
+    public void testBufferMovesToEventLoopOnRegistration() throws Exception {
+        OutboundMemoryBudget budget = new OutboundMemoryBudget(1000);
+        LocalChannel ch = new LocalChannel();
+        ch.config().setOption(ChannelOption.OUTBOUND_MEMORY_BUDGET, budget);
+        ChannelOutboundBuffer buffer = ch.unsafe().outboundBuffer();
+        buffer.incrementPendingOutboundBytes(100);
+        assertEquals(100, budget.pendingBytes());
+        assertTrue(budget.pendingBytesPerEventLoop().isEmpty());
+
+        EventLoopGroup group = new DefaultEventLoopGroup(1);
+        try {
+            group.register(ch).sync();
+            buffer.incrementPendingOutboundBytes(10);
+            assertEquals(110, budget.pendingBytes());
+            assertEquals(110, budget.pendingBytes(ch.eventLoop()));
+
+            buffer.decrementPendingOutboundBytes(110);
+            assertEquals(0, budget.pendingBytes());
+            assertEquals(0, budget.pendingBytes(ch.eventLoop()));
+        } finally {
+            ch.close().sync();
+            group.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidResumePendingBytes() {
+        new OutboundMemoryBudget(100, 101);
+    }
+
+    private static EmbeddedChannel newChannel(OutboundMemoryBudget budget) {
+        EmbeddedChannel ch = new EmbeddedChannel(new ChannelHandlerAdapter());
+        ch.config().setWriteBufferLowWaterMark(10);
+        ch.config().setOption(ChannelOption.OUTBOUND_MEMORY_BUDGET, budget);
+        return ch;
+    }
+
+    private static void releaseOutbound(EmbeddedChannel ch) {
+        for (;;) {
+            ByteBuf buf = ch.readOutbound();
+            if (buf == null) {
+                break;
+            }
+            buf.release();
+        }
+    }
+}
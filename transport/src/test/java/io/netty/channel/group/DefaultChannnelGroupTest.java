@@ -16,15 +16,32 @@
 package io.netty.channel.group;
 
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerAdapter;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultEventLoopGroup;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.CharsetUtil;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GlobalEventExecutor;
 import org.junit.Test;
 
+import java.nio.channels.NotYetConnectedException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
 public class DefaultChannnelGroupTest {
 
     // Test for #1183
@@ -57,4 +74,114 @@ public class DefaultChannnelGroupTest {
         bossGroup.terminationFuture().sync();
         workerGroup.terminationFuture().sync();
     }
+
+    @Test(timeout = 5000)
+    public void testBroadcast() throws Exception {
+        EventLoopGroup group = new DefaultEventLoopGroup(2);
+        try {
+            DefaultChannelGroup channels = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+            Queue<String> received = new ConcurrentLinkedQueue<String>();
+            for (int i = 0; i < 8; i ++) {
+                channels.add(newDiscardingChannel(group, received));
+            }
+
+            ByteBuf message = Unpooled.copiedBuffer("message", CharsetUtil.US_ASCII);
+            Future<Void> future = channels.broadcast(message).sync();
+
+            assertTrue(future.isSuccess());
+            assertEquals(8, received.size());
+            for (String s: received) {
+                assertEquals("message", s);
+            }
+            assertEquals(0, message.refCnt());
+            assertEquals(1, channels.broadcastMetrics().broadcasts());
+            assertEquals(8, channels.broadcastMetrics().writes());
+            assertEquals(0, channels.broadcastMetrics().skipped());
+
+            channels.close().sync();
+        } finally {
+            group.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testBroadcastSkipsUnwritableChannels() throws Exception {
+        EventLoopGroup group = new DefaultEventLoopGroup(2);
+        try {
+            DefaultChannelGroup channels = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+            Queue<String> received = new ConcurrentLinkedQueue<String>();
+            channels.add(newDiscardingChannel(group, received));
+            channels.add(newDiscardingChannel(group, received));
+
+            // Make a channel unwritable by keeping more than the high water mark in its outbound buffer.
+            Channel unwritable = new LocalChannel();
+            unwritable.config().setWriteBufferLowWaterMark(1);
+            unwritable.config().setWriteBufferHighWaterMark(2);
+            group.register(unwritable).sync();
+            unwritable.write(Unpooled.buffer().writeZero(8));
+            assertFalse(unwritable.isWritable());
+            channels.add(unwritable);
+
+            ByteBuf message = Unpooled.copiedBuffer("message", CharsetUtil.US_ASCII);
+            channels.broadcast(message, ChannelMatchers.all(), true).sync();
+
+            assertEquals(2, received.size());
+            assertEquals(0, message.refCnt());
+            assertEquals(2, channels.broadcastMetrics().writes());
+            assertEquals(1, channels.broadcastMetrics().skipped());
+
+            channels.close().sync();
+        } finally {
+            group.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testBroadcastFailure() throws Exception {
+        EventLoopGroup group = new DefaultEventLoopGroup(2);
+        try {
+            DefaultChannelGroup channels = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+            Queue<String> received = new ConcurrentLinkedQueue<String>();
+            channels.add(newDiscardingChannel(group, received));
+
+            // Writes to a channel which is not connected fail.
+            Channel notConnected = new LocalChannel();
+            group.register(notConnected).sync();
+            channels.add(notConnected);
+
+            ByteBuf message = Unpooled.copiedBuffer("message", CharsetUtil.US_ASCII);
+            Future<Void> future = channels.broadcast(message).await();
+
+            assertFalse(future.isSuccess());
+            ChannelGroupException cause = (ChannelGroupException) future.cause();
+            int failures = 0;
+            for (Map.Entry<Channel, Throwable> e: cause) {
+                assertSame(notConnected, e.getKey());
+                assertTrue(e.getValue() instanceof NotYetConnectedException);
+                failures ++;
+            }
+            assertEquals(1, failures);
+            assertEquals(1, received.size());
+            assertEquals(0, message.refCnt());
+
+            channels.close().sync();
+        } finally {
+            group.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        }
+    }
+
+    private static Channel newDiscardingChannel(EventLoopGroup group, final Queue<String> received)
+            throws Exception {
+        Channel channel = new LocalChannel();
+        channel.pipeline().addLast(new ChannelHandlerAdapter() {
+            @Override
+            public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                received.add(((ByteBuf) msg).toString(CharsetUtil.US_ASCII));
+                ReferenceCountUtil.release(msg);
+                promise.setSuccess();
+            }
+        });
+        group.register(channel).sync();
+        return channel;
+    }
 }
@@ -17,22 +17,32 @@ package io.netty.channel.local;
 
 import io.netty.bootstrap.Bootstrap;
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.AbstractChannel;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerAdapter;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPromise;
 import io.netty.channel.DefaultEventLoopGroup;
 import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.channel.SingleThreadEventLoop;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.Promise;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 import org.junit.Test;
 
 import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
@@ -282,6 +292,176 @@ public class LocalChannelTest {
         sc.close().syncUninterruptibly();
     }
 
+    @Test(timeout = 10000)
+    public void testWritesLargerThanRingAreReadInOrder() throws Exception {
+        final int count = 10000;
+        EventLoopGroup clientGroup = new DefaultEventLoopGroup(1);
+        EventLoopGroup serverGroup = new DefaultEventLoopGroup(1);
+        try {
+            final List<Object> received = Collections.synchronizedList(new ArrayList<Object>());
+            final CountDownLatch latch = new CountDownLatch(count);
+            ServerBootstrap sb = new ServerBootstrap();
+            sb.group(serverGroup)
+              .channel(LocalServerChannel.class)
+              .childHandler(new ChannelInitializer<LocalChannel>() {
+                  @Override
+                  public void initChannel(LocalChannel ch) throws Exception {
+                      ch.pipeline().addLast(new ChannelHandlerAdapter() {
+                          @Override
+                          public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                              received.add(msg);
+                              latch.countDown();
+                          }
+                      });
+                  }
+              });
+            LocalAddress addr = new LocalAddress(LOCAL_ADDR_ID);
+            Channel sc = sb.bind(addr).sync().channel();
+
+            Bootstrap cb = new Bootstrap();
+            cb.group(clientGroup)
+              .channel(LocalChannel.class)
+              .handler(new TestHandler());
+            Channel cc = cb.connect(addr).sync().channel();
+
+            for (int i = 0; i < count; i ++) {
+                cc.write(i, cc.voidPromise());
+            }
+            cc.flush();
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < count; i ++) {
+                assertEquals(i, received.get(i));
+            }
+
+            cc.close().sync();
+            sc.close().sync();
+        } finally {
+            serverGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).await();
+            clientGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).await();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testWriterIsUnwritableWhilePeerDoesNotRead() throws Exception {
+        final int count = 4096;
+        EventLoopGroup clientGroup = new DefaultEventLoopGroup(1);
+        EventLoopGroup serverGroup = new DefaultEventLoopGroup(1);
+        try {
+            final Promise<Channel> accepted = serverGroup.next().newPromise();
+            final CountDownLatch latch = new CountDownLatch(count);
+            ServerBootstrap sb = new ServerBootstrap();
+            sb.group(serverGroup)
+              .channel(LocalServerChannel.class)
+              .childOption(ChannelOption.AUTO_READ, false)
+              .childHandler(new ChannelInitializer<LocalChannel>() {
+                  @Override
+                  public void initChannel(LocalChannel ch) throws Exception {
+                      ch.pipeline().addLast(new ChannelHandlerAdapter() {
+                          @Override
+                          public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                              ReferenceCountUtil.release(msg);
+                              latch.countDown();
+                          }
+                      });
+                      accepted.setSuccess(ch);
+                  }
+              });
+            LocalAddress addr = new LocalAddress(LOCAL_ADDR_ID);
+            Channel sc = sb.bind(addr).sync().channel();
+
+            Bootstrap cb = new Bootstrap();
+            cb.group(clientGroup)
+              .channel(LocalChannel.class)
+              .handler(new TestHandler());
+            final Channel cc = cb.connect(addr).sync().channel();
+            Channel child = accepted.sync().getNow();
+
+            ChannelPromise lastWrite = cc.newPromise();
+            for (int i = 0; i < count; i ++) {
+                ByteBuf buf = Unpooled.buffer(64).writeZero(64);
+                cc.write(buf, i == count - 1 ? lastWrite : cc.voidPromise());
+            }
+            cc.flush();
+
+            // Only what fits into the peer's ring was handed over, the rest is still accounted to the writer.
+            Callable<Boolean> isWritable = new Callable<Boolean>() {
+                @Override
+                public Boolean call() {
+                    return cc.isWritable();
+                }
+            };
+            assertFalse(cc.eventLoop().submit(isWritable).get());
+            assertFalse(lastWrite.isDone());
+            assertEquals(count, latch.getCount());
+
+            // Once the peer reads again the writer is resumed until everything was handed over.
+            child.config().setAutoRead(true);
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            lastWrite.sync();
+            assertTrue(cc.eventLoop().submit(isWritable).get());
+
+            cc.close().sync();
+            sc.close().sync();
+        } finally {
+            serverGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).await();
+            clientGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).await();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testPinToPeerEventLoop() throws Exception {
+        EventLoopGroup clientGroup = new DefaultEventLoopGroup(1);
+        EventLoopGroup serverGroup = new DefaultEventLoopGroup(1);
+        try {
+            final Promise<Channel> accepted = serverGroup.next().newPromise();
+            final List<Object> received = Collections.synchronizedList(new ArrayList<Object>());
+            ServerBootstrap sb = new ServerBootstrap();
+            sb.group(serverGroup)
+              .channel(LocalServerChannel.class)
+              .childOption(LocalChannelOption.PIN_TO_PEER_EVENT_LOOP, true)
+              .childHandler(new ChannelInitializer<LocalChannel>() {
+                  @Override
+                  public void initChannel(LocalChannel ch) throws Exception {
+                      ch.pipeline().addLast(new ChannelHandlerAdapter() {
+                          @Override
+                          public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                              received.add(msg);
+                          }
+                      });
+                      accepted.setSuccess(ch);
+                  }
+              });
+            LocalAddress addr = new LocalAddress(LOCAL_ADDR_ID);
+            Channel sc = sb.bind(addr).sync().channel();
+
+            Bootstrap cb = new Bootstrap();
+            cb.group(clientGroup)
+              .channel(LocalChannel.class)
+              .handler(new TestHandler());
+            final Channel cc = cb.connect(addr).sync().channel();
+            Channel child = accepted.sync().getNow();
+
+            assertSame(cc.eventLoop().unwrap(), child.eventLoop().unwrap());
+
+            // The peer's pipeline is invoked directly from within the flush.
+            assertEquals(1, (int) cc.eventLoop().submit(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    cc.writeAndFlush("direct");
+                    return received.size();
+                }
+            }).get());
+            assertEquals("direct", received.get(0));
+
+            cc.close().sync();
+            sc.close().sync();
+        } finally {
+            serverGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).await();
+            clientGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).await();
+        }
+    }
+
     static class TestHandler extends ChannelHandlerAdapter {
         @Override
         public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.nio;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerAdapter;
+import io.netty.channel.SelectMetrics;
+import io.netty.channel.SelectStrategy;
+import io.netty.channel.SelectStrategyFactory;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.IntSupplier;
+import org.junit.Test;
+
+import java.nio.channels.spi.SelectorProvider;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class NioEventLoopTest {
+
+    @Test(timeout = 10000)
+    public void testBusyWaitSelectStrategy() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        NioEventLoopGroup group = new NioEventLoopGroup(1, (Executor) null,
+                SelectorProvider.provider(), new SelectStrategyFactory() {
+            @Override
+            public SelectStrategy newSelectStrategy() {
+                return new SelectStrategy() {
+                    @Override
+                    public int calculateStrategy(IntSupplier selectSupplier, boolean hasTasks) throws Exception {
+                        calls.incrementAndGet();
+                        return hasTasks ? selectSupplier.get() : SelectStrategy.BUSY_WAIT;
+                    }
+                };
+            }
+        });
+        try {
+            NioEventLoop loop = (NioEventLoop) group.next();
+            final CountDownLatch latch = new CountDownLatch(1);
+            loop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    latch.countDown();
+                }
+            });
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+            // The loop spins without ever blocking in select.
+            while (calls.get() < 100) {
+                Thread.sleep(10);
+            }
+            SelectMetrics metrics = loop.selectMetrics();
+            assertEquals(0, metrics.selects());
+            assertTrue(metrics.selectNows() > 0);
+        } finally {
+            group.shutdownGracefully().syncUninterruptibly();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testSelectMetrics() throws Exception {
+        NioEventLoopGroup group = new NioEventLoopGroup(1);
+        try {
+            final NioEventLoop loop = (NioEventLoop) group.next();
+            Channel channel = new ServerBootstrap().group(group).channel(NioServerSocketChannel.class)
+                    .childHandler(new ChannelHandlerAdapter()).bind(0).sync().channel();
+
+            assertTrue(loop.selector.selectedKeys() instanceof SelectedSelectionKeySet);
+
+            // Give the loop time to block in select and wake it up with a task from another thread.
+            Thread.sleep(100);
+            final CountDownLatch latch = new CountDownLatch(1);
+            loop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    latch.countDown();
+                }
+            });
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+            SelectMetrics metrics = loop.selectMetrics();
+            assertTrue(metrics.selects() > 0);
+            assertTrue(metrics.wakeups() > 0);
+            assertEquals(0, metrics.rebuilds());
+
+            loop.rebuildSelector();
+            loop.submit(new Runnable() {
+                @Override
+                public void run() {
+                    // NOOP
+                }
+            }).sync();
+            assertEquals(1, metrics.rebuilds());
+            // The new selector uses the optimized key set as well.
+            assertTrue(loop.selector.selectedKeys() instanceof SelectedSelectionKeySet);
+            assertTrue(channel.isRegistered());
+            assertTrue(channel.isActive());
+            channel.close().sync();
+        } finally {
+            group.shutdownGracefully().syncUninterruptibly();
+        }
+    }
+}